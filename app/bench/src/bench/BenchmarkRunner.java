@@ -0,0 +1,37 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of all JMH benchmarks in this module, with GC and allocation profiling ({@link GCProfiler}) enabled<br>
+ * <br>
+ * Accepts standard JMH command line options, e.g. to run only integration benchmarks with a single size
+ * <pre>
+ *     bench.BenchmarkRunner IntegrationBenchmark -p n=10000
+ * </pre>
+ * Benchmarks are generated by the JMH annotation processor, which must be enabled for this module
+ * */
+public class BenchmarkRunner {
+
+    public static final String DEFAULT_INCLUDE = "bench\\..*Benchmark";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions cmd = new CommandLineOptions(args);
+
+        final OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        builder.addProfiler(GCProfiler.class);
+        if (cmd.getIncludes().isEmpty()) {
+            builder.include(DEFAULT_INCLUDE);
+        }
+
+        final Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import org.apache.commons.math3.complex.Complex;
+import org.openjdk.jmh.annotations.*;
+import util.main.ComplexUtil;
+import util.main.FFT;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full spectrum of {@link #size} complex samples. Sizes include powers of 2, smooth composites and a prime (Bluestein)
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FftBenchmark {
+
+    @Param({"256", "1000", "4099", "65536"})
+    public int size;
+
+    private Complex[] samples;
+    private double[] interleaved;
+    private double[] buffer;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(size);
+        samples = new Complex[size];
+        interleaved = new double[size * 2];
+
+        for (int i = 0; i < size; i++) {
+            final double re = random.nextGaussian(), im = random.nextGaussian();
+            samples[i] = new Complex(re, im);
+            interleaved[i << 1] = re;
+            interleaved[(i << 1) + 1] = im;
+        }
+
+        buffer = new double[interleaved.length];
+    }
+
+    @Benchmark
+    public Complex[] fftSpectrum() {
+        return ComplexUtil.FftTest.fftSpectrum(samples);
+    }
+
+    @Benchmark
+    public double[] fftInterleaved() {
+        System.arraycopy(interleaved, 0, buffer, 0, buffer.length);
+        FFT.forward(buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import function.definition.ComplexFunctionI;
+import function.internal.basic.SineSignal;
+import org.apache.commons.math3.complex.Complex;
+import org.openjdk.jmh.annotations.*;
+import util.main.ComplexUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numerical integration and Fourier Series coefficient of a sine signal, over interval counts {@link #n}
+ * <pre>
+ *     fourierSeriesCoefficientDirect: Simpson 1/3 over the integrand, sampling the function on every call
+ *     fourierSeriesCoefficientCached: shared cached samples, see {@link util.main.FunctionSampleCache}
+ * </pre>
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntegrationBenchmark {
+
+    public static final double SIGNAL_FREQUENCY = 5;
+    public static final double COEFFICIENT_FREQUENCY = 3.5;
+
+    @Param({"100", "10000", "100000"})
+    public int n;
+
+    private SineSignal function;
+    private ComplexFunctionI integrand;
+    private double a, b;
+
+    @Setup
+    public void setup() {
+        function = new SineSignal(SIGNAL_FREQUENCY, 1);
+        integrand = ComplexUtil.fourierTransformIntegrand((ComplexFunctionI) function, COEFFICIENT_FREQUENCY);
+        a = function.getDomainStart();
+        b = function.getDomainEnd();
+    }
+
+    @Benchmark
+    public Complex simpson13() {
+        return ComplexUtil.simpson13(integrand, a, b, n);
+    }
+
+    @Benchmark
+    public Complex simpson38() {
+        return ComplexUtil.simpson38(integrand, a, b, n);
+    }
+
+    @Benchmark
+    public Complex fourierSeriesCoefficientDirect() {
+        return ComplexUtil.fourierSeriesCoefficient((ComplexFunctionI) function, COEFFICIENT_FREQUENCY, a, b, n);
+    }
+
+    @Benchmark
+    public Complex fourierSeriesCoefficientCached() {
+        return ComplexUtil.fourierSeriesCoefficient(function, COEFFICIENT_FREQUENCY, n);
+    }
+}
@@ -0,0 +1,111 @@
+package bench;
+
+import function.path.PathFunctionMerger;
+import org.apache.batik.parser.ParseException;
+import org.apache.commons.math3.complex.Complex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import util.SvgPathParser;
+import util.main.PathUtil;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path sampling and SVG parsing, over closed paths of {@link #segments} cubic segments
+ * <pre>
+ *     mergerCompute: {@link #SAMPLE_COUNT} samples of {@link PathFunctionMerger#compute(double)} over the whole domain
+ *     svgExtractPaths: extraction of path data from an SVG file of {@link #SVG_PATH_COUNT} such paths
+ *     parsePathData: parsing of a single path data string to a shape
+ * </pre>
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+
+    public static final int SAMPLE_COUNT = 10000;
+    public static final int SVG_PATH_COUNT = 16;
+
+    @Param({"16", "256", "4096"})
+    public int segments;
+
+    private PathFunctionMerger merger;
+    private String pathData;
+    private Path svgFile;
+    private SvgPathParser parser;
+
+    /* Closed flower like curve, as svg path data */
+    private static String createPathData(int segments) {
+        final StringBuilder sb = new StringBuilder(segments * 64);
+        final double step = 2 * Math.PI / segments;
+
+        sb.append(String.format(Locale.US, "M %.4f %.4f", radius(0), 0d));
+        for (int i = 0; i < segments; i++) {
+            final double a0 = i * step, a1 = a0 + step;
+            final double c0 = a0 + step / 3, c1 = a0 + 2 * step / 3;
+            sb.append(String.format(Locale.US, " C %.4f %.4f %.4f %.4f %.4f %.4f",
+                    radius(c0) * Math.cos(c0), radius(c0) * Math.sin(c0),
+                    radius(c1) * Math.cos(c1), radius(c1) * Math.sin(c1),
+                    radius(a1) * Math.cos(a1), radius(a1) * Math.sin(a1)));
+        }
+
+        return sb.append(" Z").toString();
+    }
+
+    private static double radius(double angle) {
+        return 100 + 30 * Math.sin(7 * angle);
+    }
+
+    @Setup
+    public void setup() throws ParseException, IOException {
+        pathData = createPathData(segments);
+        merger = PathFunctionMerger.create(PathUtil.parsePathDataString(pathData));
+
+        final StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"-200 -200 400 400\">\n");
+        for (int i = 0; i < SVG_PATH_COUNT; i++) {
+            svg.append("  <path id=\"p").append(i).append("\" d=\"").append(pathData).append("\"/>\n");
+        }
+
+        svg.append("</svg>\n");
+        svgFile = Files.createTempFile("bench", ".svg");
+        Files.writeString(svgFile, svg, StandardCharsets.UTF_8);
+
+        parser = new SvgPathParser("#", "|", "[|]", StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(svgFile);
+    }
+
+    @Benchmark
+    public void mergerCompute(Blackhole bh) {
+        final double start = merger.getDomainStart();
+        final double step = merger.getDomainRange() / SAMPLE_COUNT;
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            final Complex c = merger.compute(start + (i * step));
+            bh.consume(c);
+        }
+    }
+
+    @Benchmark
+    public List<String> svgExtractPaths() throws IOException, XMLStreamException {
+        return parser.extractPathsFromSvg(svgFile);
+    }
+
+    @Benchmark
+    public Object parsePathData() throws ParseException {
+        return PathUtil.parsePathDataString(pathData);
+    }
+}
@@ -0,0 +1,73 @@
+package bench;
+
+import org.apache.commons.math3.complex.Complex;
+import org.openjdk.jmh.annotations.*;
+import rotor.EpicycleKernel;
+import rotor.RotorState;
+import rotor.RotorTable;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of chained rotor tips for a frame, over {@link #count} rotors with harmonic frequencies
+ * <pre>
+ *     getTip: one {@link RotorState#getTip(double)} per rotor, as originally rendered
+ *     kernelPartialSums: all partial sums at once, see {@link EpicycleKernel}
+ * </pre>
+ * Input is advanced by a fixed frame step on every invocation
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotorBenchmark {
+
+    public static final double FRAME_STEP = 1 / 6000d;
+
+    @Param({"100", "1000", "10000"})
+    public int count;
+
+    private RotorState[] states;
+    private EpicycleKernel kernel;
+    private double[] partialSums;
+    private double input;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(count);
+        states = new RotorState[count];
+
+        for (int i = 0; i < count; i++) {
+            final int k = ((i & 1) == 0? 1: -1) * ((i + 1) >> 1);         // 0, -1, 1, -2, 2 ...
+            states[i] = new RotorState(k, new Complex(random.nextGaussian() / (i + 1), random.nextGaussian() / (i + 1)));
+        }
+
+        kernel = EpicycleKernel.of(RotorTable.of(states));
+        partialSums = new double[count * 2];
+        input = 0;
+    }
+
+    @Benchmark
+    public double getTip() {
+        input += FRAME_STEP;
+
+        double re = 0, im = 0;
+        for (RotorState state: states) {
+            final Complex tip = state.getTip(input);
+            re += tip.getReal();
+            im += tip.getImaginary();
+        }
+
+        return re + im;
+    }
+
+    @Benchmark
+    public double[] kernelPartialSums() {
+        input += FRAME_STEP;
+        kernel.partialSums(input, partialSums);
+        return partialSums;
+    }
+}
@@ -0,0 +1,142 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import util.SvgPathParser;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path extraction from large SVG files of about {@link #sizeMb} MB, made of many small grouped paths as exported by vector editors
+ * <pre>
+ *     staxExtractPaths: streaming extraction by {@link SvgPathParser}, elements handed over as read
+ *     staxWritePaths: streaming conversion to path data, as by the SVG converter
+ *     domExtractPaths: baseline, parsing the whole document tree and then querying path elements
+ * </pre>
+ * Run with the GC profiler (default in {@link BenchmarkRunner}) to compare allocation rates
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class SvgBenchmark {
+
+    public static final int SEGMENTS_PER_PATH = 8;
+
+    @Param({"1", "8"})
+    public int sizeMb;
+
+    private Path svgFile;
+    private SvgPathParser parser;
+
+    private static void writePath(Writer w, int index) throws IOException {
+        final double cx = (index % 1000) * 2, cy = (index / 1000) * 2;
+
+        w.write(String.format(Locale.US, "    <path id=\"p%d\" fill=\"#%06x\" d=\"M %.3f %.3f", index, index & 0xFFFFFF, cx, cy));
+        for (int i = 0; i < SEGMENTS_PER_PATH; i++) {
+            final double a = 2 * Math.PI * i / SEGMENTS_PER_PATH;
+            w.write(String.format(Locale.US, " C %.3f %.3f %.3f %.3f %.3f %.3f",
+                    cx + Math.cos(a), cy + Math.sin(a),
+                    cx + Math.cos(a + 0.3), cy + Math.sin(a + 0.3),
+                    cx + Math.cos(a + 0.6), cy + Math.sin(a + 0.6)));
+        }
+
+        w.write(" Z\"><title>shape ");
+        w.write(Integer.toString(index));
+        w.write("</title></path>\n");
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        svgFile = Files.createTempFile("bench", ".svg");
+
+        final long targetBytes = sizeMb * 1024L * 1024L;
+        try (final Writer w = Files.newBufferedWriter(svgFile, StandardCharsets.UTF_8)) {
+            w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            w.write("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 2000 2000\">\n");
+
+            int index = 0;
+            while (Files.size(svgFile) < targetBytes) {
+                w.write("  <g id=\"g" + index + "\">\n");
+                for (int i = 0; i < 256; i++) {
+                    writePath(w, index++);
+                }
+
+                w.write("  </g>\n");
+                w.flush();
+            }
+
+            w.write("</svg>\n");
+        }
+
+        parser = new SvgPathParser("#", "|", "[|]", StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(svgFile);
+    }
+
+    @Benchmark
+    public List<String> staxExtractPaths() throws IOException, XMLStreamException {
+        return parser.extractPathsFromSvg(svgFile);
+    }
+
+    @Benchmark
+    public void staxWritePaths(Blackhole bh) throws IOException, XMLStreamException {
+        parser.writeSvgPaths(svgFile, false, new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) {
+                bh.consume(csq);
+                return this;
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) {
+                bh.consume(csq);
+                return this;
+            }
+
+            @Override
+            public Appendable append(char c) {
+                bh.consume(c);
+                return this;
+            }
+        });
+    }
+
+    @Benchmark
+    public List<String> domExtractPaths() throws ParserConfigurationException, IOException, SAXException {
+        final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(svgFile.toFile());
+        final NodeList nodes = doc.getElementsByTagName("path");
+
+        final List<String> paths = new ArrayList<>(nodes.getLength());
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (nodes.item(i) instanceof Element element) {
+                final String data = element.getAttribute("d");
+                if (!data.isEmpty()) {
+                    paths.add(data);
+                }
+            }
+        }
+
+        return paths;
+    }
+}
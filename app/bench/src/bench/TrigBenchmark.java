@@ -0,0 +1,107 @@
+package bench;
+
+import misc.MathUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MathUtil.FastSinLookup lookup sine} vs {@link Math#sin(double)} and {@link StrictMath#sin(double)} over {@link #INPUT_COUNT} inputs
+ * spread over several turns, for each {@link MathUtil.FastSinLookup.Interpolation interpolation} of a table of {@link #TABLE_BITS} bits.
+ * <br>
+ * Also compares batched {@link MathUtil.FastSinLookup.Table#sincos(double[], double[], double[], int) sincos} against a loop of
+ * {@link Math#sin(double)} and {@link Math#cos(double)}
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrigBenchmark {
+
+    public static final int INPUT_COUNT = 1024;
+    public static final double INPUT_RANGE = 100;
+    public static final int TABLE_BITS = MathUtil.FastSinLookup.DEFAULT_TABLE_BITS;
+
+    @Param({ "LINEAR", "TAYLOR" })
+    public MathUtil.FastSinLookup.Interpolation interpolation;
+
+    private double[] inputs;
+    private double[] sinOut;
+    private double[] cosOut;
+    private MathUtil.FastSinLookup.Table table;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(INPUT_COUNT);
+        inputs = new double[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            inputs[i] = (random.nextDouble() * 2 - 1) * INPUT_RANGE;
+        }
+
+        sinOut = new double[INPUT_COUNT];
+        cosOut = new double[INPUT_COUNT];
+        table = new MathUtil.FastSinLookup.Table(TABLE_BITS, interpolation);
+    }
+
+    @Benchmark
+    public double mathSin() {
+        double sum = 0;
+        for (double x: inputs) {
+            sum += Math.sin(x);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double strictMathSin() {
+        double sum = 0;
+        for (double x: inputs) {
+            sum += StrictMath.sin(x);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double tableSin() {
+        double sum = 0;
+        for (double x: inputs) {
+            sum += table.sin(x);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double[] mathSinCos() {
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            sinOut[i] = Math.sin(inputs[i]);
+            cosOut[i] = Math.cos(inputs[i]);
+        }
+
+        return sinOut;
+    }
+
+    @Benchmark
+    public double[] tableSinCosBatched() {
+        table.sincos(inputs, sinOut, cosOut, INPUT_COUNT);
+        return sinOut;
+    }
+
+    /**
+     * Through {@link MathUtil#sinfast(double)}, i.e. global table (default interpolation) and fast enabled check
+     * */
+    @Benchmark
+    public double sinfast() {
+        double sum = 0;
+        for (double x: inputs) {
+            sum += MathUtil.sinfast(x);
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,113 @@
+package bench;
+
+import org.apache.commons.math3.complex.Complex;
+import org.openjdk.jmh.annotations.*;
+import rotor.EpicycleKernel;
+import rotor.RotorState;
+import rotor.RotorTable;
+import util.main.VectorBackend;
+import util.main.VectorBackendI;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link VectorBackend#SCALAR scalar} and SIMD {@link VectorBackendI backends} over {@link #count} elements
+ * <pre>
+ *     multiply, sum, expMultiplySum: raw backend operations
+ *     kernelPartialSums, kernelSum: rotor evaluation of a non harmonic table, see {@link EpicycleKernel}
+ * </pre>
+ * Forks are launched with {@code --add-modules jdk.incubator.vector}, so that the SIMD backend is available. If it still
+ * fails to load, {@link VectorBackend#get()} falls back to scalar and both backends measure the same code<br>
+ * Input is advanced by a fixed frame step on every invocation
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", VectorBackend.VECTOR_MODULE_NAME })
+public class VectorBackendBenchmark {
+
+    public static final double FRAME_STEP = 1 / 6000d;
+
+    @Param({"SCALAR", "SIMD"})
+    public String backend;
+
+    @Param({"1000", "10000", "100000"})
+    public int count;
+
+    private VectorBackendI vectorBackend;
+    private double[] aRe, aIm, bRe, bIm, w;
+    private double[] outRe, outIm;
+    private double[] out;
+    private EpicycleKernel kernel;
+    private double[] partialSums;
+    private double input;
+
+    @Setup
+    public void setup() {
+        vectorBackend = "SIMD".equals(backend)? VectorBackend.get(): VectorBackend.SCALAR;
+
+        final Random random = new Random(count);
+        aRe = new double[count];
+        aIm = new double[count];
+        bRe = new double[count];
+        bIm = new double[count];
+        w = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            aRe[i] = random.nextDouble();
+            aIm[i] = random.nextDouble();
+            bRe[i] = random.nextDouble();
+            bIm[i] = random.nextDouble();
+            w[i] = random.nextDouble() * 100;
+        }
+
+        final RotorState[] states = new RotorState[count];
+        for (int i = 0; i < count; i++) {
+            final int k = ((i & 1) == 0? 1: -1) * ((i + 1) >> 1);         // 0, -1, 1, -2, 2 ...
+            states[i] = new RotorState(k + random.nextDouble() - 0.5, new Complex(random.nextGaussian() / (i + 1), random.nextGaussian() / (i + 1)));
+        }
+
+        kernel = EpicycleKernel.of(RotorTable.of(states), vectorBackend);
+        outRe = new double[count];
+        outIm = new double[count];
+        out = new double[2];
+        partialSums = new double[count * 2];
+        input = 0;
+    }
+
+    @Benchmark
+    public double[] multiply() {
+        vectorBackend.multiply(aRe, aIm, bRe, bIm, outRe, outIm, count);
+        return outRe;
+    }
+
+    @Benchmark
+    public double[] sum() {
+        vectorBackend.sum(aRe, aIm, count, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] expMultiplySum() {
+        input += FRAME_STEP;
+        vectorBackend.expMultiplySum(aRe, aIm, w, input, count, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] kernelPartialSums() {
+        input += FRAME_STEP;
+        kernel.partialSums(input, partialSums);
+        return partialSums;
+    }
+
+    @Benchmark
+    public double[] kernelSum() {
+        input += FRAME_STEP;
+        kernel.sum(input, out);
+        return out;
+    }
+}
@@ -31,6 +31,7 @@ import xchart.BitmapEncoder.BitmapFormat;
 import xchart.internal.chartpart.Chart;
 import xchart.internal.chartpart.ChartZoom;
 import xchart.internal.chartpart.Cursor;
+import xchart.internal.chartpart.PlotContent_XY;
 import xchart.internal.chartpart.ToolTips;
 import xchart.style.XYStyler;
 
@@ -161,6 +162,7 @@ public class XChartPanel<T extends Chart<?, ?>> extends JPanel {
         super.paintComponent(g);
 
         Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(PlotContent_XY.KEY_SERIES_LAYERS, PlotContent_XY.VALUE_SERIES_LAYERS_ON);       // on screen only, not for print or export
         chart.paint(g2d, getWidth(), getHeight());
         g2d.dispose();
     }
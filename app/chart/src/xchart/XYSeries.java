@@ -1,8 +1,11 @@
 package xchart;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import xchart.internal.Decimator;
 import xchart.internal.chartpart.RenderableSeries;
 import xchart.internal.series.AxesChartSeriesNumericalNoErrorBars;
+import xchart.style.markers.None;
 
 import java.awt.*;
 import java.util.function.IntFunction;
@@ -25,6 +28,17 @@ public class XYSeries extends AxesChartSeriesNumericalNoErrorBars {
     @Nullable
     private Object tag;
 
+    /* Decimation, cached against the data and viewport it was computed for */
+    @NotNull
+    private Decimation decimation = Decimation.NONE;
+    @Nullable
+    private Decimator.Result decimated;
+    private double @Nullable[] decimatedXData;
+    private double @Nullable[] decimatedYData;
+    private int decimatedColumns;
+    private double decimatedXMin, decimatedXMax;
+    private boolean decimatedLogX;
+
     /**
      * Constructor
      *
@@ -73,6 +87,69 @@ public class XYSeries extends AxesChartSeriesNumericalNoErrorBars {
     }
 
 
+    @NotNull
+    public Decimation getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * Sets how this series is reduced to the plot width before drawing. Only lines are decimated, series with markers, error
+     * bars or area render styles are always drawn in full
+     * */
+    public XYSeries setDecimation(@NotNull Decimation decimation) {
+        this.decimation = decimation;
+        decimated = null;
+        decimatedXData = decimatedYData = null;
+        return this;
+    }
+
+    /**
+     * Decimated view of the current (possibly zoom filtered) data for the given viewport. Recomputed only when the data or the
+     * viewport changes
+     *
+     * @param columns pixel columns the plot spans
+     * @param xMin x at the left of the plot, {@code log10} of it if {@code logX}
+     * @param xMax x at the right of the plot, {@code log10} of it if {@code logX}
+     * @return decimated data, or {@code null} to draw the data as is
+     * */
+    @Nullable
+    public Decimator.Result getDecimatedData(int columns, double xMin, double xMax, boolean logX) {
+        if (decimation == Decimation.NONE || getExtraValues() != null || (getMarker() != null && !(getMarker() instanceof None)))
+            return null;
+
+        final XYSeriesRenderStyle style = xySeriesRenderStyle;
+        if (style != null && style != XYSeriesRenderStyle.Line && style != XYSeriesRenderStyle.Step)
+            return null;
+
+        final double[] xData = getXData();
+        final double[] yData = getYData();
+        if (xData == decimatedXData && yData == decimatedYData && columns == decimatedColumns
+                && xMin == decimatedXMin && xMax == decimatedXMax && logX == decimatedLogX) {
+            return decimated;
+        }
+
+        Decimator.Result result = null;
+        if (decimation == Decimation.MIN_MAX && xData.length > columns * Decimator.MIN_MAX_POINTS_PER_COLUMN && Decimator.isAscending(xData)) {
+            result = Decimator.minMax(xData, yData, columns, xMin, xMax, logX);
+        } else if (decimation != Decimation.NONE) {
+            // LTTB, or fallback of MIN_MAX for unsorted x
+            result = Decimator.lttb(xData, yData, columns * Decimator.LTTB_POINTS_PER_COLUMN);
+        }
+
+        if (result != null && result.size() >= xData.length) {
+            result = null;
+        }
+
+        decimated = result;
+        decimatedXData = xData;
+        decimatedYData = yData;
+        decimatedColumns = columns;
+        decimatedXMin = xMin;
+        decimatedXMax = xMax;
+        decimatedLogX = logX;
+        return result;
+    }
+
     public XYSeriesRenderStyle getXYSeriesRenderStyle() {
 
         return xySeriesRenderStyle;
@@ -99,6 +176,28 @@ public class XYSeries extends AxesChartSeriesNumericalNoErrorBars {
         this.smooth = smooth;
     }
 
+    /**
+     * How a series is reduced before drawing, when it has more points than pixel columns
+     * */
+    public enum Decimation {
+
+        /**
+         * Draw all points
+         * */
+        NONE,
+
+        /**
+         * Keep the first, last, min and max point of each pixel column. Pixel exact for lines, requires x in ascending order
+         * (falls back to {@link #LTTB} otherwise)
+         * */
+        MIN_MAX,
+
+        /**
+         * Largest Triangle Three Buckets, keeps two points per pixel column. Works for any x order
+         * */
+        LTTB
+    }
+
     public enum XYSeriesRenderStyle implements RenderableSeries {
         Line(LegendRenderType.Line),
 
@@ -0,0 +1,223 @@
+package xchart.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Reduces a series to roughly as many points as there are pixel columns to draw it into, so that rendering cost is bounded
+ * by the plot width instead of the data size<br>
+ * <br>
+ * Two modes are supported
+ * <ul>
+ *     <li>{@link #minMax Min/Max per column} (M4): keeps the first, last, minimum and maximum point of each pixel column,
+ *     in their original order. A line drawn through them rasterizes the same as through all points. Requires x in ascending order</li>
+ *     <li>{@link #lttb Largest Triangle Three Buckets}: keeps a fixed number of visually significant points, bucketed by index.
+ *     Does not require sorted x, at the cost of not being pixel exact</li>
+ * </ul>
+ * Both keep the index of each kept point in the original data, e.g. for per point colors
+ * */
+public final class Decimator {
+
+    /**
+     * At most first, min, max and last
+     * */
+    public static final int MIN_MAX_POINTS_PER_COLUMN = 4;
+
+    public static final int LTTB_POINTS_PER_COLUMN = 2;
+
+    /**
+     * Decimated data
+     *
+     * @param indices index of each point in the original data
+     * */
+    public record Result(double @NotNull[] xData, double @NotNull[] yData, int @NotNull[] indices) {
+
+        public int size() {
+            return indices.length;
+        }
+    }
+
+    private Decimator() {
+    }
+
+    public static boolean isAscending(double @NotNull[] data) {
+        for (int i=1; i < data.length; i++) {
+            if (data[i] < data[i - 1])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean hasNaN(double @NotNull[] data) {
+        for (double d: data) {
+            if (Double.isNaN(d))
+                return true;
+        }
+
+        return false;
+    }
+
+    @NotNull
+    private static Result collect(double @NotNull[] xData, double @NotNull[] yData, int @NotNull[] indices, int count) {
+        final double[] x = new double[count];
+        final double[] y = new double[count];
+        for (int i=0; i < count; i++) {
+            final int index = indices[i];
+            x[i] = xData[index];
+            y[i] = yData[index];
+        }
+
+        return new Result(x, y, indices.length == count? indices: Arrays.copyOf(indices, count));
+    }
+
+
+    /**
+     * Min/Max (M4) decimation. Points with a {@code NaN} coordinate are always kept, so that gaps are preserved
+     *
+     * @param xData x values, in ascending order
+     * @param columns number of pixel columns spanning {@code [xMin, xMax]}
+     * @param xMin x at the left of the first column, {@code log10} of it if {@code logX}
+     * @param xMax x at the right of the last column, {@code log10} of it if {@code logX}
+     * @param logX whether x is on a logarithmic axis, so columns are spaced in {@code log10(x)}
+     * */
+    @NotNull
+    public static Result minMax(double @NotNull[] xData, double @NotNull[] yData, int columns, double xMin, double xMax, boolean logX) {
+        final int n = Math.min(xData.length, yData.length);
+        columns = Math.max(1, columns);
+
+        final double xRange = xMax - xMin;
+        final double colScale = xRange > 0? columns / xRange: 0;
+
+        int[] out = new int[Math.min(n, columns * MIN_MAX_POINTS_PER_COLUMN + 16)];
+        int count = 0;
+
+        int col = -1;
+        int first = -1, last = -1, min = -1, max = -1;
+
+        for (int i=0; i <= n; i++) {
+            final boolean end = i == n;
+            final double x = end? Double.NaN: xData[i];
+            final double y = end? Double.NaN: yData[i];
+            final boolean gap = end || Double.isNaN(x) || Double.isNaN(y);
+
+            int c = -1;
+            if (!gap) {
+                final double xv = logX? Math.log10(x): x;
+                c = Math.max(0, Math.min(columns - 1, (int) ((xv - xMin) * colScale)));
+            }
+
+            // Flush the current column
+            if (first != -1 && (gap || c != col)) {
+                if (out.length - count < MIN_MAX_POINTS_PER_COLUMN + 1) {
+                    out = Arrays.copyOf(out, Math.min(n, (out.length << 1) + MIN_MAX_POINTS_PER_COLUMN + 1));
+                }
+
+                out[count++] = first;
+                final int lo = Math.min(min, max), hi = Math.max(min, max);
+                if (lo != first) {
+                    out[count++] = lo;
+                }
+                if (hi != lo && hi != first) {
+                    out[count++] = hi;
+                }
+                if (last != hi && last != lo && last != first) {
+                    out[count++] = last;
+                }
+
+                first = -1;
+            }
+
+            if (end)
+                break;
+
+            if (gap) {
+                if (count == out.length) {
+                    out = Arrays.copyOf(out, Math.min(n, (out.length << 1) + 1));
+                }
+
+                out[count++] = i;
+                continue;
+            }
+
+            if (first == -1) {
+                col = c;
+                first = last = min = max = i;
+            } else {
+                last = i;
+                if (y < yData[min]) {
+                    min = i;
+                } else if (y > yData[max]) {
+                    max = i;
+                }
+            }
+        }
+
+        return collect(xData, yData, out, count);
+    }
+
+    /**
+     * Largest Triangle Three Buckets decimation (Steinarsson, 2013). Always keeps the first and last point
+     *
+     * @param threshold number of points to keep, at least 3
+     * @return decimated data, or {@code null} if data has no more than {@code threshold} points or contains {@code NaN}
+     * */
+    @Nullable
+    public static Result lttb(double @NotNull[] xData, double @NotNull[] yData, int threshold) {
+        final int n = Math.min(xData.length, yData.length);
+        threshold = Math.max(3, threshold);
+        if (n <= threshold || hasNaN(xData) || hasNaN(yData))
+            return null;
+
+        final int[] out = new int[threshold];
+        int count = 0;
+        out[count++] = 0;
+
+        final double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+
+        for (int i=0; i < threshold - 2; i++) {
+            // Average of the next bucket
+            final int avgStart = (int) ((i + 1) * every) + 1;
+            final int avgEnd = Math.min((int) ((i + 2) * every) + 1, n);
+
+            double avgX = 0, avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += xData[j];
+                avgY += yData[j];
+            }
+
+            final int avgLen = avgEnd - avgStart;
+            if (avgLen > 0) {
+                avgX /= avgLen;
+                avgY /= avgLen;
+            } else {
+                avgX = xData[n - 1];
+                avgY = yData[n - 1];
+            }
+
+            // Point of this bucket making the largest triangle with the last kept point and the next bucket average
+            final int start = (int) (i * every) + 1;
+            final int end = Math.min((int) ((i + 1) * every) + 1, n - 1);
+            final double ax = xData[a], ay = yData[a];
+
+            double maxArea = -1;
+            int next = start;
+            for (int j = start; j < end; j++) {
+                final double area = Math.abs((ax - avgX) * (yData[j] - ay) - (ax - xData[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+
+            out[count++] = next;
+            a = next;
+        }
+
+        out[count++] = n - 1;
+        return collect(xData, yData, out, count);
+    }
+}
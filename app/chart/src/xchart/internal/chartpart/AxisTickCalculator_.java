@@ -374,16 +374,21 @@ public abstract class AxisTickCalculator_ {
     List<Double> tickLabelValues;
     double tickLabelMaxValue;
     double tickLabelMinValue;
+    int valueCount = axisValues.size();
+
+    // strides with more than 2 ticks per pixel round the grid step down to 0 px, which never fits. Start past
+    // them without formatting labels, since dense data would otherwise format all values once per stride
+    while (getTickCount(valueCount, tickValuesHint + 1) - 1 > 2 * tickSpace) {
+      tickValuesHint++;
+    }
+
     do {
       tickValuesHint++;
       tickLabels.clear();
-      int finalTickValuesHint = tickValuesHint;
-      tickLabelValues =
-          IntStream.range(0, axisValues.size())
-              .filter(it -> it % finalTickValuesHint == 0)
-              .mapToDouble(axisValues::get)
-              .boxed()
-              .collect(Collectors.toList());
+      tickLabelValues = new ArrayList<>(getTickCount(valueCount, tickValuesHint));
+      for (int i = 0; i < valueCount; i += tickValuesHint) {
+        tickLabelValues.add(axisValues.get(i));
+      }
       tickLabelMaxValue = tickLabelValues.stream().mapToDouble(x -> x).max().orElse(maxValue);
       tickLabelMinValue = tickLabelValues.stream().mapToDouble(x -> x).min().orElse(minValue);
       tickLabels.addAll(
@@ -408,6 +413,11 @@ public abstract class AxisTickCalculator_ {
             .collect(Collectors.toList()));
   }
 
+  /** Number of values at indices that are multiples of {@code stride}. */
+  private static int getTickCount(int valueCount, int stride) {
+    return (valueCount + stride - 1) / stride;
+  }
+
   boolean areAllTickLabelsUnique(List<?> tickLabels) {
     return new LinkedHashSet<>(tickLabels).size() == tickLabels.size();
   }
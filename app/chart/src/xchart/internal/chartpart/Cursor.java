@@ -231,6 +231,22 @@ public class Cursor extends MouseAdapter implements ChartPart {
     dataPointList.add(dataPoint);
   }
 
+  /**
+   * Adds data points prepared beforehand, e.g. cached across paints
+   *
+   * @param dataPoints
+   */
+  void addData(List<DataPoint> dataPoints) {
+
+    dataPointList.addAll(dataPoints);
+  }
+
+  /** Clears data points, before the plot content adds those of a new paint */
+  void clearData() {
+
+    dataPointList.clear();
+  }
+
   /** One DataPoint per graphSeries, keep the DataPoint closest to mouseX */
   private void calculateMatchingDataPoints() {
 
@@ -263,7 +279,7 @@ public class Cursor extends MouseAdapter implements ChartPart {
     }
   }
 
-  private static class DataPoint {
+  static class DataPoint {
 
     // edge detection
     private static final int MARGIN = 5;
@@ -1,23 +1,65 @@
 package xchart.internal.chartpart;
 
+import java.awt.BasicStroke;
+import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 import java.text.Format;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import xchart.XYSeries;
 import xchart.XYSeries.XYSeriesRenderStyle;
+import xchart.internal.Decimator;
 import xchart.internal.Utils;
 import xchart.style.XYStyler;
 import xchart.style.lines.SeriesLines;
+import xchart.style.markers.Marker;
 
 /** @author timmolter */
 public class PlotContent_XY<ST extends XYStyler, S extends XYSeries> extends PlotContent_<ST, S> {
 
+  /**
+   * Rendering hint to render each series into its own offscreen layer, redrawn only when the series
+   * data, the axes or the series style change. Meant for on-screen painting, where a single series
+   * changing (e.g. a live spectrum) should not re-render the others. Must not be set when painting
+   * to vector or print graphics
+   */
+  public static final RenderingHints.Key KEY_SERIES_LAYERS = new SeriesLayersKey();
+
+  public static final Object VALUE_SERIES_LAYERS_ON = Boolean.TRUE;
+
+  private static final class SeriesLayersKey extends RenderingHints.Key {
+
+    private SeriesLayersKey() {
+
+      super(0x58594c);
+    }
+
+    @Override
+    public boolean isCompatibleValue(Object val) {
+
+      return val instanceof Boolean;
+    }
+
+    @Override
+    public String toString() {
+
+      return "Series layers key";
+    }
+  }
+
   private final ST xyStyler;
 
   Cursor cursor;
 
+  // render state per series, kept across paints
+  private final Map<S, SeriesRenderCache> seriesCaches = new IdentityHashMap<>();
+
   /**
    * Constructor
    *
@@ -32,26 +74,49 @@ public class PlotContent_XY<ST extends XYStyler, S extends XYSeries> extends Plo
   @Override
   public void doPaint(Graphics2D g) {
 
+    Rectangle2D bounds = getBounds();
+
     // X-Axis
-    double xTickSpace = xyStyler.getPlotContentSize() * getBounds().getWidth();
-    double xLeftMargin = Utils.getTickStartOffset((int) getBounds().getWidth(), xTickSpace);
+    double xTickSpace = xyStyler.getPlotContentSize() * bounds.getWidth();
+    double xLeftMargin = Utils.getTickStartOffset((int) bounds.getWidth(), xTickSpace);
 
     // Y-Axis
-    double yTickSpace = xyStyler.getPlotContentSize() * getBounds().getHeight();
-    double yTopMargin = Utils.getTickStartOffset((int) getBounds().getHeight(), yTickSpace);
+    double yTickSpace = xyStyler.getPlotContentSize() * bounds.getHeight();
+    double yTopMargin = Utils.getTickStartOffset((int) bounds.getHeight(), yTickSpace);
 
     double xMin = chart.getXAxis().getMin();
     double xMax = chart.getXAxis().getMax();
 
-    Line2D.Double line = new Line2D.Double();
-
     // logarithmic
-    if (xyStyler.isXAxisLogarithmic()) {
+    boolean logX = xyStyler.isXAxisLogarithmic();
+    boolean logY = xyStyler.isYAxisLogarithmic();
+    if (logX) {
       xMin = Math.log10(xMin);
       xMax = Math.log10(xMax);
     }
 
+    AffineTransform transform = g.getTransform();
+
+    // pixel columns of the plot, to bound the points drawn per series
+    int columns = (int) Math.ceil(xTickSpace * Math.max(1, Math.abs(transform.getScaleX())));
+
+    boolean layered = VALUE_SERIES_LAYERS_ON.equals(g.getRenderingHint(KEY_SERIES_LAYERS));
+    RenderingHints hints = layered ? g.getRenderingHints() : null;
+
+    boolean cursorEnabled = xyStyler.isCursorEnabled() && cursor != null;
+    Format cursorXFormat = null;
+    Format cursorYFormat = null;
+    if (cursorEnabled) {
+      cursor.clearData();
+      if (xyStyler.getCustomCursorXDataFormattingFunction() != null) {
+        cursorXFormat = new Formatter_Custom(xyStyler.getCustomCursorXDataFormattingFunction());
+      } else {
+        cursorXFormat = chart.getXAxisFormat();
+      }
+    }
+
     Map<String, S> map = chart.getSeriesMap();
+    seriesCaches.keySet().removeIf(s -> map.get(s.getName()) != s);
 
     for (S series : map.values()) {
 
@@ -61,290 +126,295 @@ public class PlotContent_XY<ST extends XYStyler, S extends XYSeries> extends Plo
       Axis yAxis = chart.getYAxis(series.getYAxisGroup());
       double yMin = yAxis.getMin();
       double yMax = yAxis.getMax();
-      if (xyStyler.isYAxisLogarithmic()) {
+      if (logY) {
         yMin = Math.log10(yMin);
         yMax = Math.log10(yMax);
       }
 
-      // data points
+      // data points, decimated to the plot width
       double[] xData = series.getXData();
       double[] yData = series.getYData();
+      Decimator.Result decimated = series.getDecimatedData(columns, xMin, xMax, logX);
+      if (decimated != null) {
+        xData = decimated.xData();
+        yData = decimated.yData();
+      }
 
-      double previousX = -Double.MAX_VALUE;
-      double previousY = -Double.MAX_VALUE;
-
-      // if PolygonArea is used, these coordinates are the starting point for the polygon
-      double polygonStartX = -Double.MAX_VALUE;
-      double polygonStartY = -Double.MAX_VALUE;
-
-      double[] errorBars = series.getExtraValues();
-      Path2D.Double path = null;
-      // smooth curve
-      Path2D.Double smoothPath = null;
-
-      // for area charts
-      double yZeroTransform =
-          getBounds().getHeight() - (yTopMargin + (0 - yMin) / (yMax - yMin) * yTickSpace);
-      double yZeroOffset = yZeroTransform + getBounds().getY();
-
-      for (int i = 0; i < xData.length; i++) {
-
-        double x = xData[i];
-        // System.out.println(x);
-        if (xyStyler.isXAxisLogarithmic()) {
-          x = Math.log10(x);
+      SeriesRenderCache cache = seriesCaches.computeIfAbsent(series, s -> new SeriesRenderCache());
+      cache.updateCoords(
+          new SeriesRenderCache.CoordsKey(
+              xData,
+              yData,
+              series.getDataVersion(),
+              bounds.getX(),
+              bounds.getY(),
+              bounds.getWidth(),
+              bounds.getHeight(),
+              xLeftMargin,
+              xTickSpace,
+              yTopMargin,
+              yTickSpace,
+              xMin,
+              xMax,
+              yMin,
+              yMax,
+              logX,
+              logY),
+          decimated,
+          series.getExtraValues());
+
+      if (layered) {
+        SeriesRenderCache.LayerKey layerKey =
+            new SeriesRenderCache.LayerKey(
+                cache.getCoordsVersion(),
+                series.getXYSeriesRenderStyle(),
+                series.getLineColor(),
+                series.getLineStyle(),
+                series.getFillColor(),
+                series.getMarker(),
+                series.getMarkerColor(),
+                xyStyler.getMarkerSize(),
+                series.isSmooth(),
+                series.getColorFilter(),
+                xyStyler.isErrorBarsColorSeriesColor() ? null : xyStyler.getErrorBarsColor(),
+                hints,
+                transform);
+
+        if (!cache.validateLayer(transform, chart.getWidth(), chart.getHeight(), layerKey)) {
+          Graphics2D layerGraphics = cache.createLayerGraphics(g, bounds);
+          paintSeries(layerGraphics, series, cache);
+          layerGraphics.dispose();
         }
-        // System.out.println(x);
-
-        double next = yData[i];
-        if (Double.isNaN(next)) {
 
-          // for area charts
-          g.setColor(series.getFillColor());
-          closePathXY(g, path, previousX, yZeroOffset, polygonStartX, polygonStartY);
-          path = null;
+        cache.drawLayer(g);
+      } else {
+        cache.releaseLayer();
+        paintSeries(g, series, cache);
+      }
 
-          if (smoothPath != null) {
-            // TODO
-            g.setColor(series.getLineColor(i));
-            g.setStroke(series.getLineStyle());
-            g.draw(smoothPath);
-            smoothPath = null;
+      // add tooltips
+      if (chart.getStyler().isToolTipsEnabled()) {
+        for (int i = 0; i < cache.size; i++) {
+          if (Double.isNaN(cache.screenY[i])) {
+            continue;
           }
 
-          previousX = -Double.MAX_VALUE;
-          previousY = -Double.MAX_VALUE;
-          continue;
+          double x = logX ? Math.log10(cache.xData[i]) : cache.xData[i];
+          toolTips.addData(
+              cache.screenX[i],
+              cache.screenY[i],
+              chart.getXAxisFormat().format(x),
+              chart.getYAxisFormat(series.getYAxisDecimalPattern()).format(cache.yData[i]));
         }
+      }
 
-        double yOrig = yData[i];
-
-        double y;
-
-        // System.out.println(y);
-        if (xyStyler.isYAxisLogarithmic()) {
-          y = Math.log10(yOrig);
-        } else {
-          y = yOrig;
+      if (cursorEnabled) {
+        if (xyStyler.getCustomCursorYDataFormattingFunction() == null) {
+          cursorYFormat = chart.getYAxisFormat(series.getYAxisDecimalPattern());
+        } else if (cursorYFormat == null) {
+          cursorYFormat = new Formatter_Custom(xyStyler.getCustomCursorYDataFormattingFunction());
         }
-        // System.out.println(y);
 
-        double xTransform = xLeftMargin + ((x - xMin) / (xMax - xMin) * xTickSpace);
-        double yTransform =
-            getBounds().getHeight() - (yTopMargin + (y - yMin) / (yMax - yMin) * yTickSpace);
+        cursor.addData(cache.getCursorPoints(cursorXFormat, cursorYFormat, series.getName()));
+      }
+    }
+    if (cursorEnabled) {
+      cursor.paint(g);
+    }
+  }
 
-        // a check if all x data are the exact same values
-        if (Math.abs(xMax - xMin) / 5 == 0.0) {
-          xTransform = getBounds().getWidth() / 2.0;
-        }
+  /**
+   * Paints a series from its cached screen coordinates
+   *
+   * @param g graphics to paint into, chart graphics or the series layer
+   * @param series the series
+   * @param cache render state of the series, with up to date coordinates
+   */
+  private void paintSeries(Graphics2D g, S series, SeriesRenderCache cache) {
+
+    XYSeriesRenderStyle renderStyle = series.getXYSeriesRenderStyle();
+    boolean isSeriesLineOrArea =
+        XYSeriesRenderStyle.Line == renderStyle
+            || XYSeriesRenderStyle.Area == renderStyle
+            || XYSeriesRenderStyle.PolygonArea == renderStyle;
+    boolean isSeriesStepLineOrStepArea =
+        XYSeriesRenderStyle.Step == renderStyle || XYSeriesRenderStyle.StepArea == renderStyle;
+    boolean isArea =
+        XYSeriesRenderStyle.Area == renderStyle
+            || XYSeriesRenderStyle.StepArea == renderStyle
+            || XYSeriesRenderStyle.PolygonArea == renderStyle;
+    boolean isPolygonArea = XYSeriesRenderStyle.PolygonArea == renderStyle;
+
+    BasicStroke lineStyle = series.getLineStyle();
+    boolean paintLines =
+        (isSeriesLineOrArea || isSeriesStepLineOrStepArea) && lineStyle != SeriesLines.NONE;
+    boolean smooth = series.isSmooth();
+    Marker marker = series.getMarker();
+    int markerSize = xyStyler.getMarkerSize();
+
+    double[] screenX = cache.screenX;
+    double[] screenY = cache.screenY;
+    double[] errorBarTop = cache.errorBarTop;
+    double[] errorBarBottom = cache.errorBarBottom;
+    double yZeroOffset = cache.yZeroOffset;
+    Line2D.Double line = cache.line;
+    Path2D.Double smoothPath = cache.smoothPath;
+
+    // for area charts, reused path. null while no area is open
+    Path2D.Double path = null;
+
+    double previousX = -Double.MAX_VALUE;
+    double previousY = -Double.MAX_VALUE;
+
+    // if PolygonArea is used, these coordinates are the starting point for the polygon
+    double polygonStartX = -Double.MAX_VALUE;
+    double polygonStartY = -Double.MAX_VALUE;
+
+    // graphics state, only set when it changes
+    Color color = null;
+    Stroke stroke = null;
+
+    for (int i = 0; i < cache.size; i++) {
+
+      int index = cache.indexAt(i);
+      double xOffset = screenX[i];
+      double yOffset = screenY[i];
+
+      if (Double.isNaN(yOffset)) {
+
+        // for area charts
+        g.setColor(series.getFillColor());
+        color = null;
+        closePathXY(g, path, previousX, yZeroOffset, polygonStartX, polygonStartY);
+        path = null;
+
+        previousX = -Double.MAX_VALUE;
+        previousY = -Double.MAX_VALUE;
+        continue;
+      }
 
-        // a check if all y data are the exact same values
-        if (Math.abs(yMax - yMin) / 5 == 0.0) {
-          yTransform = getBounds().getHeight() / 2.0;
+      // paint line
+      if (paintLines && previousX != -Double.MAX_VALUE && previousY != -Double.MAX_VALUE) {
+        Color lineColor = series.getLineColor(index);
+        if (lineColor != color) {
+          g.setColor(lineColor);
+          color = lineColor;
+        }
+        if (lineStyle != stroke) {
+          g.setStroke(lineStyle);
+          stroke = lineStyle;
         }
 
-        double xOffset = getBounds().getX() + xTransform;
-        double yOffset = getBounds().getY() + yTransform;
-        // System.out.println(xTransform);
-        // System.out.println(xOffset);
-        // System.out.println(yTransform);
-        // System.out.println(yOffset);
-        // System.out.println("---");
-
-        // paint line
-
-        boolean isSeriesLineOrArea =
-            XYSeriesRenderStyle.Line == series.getXYSeriesRenderStyle()
-                || XYSeriesRenderStyle.Area == series.getXYSeriesRenderStyle()
-                || XYSeriesRenderStyle.PolygonArea == series.getXYSeriesRenderStyle();
-        boolean isSeriesStepLineOrStepArea =
-            XYSeriesRenderStyle.Step == series.getXYSeriesRenderStyle()
-                || XYSeriesRenderStyle.StepArea == series.getXYSeriesRenderStyle();
-
-        if (isSeriesLineOrArea || isSeriesStepLineOrStepArea) {
-          if (series.getLineStyle() != SeriesLines.NONE) {
-
-            if (previousX != -Double.MAX_VALUE && previousY != -Double.MAX_VALUE) {
-              // TODO
-
-              g.setColor(series.getLineColor(i));
-              g.setStroke(series.getLineStyle());
-              if (isSeriesLineOrArea) {
-                if (series.isSmooth()) {
-                  if (smoothPath == null) {
-                    smoothPath = new Path2D.Double();
-                    smoothPath.moveTo(previousX, previousY);
-                  }
-                  smoothPath.curveTo(
-                      (previousX + xOffset) / 2,
-                      previousY,
-                      (previousX + xOffset) / 2,
-                      yOffset,
-                      xOffset,
-                      yOffset);
-
-                  g.draw(smoothPath);
-                  smoothPath = null;
-                } else {
-                  line.setLine(previousX, previousY, xOffset, yOffset);
-                  g.draw(line);
-                }
-              } else {
-                if (previousX != xOffset) {
-                  line.setLine(previousX, previousY, xOffset, previousY);
-                  g.draw(line);
-                }
-                if (previousY != yOffset) {
-                  line.setLine(xOffset, previousY, xOffset, yOffset);
-                  g.draw(line);
-                }
-              }
-            }
+        if (isSeriesLineOrArea) {
+          if (smooth) {
+            smoothPath.reset();
+            smoothPath.moveTo(previousX, previousY);
+            smoothPath.curveTo(
+                (previousX + xOffset) / 2,
+                previousY,
+                (previousX + xOffset) / 2,
+                yOffset,
+                xOffset,
+                yOffset);
+            g.draw(smoothPath);
+          } else {
+            line.setLine(previousX, previousY, xOffset, yOffset);
+            g.draw(line);
+          }
+        } else {
+          if (previousX != xOffset) {
+            line.setLine(previousX, previousY, xOffset, previousY);
+            g.draw(line);
+          }
+          if (previousY != yOffset) {
+            line.setLine(xOffset, previousY, xOffset, yOffset);
+            g.draw(line);
           }
         }
+      }
 
-        // paint area
-        if (XYSeriesRenderStyle.Area == series.getXYSeriesRenderStyle()
-            || XYSeriesRenderStyle.StepArea == series.getXYSeriesRenderStyle()
-            || XYSeriesRenderStyle.PolygonArea == series.getXYSeriesRenderStyle()) {
-
-          if (previousX != -Double.MAX_VALUE && previousY != -Double.MAX_VALUE) {
-            if (path == null) {
-              path = new Path2D.Double();
-              if (XYSeriesRenderStyle.PolygonArea == series.getXYSeriesRenderStyle()) {
-                path.moveTo(previousX, previousY);
-                polygonStartX = previousX;
-                polygonStartY = previousY;
-              } else {
-                path.moveTo(previousX, yZeroOffset);
-                path.lineTo(previousX, previousY);
-              }
-            }
-            if (XYSeriesRenderStyle.Area == series.getXYSeriesRenderStyle()
-                || XYSeriesRenderStyle.PolygonArea == series.getXYSeriesRenderStyle()) {
-              if (series.isSmooth()) {
-                path.curveTo(
-                    (previousX + xOffset) / 2,
-                    previousY,
-                    (previousX + xOffset) / 2,
-                    yOffset,
-                    xOffset,
-                    yOffset);
-              } else {
-                path.lineTo(xOffset, yOffset);
-              }
+      // paint area
+      if (isArea) {
+
+        if (previousX != -Double.MAX_VALUE && previousY != -Double.MAX_VALUE) {
+          if (path == null) {
+            path = cache.areaPath;
+            path.reset();
+            if (isPolygonArea) {
+              path.moveTo(previousX, previousY);
+              polygonStartX = previousX;
+              polygonStartY = previousY;
             } else {
-              if (previousX != xOffset) {
-                path.lineTo(xOffset, previousY);
-              }
-              if (previousY != yOffset) {
-                path.lineTo(xOffset, yOffset);
-              }
+              path.moveTo(previousX, yZeroOffset);
+              path.lineTo(previousX, previousY);
             }
           }
-          if (xOffset < previousX
-              && XYSeriesRenderStyle.PolygonArea != series.getXYSeriesRenderStyle()) {
-            throw new RuntimeException("X-Data must be in ascending order for Area Charts!!!");
+          if (XYSeriesRenderStyle.Area == renderStyle || isPolygonArea) {
+            if (smooth) {
+              path.curveTo(
+                  (previousX + xOffset) / 2,
+                  previousY,
+                  (previousX + xOffset) / 2,
+                  yOffset,
+                  xOffset,
+                  yOffset);
+            } else {
+              path.lineTo(xOffset, yOffset);
+            }
+          } else {
+            if (previousX != xOffset) {
+              path.lineTo(xOffset, previousY);
+            }
+            if (previousY != yOffset) {
+              path.lineTo(xOffset, yOffset);
+            }
           }
         }
-
-        previousX = xOffset;
-        previousY = yOffset;
-
-        // paint marker
-        if (series.getMarker() != null) {
-          g.setColor(series.getMarkerColor());
-          series.getMarker().paint(g, xOffset, yOffset, xyStyler.getMarkerSize());
+        if (xOffset < previousX && !isPolygonArea) {
+          throw new RuntimeException("X-Data must be in ascending order for Area Charts!!!");
         }
+      }
 
-        // paint error bars
-        if (errorBars != null) {
-
-          double eb = errorBars[i];
-
-          // set error bar style
-          if (xyStyler.isErrorBarsColorSeriesColor()) {
-            g.setColor(series.getLineColor(i));
-          } else {
-            g.setColor(xyStyler.getErrorBarsColor());
-          }
-          g.setStroke(ERROR_BAR_STROKE);
+      previousX = xOffset;
+      previousY = yOffset;
 
-          // Top value
-          double topValue;
-          if (xyStyler.isYAxisLogarithmic()) {
-            topValue = yOrig + eb;
-            topValue = Math.log10(topValue);
-          } else {
-            topValue = y + eb;
-          }
-          double topEBTransform =
-              getBounds().getHeight()
-                  - (yTopMargin + (topValue - yMin) / (yMax - yMin) * yTickSpace);
-          double topEBOffset = getBounds().getY() + topEBTransform;
-
-          // Bottom value
-          double bottomValue;
-          if (xyStyler.isYAxisLogarithmic()) {
-            bottomValue = yOrig - eb;
-            // System.out.println(bottomValue);
-            bottomValue = Math.log10(bottomValue);
-          } else {
-            bottomValue = y - eb;
-          }
-          double bottomEBTransform =
-              getBounds().getHeight()
-                  - (yTopMargin + (bottomValue - yMin) / (yMax - yMin) * yTickSpace);
-          double bottomEBOffset = getBounds().getY() + bottomEBTransform;
-
-          // Draw it
-          line.setLine(xOffset, topEBOffset, xOffset, bottomEBOffset);
-          g.draw(line);
-          line.setLine(xOffset - 3, bottomEBOffset, xOffset + 3, bottomEBOffset);
-          g.draw(line);
-          line.setLine(xOffset - 3, topEBOffset, xOffset + 3, topEBOffset);
-          g.draw(line);
-        }
+      // paint marker
+      if (marker != null) {
+        g.setColor(series.getMarkerColor());
+        marker.paint(g, xOffset, yOffset, markerSize);
+        color = null;
+        stroke = null;
+      }
 
-        // add tooltips
-        if (chart.getStyler().isToolTipsEnabled()) {
-          toolTips.addData(
-              xOffset,
-              yOffset,
-              chart.getXAxisFormat().format(x),
-              chart.getYAxisFormat(series.getYAxisDecimalPattern()).format(yOrig));
-        }
+      // paint error bars
+      if (errorBarTop != null) {
 
-        if (xyStyler.isCursorEnabled() && cursor != null) {
-          Format xFormat;
-          Format yFormat;
-          if (xyStyler.getCustomCursorXDataFormattingFunction() == null) {
-            xFormat = chart.getXAxisFormat();
-          } else {
-            xFormat = new Formatter_Custom(xyStyler.getCustomCursorXDataFormattingFunction());
-          }
-          if (xyStyler.getCustomCursorYDataFormattingFunction() == null) {
-            yFormat = chart.getYAxisFormat(series.getYAxisDecimalPattern());
-          } else {
-            yFormat = new Formatter_Custom(xyStyler.getCustomCursorYDataFormattingFunction());
-          }
-          cursor.addData(
-              xOffset, yOffset, xFormat.format(x), yFormat.format(yOrig), series.getName());
+        // set error bar style
+        if (xyStyler.isErrorBarsColorSeriesColor()) {
+          g.setColor(series.getLineColor(index));
+        } else {
+          g.setColor(xyStyler.getErrorBarsColor());
         }
+        g.setStroke(ERROR_BAR_STROKE);
+        color = null;
+        stroke = null;
+
+        double topEBOffset = errorBarTop[i];
+        double bottomEBOffset = errorBarBottom[i];
+
+        // Draw it
+        line.setLine(xOffset, topEBOffset, xOffset, bottomEBOffset);
+        g.draw(line);
+        line.setLine(xOffset - 3, bottomEBOffset, xOffset + 3, bottomEBOffset);
+        g.draw(line);
+        line.setLine(xOffset - 3, topEBOffset, xOffset + 3, topEBOffset);
+        g.draw(line);
       }
-
-//      if (smoothPath != null) {
-//        g.setColor(xData.length > 0? series.getLineColor(xData.length - 1): series.getLineColor());
-//        g.setStroke(series.getLineStyle());
-//        g.draw(smoothPath);
-//      }
-      // close any open path for area charts
-      g.setColor(series.getFillColor());
-      closePathXY(g, path, previousX, yZeroOffset, polygonStartX, polygonStartY);
-    }
-    if (chart.getStyler().isCursorEnabled() && cursor != null) {
-      cursor.paint(g);
     }
+
+    // close any open path for area charts
+    g.setColor(series.getFillColor());
+    closePathXY(g, path, previousX, yZeroOffset, polygonStartX, polygonStartY);
   }
 
   void closePathXY(
@@ -0,0 +1,340 @@
+package xchart.internal.chartpart;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.text.Format;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import xchart.XYSeries;
+import xchart.internal.Decimator;
+import xchart.style.markers.Marker;
+
+/**
+ * Render state of a series in {@link PlotContent_XY}, kept across paints.
+ *
+ * <p>Holds the screen coordinates of the (possibly decimated) series, recomputed only when the
+ * series data or the axes change, the paths and line reused to draw it, the cursor data points,
+ * and optionally an offscreen layer with the series already rendered, redrawn only when the
+ * coordinates or the series style change.
+ *
+ * <p>Confined to the paint thread
+ */
+final class SeriesRenderCache {
+
+  /** Everything screen coordinates depend on. Data arrays are compared by identity */
+  record CoordsKey(
+      double[] xData,
+      double[] yData,
+      int dataVersion,
+      double boundsX,
+      double boundsY,
+      double boundsWidth,
+      double boundsHeight,
+      double xLeftMargin,
+      double xTickSpace,
+      double yTopMargin,
+      double yTickSpace,
+      double xMin,
+      double xMax,
+      double yMin,
+      double yMax,
+      boolean logX,
+      boolean logY) {}
+
+  /** Everything the rendered layer depends on, besides its size */
+  record LayerKey(
+      int coordsVersion,
+      XYSeries.XYSeriesRenderStyle renderStyle,
+      Color lineColor,
+      BasicStroke lineStyle,
+      Color fillColor,
+      Marker marker,
+      Color markerColor,
+      int markerSize,
+      boolean smooth,
+      IntFunction<Color> colorFilter,
+      Color errorBarsColor,
+      RenderingHints hints,
+      AffineTransform transform) {}
+
+  private CoordsKey coordsKey;
+  private int coordsVersion;
+
+  // data drawn, possibly decimated. indices map to the series data, null if the same
+  double[] xData;
+  double[] yData;
+  private int[] indices;
+  int size;
+
+  // screen coordinates, y is NaN for gaps
+  double[] screenX = new double[0];
+  double[] screenY = new double[0];
+  double[] errorBarTop;
+  double[] errorBarBottom;
+  double yZeroOffset;
+
+  // reused across paints
+  final Path2D.Double areaPath = new Path2D.Double();
+  final Path2D.Double smoothPath = new Path2D.Double();
+  final Line2D.Double line = new Line2D.Double();
+
+  private List<Cursor.DataPoint> cursorPoints;
+
+  // layer
+  private BufferedImage layer;
+  private Object layerKey;
+  private double layerOriginX;
+  private double layerOriginY;
+
+  /**
+   * @param i index of a drawn point
+   * @return index of the point in the series data
+   */
+  int indexAt(int i) {
+
+    return indices != null ? indices[i] : i;
+  }
+
+  int getCoordsVersion() {
+
+    return coordsVersion;
+  }
+
+  /**
+   * Recomputes screen coordinates if the key changed
+   *
+   * @param key coordinates key, built from the data given
+   * @param decimated decimated data, or null to draw the series data
+   * @param errorBars error bars of the series, or null
+   * @return whether coordinates were recomputed
+   */
+  boolean updateCoords(CoordsKey key, Decimator.Result decimated, double[] errorBars) {
+
+    if (key.equals(coordsKey)) {
+      return false;
+    }
+
+    coordsKey = key;
+    coordsVersion++;
+    cursorPoints = null;
+
+    xData = key.xData();
+    yData = key.yData();
+    indices = decimated != null ? decimated.indices() : null;
+    size = Math.min(xData.length, yData.length);
+
+    if (screenX.length < size) {
+      screenX = new double[size];
+      screenY = new double[size];
+    }
+
+    double xMin = key.xMin();
+    double xMax = key.xMax();
+    double yMin = key.yMin();
+    double yMax = key.yMax();
+
+    // a check if all x or y data are the exact same values
+    boolean flatX = Math.abs(xMax - xMin) / 5 == 0.0;
+    boolean flatY = Math.abs(yMax - yMin) / 5 == 0.0;
+
+    yZeroOffset =
+        key.boundsHeight()
+            - (key.yTopMargin() + (0 - yMin) / (yMax - yMin) * key.yTickSpace())
+            + key.boundsY();
+
+    for (int i = 0; i < size; i++) {
+      double yOrig = yData[i];
+      if (Double.isNaN(yOrig)) {
+        screenX[i] = Double.NaN;
+        screenY[i] = Double.NaN;
+        continue;
+      }
+
+      double x = key.logX() ? Math.log10(xData[i]) : xData[i];
+      double y = key.logY() ? Math.log10(yOrig) : yOrig;
+
+      double xTransform =
+          flatX
+              ? key.boundsWidth() / 2.0
+              : key.xLeftMargin() + ((x - xMin) / (xMax - xMin) * key.xTickSpace());
+      double yTransform =
+          flatY
+              ? key.boundsHeight() / 2.0
+              : key.boundsHeight()
+                  - (key.yTopMargin() + (y - yMin) / (yMax - yMin) * key.yTickSpace());
+
+      screenX[i] = key.boundsX() + xTransform;
+      screenY[i] = key.boundsY() + yTransform;
+    }
+
+    if (errorBars == null) {
+      errorBarTop = errorBarBottom = null;
+    } else {
+      if (errorBarTop == null || errorBarTop.length < size) {
+        errorBarTop = new double[size];
+        errorBarBottom = new double[size];
+      }
+
+      for (int i = 0; i < size; i++) {
+        double yOrig = yData[i];
+        double eb = errorBars[indexAt(i)];
+        double topValue = key.logY() ? Math.log10(yOrig + eb) : yOrig + eb;
+        double bottomValue = key.logY() ? Math.log10(yOrig - eb) : yOrig - eb;
+
+        errorBarTop[i] =
+            key.boundsY()
+                + key.boundsHeight()
+                - (key.yTopMargin() + (topValue - yMin) / (yMax - yMin) * key.yTickSpace());
+        errorBarBottom[i] =
+            key.boundsY()
+                + key.boundsHeight()
+                - (key.yTopMargin() + (bottomValue - yMin) / (yMax - yMin) * key.yTickSpace());
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Cursor data points of the series, built once per coordinates
+   *
+   * @param xFormat format of x values
+   * @param yFormat format of y values
+   * @param seriesName name of the series
+   * @return cursor data points
+   */
+  List<Cursor.DataPoint> getCursorPoints(Format xFormat, Format yFormat, String seriesName) {
+
+    List<Cursor.DataPoint> points = cursorPoints;
+    if (points == null) {
+      points = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        if (Double.isNaN(screenY[i])) {
+          continue;
+        }
+
+        double x = coordsKey.logX() ? Math.log10(xData[i]) : xData[i];
+        points.add(
+            new Cursor.DataPoint(
+                screenX[i],
+                screenY[i],
+                xFormat.format(x),
+                yFormat.format(yData[i]),
+                seriesName));
+      }
+
+      cursorPoints = points;
+    }
+
+    return points;
+  }
+
+  /**
+   * Prepares the layer for a paint, clearing it if its size or key changed
+   *
+   * @param transform transform of the chart graphics
+   * @param width chart width
+   * @param height chart height
+   * @param key everything the rendered series depends on
+   * @return whether the layer content is still valid
+   */
+  boolean validateLayer(AffineTransform transform, int width, int height, Object key) {
+
+    int w = Math.max(1, (int) Math.ceil(width * Math.abs(transform.getScaleX())));
+    int h = Math.max(1, (int) Math.ceil(height * Math.abs(transform.getScaleY())));
+    layerOriginX = transform.getTranslateX();
+    layerOriginY = transform.getTranslateY();
+
+    BufferedImage image = layer;
+    if (image == null || image.getWidth() != w || image.getHeight() != h) {
+      if (image != null) {
+        image.flush();
+      }
+
+      layer = createLayer(w, h);
+      layerKey = key;
+      return false;
+    }
+
+    if (Objects.equals(layerKey, key)) {
+      return true;
+    }
+
+    Graphics2D g = image.createGraphics();
+    g.setComposite(AlphaComposite.Clear);
+    g.fillRect(0, 0, w, h);
+    g.dispose();
+
+    layerKey = key;
+    return false;
+  }
+
+  private static BufferedImage createLayer(int width, int height) {
+
+    if (!GraphicsEnvironment.isHeadless()) {
+      GraphicsConfiguration gc =
+          GraphicsEnvironment.getLocalGraphicsEnvironment()
+              .getDefaultScreenDevice()
+              .getDefaultConfiguration();
+      return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+  }
+
+  /**
+   * Graphics to render the series into the layer, as if rendering into the chart graphics.
+   *
+   * @param source chart graphics, to copy transform and rendering hints from
+   * @param clip area to render into, in chart coordinates. Not the clip of {@code source}, which
+   *     may only cover a repaint region while the layer is kept for later paints
+   * @return layer graphics, to be disposed by the caller
+   */
+  Graphics2D createLayerGraphics(Graphics2D source, Rectangle2D clip) {
+
+    Graphics2D g = layer.createGraphics();
+    g.setRenderingHints(source.getRenderingHints());
+
+    AffineTransform t = AffineTransform.getTranslateInstance(-layerOriginX, -layerOriginY);
+    t.concatenate(source.getTransform());
+    g.setTransform(t);
+    g.setClip(clip);
+    return g;
+  }
+
+  /**
+   * Draws the layer into the chart graphics, pixel to pixel
+   *
+   * @param g chart graphics, its transform is restored
+   */
+  void drawLayer(Graphics2D g) {
+
+    AffineTransform prev = g.getTransform();
+    g.setTransform(AffineTransform.getTranslateInstance(layerOriginX, layerOriginY));
+    g.drawImage(layer, 0, 0, null);
+    g.setTransform(prev);
+  }
+
+  /** Drops the layer, e.g. when painting without layers */
+  void releaseLayer() {
+
+    if (layer != null) {
+      layer.flush();
+      layer = null;
+      layerKey = null;
+    }
+  }
+}
@@ -21,6 +21,9 @@ public abstract class AxesChartSeriesNumericalNoErrorBars extends MarkerSeries {
   double[] yData;
   double[] extraValues;
 
+  // incremented whenever xData, yData or extraValues change, so renderers can cache derived data
+  int dataVersion;
+
   /**
    * Constructor
    *
@@ -70,6 +73,7 @@ public abstract class AxesChartSeriesNumericalNoErrorBars extends MarkerSeries {
     xData = newXData;
     yData = newYData;
     extraValues = newExtraValues;
+    dataVersion++;
 
     calculateMinMax();
   }
@@ -84,6 +88,7 @@ public abstract class AxesChartSeriesNumericalNoErrorBars extends MarkerSeries {
     if (extraValuesAll != null) {
       extraValues = Arrays.copyOfRange(extraValuesAll, startIndex, endIndex);
     }
+    dataVersion++;
 
     calculateMinMax();
   }
@@ -128,6 +133,7 @@ public abstract class AxesChartSeriesNumericalNoErrorBars extends MarkerSeries {
       }
       ind++;
     }
+    dataVersion++;
 
     calculateMinMax();
     return true;
@@ -138,6 +144,7 @@ public abstract class AxesChartSeriesNumericalNoErrorBars extends MarkerSeries {
     xData = xDataAll;
     yData = yDataAll;
     extraValues = extraValuesAll;
+    dataVersion++;
     calculateMinMax();
   }
 
@@ -228,6 +235,16 @@ public abstract class AxesChartSeriesNumericalNoErrorBars extends MarkerSeries {
     return xData.length == xDataAll.length;
   }
 
+  /**
+   * Version of the current data, incremented on every data replacement or filter change
+   *
+   * @return data version
+   */
+  public int getDataVersion() {
+
+    return dataVersion;
+  }
+
   public double[] getXData() {
 
     return xData;
@@ -10,6 +10,7 @@ import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import rotor.RotorState;
+import util.main.AdaptiveQuadrature;
 import rotor.frequency.ExplicitFrequencyProvider;
 import rotor.frequency.RotorFrequencyProviderI;
 
@@ -39,6 +40,16 @@ public class ComplexDomainFunctionWrapper implements ComplexDomainFunctionI, Col
         return base.compute(input);
     }
 
+    /**
+     * @return whether {@link #compute(double)} just delegates to the base function, so that samples of the base function
+     * can be shared with this wrapper. Subclasses overriding {@link #compute(double)} must return {@code false}
+     *
+     * @see util.main.FunctionSampleCache
+     * */
+    public boolean isComputeDelegated() {
+        return true;
+    }
+
     /* Rotor States */
 
     @Override
@@ -116,6 +127,11 @@ public class ComplexDomainFunctionWrapper implements ComplexDomainFunctionI, Col
         return base.getNumericalIntegrationIntervalCount();
     }
 
+    @Override
+    public @Nullable AdaptiveQuadrature.Tolerance getAdaptiveIntegrationTolerance() {
+        return base.getAdaptiveIntegrationTolerance();
+    }
+
     @Override
     public long getDomainAnimationDurationMsDefault() {
         return (long) (base.getDomainAnimationDurationMsDefault() * domainAnimationDurationScale);
@@ -8,11 +8,14 @@ import models.ComplexBuilder;
 import models.FunctionGraphMode;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
+import rotor.EpicycleKernel;
 import rotor.RotorState;
+import rotor.RotorTable;
 import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import rotor.frequency.ExplicitFrequencyProvider;
 import rotor.frequency.RotorFrequencyProviderI;
+import util.main.FunctionSampleCache;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -44,6 +47,20 @@ public class RotorStatesFunction implements ComplexDomainFunctionI {
             this.adder = adder;
         }
 
+        /**
+         * Applies this mode to the sum of all rotor tips, same as {@link #adder adding} all tips one by one since all modes are linear
+         * */
+        @NotNull
+        public Complex apply(double sumReal, double sumImaginary) {
+            return switch (this) {
+                case REAL_COS -> new Complex(sumReal, 0);
+                case REAL_SINE -> new Complex(sumImaginary, 0);
+                case IMG_COS -> new Complex(0, sumReal);
+                case IMG_SINE -> new Complex(0, sumImaginary);
+                case COMPLEX -> new Complex(sumReal, sumImaginary);
+            };
+        }
+
         @Override
         public String toString() {
             return displayName;
@@ -78,6 +95,8 @@ public class RotorStatesFunction implements ComplexDomainFunctionI {
     @NotNull
     @Unmodifiable
     private final Map<Double, RotorState> states;
+    @NotNull
+    private final EpicycleKernel kernel;
 
     /* ....................  Defaults  ................... */
     private final double defaultDomainStart;
@@ -114,6 +133,7 @@ public class RotorStatesFunction implements ComplexDomainFunctionI {
 
         this.function = function;
         this.states = toUnmodifiableMap(states);
+        this.kernel = EpicycleKernel.of(RotorTable.of(this.states.values()));
         this.defaultDomainStart = defaultDomainStart;
         this.defaultDomainEnd = defaultDomainEnd;
         this.defaultNumericalIntegrationIntervalCount = defaultNumericalIntegrationIntervalCount;
@@ -167,11 +187,9 @@ public class RotorStatesFunction implements ComplexDomainFunctionI {
             return function.compute(input);
         }
 
-        final ComputeMode computeMode = mComputeMode;
-        final ComplexBuilder r = new ComplexBuilder(0, 0);
-
-        states.values().forEach(s -> computeMode.adder.consume(r, s.getTip(input)));
-        return r.toComplex();
+        final double[] sum = new double[2];
+        kernel.sum(input, sum);
+        return mComputeMode.apply(sum[0], sum[1]);
     }
 
 
@@ -181,7 +199,11 @@ public class RotorStatesFunction implements ComplexDomainFunctionI {
     }
 
     public RotorStatesFunction setComputeMode(@NotNull ComputeMode computeMode) {
-        mComputeMode = computeMode;
+        if (mComputeMode != computeMode) {
+            mComputeMode = computeMode;
+            FunctionSampleCache.invalidate(this);
+        }
+
         return this;
     }
 
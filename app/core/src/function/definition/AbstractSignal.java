@@ -1,5 +1,7 @@
 package function.definition;
 
+import util.main.FunctionSampleCache;
+
 /**
  * {@inheritDoc}
  * */
@@ -8,7 +10,11 @@ public abstract class AbstractSignal implements SignalFunctionI {
     private volatile boolean mReal = DEFAULT_REAL;
 
     public AbstractSignal setReal(boolean real) {
-        mReal = real;
+        if (mReal != real) {
+            mReal = real;
+            FunctionSampleCache.invalidate(this);
+        }
+
         return this;
     }
 
@@ -0,0 +1,20 @@
+package function.definition;
+
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Functions whose Fourier Transform over the whole domain has a closed form, e.g. piecewise polynomial paths<br>
+ * <br>
+ * Uses the same convention as the numerical {@link util.main.ComplexUtil#fourierTransform(ComplexDomainFunctionI, double)},
+ * which prefers this when available
+ * */
+public interface AnalyticFourierTransformProviderI {
+
+    /**
+     * @param frequency the temporal frequency
+     * @return exact Fourier Transform over the whole domain, or {@code null} if not available (falls back to numerical integration)
+     * */
+    @Nullable
+    Complex fourierTransformAnalytic(double frequency);
+}
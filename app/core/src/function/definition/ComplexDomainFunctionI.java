@@ -10,6 +10,8 @@ import rotor.frequency.ExplicitFrequencyProvider;
 import rotor.frequency.FundamentalFrequencyProvider;
 import rotor.frequency.RotorFrequencyProviderI;
 import util.json.JsonParsable;
+import util.main.FunctionSampleCache;
+import util.main.FunctionSamples;
 
 public interface ComplexDomainFunctionI extends ComplexFunctionI, DomainProviderI, FrequencySupportProviderI, CacheRotorStateProvider, JsonParsable {
 
@@ -56,6 +58,9 @@ public interface ComplexDomainFunctionI extends ComplexFunctionI, DomainProvider
         return arr;
     }
 
+    /**
+     * Samples are shared through {@link FunctionSampleCache} if {@link FunctionSampleCache#ENABLED enabled}
+     * */
     @NotNull
     default Complex @NotNull[] createSamplesRange(int sampleCount) {
         if (sampleCount < 1)
@@ -65,6 +70,12 @@ public interface ComplexDomainFunctionI extends ComplexFunctionI, DomainProvider
         if (sampleCount == 1)
             return new Complex[] { compute(start) };
 
+        if (FunctionSampleCache.ENABLED) {
+            final FunctionSamples samples = FunctionSampleCache.get(this, sampleCount - 1, null);
+            if (samples != null)
+                return samples.toComplex();
+        }
+
         final double step = getSampleDomainStep(sampleCount);
 
         final Complex[] range = new Complex[sampleCount];
@@ -98,6 +109,18 @@ public interface ComplexDomainFunctionI extends ComplexFunctionI, DomainProvider
         if (sampleCount == 1)
             return new double[] { realTransform.toReal(compute(start)) };
 
+        if (FunctionSampleCache.ENABLED) {
+            final FunctionSamples samples = FunctionSampleCache.get(this, sampleCount - 1, null);
+            if (samples != null) {
+                final double[] range = new double[sampleCount];
+                for (int i=0; i < sampleCount; i++) {
+                    range[i] = realTransform.toReal(new Complex(samples.getReal(i), samples.getImaginary(i)));
+                }
+
+                return range;
+            }
+        }
+
         final double step = getSampleDomainStep(sampleCount);
 
         final double[] range = new double[sampleCount];
@@ -0,0 +1,22 @@
+package function.definition;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Functions that can describe their own definition, e.g. path geometry or program code, so that any edit of the definition
+ * can be detected without evaluating the function<br>
+ * <br>
+ * Used to fingerprint functions for the persistent rotor coefficients cache
+ * */
+public interface DefinitionDigestProviderI {
+
+    /**
+     * Writes everything the values of this function depend on. Equal output must imply equal values
+     *
+     * @throws IOException if the definition is not available, e.g. source file of a program could not be read
+     * */
+    void digestDefinition(@NotNull DataOutput out) throws IOException;
+}
@@ -2,6 +2,7 @@ package function.definition;
 
 import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
+import util.main.FunctionSampleCache;
 
 
 /**
@@ -82,7 +83,11 @@ public class DiscreteFunction implements DiscreteFunctionI {
 
     @NotNull
     public DiscreteFunction setStickMode(@NotNull StickMode stickMode) {
-        this.stickMode = stickMode;
+        if (this.stickMode != stickMode) {
+            this.stickMode = stickMode;
+            FunctionSampleCache.invalidate(this);
+        }
+
         return this;
     }
 }
@@ -2,6 +2,7 @@ package function.definition;
 
 import models.RealTransform;
 import org.jetbrains.annotations.NotNull;
+import util.main.FunctionSampleCache;
 
 /**
  * An implementation of {@link DiscreteSignalI DiscreteSignal}
@@ -81,7 +82,11 @@ public class DiscreteSignal implements DiscreteSignalI {
     }
 
     public DiscreteSignal setReal(boolean real) {
-        mReal = real;
+        if (mReal != real) {
+            mReal = real;
+            FunctionSampleCache.invalidate(this);
+        }
+
         return this;
     }
 
@@ -92,7 +97,11 @@ public class DiscreteSignal implements DiscreteSignalI {
 
     @NotNull
     public DiscreteSignal setStickMode(StickMode stickMode) {
-        this.stickMode = stickMode;
+        if (this.stickMode != stickMode) {
+            this.stickMode = stickMode;
+            FunctionSampleCache.invalidate(this);
+        }
+
         return this;
     }
 }
@@ -3,6 +3,7 @@ package function.definition;
 import misc.MathUtil;
 import org.jetbrains.annotations.Nullable;
 
+import util.main.AdaptiveQuadrature;
 import util.main.ComplexUtil;
 
 import java.awt.*;
@@ -72,6 +73,20 @@ public interface DomainProviderI extends ColorProviderI {
         return -1;
     }
 
+    /**
+     * Selects adaptive Gauss–Kronrod integration in place of fixed interval Simpson 1/3, e.g. for discontinuous functions
+     * where fixed intervals under-resolve high frequencies.<br>
+     * When non-null, {@link #getNumericalIntegrationIntervalCount()} is ignored by Fourier Transform
+     *
+     * @return integration tolerance, or {@code null} to use fixed interval integration
+     *
+     * @see ComplexUtil#fourierTransformAdaptive(ComplexFunctionI, double, double, double, AdaptiveQuadrature.Tolerance)
+     * */
+    @Nullable
+    default AdaptiveQuadrature.Tolerance getAdaptiveIntegrationTolerance() {
+        return null;
+    }
+
     /**
      * @param input input
      * @return color of the output space point mapped by given input
@@ -3,6 +3,8 @@ package function.internal.basic;
 import function.definition.ComplexDomainFunctionI;
 import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.main.AdaptiveQuadrature;
 
 public class RectFunction implements ComplexDomainFunctionI {
 
@@ -64,6 +66,11 @@ public class RectFunction implements ComplexDomainFunctionI {
         return new Complex(x, y);
     }
 
+    @Override
+    public @Nullable AdaptiveQuadrature.Tolerance getAdaptiveIntegrationTolerance() {
+        return AdaptiveQuadrature.Tolerance.DEFAULT;           // non-smooth at corners
+    }
+
     @Override
     public long getDomainAnimationDurationMsDefault() {
         return 4000;
@@ -6,6 +6,7 @@ import org.jetbrains.annotations.Nullable;
 import rotor.frequency.BoundedFrequencyProvider;
 import rotor.frequency.FixedStartFrequencyProvider;
 import rotor.frequency.RotorFrequencyProviderI;
+import util.main.FunctionSampleCache;
 
 public class SineSignal extends AbstractSignal {
 
@@ -74,7 +75,11 @@ public class SineSignal extends AbstractSignal {
     }
 
     public SineSignal setExact(boolean exact) {
-        this.exact = exact;
+        if (this.exact != exact) {
+            this.exact = exact;
+            FunctionSampleCache.invalidate(this);
+        }
+
         return this;
     }
 
@@ -5,6 +5,7 @@ import function.definition.ComplexDomainFunctionI;
 import function.definition.SignalFunctionI;
 import org.jetbrains.annotations.Nullable;
 import rotor.frequency.RotorFrequencyProviderI;
+import util.main.AdaptiveQuadrature;
 
 public class StepFunction extends AbstractSignal {
 
@@ -53,6 +54,11 @@ public class StepFunction extends AbstractSignal {
         return ComplexDomainFunctionI.getDefaultFrequencyProvider(getDomainRange());
     }
 
+    @Override
+    public @Nullable AdaptiveQuadrature.Tolerance getAdaptiveIntegrationTolerance() {
+        return AdaptiveQuadrature.Tolerance.DEFAULT;           // discontinuous
+    }
+
     @Override
     public long getDomainAnimationDurationMsDefault() {
         return (long) (2000 * duration);
@@ -62,4 +62,17 @@ public class CubicCurvePath extends PathFunction {
     public @NotNull Point2D interpolate(float i) {
         return PathUtil.interpolateCubic(p0, p1, p2, p3, i);
     }
+
+    @Override
+    public double @NotNull[] getPolynomialCoefficients() {
+        final double x0 = p0.getX(), x1 = p1.getX(), x2 = p2.getX(), x3 = p3.getX();
+        final double y0 = p0.getY(), y1 = p1.getY(), y2 = p2.getY(), y3 = p3.getY();
+
+        return new double[] {
+                x0, y0,
+                3 * (x1 - x0), 3 * (y1 - y0),
+                3 * (x0 - (2 * x1) + x2), 3 * (y0 - (2 * y1) + y2),
+                x3 - x0 + (3 * (x1 - x2)), y3 - y0 + (3 * (y1 - y2))
+        };
+    }
 }
\ No newline at end of file
@@ -51,4 +51,12 @@ public class LinePath extends PathFunction {
     public Point2D interpolate(float i) {
         return PathUtil.interpolateLinear(p0, p1, i);
     }
+
+    @Override
+    public double @NotNull[] getPolynomialCoefficients() {
+        return new double[] {
+                p0.getX(), p0.getY(),
+                p1.getX() - p0.getX(), p1.getY() - p0.getY()
+        };
+    }
 }
@@ -1,19 +1,22 @@
 package function.path;
 
+import function.definition.AnalyticFourierTransformProviderI;
 import function.definition.ColorHandler;
 import function.definition.ColorProviderI;
 import function.definition.ComplexDomainFunctionI;
 import models.FunctionGraphMode;
+import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
+import util.main.ComplexUtil;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
 
-public interface PathFunctionI extends ComplexDomainFunctionI, ColorHandler {
+public interface PathFunctionI extends ComplexDomainFunctionI, ColorHandler, AnalyticFourierTransformProviderI {
 
     boolean DEFAULT_INTERPOLATE_LINE = false;       // increasing points decreases accuracy
     int DEFAULT_INTERPOLATE_POINT_COUNT = 10;
@@ -76,6 +79,48 @@ public interface PathFunctionI extends ComplexDomainFunctionI, ColorHandler {
     @NotNull
     Point2D interpolate(float i);
 
+    /**
+     * @return degree of the curve polynomial, 1 for line path
+     * */
+    default int getDegree() {
+        return getControlPointsCount() + 1;
+    }
+
+    /**
+     * Power basis form of the Bézier curve in its parameter {@code u} in [0, 1]
+     * <pre>
+     *     point(u) = Σ c(m) · u^m,     m = 0 to {@link #getDegree()}
+     * </pre>
+     *
+     * @return coefficients as {@code [x0, y0, x1, y1, ...]}, of length {@code 2 * (degree + 1)}
+     * */
+    double @NotNull[] getPolynomialCoefficients();
+
+    /**
+     * Closed form Fourier Transform of this segment over [0, 1], as a combination of
+     * {@link ComplexUtil#expMonomialIntegrals(double, int, double[], double[]) exponential monomial integrals}
+     * */
+    @Override
+    @Nullable
+    default Complex fourierTransformAnalytic(double frequency) {
+        if (!isFrequencySupported(frequency))
+            return Complex.ZERO;
+
+        final int degree = getDegree();
+        final double[] c = getPolynomialCoefficients();
+        final double[] re = new double[degree + 1], im = new double[degree + 1];
+        ComplexUtil.expMonomialIntegrals(ComplexUtil.getFourierExpTermPowerCoefficient(ComplexUtil.DIRECTION_FOURIER_TRANSFORM, frequency), degree, re, im);
+
+        double sumRe = 0, sumIm = 0;
+        for (int m = 0; m <= degree; m++) {
+            final double x = c[2 * m], y = c[2 * m + 1];
+            sumRe += (x * re[m]) - (y * im[m]);
+            sumIm += (x * im[m]) + (y * re[m]);
+        }
+
+        return new Complex(sumRe, sumIm);
+    }
+
 
     /**
      * samples a path segment by interpolation points along the curve
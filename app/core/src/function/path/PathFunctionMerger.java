@@ -1,25 +1,72 @@
 package function.path;
 
+import function.definition.AnalyticFourierTransformProviderI;
 import function.definition.ColorHandler;
 import function.definition.ColorProviderI;
+import function.definition.DefinitionDigestProviderI;
 import function.definition.DomainAnimationDurationScalerI;
 import function.graphic.GraphicFunction;
 import org.apache.batik.parser.ParseException;
 import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import util.main.ComplexUtil;
 
 import java.awt.*;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-public class PathFunctionMerger extends GraphicFunction implements ColorHandler, DomainAnimationDurationScalerI {
+public class PathFunctionMerger extends GraphicFunction implements ColorHandler, DomainAnimationDurationScalerI, AnalyticFourierTransformProviderI, DefinitionDigestProviderI {
 
     public static final String TAG = "PathFunctionIMerger";
 
+    /**
+     * Max polynomial degree of segments (cubic Bézier)
+     * */
+    public static final int MAX_SEGMENT_DEGREE = 3;
+
+    /**
+     * Segments after which the accumulated segment phase is recomputed exactly, to bound rounding drift of the rotation
+     * */
+    private static final int PHASE_RESYNC_INTERVAL = 64;
+
+    /**
+     * Initial value of {@link #isArcLengthParameterizedCurrentDefault()}, see {@link #isArcLengthParameterized()}
+     * */
+    public static final boolean ARC_LENGTH_PARAMETERIZED_DEFAULT = false;
+
+    private static volatile boolean sArcLengthParameterizedCurrentDefault = ARC_LENGTH_PARAMETERIZED_DEFAULT;
+
+    /**
+     * Sets whether mergers created without an explicit parameterization are {@link #isArcLengthParameterized() arc length parameterized}.
+     * Already created mergers are not affected
+     * */
+    public static void setArcLengthParameterizedCurrentDefault(boolean arcLengthParameterized) {
+        sArcLengthParameterizedCurrentDefault = arcLengthParameterized;
+    }
+
+    public static boolean isArcLengthParameterizedCurrentDefault() {
+        return sArcLengthParameterizedCurrentDefault;
+    }
+
+    /**
+     * Relative (to segment length) tolerance of arc length inversion
+     * */
+    private static final double ARC_LENGTH_INVERSION_TOLERANCE = 1E-9;
+    private static final int ARC_LENGTH_INVERSION_MAX_ITERATIONS = 12;
+
+    /* 8 point Gauss–Legendre nodes over [-1, 1] (positive half) and weights, for segment arc lengths */
+    private static final double[] GL_NODES = { 0.183434642495649804939476142360184, 0.525532409916328985817739049189246, 0.796666477413626739591553936475830, 0.960289856497536231683560868569473 };
+    private static final double[] GL_WEIGHTS = { 0.362683783378361982965150449277196, 0.313706645877887287337962201986601, 0.222381034453374470544355994426241, 0.101228536290376259152531354309962 };
+
+    /* Coefficients per segment of the derivative polynomial, degree MAX_SEGMENT_DEGREE - 1 */
+    private static final int DERIVATIVE_STRIDE = MAX_SEGMENT_DEGREE;
+
     public static final ColorProviderI COLOR_PROVIDER_CONTINUITY_LINK = ColorProviderI.TRANSPARENT;
 
     @NotNull
@@ -30,7 +77,27 @@ public class PathFunctionMerger extends GraphicFunction implements ColorHandler,
     private final long animDurationDefault, animDurationMin, animDurationMax;
     private float animDurationScale = 1;
 
-    public PathFunctionMerger(@NotNull PathFunctionI[] segments, @NotNull Rectangle2D bounds, float zoom, boolean center) throws IllegalArgumentException {
+    /**
+     * Transformed power basis coefficients of all segments, {@code (MAX_SEGMENT_DEGREE + 1)} per segment (zero padded).
+     * Lazily built, see {@link #fourierTransformAnalytic(double)}
+     * */
+    private volatile double @Nullable[][] polynomials;
+
+    /**
+     * Cumulative arc length at start of each segment (and total length at the end), {@code null} if not arc length parameterized
+     * */
+    private final double @Nullable[] cumulativeLengths;
+
+    /**
+     * Power basis coefficients of segment derivatives, {@link #DERIVATIVE_STRIDE} per segment. {@code null} if not arc length parameterized
+     * */
+    private final double @Nullable[] derivativeRe, derivativeIm;
+
+    /**
+     * @param arcLengthParameterized whether to map domain to segments by arc length (see {@link #isArcLengthParameterized()}),
+     *                               instead of one unit of domain per segment
+     * */
+    public PathFunctionMerger(@NotNull PathFunctionI[] segments, @NotNull Rectangle2D bounds, float zoom, boolean center, boolean arcLengthParameterized) throws IllegalArgumentException {
         super(zoom, center);
         if (segments == null || segments.length == 0)
             throw new IllegalArgumentException("No PathFunctionIs provided to PathFunctionIMerger!!");
@@ -46,6 +113,37 @@ public class PathFunctionMerger extends GraphicFunction implements ColorHandler,
         }
 
         animDurationDefault = _msDef; animDurationMin = _msMin; animDurationMax = _msMax;
+
+        // Arc length index
+        double[] cumulative = null, dRe = null, dIm = null;
+        if (arcLengthParameterized) {
+            dRe = new double[segments.length * DERIVATIVE_STRIDE];
+            dIm = new double[segments.length * DERIVATIVE_STRIDE];
+            cumulative = new double[segments.length + 1];
+
+            for (int j = 0; j < segments.length; j++) {
+                final double[] c = segments[j].getPolynomialCoefficients();
+                final int degree = segments[j].getDegree();
+                for (int m = 1; m <= degree; m++) {
+                    dRe[j * DERIVATIVE_STRIDE + m - 1] = m * c[2 * m];
+                    dIm[j * DERIVATIVE_STRIDE + m - 1] = m * c[2 * m + 1];
+                }
+
+                cumulative[j + 1] = cumulative[j] + arcLength(dRe, dIm, j, 1);
+            }
+
+            if (!(cumulative[segments.length] > 0)) {
+                cumulative = dRe = dIm = null;          // degenerate (single point) path
+            }
+        }
+
+        cumulativeLengths = cumulative;
+        derivativeRe = dRe;
+        derivativeIm = dIm;
+    }
+
+    public PathFunctionMerger(@NotNull PathFunctionI[] segments, @NotNull Rectangle2D bounds, float zoom, boolean center) throws IllegalArgumentException {
+        this(segments, bounds, zoom, center, isArcLengthParameterizedCurrentDefault());
     }
 
 
@@ -132,6 +230,28 @@ public class PathFunctionMerger extends GraphicFunction implements ColorHandler,
     }
 
 
+    /**
+     * Writes the geometry: each segment's degree and power basis coefficients, along with the transform and parameterization
+     * */
+    @Override
+    public void digestDefinition(@NotNull DataOutput out) throws IOException {
+        out.writeFloat(zoom);
+        out.writeBoolean(center);
+        out.writeDouble(bounds.getX());
+        out.writeDouble(bounds.getY());
+        out.writeDouble(bounds.getWidth());
+        out.writeDouble(bounds.getHeight());
+        out.writeBoolean(isArcLengthParameterized());
+
+        out.writeInt(segments.length);
+        for (PathFunctionI f: segments) {
+            out.writeInt(f.getDegree());
+            for (double c: f.getPolynomialCoefficients()) {
+                out.writeDouble(c);
+            }
+        }
+    }
+
     @Override
     @NotNull
     public final Rectangle2D getBounds() {
@@ -191,6 +311,7 @@ public class PathFunctionMerger extends GraphicFunction implements ColorHandler,
             d %= segments.length;
         }
 
+        d = toSegmentPosition(d);
         int i = (int) d;
         if (i >= segments.length) {
             i = segments.length - 1;           // last
@@ -199,12 +320,211 @@ public class PathFunctionMerger extends GraphicFunction implements ColorHandler,
         return applyTransform(segments[i].compute(d - i));
     }
 
+    /**
+     * Power basis coefficients of all segments with the output transform applied (assumed complex affine, as {@link #applyTransform(Complex)}),
+     * as {@code [re, im]}
+     * */
+    private double @NotNull[][] getPolynomials() {
+        double[][] polys = polynomials;
+        if (polys != null)
+            return polys;
+
+        final int stride = MAX_SEGMENT_DEGREE + 1;
+        final double[] re = new double[segments.length * stride];
+        final double[] im = new double[segments.length * stride];
+
+        // transform(z) = a·z + b
+        final Complex b = applyTransform(Complex.ZERO);
+        final Complex a = applyTransform(Complex.ONE).subtract(b);
+
+        for (int j = 0; j < segments.length; j++) {
+            final double[] c = segments[j].getPolynomialCoefficients();
+            final int degree = segments[j].getDegree();
+
+            for (int m = 0; m <= degree; m++) {
+                final double x = c[2 * m], y = c[2 * m + 1];
+                re[j * stride + m] = (a.getReal() * x) - (a.getImaginary() * y);
+                im[j * stride + m] = (a.getReal() * y) + (a.getImaginary() * x);
+            }
+
+            re[j * stride] += b.getReal();
+            im[j * stride] += b.getImaginary();
+        }
+
+        polys = new double[][] { re, im };
+        polynomials = polys;
+        return polys;
+    }
+
+    /**
+     * Closed form Fourier Transform over the whole domain, in O(segments) without sampling<br>
+     * <br>
+     * Segment {@code j} spans [j, j + 1] with local parameter {@code u = t - j}, so its contribution is
+     * <pre>
+     *     e^(i·w·j) · Σ c(j, m) · I(m),     I(m) = ∫ u^m · e^(i·w·u) du over [0, 1]
+     * </pre>
+     * where {@code I(m)} are shared by all segments (see {@link ComplexUtil#expMonomialIntegrals(double, int, double[], double[])})
+     * <br>
+     * Not available if {@link #isArcLengthParameterized() arc length parameterized}
+     * */
+    @Override
+    @Nullable
+    public Complex fourierTransformAnalytic(double frequency) {
+        if (cumulativeLengths != null)
+            return null;            // segments are not linear in domain
+
+        if (!isFrequencySupported(frequency))
+            return Complex.ZERO;
+
+        final double w = ComplexUtil.getFourierExpTermPowerCoefficient(ComplexUtil.DIRECTION_FOURIER_TRANSFORM, frequency);
+        final int stride = MAX_SEGMENT_DEGREE + 1;
+        final double[] iRe = new double[stride], iIm = new double[stride];
+        ComplexUtil.expMonomialIntegrals(w, MAX_SEGMENT_DEGREE, iRe, iIm);
+
+        final double[][] polys = getPolynomials();
+        final double[] re = polys[0], im = polys[1];
+
+        final double stepRe = Math.cos(w), stepIm = Math.sin(w);
+        double phaseRe = 1, phaseIm = 0;
+        double sumRe = 0, sumIm = 0;
+
+        for (int j = 0; j < segments.length; j++) {
+            if (j > 0) {
+                if (j % PHASE_RESYNC_INTERVAL == 0) {
+                    phaseRe = Math.cos(w * j);
+                    phaseIm = Math.sin(w * j);
+                } else {
+                    final double pr = (phaseRe * stepRe) - (phaseIm * stepIm);
+                    phaseIm = (phaseRe * stepIm) + (phaseIm * stepRe);
+                    phaseRe = pr;
+                }
+            }
+
+            double segRe = 0, segIm = 0;
+            for (int m = 0, k = j * stride; m < stride; m++, k++) {
+                segRe += (re[k] * iRe[m]) - (im[k] * iIm[m]);
+                segIm += (re[k] * iIm[m]) + (im[k] * iRe[m]);
+            }
+
+            sumRe += (phaseRe * segRe) - (phaseIm * segIm);
+            sumIm += (phaseRe * segIm) + (phaseIm * segRe);
+        }
+
+        return new Complex(sumRe, sumIm);
+    }
+
+    /* ............................. Arc Length ............................. */
+
+    /**
+     * Whether domain is mapped to segments by arc length, so that equal domain spans cover equal path lengths
+     * (a tiny continuity link gets a tiny part of the domain). Otherwise, each segment spans one unit of domain.
+     * <br>
+     * Domain is [0, segments count] in both cases
+     * */
+    public final boolean isArcLengthParameterized() {
+        return cumulativeLengths != null;
+    }
+
+    /**
+     * @return total arc length of the path (before transform), or {@code NaN} if not {@link #isArcLengthParameterized() arc length parameterized}
+     * */
+    public final double getArcLength() {
+        final double[] cumulative = cumulativeLengths;
+        return cumulative != null? cumulative[segments.length]: Double.NaN;
+    }
+
+    /**
+     * Speed {@code |P'(u)|} of segment {@code j}
+     * */
+    private static double speed(double @NotNull[] dRe, double @NotNull[] dIm, int j, double u) {
+        final int k = j * DERIVATIVE_STRIDE;
+        final double re = dRe[k] + (u * (dRe[k + 1] + (u * dRe[k + 2])));
+        final double im = dIm[k] + (u * (dIm[k + 1] + (u * dIm[k + 2])));
+        return Math.sqrt((re * re) + (im * im));
+    }
+
+    /**
+     * Gauss–Legendre arc length of segment {@code j} over local parameter [0, u]
+     * */
+    private static double arcLength(double @NotNull[] dRe, double @NotNull[] dIm, int j, double u) {
+        final double half = 0.5 * u;
+        double sum = 0;
+        for (int k = 0; k < GL_NODES.length; k++) {
+            final double dx = half * GL_NODES[k];
+            sum += GL_WEIGHTS[k] * (speed(dRe, dIm, j, half - dx) + speed(dRe, dIm, j, half + dx));
+        }
+
+        return sum * half;
+    }
+
+    /**
+     * Maps domain input in [0, segments count] to segment position {@code index + local parameter}.
+     * Identity unless {@link #isArcLengthParameterized() arc length parameterized}, in which case the segment is found by
+     * binary search over cumulative lengths and the local parameter by safeguarded Newton inversion of its arc length.
+     * O(log segments), without allocations
+     * */
+    private double toSegmentPosition(double d) {
+        final double[] cumulative = cumulativeLengths;
+        if (cumulative == null)
+            return d;
+
+        final double[] dRe = derivativeRe, dIm = derivativeIm;
+        final int count = segments.length;
+        final double target = Math.max(0, Math.min(count, d)) * (cumulative[count] / count);
+
+        // last segment starting at or before target (skips zero length segments)
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (cumulative[mid] <= target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        final double length = cumulative[lo + 1] - cumulative[lo];
+        if (!(length > 0))
+            return lo;
+
+        final double s = target - cumulative[lo];
+        if (s >= length)
+            return lo + 1;
+
+        // Newton on L(u) = s, bracketed by [low, high]
+        double low = 0, high = 1;
+        double u = s / length;
+        for (int i = 0; i < ARC_LENGTH_INVERSION_MAX_ITERATIONS; i++) {
+            final double err = arcLength(dRe, dIm, lo, u) - s;
+            if (Math.abs(err) <= ARC_LENGTH_INVERSION_TOLERANCE * length)
+                break;
+
+            if (err > 0) {
+                high = u;
+            } else {
+                low = u;
+            }
+
+            final double speed = speed(dRe, dIm, lo, u);
+            double next = speed > 0? u - (err / speed): Double.NaN;
+            if (!(next > low && next < high)) {
+                next = 0.5 * (low + high);          // bisection, outside bracket or stationary point
+            }
+
+            u = next;
+        }
+
+        return lo + u;
+    }
+
+
     @Override
     public @Nullable Color getColor(double d) {
         if (d > segments.length) {
             d %= segments.length;
         }
 
+        d = toSegmentPosition(d);
         int i = (int) d;
         if (i >= segments.length) {
             i = segments.length - 1;           // last
@@ -303,17 +623,27 @@ public class PathFunctionMerger extends GraphicFunction implements ColorHandler,
     }
 
     @NotNull
-    public static PathFunctionMerger create(@NotNull PathIterator itr, @NotNull Rectangle2D bounds, float zoom, boolean center) throws ParseException {
+    public static PathFunctionMerger create(@NotNull PathIterator itr, @NotNull Rectangle2D bounds, float zoom, boolean center, boolean arcLengthParameterized) throws ParseException {
         List<PathFunctionI> segments = parse(itr);
         if (segments.isEmpty())
             throw new ParseException(new Exception("Path is empty!!"));
 
-        return new PathFunctionMerger(segments.toArray(new PathFunctionI[0]), bounds, zoom, center);
+        return new PathFunctionMerger(segments.toArray(new PathFunctionI[0]), bounds, zoom, center, arcLengthParameterized);
+    }
+
+    @NotNull
+    public static PathFunctionMerger create(@NotNull PathIterator itr, @NotNull Rectangle2D bounds, float zoom, boolean center) throws ParseException {
+        return create(itr, bounds, zoom, center, isArcLengthParameterizedCurrentDefault());
+    }
+
+    @NotNull
+    public static PathFunctionMerger create(@NotNull Shape shape, float zoom, boolean center, boolean arcLengthParameterized) throws ParseException {
+        return create(shape.getPathIterator(null), shape.getBounds(), zoom, center, arcLengthParameterized);
     }
 
     @NotNull
     public static PathFunctionMerger create(@NotNull Shape shape, float zoom, boolean center) throws ParseException {
-        return create(shape.getPathIterator(null), shape.getBounds(), zoom, center);
+        return create(shape, zoom, center, isArcLengthParameterizedCurrentDefault());
     }
 
     @NotNull
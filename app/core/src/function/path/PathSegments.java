@@ -0,0 +1,216 @@
+package function.path;
+
+import org.apache.batik.parser.ParseException;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, already parsed path geometry, as flat segment arrays<br>
+ * <br>
+ * Holds exactly what a {@link PathIterator} of the parsed {@link Shape} yields (segment types and their coordinates), and the
+ * integer bounds of the shape, so that a {@link PathFunctionMerger} can be created without parsing path data again,
+ * e.g. from an on-disk cache
+ * */
+public final class PathSegments {
+
+    /**
+     * @return number of coordinates (x and y each) of given {@link PathIterator} segment type
+     * */
+    public static int coordCount(int segmentType) {
+        return switch (segmentType) {
+            case PathIterator.SEG_MOVETO, PathIterator.SEG_LINETO -> 2;
+            case PathIterator.SEG_QUADTO -> 4;
+            case PathIterator.SEG_CUBICTO -> 6;
+            case PathIterator.SEG_CLOSE -> 0;
+            default -> throw new IllegalArgumentException("Invalid path segment type: " + segmentType);
+        };
+    }
+
+    @NotNull
+    public static PathSegments of(@NotNull Shape shape) {
+        final PathIterator itr = shape.getPathIterator(null);
+
+        byte[] types = new byte[64];
+        double[] coords = new double[256];
+        int typeCount = 0, coordCount = 0;
+        final double[] seg = new double[6];
+
+        for (; !itr.isDone(); itr.next()) {
+            final int type = itr.currentSegment(seg);
+            final int n = coordCount(type);
+
+            if (typeCount == types.length) {
+                types = Arrays.copyOf(types, typeCount << 1);
+            }
+            if (coordCount + n > coords.length) {
+                coords = Arrays.copyOf(coords, Math.max(coords.length << 1, coordCount + n));
+            }
+
+            types[typeCount++] = (byte) type;
+            System.arraycopy(seg, 0, coords, coordCount, n);
+            coordCount += n;
+        }
+
+        return new PathSegments(shape.getPathIterator(null).getWindingRule(), Arrays.copyOf(types, typeCount), Arrays.copyOf(coords, coordCount), shape.getBounds());
+    }
+
+
+    private final int windingRule;
+    private final byte @NotNull[] types;
+    private final double @NotNull[] coords;
+    @NotNull
+    private final Rectangle bounds;
+
+    /**
+     * Takes over given arrays, which must not be modified afterwards
+     *
+     * @throws IllegalArgumentException if coordinates do not match segment types
+     * */
+    public PathSegments(int windingRule, byte @NotNull[] types, double @NotNull[] coords, @NotNull Rectangle bounds) {
+        int n = 0;
+        for (byte type: types) {
+            n += coordCount(type);
+        }
+
+        if (n != coords.length)
+            throw new IllegalArgumentException("Path segments expect " + n + " coordinates, given " + coords.length);
+
+        this.windingRule = windingRule;
+        this.types = types;
+        this.coords = coords;
+        this.bounds = new Rectangle(bounds);
+    }
+
+    public int getWindingRule() {
+        return windingRule;
+    }
+
+    public int segmentCount() {
+        return types.length;
+    }
+
+    public boolean isEmpty() {
+        return types.length == 0;
+    }
+
+    /* Raw arrays, must not be modified */
+
+    public byte @NotNull[] types() {
+        return types;
+    }
+
+    public double @NotNull[] coords() {
+        return coords;
+    }
+
+    /**
+     * @return integer bounds of the parsed shape, as by {@link Shape#getBounds()}
+     * */
+    @NotNull
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    /**
+     * @return a new iterator over the segments, untransformed
+     * */
+    @NotNull
+    public PathIterator getPathIterator() {
+        return new Itr();
+    }
+
+    /**
+     * @return a new iterator over the segments
+     * */
+    @NotNull
+    public PathIterator getPathIterator(AffineTransform at) {
+        return at == null || at.isIdentity()? new Itr(): new Itr(at);
+    }
+
+    @NotNull
+    public PathFunctionMerger createMerger(float zoom, boolean center, boolean arcLengthParameterized) throws ParseException {
+        return PathFunctionMerger.create(getPathIterator(), getBounds(), zoom, center, arcLengthParameterized);
+    }
+
+    @NotNull
+    public PathFunctionMerger createMerger(float zoom, boolean center) throws ParseException {
+        return PathFunctionMerger.create(getPathIterator(), getBounds(), zoom, center);
+    }
+
+    @NotNull
+    public PathFunctionMerger createMerger() throws ParseException {
+        return createMerger(1, true);
+    }
+
+
+    private final class Itr implements PathIterator {
+
+        private final AffineTransform transform;
+        private int index;
+        private int coordIndex;
+
+        private Itr(AffineTransform transform) {
+            this.transform = transform;
+        }
+
+        private Itr() {
+            this(null);
+        }
+
+        @Override
+        public int getWindingRule() {
+            return windingRule;
+        }
+
+        @Override
+        public boolean isDone() {
+            return index >= types.length;
+        }
+
+        @Override
+        public void next() {
+            if (index < types.length) {
+                coordIndex += coordCount(types[index++]);
+            }
+        }
+
+        @Override
+        public int currentSegment(float[] out) {
+            if (isDone())
+                throw new NoSuchElementException("path segments iterator out of bounds");
+
+            final int type = types[index];
+            final int n = coordCount(type);
+            if (transform != null) {
+                transform.transform(coords, coordIndex, out, 0, n / 2);
+            } else {
+                for (int i=0; i < n; i++) {
+                    out[i] = (float) coords[coordIndex + i];
+                }
+            }
+
+            return type;
+        }
+
+        @Override
+        public int currentSegment(double[] out) {
+            if (isDone())
+                throw new NoSuchElementException("path segments iterator out of bounds");
+
+            final int type = types[index];
+            final int n = coordCount(type);
+            if (transform != null) {
+                transform.transform(coords, coordIndex, out, 0, n / 2);
+            } else {
+                System.arraycopy(coords, coordIndex, out, 0, n);
+            }
+
+            return type;
+        }
+    }
+}
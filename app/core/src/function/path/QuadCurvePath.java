@@ -56,6 +56,18 @@ public class QuadCurvePath extends PathFunction {
     public @NotNull Point2D interpolate(float i) {
         return PathUtil.interpolateQuad(p0, p1, p2, i);
     }
+
+    @Override
+    public double @NotNull[] getPolynomialCoefficients() {
+        final double x0 = p0.getX(), x1 = p1.getX(), x2 = p2.getX();
+        final double y0 = p0.getY(), y1 = p1.getY(), y2 = p2.getY();
+
+        return new double[] {
+                x0, y0,
+                2 * (x1 - x0), 2 * (y1 - y0),
+                x0 - (2 * x1) + x2, y0 - (2 * y1) + y2
+        };
+    }
 }
 
 
@@ -0,0 +1,415 @@
+package rotor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.main.ComplexUtil;
+import util.main.FunctionSamples;
+import util.main.VectorBackend;
+import util.main.VectorBackendI;
+
+/**
+ * Allocation free evaluation of rotor tips (epicycles) of a {@link RotorTable}<br>
+ * <br>
+ * Tip of a rotor at input {@code t} is <code>c * e<sup>i.w.t</sup></code> (see {@link RotorState#getTip(double)}).
+ * Instead of a complex exponential per rotor, phases are advanced by precomputed cos/sin rotations
+ * <pre>
+ *     1. Harmonic tables (all w integer multiples of a base w0, as given by fundamental frequency providers):
+ *        e<sup>i.k.w0.t</sup> is walked over |k| by rotating with e<sup>i.w0.t</sup>, so only one sin/cos per evaluation
+ *     2. Other tables: each rotor phase is advanced from the previous input by a cached step rotation e<sup>i.w.dt</sup>,
+ *        so sin/cos is only needed when the step changes (constant with a fixed time step, or a uniform sample grid).
+ *        When it does change, phases are re-synced with exact trigonometry instead, which costs the same
+ * </pre>
+ * Rotations are re-synced with exact trigonometry every {@link #RESYNC_INTERVAL} steps to bound drift.
+ * <br>
+ * Data parallel loops over rotors (phase stepping, tips and sums of stepped tables) run on a {@link VectorBackendI} (SIMD when available).
+ * The harmonic walk is a serial recurrence and stays scalar.
+ * <br>
+ * {@link #sum(double, double[])} is thread safe, stepping phases of its own per thread. {@link #tips(double, double[])} and
+ * {@link #partialSums(double, double[])} share a single stepped state and must be confined to a single (render) thread
+ * */
+public final class EpicycleKernel {
+
+    public static final String TAG = "EpicycleKernel";
+
+    /**
+     * Max number of incremental rotations before re-syncing with exact trigonometry
+     * */
+    public static final int RESYNC_INTERVAL = 256;
+
+    /**
+     * Max deviation of a harmonic number from its nearest integer to still be considered an integer harmonic
+     * */
+    public static final double HARMONIC_TOLERANCE = 1e-9;
+
+    /**
+     * Max ratio of highest harmonic to rotor count for a table to be evaluated as harmonic, since the walk visits all harmonics up to the highest
+     * */
+    private static final int MAX_HARMONIC_TO_COUNT_RATIO = 8;
+    private static final int MIN_HARMONIC_LIMIT = 64;
+
+    public static final EpicycleKernel EMPTY = new EpicycleKernel(RotorTable.EMPTY, VectorBackend.SCALAR);
+
+    @NotNull
+    public static EpicycleKernel of(@NotNull RotorTable table, @NotNull VectorBackendI backend) {
+        return table.isEmpty()? EMPTY: new EpicycleKernel(table, backend);
+    }
+
+    @NotNull
+    public static EpicycleKernel of(@NotNull RotorTable table) {
+        return of(table, VectorBackend.get());
+    }
+
+
+    @NotNull
+    private final RotorTable table;
+    @NotNull
+    private final VectorBackendI backend;
+    private final int count;
+    private final double[] reals;
+    private final double[] imaginaries;
+    private final double[] tipCoefficients;
+
+    /* Harmonic evaluation: base w0, harmonic k of each rotor, and rotor indices sorted by |k| */
+    private final double baseTipCoefficient;
+    private final int[] harmonics;
+    private final int[] harmonicOrder;
+
+    /* Stepped evaluation state (non harmonic tables only): render thread, and one per thread computing sums */
+    private PhaseStepper stepper;
+    private double[] tipRe, tipIm;
+    private final ThreadLocal<PhaseStepper> sumSteppers;
+
+    private EpicycleKernel(@NotNull RotorTable table, @NotNull VectorBackendI backend) {
+        this.table = table;
+        this.backend = backend;
+        this.count = table.getCount();
+        this.reals = table.reals();
+        this.imaginaries = table.imaginaries();
+        this.tipCoefficients = table.tipCoefficients();
+
+        // Detect harmonics
+        double base = 0;
+        for (int i = 0; i < count; i++) {
+            final double w = Math.abs(tipCoefficients[i]);
+            if (w != 0 && (base == 0 || w < base)) {
+                base = w;
+            }
+        }
+
+        int[] ks = null;
+        if (base != 0) {
+            final int limit = Math.max(MIN_HARMONIC_LIMIT, count * MAX_HARMONIC_TO_COUNT_RATIO);
+            ks = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                final double k = tipCoefficients[i] / base;
+                final double rk = Math.rint(k);
+                if (Math.abs(k - rk) > HARMONIC_TOLERANCE * Math.max(1, Math.abs(k)) || Math.abs(rk) > limit) {
+                    ks = null;
+                    break;
+                }
+
+                ks[i] = (int) rk;
+            }
+        }
+
+        if (ks != null) {
+            baseTipCoefficient = base;
+            harmonics = ks;
+            harmonicOrder = sortByAbs(ks);
+        } else {
+            baseTipCoefficient = Double.NaN;
+            harmonics = null;
+            harmonicOrder = null;
+        }
+
+        sumSteppers = ks == null? ThreadLocal.withInitial(PhaseStepper::new): null;
+    }
+
+    /* counting sort of indices by |k| */
+    private static int @NotNull[] sortByAbs(int @NotNull[] ks) {
+        int max = 0;
+        for (int k: ks) {
+            max = Math.max(max, Math.abs(k));
+        }
+
+        final int[] starts = new int[max + 2];
+        for (int k: ks) {
+            starts[Math.abs(k) + 1]++;
+        }
+
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+
+        final int[] order = new int[ks.length];
+        for (int i = 0; i < ks.length; i++) {
+            order[starts[Math.abs(ks[i])]++] = i;
+        }
+
+        return order;
+    }
+
+
+    @NotNull
+    public RotorTable getTable() {
+        return table;
+    }
+
+    @NotNull
+    public VectorBackendI getBackend() {
+        return backend;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return whether all rotor frequencies are integer multiples of a base frequency, so that tips are evaluated with a single sin/cos
+     * */
+    public boolean isHarmonic() {
+        return harmonics != null;
+    }
+
+
+    /* ............................ Harmonic ................................ */
+
+    /**
+     * Writes tips of all rotors into {@code out} (if not null), or their sum into {@code acc} (if not null).
+     * Harmonics are walked in increasing |k|, rotating e<sup>i.k.w0.t</sup> by e<sup>i.w0.t</sup>
+     * */
+    private void walkHarmonics(double input, double @Nullable[] out, double @Nullable[] acc) {
+        final double w0t = baseTipCoefficient * input;
+        final double zCos = Math.cos(w0t), zSin = Math.sin(w0t);
+
+        double pCos = 1, pSin = 0;      // e^(i.k.w0.t)
+        double sumRe = 0, sumIm = 0;
+        int k = 0;
+
+        for (int j = 0; j < count; j++) {
+            final int index = harmonicOrder[j];
+            final int h = harmonics[index];
+            final int a = Math.abs(h);
+
+            while (k < a) {
+                k++;
+                if ((k % RESYNC_INTERVAL) == 0) {
+                    pCos = Math.cos(k * w0t);
+                    pSin = Math.sin(k * w0t);
+                } else {
+                    final double c = (pCos * zCos) - (pSin * zSin);
+                    pSin = (pSin * zCos) + (pCos * zSin);
+                    pCos = c;
+                }
+            }
+
+            final double sin = h < 0? -pSin: pSin;
+            final double re = reals[index], im = imaginaries[index];
+            final double tipRe = (re * pCos) - (im * sin);
+            final double tipIm = (re * sin) + (im * pCos);
+
+            if (out != null) {
+                out[index << 1] = tipRe;
+                out[(index << 1) + 1] = tipIm;
+            } else {
+                sumRe += tipRe;
+                sumIm += tipIm;
+            }
+        }
+
+        if (acc != null) {
+            acc[0] = sumRe;
+            acc[1] = sumIm;
+        }
+    }
+
+
+    /* ............................ Stepped ................................ */
+
+    /**
+     * Phases <code>e<sup>i.w.t</sup></code> of all rotors at the last input, advanced by a cached step rotation while the input step stays the same
+     * */
+    private final class PhaseStepper {
+
+        private final double[] phaseCos = new double[count], phaseSin = new double[count];
+        private double[] stepCos, stepSin;
+        private double lastInput = Double.NaN;
+        private double lastStep = Double.NaN;
+        private double rotationStep = Double.NaN;           // step of stepCos, stepSin
+        private int stepsSinceSync;
+
+        private boolean isSameStep(double step, double ref) {
+            return Math.abs(step - ref) <= Math.abs(ref) * HARMONIC_TOLERANCE;
+        }
+
+        private void sync(double input) {
+            for (int i = 0; i < count; i++) {
+                final double p = tipCoefficients[i] * input;
+                phaseCos[i] = Math.cos(p);
+                phaseSin[i] = Math.sin(p);
+            }
+
+            stepsSinceSync = 0;
+        }
+
+        private void advance(double step) {
+            if (stepCos == null) {
+                stepCos = new double[count];
+                stepSin = new double[count];
+            }
+
+            if (!isSameStep(step, rotationStep)) {
+                for (int i = 0; i < count; i++) {
+                    final double p = tipCoefficients[i] * step;
+                    stepCos[i] = Math.cos(p);
+                    stepSin[i] = Math.sin(p);
+                }
+
+                rotationStep = step;
+            }
+
+            backend.multiply(phaseCos, phaseSin, stepCos, stepSin, phaseCos, phaseSin, count);
+            stepsSinceSync++;
+        }
+
+        /* Updates phaseCos, phaseSin */
+        private void moveTo(double input) {
+            if (input == lastInput)
+                return;
+
+            final double step = input - lastInput;          // NaN on first use
+            if (stepsSinceSync >= RESYNC_INTERVAL || !isSameStep(step, lastStep)) {
+                sync(input);
+            } else {
+                advance(step);
+            }
+
+            lastInput = input;
+            lastStep = step;
+        }
+    }
+
+    /* Updates tipRe, tipIm */
+    private void tipsStepped(double input) {
+        if (stepper == null) {
+            stepper = new PhaseStepper();
+            tipRe = new double[count];
+            tipIm = new double[count];
+        }
+
+        stepper.moveTo(input);
+        backend.multiply(reals, imaginaries, stepper.phaseCos, stepper.phaseSin, tipRe, tipIm, count);
+    }
+
+
+    /* ............................ Public ................................ */
+
+    /**
+     * Writes tip of each rotor at given input into {@code out}, as interleaved {@code re, im} pairs in table index order.
+     * <br>
+     * Not thread safe
+     *
+     * @param out buffer of at least {@code 2 * count} doubles
+     * */
+    public void tips(double input, double @NotNull[] out) {
+        if (harmonics != null) {
+            walkHarmonics(input, out, null);
+            return;
+        }
+
+        tipsStepped(input);
+        for (int i = 0; i < count; i++) {
+            out[i << 1] = tipRe[i];
+            out[(i << 1) + 1] = tipIm[i];
+        }
+    }
+
+    /**
+     * Writes partial sums of rotor tips at given input into {@code out}, i.e. position of tip of rotor {@code i} when all rotors
+     * {@code 0..i} are chained, as interleaved {@code re, im} pairs. Last pair is the output of all rotors.
+     * <br>
+     * Not thread safe
+     *
+     * @param out buffer of at least {@code 2 * count} doubles
+     * */
+    public void partialSums(double input, double @NotNull[] out) {
+        if (harmonics != null) {
+            walkHarmonics(input, out, null);
+
+            for (int i = 2; i < (count << 1); i += 2) {
+                out[i] += out[i - 2];
+                out[i + 1] += out[i - 1];
+            }
+            return;
+        }
+
+        tipsStepped(input);
+
+        double re = 0, im = 0;
+        for (int i = 0; i < count; i++) {
+            re += tipRe[i];
+            im += tipIm[i];
+            out[i << 1] = re;
+            out[(i << 1) + 1] = im;
+        }
+    }
+
+    /**
+     * Computes sum of all rotor tips at given input, without touching the stepped state of {@link #tips(double, double[]) tips}.
+     * Non harmonic tables step phases of the calling thread, so evaluating a uniform grid in order (e.g. sampling) needs
+     * sin/cos per rotor only for the first few inputs and on re-syncs
+     * <br>
+     * Thread safe
+     *
+     * @param out buffer of at least 2 doubles, receiving {@code re, im} of the sum
+     * */
+    public void sum(double input, double @NotNull[] out) {
+        if (harmonics != null) {
+            walkHarmonics(input, null, out);
+            return;
+        }
+
+        final PhaseStepper s = sumSteppers.get();
+        s.moveTo(input);
+        backend.multiplySum(reals, imaginaries, s.phaseCos, s.phaseSin, count, out);
+    }
+
+
+    /* ............................ Winding ................................ */
+
+    /**
+     * Winds samples of a function around the origin, i.e. writes <code>x(t<sub>j</sub>) * e<sup>i.w.t<sub>j</sub></sup></code>
+     * for all samples as interleaved {@code re, im} pairs, advancing the phase by a single precomputed step rotation per sample.
+     * <br>
+     * This is the Fourier Transform integrand of the sampled function, see {@link ComplexUtil#fourierTransformIntegrand(function.definition.ComplexFunctionI, double)}
+     *
+     * @param samples function samples
+     * @param tipCoefficient angular coefficient {@code w}, see {@link ComplexUtil#getFourierExpTermPowerCoefficient(int, double)}
+     * @param out buffer of at least {@code 2 * samples.getSampleCount()} doubles
+     * */
+    public static void wind(@NotNull FunctionSamples samples, double tipCoefficient, double @NotNull[] out) {
+        final int n = samples.getIntervalCount();
+        final double start = samples.getDomainStart();
+        final double h = samples.getDomainRange() / n;
+        final double step = tipCoefficient * h;
+        final double stepCos = Math.cos(step), stepSin = Math.sin(step);
+
+        double cos = 0, sin = 0;
+        for (int j = 0; j <= n; j++) {
+            if ((j % RESYNC_INTERVAL) == 0) {
+                final double p = tipCoefficient * (start + (j * h));
+                cos = Math.cos(p);
+                sin = Math.sin(p);
+            } else {
+                final double c = (cos * stepCos) - (sin * stepSin);
+                sin = (sin * stepCos) + (cos * stepSin);
+                cos = c;
+            }
+
+            final double re = samples.getReal(j), im = samples.getImaginary(j);
+            out[j << 1] = (re * cos) - (im * sin);
+            out[(j << 1) + 1] = (re * sin) + (im * cos);
+        }
+    }
+}
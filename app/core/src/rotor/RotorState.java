@@ -80,6 +80,13 @@ public class RotorState implements Comparable<RotorState> {
         return base * mCoefficientAbs;
     }
 
+    /**
+     * @return coefficient of input in the exponent of rotor tip, i.e. tip at input {@code t} is <code>coefficient * e<sup>i.tipCoefficient.t</sup></code>
+     * */
+    public final double getTipCoefficient() {
+        return mTipCoefficient;
+    }
+
     public final double getTipSize(double base) {
         return base * mCoefficientAbs;
     }
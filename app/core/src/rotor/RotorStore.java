@@ -0,0 +1,204 @@
+package rotor;
+
+import async.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe store of loaded rotor states, backed by a copy-on-write {@link RotorTable}<br>
+ * <br>
+ * States are appended in load order to growable parallel arrays, and published as immutable table snapshots, so reads
+ * ({@link #snapshot()}) never lock. A frequency to index map is kept only for lookups by frequency.
+ * <br>
+ * Appends are amortized O(1) since published tables only see entries below their count, while replacing an existing
+ * state copies the arrays
+ * */
+public final class RotorStore {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final Object lock = new Object();
+
+    /* frequency -> index in table. May point past the published table while a write is in progress */
+    @NotNull
+    private final Map<Double, Integer> mIndices;
+
+    @NotNull
+    private volatile RotorTable mTable = RotorTable.EMPTY;
+
+    /* Backing arrays, guarded by lock */
+    private double[] mFrequencies;
+    private double[] mReals;
+    private double[] mImaginaries;
+    private double[] mMagnitudes;
+    private double[] mTipCoefficients;
+    private RotorState[] mStates;
+    private int mCount;
+
+    /* whether backing arrays are referenced by the published table */
+    private boolean mShared;
+
+    public RotorStore(int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, DEFAULT_INITIAL_CAPACITY);
+        mIndices = new ConcurrentHashMap<>(capacity);
+        allocate(capacity);
+    }
+
+    public RotorStore() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        mFrequencies = new double[capacity];
+        mReals = new double[capacity];
+        mImaginaries = new double[capacity];
+        mMagnitudes = new double[capacity];
+        mTipCoefficients = new double[capacity];
+        mStates = new RotorState[capacity];
+        mShared = false;
+    }
+
+    private void copyArrays(int capacity) {
+        mFrequencies = Arrays.copyOf(mFrequencies, capacity);
+        mReals = Arrays.copyOf(mReals, capacity);
+        mImaginaries = Arrays.copyOf(mImaginaries, capacity);
+        mMagnitudes = Arrays.copyOf(mMagnitudes, capacity);
+        mTipCoefficients = Arrays.copyOf(mTipCoefficients, capacity);
+        mStates = Arrays.copyOf(mStates, capacity);
+        mShared = false;
+    }
+
+    private void set(int index, @NotNull RotorState state) {
+        mFrequencies[index] = state.getFrequency();
+        mReals[index] = state.getCoefficient().getReal();
+        mImaginaries[index] = state.getCoefficient().getImaginary();
+        mMagnitudes[index] = state.getMagnitudeScale();
+        mTipCoefficients[index] = state.getTipCoefficient();
+        mStates[index] = state;
+    }
+
+    private void publish() {
+        mTable = new RotorTable(mCount, mFrequencies, mReals, mImaginaries, mMagnitudes, mTipCoefficients, mStates);
+        mShared = true;
+    }
+
+    /* Must be called with lock, returns whether anything changed (table is not published) */
+    private boolean putInternal(@NotNull RotorState state, boolean replace) {
+        final double frequency = state.getFrequency();
+        final Integer index = mIndices.get(frequency);
+
+        if (index != null) {
+            if (!replace || mStates[index] == state)
+                return false;
+
+            if (mShared) {
+                copyArrays(mFrequencies.length);            // published entries are never modified
+            }
+
+            set(index, state);
+            return true;
+        }
+
+        if (mCount == mFrequencies.length) {
+            copyArrays(Math.max(DEFAULT_INITIAL_CAPACITY, mCount + (mCount >> 1)));
+        }
+
+        set(mCount, state);
+        mIndices.put(frequency, mCount++);
+        return true;
+    }
+
+    private void putAll(@NotNull Collection<RotorState> states, boolean replace) {
+        synchronized (lock) {
+            boolean changed = false;
+            for (RotorState state: states) {
+                changed |= putInternal(state, replace);
+            }
+
+            if (changed) {
+                publish();
+            }
+        }
+    }
+
+
+    /**
+     * @return immutable snapshot of all loaded states, in load order
+     * */
+    @NotNull
+    public RotorTable snapshot() {
+        return mTable;
+    }
+
+    public int size() {
+        return mTable.getCount();
+    }
+
+    public boolean contains(double frequency) {
+        return get(frequency) != null;
+    }
+
+    @Nullable
+    public RotorState get(double frequency) {
+        final Integer index = mIndices.get(frequency);
+        if (index == null)
+            return null;
+
+        final RotorTable table = mTable;
+        return index < table.getCount()? table.getRotorState(index): null;        // not yet published, or cleared concurrently
+    }
+
+    public void put(@NotNull RotorState state) {
+        synchronized (lock) {
+            if (putInternal(state, true)) {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * @return whether the state was added, {@code false} if a state of the same frequency already exists
+     * */
+    public boolean putIfAbsent(@NotNull RotorState state) {
+        synchronized (lock) {
+            if (putInternal(state, false)) {
+                publish();
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Adds or replaces all given states, publishing a single snapshot
+     * */
+    public void putAll(@NotNull Collection<RotorState> states) {
+        putAll(states, true);
+    }
+
+    /**
+     * Adds all given states whose frequency is not already present, publishing a single snapshot
+     * */
+    public void putAllIfAbsent(@NotNull Collection<RotorState> states) {
+        putAll(states, false);
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            mIndices.clear();
+            allocate(Math.max(DEFAULT_INITIAL_CAPACITY, mFrequencies.length));        // old arrays may still be referenced by snapshots
+            mCount = 0;
+            mTable = RotorTable.EMPTY;
+        }
+    }
+
+    public void forEach(@NotNull Consumer<RotorState> consumer) {
+        mTable.forEach(consumer);
+    }
+}
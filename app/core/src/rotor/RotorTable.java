@@ -0,0 +1,208 @@
+package rotor;
+
+import async.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Immutable, index-addressed table of rotor states, laid out as parallel primitive arrays (structure of arrays)<br>
+ * <br>
+ * Meant to be read by the render thread without locks, boxing or hash lookups. Writers never modify a published table,
+ * they publish a new one instead (copy-on-write).
+ * <br>
+ * Backing arrays may be longer than {@link #getCount()} and shared with newer tables, but entries below the count of a
+ * published table are never modified
+ *
+ * @see RotorStore
+ * */
+public final class RotorTable {
+
+    public static final RotorTable EMPTY = new RotorTable(0, new double[0], new double[0], new double[0], new double[0], new double[0], new RotorState[0]);
+
+    @NotNull
+    public static RotorTable of(@NotNull RotorState @NotNull[] states) {
+        final int count = states.length;
+        if (count == 0)
+            return EMPTY;
+
+        final double[] frequencies = new double[count];
+        final double[] reals = new double[count];
+        final double[] imaginaries = new double[count];
+        final double[] magnitudes = new double[count];
+        final double[] tipCoefficients = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            final RotorState state = states[i];
+            frequencies[i] = state.getFrequency();
+            reals[i] = state.getCoefficient().getReal();
+            imaginaries[i] = state.getCoefficient().getImaginary();
+            magnitudes[i] = state.getMagnitudeScale();
+            tipCoefficients[i] = state.getTipCoefficient();
+        }
+
+        return new RotorTable(count, frequencies, reals, imaginaries, magnitudes, tipCoefficients, states.clone());
+    }
+
+    @NotNull
+    public static RotorTable of(@NotNull Collection<RotorState> states) {
+        return of(states.toArray(new RotorState[0]));
+    }
+
+
+    private final int count;
+    private final double @NotNull[] frequencies;
+    private final double @NotNull[] reals;
+    private final double @NotNull[] imaginaries;
+    private final double @NotNull[] magnitudes;
+    private final double @NotNull[] tipCoefficients;
+    @NotNull
+    private final RotorState @NotNull[] states;
+
+    /* Lazy, see #getTailStart(double) */
+    private volatile double @Nullable[] magnitudeSuffixMax;
+
+    RotorTable(int count,
+               double @NotNull[] frequencies,
+               double @NotNull[] reals,
+               double @NotNull[] imaginaries,
+               double @NotNull[] magnitudes,
+               double @NotNull[] tipCoefficients,
+               @NotNull RotorState @NotNull[] states) {
+        this.count = count;
+        this.frequencies = frequencies;
+        this.reals = reals;
+        this.imaginaries = imaginaries;
+        this.magnitudes = magnitudes;
+        this.tipCoefficients = tipCoefficients;
+        this.states = states;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getFrequency(int index) {
+        return frequencies[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * @return real part of the coefficient of rotor at given index
+     * */
+    public double getReal(int index) {
+        return reals[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * @return imaginary part of the coefficient of rotor at given index
+     * */
+    public double getImaginary(int index) {
+        return imaginaries[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * @see RotorState#getMagnitudeScale()
+     * */
+    public double getMagnitudeScale(int index) {
+        return magnitudes[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * @see RotorState#getTipCoefficient()
+     * */
+    public double getTipCoefficient(int index) {
+        return tipCoefficients[Objects.checkIndex(index, count)];
+    }
+
+    @NotNull
+    public RotorState getRotorState(int index) {
+        return states[Objects.checkIndex(index, count)];
+    }
+
+    public double getMagnitudeScaleSum() {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += magnitudes[i];
+        }
+
+        return sum;
+    }
+
+    private double @NotNull[] magnitudeSuffixMax() {
+        double[] max = magnitudeSuffixMax;
+        if (max == null) {
+            // benign race, all threads compute the same array
+            max = new double[count + 1];
+            for (int i = count - 1; i >= 0; i--) {
+                max[i] = Math.max(max[i + 1], magnitudes[i]);
+            }
+
+            magnitudeSuffixMax = max;
+        }
+
+        return max;
+    }
+
+    /**
+     * Start of the tail of rotors all having {@link #getMagnitudeScale(int) magnitude scale} below the given one, e.g. rotors
+     * too small to be drawn. In O(log count), over a suffix maximum of magnitudes computed once per table
+     *
+     * @return smallest index such that all rotors from it onwards have magnitude scale {@code < magnitudeScale}, or
+     * {@link #getCount() count} if the last rotor does not
+     * */
+    public int getTailStart(double magnitudeScale) {
+        final double[] max = magnitudeSuffixMax();
+
+        // max is non-increasing, max[count] = 0
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (max[mid] < magnitudeScale) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+
+        return lo;
+    }
+
+    public void forEach(@NotNull Consumer<RotorState> consumer) {
+        for (int i = 0; i < count; i++) {
+            consumer.consume(states[i]);
+        }
+    }
+
+    /* Raw arrays for tight loops, must not be modified and are valid only up to count */
+
+    double @NotNull[] frequencies() {
+        return frequencies;
+    }
+
+    double @NotNull[] reals() {
+        return reals;
+    }
+
+    double @NotNull[] imaginaries() {
+        return imaginaries;
+    }
+
+    double @NotNull[] magnitudes() {
+        return magnitudes;
+    }
+
+    double @NotNull[] tipCoefficients() {
+        return tipCoefficients;
+    }
+
+    @NotNull
+    RotorState @NotNull[] states() {
+        return states;
+    }
+}
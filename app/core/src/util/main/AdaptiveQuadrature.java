@@ -0,0 +1,348 @@
+package util.main;
+
+import function.definition.ComplexFunctionI;
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Globally adaptive Gauss–Kronrod (G7-K15) integration of complex functions, with error control<br>
+ * <br>
+ * Each subinterval is integrated with the 15 point Kronrod rule, and its error is estimated against the embedded 7 point Gauss rule
+ * (same nodes, no extra evaluations), scaled as in QUADPACK {@code qk15}. The subinterval with the largest error is bisected
+ * until the total error meets the {@link Tolerance}, or the subinterval limit is reached. Subintervals are kept in a bounded
+ * max-heap by error.
+ * <br>
+ * Smooth regions thus converge in a few evaluations, while evaluations concentrate around discontinuities and
+ * fast oscillations, unlike fixed interval {@link ComplexUtil#simpson13(ComplexFunctionI, double, double, int) Simpson 1/3}
+ *
+ * @see ComplexUtil#fourierTransformAdaptive(ComplexFunctionI, double, double, double, Tolerance)
+ * */
+public final class AdaptiveQuadrature {
+
+    public static final String TAG = "AdaptiveQuadrature";
+
+    public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1E-10;
+    public static final double DEFAULT_RELATIVE_TOLERANCE = 1E-8;
+    public static final int DEFAULT_MAX_SUBINTERVALS = 4096;
+
+    /**
+     * Evaluations of the integrand per subinterval
+     * */
+    public static final int EVALUATIONS_PER_SUBINTERVAL = 15;
+
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final double UNDERFLOW = Double.MIN_NORMAL;
+
+    /* Kronrod abscissae (half interval), x[1], x[3], x[5] are Gauss nodes. Last one is the center */
+    private static final double[] XGK = {
+            0.991455371120812639206854697526329,
+            0.949107912342758524526189684047851,
+            0.864864423359769072789712788640926,
+            0.741531185599394439863864773280788,
+            0.586087235467691130294144845693013,
+            0.405845151377397166906606412076961,
+            0.207784955007898467600689403773245,
+            0.000000000000000000000000000000000
+    };
+
+    /* Kronrod weights */
+    private static final double[] WGK = {
+            0.022935322010529224963732008058970,
+            0.063092092629978553290700663189204,
+            0.104790010322250183839876322541518,
+            0.140653259715525918745189590510238,
+            0.169004726639267902826583426598550,
+            0.190350578064785409913256402421014,
+            0.204432940075298892414161999234649,
+            0.209482141084727828012999174891714
+    };
+
+    /* Gauss weights, of nodes XGK[1], XGK[3], XGK[5] and center */
+    private static final double[] WG = {
+            0.129484966168869693270611432679082,
+            0.279705391489276667901467771423780,
+            0.381830050505118944950369775488975,
+            0.417959183673469387755102040816327
+    };
+
+    /**
+     * Integration error tolerance, satisfied when {@code error <= max(absolute, relative * |integral|)}
+     *
+     * @param absolute absolute error tolerance, {@code >= 0}
+     * @param relative relative error tolerance, {@code >= 0}
+     * @param maxSubintervals max subintervals (bounds the heap and evaluations to {@code 15 * maxSubintervals})
+     * */
+    public record Tolerance(double absolute, double relative, int maxSubintervals) {
+
+        public static final Tolerance DEFAULT = new Tolerance(DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE, DEFAULT_MAX_SUBINTERVALS);
+
+        public Tolerance {
+            if (!(absolute >= 0 && relative >= 0) || (absolute == 0 && relative == 0))
+                throw new IllegalArgumentException(String.format("Invalid integration tolerance, absolute: %e, relative: %e", absolute, relative));
+
+            if (maxSubintervals < 1)
+                throw new IllegalArgumentException("Max subintervals must be positive, given " + maxSubintervals);
+        }
+
+        public Tolerance(double absolute, double relative) {
+            this(absolute, relative, DEFAULT_MAX_SUBINTERVALS);
+        }
+
+        public boolean isSatisfied(double error, double magnitude) {
+            return error <= Math.max(absolute, relative * magnitude);
+        }
+    }
+
+    /**
+     * @param value the integral
+     * @param error estimated absolute error
+     * @param evaluations number of integrand evaluations
+     * @param subintervals number of subintervals integration range ended up divided into
+     * @param converged whether the error meets the tolerance. If not, value is the best estimate within subinterval limit
+     * */
+    public record Result(@NotNull Complex value, double error, int evaluations, int subintervals, boolean converged) {
+    }
+
+
+    /**
+     * Kronrod 15 point integral of [a, b] with error estimate
+     *
+     * @param out destination of {@code [re, im, error]}
+     * */
+    private static void kronrod15(@NotNull ComplexFunctionI f, double a, double b, double @NotNull[] out) {
+        final double center = 0.5 * (a + b);
+        final double half = 0.5 * (b - a);
+        final double absHalf = Math.abs(half);
+
+        final double[] fRe = new double[15], fIm = new double[15];
+        final Complex fc = f.compute(center);
+        fRe[14] = fc.getReal();
+        fIm[14] = fc.getImaginary();
+
+        for (int j = 0; j < 7; j++) {
+            final double dx = half * XGK[j];
+            final Complex f1 = f.compute(center - dx);
+            final Complex f2 = f.compute(center + dx);
+            fRe[2 * j] = f1.getReal();
+            fIm[2 * j] = f1.getImaginary();
+            fRe[2 * j + 1] = f2.getReal();
+            fIm[2 * j + 1] = f2.getImaginary();
+        }
+
+        out[0] = kronrod15Component(fRe, half, absHalf, out, 2);
+        final double errRe = out[2];
+        out[1] = kronrod15Component(fIm, half, absHalf, out, 2);
+        out[2] = Math.hypot(errRe, out[2]);
+    }
+
+    /**
+     * @param f values at {@code center - dx(j), center + dx(j)} for j = 0 to 6, then center
+     * @return integral, with error estimate at {@code out[errIndex]}
+     * */
+    private static double kronrod15Component(double @NotNull[] f, double half, double absHalf, double @NotNull[] out, int errIndex) {
+        final double fc = f[14];
+        double resK = fc * WGK[7];
+        double resG = fc * WG[3];
+        double resAbs = Math.abs(resK);
+
+        for (int j = 0; j < 7; j++) {
+            final double f1 = f[2 * j], f2 = f[2 * j + 1];
+            resK += WGK[j] * (f1 + f2);
+            resAbs += WGK[j] * (Math.abs(f1) + Math.abs(f2));
+
+            if ((j & 1) == 1) {
+                resG += WG[j >> 1] * (f1 + f2);
+            }
+        }
+
+        final double mean = resK * 0.5;
+        double resAsc = WGK[7] * Math.abs(fc - mean);
+        for (int j = 0; j < 7; j++) {
+            resAsc += WGK[j] * (Math.abs(f[2 * j] - mean) + Math.abs(f[2 * j + 1] - mean));
+        }
+
+        resAbs *= absHalf;
+        resAsc *= absHalf;
+
+        double err = Math.abs((resK - resG) * half);
+        if (resAsc != 0 && err != 0) {
+            err = resAsc * Math.min(1, Math.pow(200 * err / resAsc, 1.5));
+        }
+
+        if (resAbs > UNDERFLOW / (50 * EPSILON)) {
+            err = Math.max(50 * EPSILON * resAbs, err);
+        }
+
+        out[errIndex] = err;
+        return resK * half;
+    }
+
+
+    /**
+     * Bounded max-heap of subintervals by error, as parallel arrays
+     * */
+    private static final class IntervalHeap {
+
+        final double[] left, right, re, im, err;
+        int size;
+
+        IntervalHeap(int capacity) {
+            left = new double[capacity];
+            right = new double[capacity];
+            re = new double[capacity];
+            im = new double[capacity];
+            err = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == left.length;
+        }
+
+        private void swap(int i, int j) {
+            double t;
+            t = left[i]; left[i] = left[j]; left[j] = t;
+            t = right[i]; right[i] = right[j]; right[j] = t;
+            t = re[i]; re[i] = re[j]; re[j] = t;
+            t = im[i]; im[i] = im[j]; im[j] = t;
+            t = err[i]; err[i] = err[j]; err[j] = t;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                final int parent = (i - 1) >> 1;
+                if (err[parent] >= err[i])
+                    break;
+
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                final int l = (i << 1) + 1, r = l + 1;
+                int largest = i;
+                if (l < size && err[l] > err[largest]) {
+                    largest = l;
+                }
+
+                if (r < size && err[r] > err[largest]) {
+                    largest = r;
+                }
+
+                if (largest == i)
+                    break;
+
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        void add(double a, double b, double @NotNull[] result) {
+            final int i = size++;
+            left[i] = a;
+            right[i] = b;
+            re[i] = result[0];
+            im[i] = result[1];
+            err[i] = result[2];
+            siftUp(i);
+        }
+
+        /* replaces the max error interval (root) */
+        void replaceTop(double a, double b, double @NotNull[] result) {
+            left[0] = a;
+            right[0] = b;
+            re[0] = result[0];
+            im[0] = result[1];
+            err[0] = result[2];
+            siftDown(0);
+        }
+    }
+
+
+    /**
+     * Integrates {@code f} over [a, b] adaptively
+     *
+     * @param tolerance error tolerance and subinterval limit
+     * @param initialSubintervals number of equal subintervals to start with, e.g. oscillation count of an oscillatory integrand
+     * */
+    @NotNull
+    public static Result integrate(@NotNull ComplexFunctionI f, double a, double b, @NotNull Tolerance tolerance, int initialSubintervals) {
+        if (a == b)
+            return new Result(Complex.ZERO, 0, 0, 0, true);
+
+        final int maxSubintervals = tolerance.maxSubintervals();
+        final int initial = Math.max(1, Math.min(initialSubintervals, maxSubintervals));
+        final IntervalHeap heap = new IntervalHeap(maxSubintervals);
+        final double[] r1 = new double[3], r2 = new double[3];
+
+        double sumRe = 0, sumIm = 0, sumErr = 0;
+        final double step = (b - a) / initial;
+        for (int i = 0; i < initial; i++) {
+            final double l = a + (i * step), r = i == initial - 1? b: a + ((i + 1) * step);
+            kronrod15(f, l, r, r1);
+            heap.add(l, r, r1);
+            sumRe += r1[0];
+            sumIm += r1[1];
+            sumErr += r1[2];
+        }
+
+        int evaluations = initial * EVALUATIONS_PER_SUBINTERVAL;
+
+        // Intervals too small to bisect further, removed from heap
+        double finalRe = 0, finalIm = 0, finalErr = 0;
+
+        while (heap.size > 0 && !tolerance.isSatisfied(sumErr, Math.hypot(sumRe, sumIm))) {
+            final double l = heap.left[0], r = heap.right[0];
+            final double mid = 0.5 * (l + r);
+
+            if (!(mid > Math.min(l, r) && mid < Math.max(l, r))) {
+                // Roundoff limit, freeze this interval
+                finalRe += heap.re[0];
+                finalIm += heap.im[0];
+                finalErr += heap.err[0];
+
+                final int last = --heap.size;
+                if (last > 0) {
+                    heap.replaceTop(heap.left[last], heap.right[last], new double[] { heap.re[last], heap.im[last], heap.err[last] });
+                }
+
+                continue;
+            }
+
+            if (heap.isFull())
+                break;
+
+            sumRe -= heap.re[0];
+            sumIm -= heap.im[0];
+            sumErr -= heap.err[0];
+
+            kronrod15(f, l, mid, r1);
+            kronrod15(f, mid, r, r2);
+            evaluations += 2 * EVALUATIONS_PER_SUBINTERVAL;
+
+            heap.replaceTop(l, mid, r1);
+            heap.add(mid, r, r2);
+
+            sumRe += r1[0] + r2[0];
+            sumIm += r1[1] + r2[1];
+            sumErr += r1[2] + r2[2];
+        }
+
+        // Sum again to drop running sum drift
+        double re = finalRe, im = finalIm, err = finalErr;
+        for (int i = 0; i < heap.size; i++) {
+            re += heap.re[i];
+            im += heap.im[i];
+            err += heap.err[i];
+        }
+
+        final Complex value = new Complex(re, im);
+        return new Result(value, err, evaluations, heap.size, tolerance.isSatisfied(err, value.abs()));
+    }
+
+    @NotNull
+    public static Result integrate(@NotNull ComplexFunctionI f, double a, double b, @NotNull Tolerance tolerance) {
+        return integrate(f, a, b, tolerance, 1);
+    }
+}
@@ -1,6 +1,7 @@
 package util.main;
 
 import function.ComplexDomainFunctionWrapper;
+import function.definition.AnalyticFourierTransformProviderI;
 import function.definition.ComplexFunctionI;
 import function.definition.ComplexDomainFunctionI;
 import function.definition.DiscreteFunctionI;
@@ -25,6 +26,11 @@ public class ComplexUtil {
     public static final int SIMPSON_38_N_MIN = 3;       // must be multiple of 3
     public static final int SIMPSON_38_N_DEFAULT = 51;
 
+    /**
+     * Number of samples buffered before being summed by the {@link VectorBackend}, in Simpson 1/3 integration
+     * */
+    public static final int SIMPSON_13_BLOCK_SIZE = 4096;
+
     /* Fourier Transform */
 
     /**
@@ -51,6 +57,22 @@ public class ComplexUtil {
     public static final int DIRECTION_FOURIER_SERIES = getDirection(!FOURIER_TRANSFORM_CLOCKWISE);      // must be opposite to each other
 
 
+    /**
+     * Whether to use closed form Fourier Transform of {@link AnalyticFourierTransformProviderI} functions (e.g. paths), instead of sampling
+     * */
+    public static final boolean ANALYTIC_FOURIER_TRANSFORM_ENABLED = true;
+
+    /**
+     * Whether to integrate Fourier Transform adaptively for functions that {@link function.definition.DomainProviderI#getAdaptiveIntegrationTolerance() select it},
+     * instead of fixed interval Simpson 1/3
+     * */
+    public static final boolean ADAPTIVE_FOURIER_TRANSFORM_ENABLED = true;
+
+    /**
+     * Series terms limit of {@link #expMonomialIntegrals(double, int, double[], double[])} at small exponents
+     * */
+    private static final int EXP_MONOMIAL_SERIES_MAX_TERMS = 64;
+
     public static final int FOURIER_TRANSFORM_SIMPSON_13_N_MIN = SIMPSON_13_N_MIN;
     public static final int FOURIER_TRANSFORM_SIMPSON_13_N_DEFAULT = 100000;
 
@@ -124,7 +146,8 @@ public class ComplexUtil {
      * Integrates a complex function using Simpson 1/3 rule
      * In most cases, it is more accurate than Simpson 3/8 and far more than Trapezoid
      *
-     * It uses a quadratic (degree 2) interpolation
+     * It uses a quadratic (degree 2) interpolation<br>
+     * Odd and even points are sampled in blocks of {@link #SIMPSON_13_BLOCK_SIZE} and weighted sums are reduced by the {@link VectorBackend}
      *
      * @param f function to integrate
      * @param a lower limit
@@ -152,23 +175,55 @@ public class ComplexUtil {
 
         // main
         final double h = range / n;
-        final ComplexBuilder s = new ComplexBuilder();
+        final VectorBackendI backend = VectorBackend.get();
+        final int block = Math.min(SIMPSON_13_BLOCK_SIZE, n >> 1);
+        final double[] re = new double[block];
+        final double[] im = new double[block];
+        final double[] sum = new double[2];
 
         // 1. End Points
-        s.add(f.compute(a));
-        s.add(f.compute(b));
+        final Complex fa = f.compute(a);
+        final Complex fb = f.compute(b);
+        double sRe = fa.getReal() + fb.getReal();
+        double sIm = fa.getImaginary() + fb.getImaginary();
 
         // 2. Odd Points
-        for (int i=1; i < n; i+=2) {
-            s.add(f.compute(a + (i * h)), 4);
-        }
+        simpsonSum(f, a, h, 1, n, backend, re, im, sum);
+        sRe += 4 * sum[0];
+        sIm += 4 * sum[1];
 
         // 3. Even Points
-        for (int i=2; i < n; i+=2) {
-            s.add(f.compute(a + (i * h)), 2);
+        simpsonSum(f, a, h, 2, n, backend, re, im, sum);
+        sRe += 2 * sum[0];
+        sIm += 2 * sum[1];
+
+        final double scale = h / 3;
+        return new Complex(sRe * scale, sIm * scale);
+    }
+
+    /**
+     * Sums {@code f(a + i.h)} for {@code i = from, from + 2, ...} below {@code n}, sampling into the given block buffers
+     * */
+    private static void simpsonSum(@NotNull ComplexFunctionI f, double a, double h, int from, int n,
+                                   @NotNull VectorBackendI backend, double @NotNull[] re, double @NotNull[] im, double @NotNull[] out) {
+        double sumRe = 0, sumIm = 0;
+
+        int i = from;
+        while (i < n) {
+            int len = 0;
+            for (; i < n && len < re.length; i += 2, len++) {
+                final Complex v = f.compute(a + (i * h));
+                re[len] = v.getReal();
+                im[len] = v.getImaginary();
+            }
+
+            backend.sum(re, im, len, out);
+            sumRe += out[0];
+            sumIm += out[1];
         }
 
-        return s.mult(h / 3).toComplex();
+        out[0] = sumRe;
+        out[1] = sumIm;
     }
 
     @NotNull
@@ -284,6 +339,11 @@ public class ComplexUtil {
             public @NotNull Complex compute(double input) {
                 return ft.compute(input);
             }
+
+            @Override
+            public boolean isComputeDelegated() {
+                return false;
+            }
         };
     }
 
@@ -347,8 +407,38 @@ public class ComplexUtil {
         return fourierTransform(f, frequency, a, b, f.getNumericalIntegrationIntervalCount());
     }
 
+    /**
+     * Fourier Transform over the whole domain of the function<br>
+     * If {@link FunctionSampleCache#ENABLED enabled}, the Simpson 1/3 sum is evaluated over cached samples of the function,
+     * shared with all other integrations of the same function and interval count
+     * */
     @NotNull
     public static Complex fourierTransform(@NotNull ComplexDomainFunctionI f, double frequency, int n) {
+        if (ANALYTIC_FOURIER_TRANSFORM_ENABLED && f instanceof AnalyticFourierTransformProviderI afp) {
+            final Complex exact = afp.fourierTransformAnalytic(frequency);
+            if (exact != null)
+                return exact;
+        }
+
+        if (ADAPTIVE_FOURIER_TRANSFORM_ENABLED) {
+            final AdaptiveQuadrature.Tolerance tolerance = f.getAdaptiveIntegrationTolerance();
+            if (tolerance != null) {
+                if (!f.isFrequencySupported(frequency))
+                    return Complex.ZERO;
+
+                return fourierTransformAdaptive(f, frequency, f.getDomainStart(), f.getDomainEnd(), tolerance).value();
+            }
+        }
+
+        if (FunctionSampleCache.ENABLED) {
+            if (!f.isFrequencySupported(frequency))
+                return Complex.ZERO;
+
+            final FunctionSamples samples = FunctionSampleCache.get(f, FourierCoefficientEngine.resolveIntervalCount(n > 0? n: getFourierTransformSimpson13NCurrentDefault()), null);
+            if (samples != null)
+                return fsCoefficientToFt(FourierCoefficientEngine.goertzelCoefficient(samples, f, frequency), samples.getDomainRange());
+        }
+
         return fourierTransform(f, frequency, f.getDomainStart(), f.getDomainEnd(), n);
     }
 
@@ -357,6 +447,83 @@ public class ComplexUtil {
         return fourierTransform(f, frequency, f.getNumericalIntegrationIntervalCount());
     }
 
+    /**
+     * Fourier Transform by {@link AdaptiveQuadrature adaptive Gauss–Kronrod integration}, with double precision exponential term.<br>
+     * Integration starts with one subinterval per oscillation of the exponential term, so that high frequencies do not
+     * spend evaluations on failed bisections
+     *
+     * @return the transform with achieved error and evaluation count
+     * */
+    @NotNull
+    public static AdaptiveQuadrature.Result fourierTransformAdaptive(@NotNull ComplexFunctionI f, double frequency, double a, double b, @NotNull AdaptiveQuadrature.Tolerance tolerance) {
+        final double pre = getFourierExpTermPowerCoefficient(DIRECTION_FOURIER_TRANSFORM, frequency);
+        final double cycles = Math.ceil(Math.abs(pre * (b - a)) / MathUtil.TWO_PI);
+
+        // double precision exponential term, since float trig noise would defeat error control
+        final ComplexFunctionI integrand = t -> {
+            final double x = pre * t;
+            final double cos = Math.cos(x), sin = Math.sin(x);
+            final Complex v = f.compute(t);
+            return new Complex((cos * v.getReal()) - (sin * v.getImaginary()), (cos * v.getImaginary()) + (sin * v.getReal()));
+        };
+
+        return AdaptiveQuadrature.integrate(integrand, a, b, tolerance, (int) Math.min(cycles, tolerance.maxSubintervals() / 2));
+    }
+
+
+    /**
+     * Computes integrals of monomials against the exponential term in closed form
+     * <pre>
+     *     I(m) = ∫ u^m · e^(i·w·u) du    over [0, 1], for m = 0 to degree
+     * </pre>
+     * by the recurrence {@code I(m) = (e^(iw) - m·I(m - 1)) / iw}, or by power series where |w| is small and the recurrence loses precision.
+     * <br>
+     * Fourier Transform of any polynomial segment is a linear combination of these
+     *
+     * @param w exponent coefficient, e.g. given by {@link #getFourierExpTermPowerCoefficient(int, double)}
+     * @param re destination of real parts, of length at least {@code degree + 1}
+     * @param im destination of imaginary parts, of length at least {@code degree + 1}
+     * */
+    public static void expMonomialIntegrals(double w, int degree, double @NotNull[] re, double @NotNull[] im) {
+        if (Math.abs(w) <= Math.max(1, degree)) {
+            // I(m) = Σ (iw)^k / (k! (m + k + 1))
+            for (int m = 0; m <= degree; m++) {
+                double termRe = 1, termIm = 0;          // (iw)^k / k!
+                double sumRe = 1.0 / (m + 1), sumIm = 0;
+
+                for (int k = 1; k < EXP_MONOMIAL_SERIES_MAX_TERMS; k++) {
+                    final double tr = -termIm * w / k;
+                    termIm = termRe * w / k;
+                    termRe = tr;
+
+                    final double d = m + k + 1;
+                    sumRe += termRe / d;
+                    sumIm += termIm / d;
+
+                    if (Math.abs(termRe) + Math.abs(termIm) < 1E-18)
+                        break;
+                }
+
+                re[m] = sumRe;
+                im[m] = sumIm;
+            }
+
+            return;
+        }
+
+        final double eRe = Math.cos(w), eIm = Math.sin(w);
+
+        // (x + iy) / iw = (y - ix) / w
+        re[0] = eIm / w;
+        im[0] = -(eRe - 1) / w;
+        for (int m = 1; m <= degree; m++) {
+            final double x = eRe - m * re[m - 1];
+            final double y = eIm - m * im[m - 1];
+            re[m] = y / w;
+            im[m] = -x / w;
+        }
+    }
+
 
     /* ................................. Fourier Series ................................... */
 
@@ -393,7 +560,7 @@ public class ComplexUtil {
 
     @NotNull
     public static Complex fourierSeriesCoefficient(@NotNull ComplexDomainFunctionI f, double frequency, int n) {
-        return fourierSeriesCoefficient(f, frequency, f.getDomainStart(), f.getDomainEnd(), n);
+        return ftToFsCoefficient(fourierTransform(f, frequency, n), f.getDomainRange());
     }
 
     @NotNull
@@ -407,15 +574,8 @@ public class ComplexUtil {
 
 
 
-    // TODO: decrease array overhead
     public static class FftTest {
 
-        private static boolean isInt(double v) {
-            return v == Math.floor(v);
-
-    //        return !(Double.isNaN(v) || Double.isInfinite(v)) && v == Math.floor(v);
-        }
-
         /* Single Point FFT */
 
         public interface SampleProvider {
@@ -568,28 +728,34 @@ public class ComplexUtil {
                 return sampleProvider.reduce(Complex::add);     // sum all samples
             }
 
-            sampleProvider = sampleProvider.withCount(MathUtil.lowestPowOf2(N));        // pad with zeroes
             return fftSingleFqInternal(sampleProvider, k);
         }
 
+        /**
+         * Single bin of the DFT <code>sum( x[j] * e<sup>dir.2.pi.i.k.j / N</sup> )</code>, with the phase advanced by a
+         * precomputed rotation per sample (no recursion, no intermediate arrays)
+         * */
         @NotNull
         public static Complex fftSingleFqInternal(@NotNull SampleProvider provider, double k) {
             final int N = provider.sampleCount();
 
-            // base case
-            if (N == 1) {
-                final Complex v = provider.sampleAt(0);
-                return isInt(k)? v: complexExpFast(DIRECTION_FOURIER_TRANSFORM * MathUtil.TWO_PI * k).mult(v).toComplex();
-            }
+            final double theta = DIRECTION_FOURIER_TRANSFORM * 2 * Math.PI * k / N;
+            final double stepRe = Math.cos(theta), stepIm = Math.sin(theta);
 
-            final SampleProvider evenP = provider.halfSamples(true);
-            final Complex evenFft = fftSingleFqInternal(evenP, k);
+            double wRe = 1, wIm = 0;
+            double re = 0, im = 0;
 
-            final SampleProvider oddP = provider.halfSamples(false);
-            final Complex oddFft = fftSingleFqInternal(oddP, k);
+            for (int j = 0; j < N; j++) {
+                final Complex v = provider.sampleAt(j);
+                re += (v.getReal() * wRe) - (v.getImaginary() * wIm);
+                im += (v.getReal() * wIm) + (v.getImaginary() * wRe);
+
+                final double nextRe = (wRe * stepRe) - (wIm * stepIm);
+                wIm = (wRe * stepIm) + (wIm * stepRe);
+                wRe = nextRe;
+            }
 
-            // merge   result = even + (wk * odd)
-            return complexExpFast(DIRECTION_FOURIER_TRANSFORM * MathUtil.TWO_PI * k / N).mult(oddFft).add(evenFft).toComplex();
+            return new Complex(re, im);
         }
 
 
@@ -623,99 +789,26 @@ public class ComplexUtil {
                 return Stream.of(x).reduce(Complex::add).get();
             }
 
-            // todo auto pad array with zeroes
-            if (!MathUtil.isPowOf2(x.length)) {
-                throw new IllegalArgumentException("Samples count must be a pow of 2 for a radix-2 Cooley-Tukey FFT");
-            }
-
-            return fftSingleFqInternal(x, k);
-        }
-
-
-        @NotNull
-        private static Complex fftSingleFqInternal(@NotNull Complex @NotNull[] x, double k) {
-            final int N = x.length;
-
-            // base case
-            if (N == 1)
-                return isInt(k)? x[0]: complexExpFast(DIRECTION_FOURIER_TRANSFORM * MathUtil.TWO_PI * k).mult(x[0]).toComplex();
-
-            final Complex[] half = new Complex[N / 2];
-
-            // even
-            int j=0;
-            for (int i=0; i < N; i+=2) {
-                half[j++] = x[i];
-            }
-
-            final Complex evenFft = fftSingleFqInternal(half, k);
-
-            // odd
-            j=0;
-            for (int i=1; i < N; i+=2) {
-                half[j++] = x[i];
-            }
-
-            final Complex oddFft = fftSingleFqInternal(half, k);
-
-            // merge   result = even + (wk * odd)
-            return complexExpFast(DIRECTION_FOURIER_TRANSFORM * MathUtil.TWO_PI * k / N).mult(oddFft).add(evenFft).toComplex();
+            return fftSingleFqInternal(SampleProvider.create(x.length, i -> x[i]), k);
         }
 
 
 
-        /* Legacy FFT spectrum */
+        /* FFT spectrum */
 
+        /**
+         * @param x equally spaced samples, any count
+         * @return DFT of the samples with exponent sign {@link #DIRECTION_FOURIER_TRANSFORM}
+         *
+         * @see FFT
+         * */
         public static Complex @NotNull[] fftSpectrum(@NotNull Complex [] x) {
             if (x == null || x.length == 0)
                 return new Complex[0];
 
-            // todo auto pad array with zeroes
-            if (!MathUtil.isPowOf2(x.length)) {
-                throw new IllegalArgumentException("Samples count must be a pow of 2 for a radix-2 Cooley-Tukey FFT");
-            }
-
-            return fftSpectrumInternal(x);
-        }
-
-        private static Complex @NotNull[] fftSpectrumInternal(@NotNull Complex [] x) {
-            final int N = x.length;
-
-            // base case
-            if (N == 1)
-                return new Complex[] { x[0] };
-
-            final int halfN = N / 2;
-
-            final Complex[] half = new Complex[halfN];
-
-            // even
-            int j=0;
-            for (int i=0; i < N; i+=2) {
-                half[j++] = x[i];
-            }
-
-            final Complex[] evenFft = fftSpectrumInternal(half);
-
-            // odd
-            j=0;
-            for (int i=1; i < N; i+=2) {
-                half[j++] = x[i];
-            }
-
-            final Complex[] oddFft = fftSpectrumInternal(half);
-
-            final Complex[] result = new Complex[N];
-
-            for (int k=0; k < halfN; k++) {
-                final Complex left = evenFft[k];
-                final Complex right = complexExpFast(DIRECTION_FOURIER_TRANSFORM * MathUtil.TWO_PI * k / N).mult(oddFft[k]).toComplex();
-
-                result[k] = left.add(right);
-                result[k + halfN] = left.subtract(right);
-            }
-
-            return result;
+            final double[] buf = FFT.toInterleaved(x);
+            FFT.transform(buf, DIRECTION_FOURIER_TRANSFORM < 0);
+            return FFT.toComplex(buf);
         }
 
 
@@ -0,0 +1,509 @@
+package util.main;
+
+import misc.MathUtil;
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Iterative, in-place Fast Fourier Transform working on interleaved {@code double} buffers<br>
+ * <br>
+ * A buffer of {@code n} complex samples has length {@code 2n}, where
+ * {@code buf[2j]} is the real part and {@code buf[2j + 1]} the imaginary part of sample {@code j}
+ *
+ * <pre>
+ *     forward: X[k] = sum( x[j] * e<sup>-2.pi.i.j.k / n</sup> )
+ *     inverse: x[j] = sum( X[k] * e<sup>+2.pi.i.j.k / n</sup> )       (not normalized)
+ * </pre>
+ *
+ * Any size is supported
+ * <pre>
+ *     1. power of 2:  radix-4 butterflies (plus a single radix-2 stage for odd powers), in place with bit reversal
+ *     2. smooth:      mixed-radix Stockham passes for sizes whose prime factors are all {@code <=} {@link #MAX_MIXED_RADIX_PRIME}
+ *     3. otherwise:   Bluestein chirp-z convolution over a power of 2 size
+ * </pre>
+ *
+ * Twiddle tables (and Bluestein chirps) are precomputed once per size and cached in a small LRU cache<br>
+ * Mixed-radix and Bluestein transforms are not in place: they work through a scratch buffer of the plan, allocated once
+ * per thread on first use and then reused, so repeated transforms of the same size do not allocate
+ * */
+public final class FFT {
+
+    /**
+     * Largest prime factor handled by mixed-radix passes, sizes with larger prime factors use Bluestein
+     * */
+    public static final int MAX_MIXED_RADIX_PRIME = 13;
+
+    /**
+     * Max number of cached plans (twiddle tables)
+     * */
+    public static final int MAX_CACHED_PLANS = 12;
+
+    private static final Map<Integer, Plan> sPlans = new LinkedHashMap<>(MAX_CACHED_PLANS + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Plan> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+
+    private FFT() {
+    }
+
+    public static boolean isSizeSupported(int n) {
+        return n > 0;
+    }
+
+    @NotNull
+    private static Plan getPlan(int n) {
+        synchronized (sPlans) {
+            Plan plan = sPlans.get(n);
+            if (plan == null) {
+                plan = new Plan(n);
+                sPlans.put(n, plan);
+            }
+
+            return plan;
+        }
+    }
+
+    public static void clearPlans() {
+        synchronized (sPlans) {
+            sPlans.clear();
+        }
+    }
+
+    /**
+     * @param buf interleaved re/im buffer of {@code 2n} doubles
+     * @param forward {@code true} for the forward transform (negative exponent), {@code false} for the inverse (positive exponent)
+     * */
+    public static void transform(double @NotNull[] buf, boolean forward) {
+        final int n = buf.length / 2;
+        if (n < 2)
+            return;
+
+        getPlan(n).transform(buf, forward);
+    }
+
+    public static void forward(double @NotNull[] buf) {
+        transform(buf, true);
+    }
+
+    /**
+     * Inverse transform, without {@code 1/n} normalization
+     * */
+    public static void inverse(double @NotNull[] buf) {
+        transform(buf, false);
+    }
+
+
+    /* Conversions */
+
+    public static double @NotNull[] toInterleaved(@NotNull Complex @NotNull[] x) {
+        final double[] buf = new double[x.length * 2];
+        for (int i = 0; i < x.length; i++) {
+            buf[i << 1] = x[i].getReal();
+            buf[(i << 1) + 1] = x[i].getImaginary();
+        }
+
+        return buf;
+    }
+
+    @NotNull
+    public static Complex @NotNull[] toComplex(double @NotNull[] buf) {
+        final Complex[] x = new Complex[buf.length / 2];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = new Complex(buf[i << 1], buf[(i << 1) + 1]);
+        }
+
+        return x;
+    }
+
+
+    /**
+     * Precomputed tables of a single transform size
+     * */
+    private static final class Plan {
+
+        private final int n;
+
+        /**
+         * {@code cos(2.pi.k / n)} and {@code sin(2.pi.k / n)} for {@code k in [0, n)}
+         * */
+        private final double[] cos, sin;
+
+        /**
+         * radix of each Stockham pass, or {@code null} if not used
+         * */
+        private final int[] radices;
+
+        private final boolean bluestein;
+        private volatile Bluestein forwardChirp, inverseChirp;
+
+        /**
+         * Stockham ping-pong buffer and p-point DFT inputs, per thread since plans are shared. {@code null} if not mixed-radix
+         * */
+        private final ThreadLocal<MixedScratch> mixedScratch;
+
+        private Plan(int n) {
+            this.n = n;
+
+            if (MathUtil.isPowOf2(n)) {
+                radices = null;
+                bluestein = false;
+            } else {
+                final int[] factors = factorize(n);
+                bluestein = factors == null;
+                radices = factors;
+            }
+
+            if (bluestein) {
+                cos = sin = null;           // transforms over a power of 2 plan
+            } else {
+                cos = new double[n];
+                sin = new double[n];
+                for (int k = 0; k < n; k++) {
+                    final double theta = 2 * Math.PI * k / n;
+                    cos[k] = Math.cos(theta);
+                    sin[k] = Math.sin(theta);
+                }
+            }
+
+            mixedScratch = radices != null? ThreadLocal.withInitial(() -> new MixedScratch(n)): null;
+        }
+
+        private void transform(double @NotNull[] buf, boolean forward) {
+            if (bluestein) {
+                getBluestein(forward).transform(buf);
+            } else if (radices == null) {
+                transformPow2(buf, forward);
+            } else {
+                transformMixed(buf, forward);
+            }
+        }
+
+
+        /* ......................... Power of 2 ......................... */
+
+        private void transformPow2(double @NotNull[] buf, boolean forward) {
+            bitReverse(buf, n);
+
+            final double sign = forward? -1: 1;
+            int half = 1;
+
+            // odd power of 2: one radix-2 stage (twiddle = 1)
+            if ((Integer.numberOfTrailingZeros(n) & 1) != 0) {
+                for (int p = 0; p < n * 2; p += 4) {
+                    final double re = buf[p + 2], im = buf[p + 3];
+                    buf[p + 2] = buf[p] - re;
+                    buf[p + 3] = buf[p + 1] - im;
+                    buf[p] += re;
+                    buf[p + 1] += im;
+                }
+
+                half = 2;
+            }
+
+            // radix-4 stages, each fusing two radix-2 stages (half -> 2 * half -> 4 * half)
+            for (; half < n; half <<= 2) {
+                final int len = half << 2;
+                final int stride = n / len;
+
+                for (int start = 0; start < n; start += len) {
+                    for (int j = 0; j < half; j++) {
+                        final int t1 = j * stride;          // W(4h)^j
+                        final int t2 = t1 << 1;             // W(4h)^2j
+                        final int t3 = t1 + t2;             // W(4h)^3j
+
+                        final int i0 = (start + j) << 1;
+                        final int i1 = i0 + (half << 1);
+                        final int i2 = i1 + (half << 1);
+                        final int i3 = i2 + (half << 1);
+
+                        // a1 (index i1) pairs with W^2j, a2 (index i2) with W^j, a3 with W^3j
+                        final double w1Re = cos[t2], w1Im = sign * sin[t2];
+                        final double w2Re = cos[t1], w2Im = sign * sin[t1];
+                        final double w3Re = cos[t3], w3Im = sign * sin[t3];
+
+                        final double a0Re = buf[i0], a0Im = buf[i0 + 1];
+                        final double x1Re = (buf[i1] * w1Re) - (buf[i1 + 1] * w1Im);
+                        final double x1Im = (buf[i1] * w1Im) + (buf[i1 + 1] * w1Re);
+                        final double x2Re = (buf[i2] * w2Re) - (buf[i2 + 1] * w2Im);
+                        final double x2Im = (buf[i2] * w2Im) + (buf[i2 + 1] * w2Re);
+                        final double x3Re = (buf[i3] * w3Re) - (buf[i3 + 1] * w3Im);
+                        final double x3Im = (buf[i3] * w3Im) + (buf[i3 + 1] * w3Re);
+
+                        final double sRe = a0Re + x1Re, sIm = a0Im + x1Im;
+                        final double dRe = a0Re - x1Re, dIm = a0Im - x1Im;
+                        final double pRe = x2Re + x3Re, pIm = x2Im + x3Im;
+
+                        // W4 * (x2 - x3), where W4 = sign * i
+                        final double qRe = -sign * (x2Im - x3Im);
+                        final double qIm = sign * (x2Re - x3Re);
+
+                        buf[i0] = sRe + pRe;
+                        buf[i0 + 1] = sIm + pIm;
+                        buf[i2] = sRe - pRe;
+                        buf[i2 + 1] = sIm - pIm;
+                        buf[i1] = dRe + qRe;
+                        buf[i1 + 1] = dIm + qIm;
+                        buf[i3] = dRe - qRe;
+                        buf[i3 + 1] = dIm - qIm;
+                    }
+                }
+            }
+        }
+
+
+        /* ......................... Mixed Radix ......................... */
+
+        /**
+         * Stockham auto-sort passes, ping-ponging between the given buffer and a scratch buffer
+         * */
+        private void transformMixed(double @NotNull[] buf, boolean forward) {
+            final double sign = forward? -1: 1;
+
+            final MixedScratch scratch = mixedScratch.get();
+
+            double[] x = buf;
+            double[] y = scratch.buf;
+
+            // p-point DFT inputs
+            final double[] inRe = scratch.inRe, inIm = scratch.inIm;
+
+            int len = n;        // current sub-transform length
+            int s = 1;          // stride
+
+            for (int p: radices) {
+                final int m = len / p;
+                final int pStep = n / p;             // W(p) = W(n)^(n / p)
+
+                for (int q = 0; q < m; q++) {
+                    for (int k = 0; k < s; k++) {
+                        for (int i = 0; i < p; i++) {
+                            final int src = (k + s * (q + m * i)) << 1;
+                            inRe[i] = x[src];
+                            inIm[i] = x[src + 1];
+                        }
+
+                        for (int j = 0; j < p; j++) {
+                            double re, im;
+
+                            if (p == 2) {
+                                re = j == 0? inRe[0] + inRe[1]: inRe[0] - inRe[1];
+                                im = j == 0? inIm[0] + inIm[1]: inIm[0] - inIm[1];
+                            } else {
+                                re = 0; im = 0;
+                                for (int i = 0, t = 0; i < p; i++, t += j) {
+                                    if (t >= p) {
+                                        t -= p;
+                                    }
+
+                                    final int idx = t * pStep;
+                                    final double wRe = cos[idx], wIm = sign * sin[idx];
+                                    re += (inRe[i] * wRe) - (inIm[i] * wIm);
+                                    im += (inRe[i] * wIm) + (inIm[i] * wRe);
+                                }
+                            }
+
+                            // output twiddle W(len)^(q.j) = W(n)^(q.j.s)
+                            final int tw = q * j * s;
+                            final double wRe = cos[tw], wIm = sign * sin[tw];
+
+                            final int dst = (k + s * (p * q + j)) << 1;
+                            y[dst] = (re * wRe) - (im * wIm);
+                            y[dst + 1] = (re * wIm) + (im * wRe);
+                        }
+                    }
+                }
+
+                len = m;
+                s *= p;
+
+                final double[] tmp = x;
+                x = y;
+                y = tmp;
+            }
+
+            if (x != buf) {
+                System.arraycopy(x, 0, buf, 0, buf.length);
+            }
+        }
+
+
+        /* ......................... Bluestein ......................... */
+
+        @NotNull
+        private Bluestein getBluestein(boolean forward) {
+            Bluestein b = forward? forwardChirp: inverseChirp;
+            if (b == null) {
+                synchronized (this) {
+                    b = forward? forwardChirp: inverseChirp;
+                    if (b == null) {
+                        b = new Bluestein(n, forward);
+                        if (forward) {
+                            forwardChirp = b;
+                        } else {
+                            inverseChirp = b;
+                        }
+                    }
+                }
+            }
+
+            return b;
+        }
+    }
+
+
+    /**
+     * Reusable buffers of a mixed-radix transform
+     * */
+    private static final class MixedScratch {
+
+        private final double[] buf;
+        private final double[] inRe = new double[MAX_MIXED_RADIX_PRIME + 1], inIm = new double[MAX_MIXED_RADIX_PRIME + 1];
+
+        private MixedScratch(int n) {
+            buf = new double[n * 2];
+        }
+    }
+
+
+    /**
+     * Bluestein chirp-z transform, expressing a DFT of any size {@code n} as a circular convolution of power of 2 size {@code m >= 2n - 1}
+     * <pre>
+     *     X[k] = c[k] * sum( (x[j] * c[j]) * conj(c[k - j]) ),  c[j] = e<sup>sign.pi.i.j<sup>2</sup> / n</sup>
+     * </pre>
+     * */
+    private static final class Bluestein {
+
+        private final int n, m;
+        private final boolean forward;
+
+        /**
+         * chirp {@code c[j]}, interleaved
+         * */
+        private final double[] chirp;
+
+        /**
+         * FFT of the convolution kernel {@code conj(c[j])}, interleaved
+         * */
+        private final double[] kernelFft;
+
+        /**
+         * Convolution buffer of {@code m} complex samples, per thread since plans are shared
+         * */
+        private final ThreadLocal<double[]> convolution;
+
+        private Bluestein(int n, boolean forward) {
+            this.n = n;
+            this.forward = forward;
+            m = MathUtil.lowestPowOf2((2 * n) - 1);
+
+            final double sign = forward? -1: 1;
+            chirp = new double[n * 2];
+            for (int j = 0; j < n; j++) {
+                final long jj = ((long) j * j) % (2L * n);          // keep the angle small for precision
+                final double theta = sign * Math.PI * jj / n;
+                chirp[j << 1] = Math.cos(theta);
+                chirp[(j << 1) + 1] = Math.sin(theta);
+            }
+
+            kernelFft = new double[m * 2];
+            kernelFft[0] = chirp[0];
+            kernelFft[1] = -chirp[1];
+            for (int j = 1; j < n; j++) {
+                kernelFft[j << 1] = kernelFft[(m - j) << 1] = chirp[j << 1];
+                kernelFft[(j << 1) + 1] = kernelFft[((m - j) << 1) + 1] = -chirp[(j << 1) + 1];
+            }
+
+            FFT.forward(kernelFft);
+            convolution = ThreadLocal.withInitial(() -> new double[m * 2]);
+        }
+
+        private void transform(double @NotNull[] buf) {
+            final double[] a = convolution.get();
+            for (int j = 0; j < n; j++) {
+                final int i = j << 1;
+                a[i] = (buf[i] * chirp[i]) - (buf[i + 1] * chirp[i + 1]);
+                a[i + 1] = (buf[i] * chirp[i + 1]) + (buf[i + 1] * chirp[i]);
+            }
+
+            Arrays.fill(a, n * 2, m * 2, 0);            // zero padding, previous transform left its result there
+
+            FFT.forward(a);
+            for (int i = 0; i < m * 2; i += 2) {
+                final double re = (a[i] * kernelFft[i]) - (a[i + 1] * kernelFft[i + 1]);
+                a[i + 1] = (a[i] * kernelFft[i + 1]) + (a[i + 1] * kernelFft[i]);
+                a[i] = re;
+            }
+
+            FFT.inverse(a);
+
+            final double norm = 1d / m;
+            for (int k = 0; k < n; k++) {
+                final int i = k << 1;
+                final double re = a[i] * norm, im = a[i + 1] * norm;
+                buf[i] = (re * chirp[i]) - (im * chirp[i + 1]);
+                buf[i + 1] = (re * chirp[i + 1]) + (im * chirp[i]);
+            }
+        }
+    }
+
+
+    /* ......................... Helpers ......................... */
+
+    /**
+     * @return radices of mixed-radix passes (4s first, then primes), or {@code null} if a prime factor is larger than {@link #MAX_MIXED_RADIX_PRIME}
+     * */
+    private static int[] factorize(int n) {
+        final List<Integer> factors = new ArrayList<>();
+        while (n % 4 == 0) {
+            factors.add(4);
+            n /= 4;
+        }
+
+        for (int p = 2; p <= MAX_MIXED_RADIX_PRIME && n > 1; p++) {
+            while (n % p == 0) {
+                factors.add(p);
+                n /= p;
+            }
+        }
+
+        if (n != 1)
+            return null;
+
+        final int[] result = new int[factors.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = factors.get(i);
+        }
+
+        return result;
+    }
+
+    private static void bitReverse(double @NotNull[] buf, int n) {
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+
+            if (i < j) {
+                final int a = i << 1, b = j << 1;
+
+                double t = buf[a];
+                buf[a] = buf[b];
+                buf[b] = t;
+
+                t = buf[a + 1];
+                buf[a + 1] = buf[b + 1];
+                buf[b + 1] = t;
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package util.main;
+
+import async.CancellationProvider;
+import function.definition.ComplexDomainFunctionI;
+import function.definition.FrequencySupportProviderI;
+import misc.MathUtil;
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Batched Fourier Series coefficient engine<br>
+ * <br>
+ * Samples a function <b>once</b> and computes coefficients of all integer harmonics (integer multiples of the
+ * fundamental frequency) in a single FFT pass, instead of running a full Simpson 1/3 integration per frequency.
+ * <br>
+ * The result is the Simpson 1/3 sum itself, evaluated through the DFT identity
+ * <pre>
+ *     sum( w[j] * x[j] * e<sup>i.2.pi.k.j / n</sup> ),  w = 1, 4, 2, 4, ..., 2, 4, 1
+ *          = 3 * D(k) - D(k + n/2) - x[0] + x[n]
+ * </pre>
+ * where {@code D} is the DFT of first {@code n} samples, since the alternating weights {@code 3 - (-1)^j}
+ * are just a shift of {@code n/2} in frequency.
+ * <br>
+ * Frequencies off the FFT grid (non-integer harmonics) are evaluated over the same samples with the Goertzel recurrence,
+ * see {@link #goertzelCoefficients(FunctionSamples, FrequencySupportProviderI, double[], int, int, Complex[], CancellationProvider)}
+ *
+ * @see ComplexUtil#fourierSeriesCoefficient(ComplexDomainFunctionI, double)
+ * @see FFT
+ * @see FunctionSamples
+ * */
+public final class FourierCoefficientEngine {
+
+    public static final String TAG = "FourierCoefficientEngine";
+
+    /**
+     * Minimum number of frequencies to compute in a batch, below which per-frequency integration is cheaper
+     * */
+    public static final int MIN_BATCH_FREQUENCY_COUNT = 2;
+
+    /**
+     * Max deviation of a harmonic number from its nearest integer to still be considered an integer harmonic
+     * */
+    public static final double HARMONIC_TOLERANCE = 1e-9;
+
+    /**
+     * Number of frequencies evaluated together in one sweep of the samples by Goertzel recurrence
+     * */
+    public static final int GOERTZEL_BLOCK_SIZE = 8;
+
+    private FourierCoefficientEngine() {
+    }
+
+
+    /**
+     * @return the (possibly fractional) harmonic number {@code k} such that the Fourier Transform exponential term
+     * over the domain is <code>e<sup>i.2.pi.k.(t - start) / range</sup></code>
+     *
+     * @see ComplexUtil#getFourierExpTermPowerCoefficient(int, double)
+     * */
+    public static double getHarmonic(double domainRange, double frequency) {
+        return ComplexUtil.getFourierExpTermPowerCoefficient(ComplexUtil.DIRECTION_FOURIER_TRANSFORM, frequency) * domainRange / MathUtil.TWO_PI;
+    }
+
+    public static boolean isIntegerHarmonic(double harmonic) {
+        return Math.abs(harmonic - Math.rint(harmonic)) <= HARMONIC_TOLERANCE * Math.max(1, Math.abs(harmonic));
+    }
+
+    /**
+     * @return whether all given frequencies are integer multiples of the fundamental frequency of the function,
+     * i.e. whether they lie on the FFT grid
+     * */
+    public static boolean areIntegerHarmonics(@NotNull ComplexDomainFunctionI function, double @NotNull[] frequencies) {
+        final double range = function.getDomainRange();
+        if (range == 0 || Double.isNaN(range) || Double.isInfinite(range))
+            return false;
+
+        for (double f: frequencies) {
+            if (!isIntegerHarmonic(getHarmonic(range, f)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Resolves the number of integration intervals, in the same way as {@link ComplexUtil#fourierTransform(ComplexDomainFunctionI, double)}
+     *
+     * @param n explicit number of integration intervals (0 or -ve to use default)
+     * */
+    public static int resolveIntervalCount(int n) {
+        if (n <= 0) {
+            n = ComplexUtil.getFourierTransformSimpson13NCurrentDefault();
+        }
+
+        if (n < ComplexUtil.SIMPSON_13_N_MIN) {
+            n = ComplexUtil.SIMPSON_13_N_MIN;
+        }
+
+        if ((n % 2) != 0) {
+            n++;        /* must be even */
+        }
+
+        return n;
+    }
+
+    /**
+     * @return whether coefficients of all given frequencies can be computed in a single batch
+     * */
+    public static boolean isBatchSupported(@NotNull ComplexDomainFunctionI function, double @NotNull[] frequencies) {
+        return frequencies.length >= MIN_BATCH_FREQUENCY_COUNT
+                && FFT.isSizeSupported(resolveIntervalCount(function.getNumericalIntegrationIntervalCount()))
+                && areIntegerHarmonics(function, frequencies);
+    }
+
+    /**
+     * Computes Fourier Series coefficients of the given integer-harmonic frequencies with a single sampling and FFT pass
+     *
+     * @param function the function
+     * @param frequencies frequencies to compute coefficients for, must be integer multiples of fundamental frequency
+     * @param n number of integration intervals (0 or -ve to use default)
+     * @param c cancellation provider
+     *
+     * @return coefficients in the order of given frequencies, or {@code null} if cancelled
+     *
+     * @throws IllegalArgumentException if any of the frequencies is not an integer harmonic, or the interval count is not supported by {@link FFT}
+     * @see #isBatchSupported(ComplexDomainFunctionI, double[])
+     * */
+    public static Complex @Nullable[] fourierSeriesCoefficients(@NotNull ComplexDomainFunctionI function, double @NotNull[] frequencies, int n, @Nullable CancellationProvider c) {
+        if (frequencies.length == 0)
+            return new Complex[0];
+
+        if (function.getDomainRange() == 0) {
+            final Complex[] result = new Complex[frequencies.length];
+            Arrays.fill(result, Complex.ZERO);
+            return result;
+        }
+
+        n = resolveIntervalCount(n);
+        if (!FFT.isSizeSupported(n))
+            throw new IllegalArgumentException("Integration interval count " + n + " is not supported by FFT");
+
+        final FunctionSamples samples = FunctionSampleCache.get(function, n, c);
+        if (samples == null)
+            return null;        // cancelled
+
+        return fourierSeriesCoefficients(samples, function, frequencies, c);
+    }
+
+    public static Complex @Nullable[] fourierSeriesCoefficients(@NotNull ComplexDomainFunctionI function, double @NotNull[] frequencies, @Nullable CancellationProvider c) {
+        return fourierSeriesCoefficients(function, frequencies, function.getNumericalIntegrationIntervalCount(), c);
+    }
+
+    /**
+     * Computes Fourier Series coefficients of the given integer-harmonic frequencies from already sampled function, with a single FFT pass
+     *
+     * @param samples function samples, interval count must be even
+     * @param fsp frequency support of the sampled function
+     * @param frequencies frequencies to compute coefficients for, must be integer multiples of fundamental frequency
+     * @param c cancellation provider
+     *
+     * @return coefficients in the order of given frequencies, or {@code null} if cancelled
+     * */
+    public static Complex @Nullable[] fourierSeriesCoefficients(@NotNull FunctionSamples samples, @NotNull FrequencySupportProviderI fsp, double @NotNull[] frequencies, @Nullable CancellationProvider c) {
+        final Complex[] result = new Complex[frequencies.length];
+        final double range = samples.getDomainRange();
+        if (range == 0) {
+            Arrays.fill(result, Complex.ZERO);
+            return result;
+        }
+
+        final int n = samples.getIntervalCount();
+        final double x0Re = samples.getReal(0), x0Im = samples.getImaginary(0);
+        final double xnRe = samples.getReal(n), xnIm = samples.getImaginary(n);
+
+        // 1. Transform
+        final double[] buf = samples.copyInterleaved();
+        FFT.forward(buf);
+        if (c != null && c.isCancelled())
+            return null;
+
+        // 2. Simpson 1/3 sums
+        final double a = samples.getDomainStart();
+        final int halfN = n / 2;
+        final double norm = 1d / (3d * n);      // (h / 3) / range
+
+        for (int i = 0; i < frequencies.length; i++) {
+            final double frequency = frequencies[i];
+            if (!fsp.isFrequencySupported(frequency)) {
+                result[i] = Complex.ZERO;
+                continue;
+            }
+
+            final double harmonic = getHarmonic(range, frequency);
+            if (!isIntegerHarmonic(harmonic))
+                throw new IllegalArgumentException("Frequency " + frequency + " is not an integer harmonic for domain range " + range);
+
+            final long k = Math.round(harmonic);
+
+            // forward FFT has negative exponent, so D(k) = X[-k]
+            final int m1 = (int) Math.floorMod(-k, (long) n) << 1;
+            final int m2 = (int) Math.floorMod(-k - halfN, (long) n) << 1;
+
+            final double sRe = (3 * buf[m1]) - buf[m2] - x0Re + xnRe;
+            final double sIm = (3 * buf[m1 + 1]) - buf[m2 + 1] - x0Im + xnIm;
+
+            // phase of domain start
+            final double phase = 2 * Math.PI * k * (a / range);
+            final double cos = Math.cos(phase), sin = Math.sin(phase);
+
+            result[i] = new Complex(((sRe * cos) - (sIm * sin)) * norm, ((sRe * sin) + (sIm * cos)) * norm);
+        }
+
+        return result;
+    }
+
+
+
+    /* ................................. Goertzel (arbitrary frequencies) ................................... */
+
+    /**
+     * Computes Fourier Series coefficients of arbitrary (including non-integer harmonic) frequencies from already sampled function<br>
+     * <br>
+     * Each coefficient is the Simpson 1/3 sum of the integrand, evaluated with the Goertzel second-order recurrence
+     * <pre>
+     *     s[j] = w[j] * x[j] + 2.cos(theta) * s[j - 1] - s[j - 2],    theta = 2.pi.k / n
+     * </pre>
+     * which needs no complex exponential per sample, only a couple of them per frequency.
+     * Frequencies are swept over the samples in blocks of {@link #GOERTZEL_BLOCK_SIZE}, so that the sample buffer is
+     * read once per block instead of once per frequency.
+     * <br>
+     * Ranges {@code [from, to)} of the same output array can be computed concurrently over the same samples
+     *
+     * @param samples function samples, interval count must be even
+     * @param fsp frequency support of the sampled function
+     * @param frequencies frequencies to compute coefficients for
+     * @param from start index in frequencies (inclusive)
+     * @param to end index in frequencies (exclusive)
+     * @param out output array, coefficient of {@code frequencies[i]} is set at {@code out[i]}
+     * @param c cancellation provider
+     *
+     * @return {@code true} if completed, {@code false} if cancelled
+     *
+     * @see #estimateSimpsonError(ComplexDomainFunctionI, FunctionSamples, double, Complex)
+     * */
+    public static boolean goertzelCoefficients(@NotNull FunctionSamples samples, @NotNull FrequencySupportProviderI fsp,
+                                               double @NotNull[] frequencies, int from, int to,
+                                               @NotNull Complex @NotNull[] out, @Nullable CancellationProvider c) {
+        final double range = samples.getDomainRange();
+        final int n = samples.getIntervalCount();
+        if ((n % 2) != 0)
+            throw new IllegalArgumentException("Simpson 1/3 interval count must be even, given " + n);
+
+        final double[] x = samples.data();
+        final double norm = 1d / (3d * n);      // (h / 3) / range
+
+        final double[] harmonics = new double[GOERTZEL_BLOCK_SIZE];
+        final double[] coeffs = new double[GOERTZEL_BLOCK_SIZE];
+        final double[] s1Re = new double[GOERTZEL_BLOCK_SIZE];
+        final double[] s1Im = new double[GOERTZEL_BLOCK_SIZE];
+        final double[] s2Re = new double[GOERTZEL_BLOCK_SIZE];
+        final double[] s2Im = new double[GOERTZEL_BLOCK_SIZE];
+        final int[] indices = new int[GOERTZEL_BLOCK_SIZE];
+
+        int i = from;
+        while (i < to) {
+            if (c != null && c.isCancelled())
+                return false;
+
+            // 1. Collect a block of supported frequencies
+            int count = 0;
+            while (i < to && count < GOERTZEL_BLOCK_SIZE) {
+                final double frequency = frequencies[i];
+                if (range == 0 || !fsp.isFrequencySupported(frequency)) {
+                    out[i++] = Complex.ZERO;
+                    continue;
+                }
+
+                final double harmonic = getHarmonic(range, frequency);
+                harmonics[count] = harmonic;
+                coeffs[count] = 2 * Math.cos((2 * Math.PI * harmonic) / n);
+                s1Re[count] = s1Im[count] = s2Re[count] = s2Im[count] = 0;
+                indices[count++] = i++;
+            }
+
+            if (count == 0)
+                continue;
+
+            // 2. Sweep: weights 1, 4, 2, 4, ..., 2, 4, 1
+            for (int j = 0; j <= n; j++) {
+                final double w = (j == 0 || j == n)? 1: (j & 1) == 0? 2: 4;
+                final double re = w * x[j << 1];
+                final double im = w * x[(j << 1) + 1];
+
+                for (int q = 0; q < count; q++) {
+                    final double sRe = re + (coeffs[q] * s1Re[q]) - s2Re[q];
+                    final double sIm = im + (coeffs[q] * s1Im[q]) - s2Im[q];
+                    s2Re[q] = s1Re[q];
+                    s2Im[q] = s1Im[q];
+                    s1Re[q] = sRe;
+                    s1Im[q] = sIm;
+                }
+            }
+
+            // 3. Finalize: sum = e^(i.2.pi.k) * (s[n] - e^(i.theta) * s[n - 1]), then shift by phase of domain start
+            for (int q = 0; q < count; q++) {
+                final double harmonic = harmonics[q];
+                final double theta = (2 * Math.PI * harmonic) / n;
+                final double cosT = Math.cos(theta), sinT = Math.sin(theta);
+
+                final double yRe = s1Re[q] - ((cosT * s2Re[q]) - (sinT * s2Im[q]));
+                final double yIm = s1Im[q] - ((cosT * s2Im[q]) + (sinT * s2Re[q]));
+
+                final double phase = 2 * Math.PI * harmonic * (samples.getDomainEnd() / range);
+                final double cos = Math.cos(phase), sin = Math.sin(phase);
+
+                out[indices[q]] = new Complex(((yRe * cos) - (yIm * sin)) * norm, ((yRe * sin) + (yIm * cos)) * norm);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Computes Fourier Series coefficient of a single (arbitrary) frequency from already sampled function
+     *
+     * @see #goertzelCoefficients(FunctionSamples, FrequencySupportProviderI, double[], int, int, Complex[], CancellationProvider)
+     * */
+    @NotNull
+    public static Complex goertzelCoefficient(@NotNull FunctionSamples samples, @NotNull FrequencySupportProviderI fsp, double frequency) {
+        final Complex[] out = new Complex[1];
+        goertzelCoefficients(samples, fsp, new double[] { frequency }, 0, 1, out, null);
+        return out[0];
+    }
+
+    /**
+     * Computes Fourier Series coefficients of arbitrary frequencies with a single sampling pass and Goertzel recurrence
+     *
+     * @return coefficients in the order of given frequencies, or {@code null} if cancelled
+     * @see #goertzelCoefficients(FunctionSamples, FrequencySupportProviderI, double[], int, int, Complex[], CancellationProvider)
+     * */
+    public static Complex @Nullable[] goertzelCoefficients(@NotNull ComplexDomainFunctionI function, double @NotNull[] frequencies, int n, @Nullable CancellationProvider c) {
+        final FunctionSamples samples = FunctionSampleCache.get(function, resolveIntervalCount(n), c);
+        if (samples == null)
+            return null;
+
+        final Complex[] result = new Complex[frequencies.length];
+        return goertzelCoefficients(samples, function, frequencies, 0, frequencies.length, result, c)? result: null;
+    }
+
+    /**
+     * Estimates the error of a coefficient computed over samples (by FFT or Goertzel), against the direct Simpson 1/3 integration
+     * of {@link ComplexUtil#fourierSeriesCoefficient(function.definition.ComplexFunctionI, double, double, double, int)} with the same interval count.
+     * <br>
+     * This is as expensive as the Simpson integration itself, so meant only for verification
+     *
+     * @return absolute error
+     * */
+    public static double estimateSimpsonError(@NotNull ComplexDomainFunctionI function, @NotNull FunctionSamples samples, double frequency, @NotNull Complex coefficient) {
+        final Complex simpson = ComplexUtil.fourierSeriesCoefficient(function, frequency, samples.getDomainStart(), samples.getDomainEnd(), samples.getIntervalCount());
+        return simpson.subtract(coefficient).abs();
+    }
+}
@@ -0,0 +1,224 @@
+package util.main;
+
+import async.CancellationProvider;
+import function.ComplexDomainFunctionWrapper;
+import function.definition.ComplexDomainFunctionI;
+import misc.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process wide LRU cache of {@link FunctionSamples}, bounded by memory<br>
+ * <br>
+ * Samples are keyed by the <b>identity</b> of the base function (see {@link #getSampleSource(ComplexDomainFunctionI)}), its domain
+ * and the interval count, so that all rotor loads, integrations and graphs of the same function share a single sampling pass.
+ * <br>
+ * Functions whose output can change after creation must call {@link #invalidate(ComplexDomainFunctionI)} when it does
+ * */
+public final class FunctionSampleCache {
+
+    public static final String TAG = "FunctionSampleCache";
+
+    /**
+     * Whether sampled integrations and samples should be served from this cache
+     * */
+    public static final boolean ENABLED = true;
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final class Key {
+
+        @NotNull
+        private final ComplexDomainFunctionI function;
+        private final double domainStart;
+        private final double domainEnd;
+        private final int intervalCount;
+
+        private Key(@NotNull ComplexDomainFunctionI function, double domainStart, double domainEnd, int intervalCount) {
+            this.function = function;
+            this.domainStart = domainStart;
+            this.domainEnd = domainEnd;
+            this.intervalCount = intervalCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return function == key.function
+                    && intervalCount == key.intervalCount
+                    && Double.compare(domainStart, key.domainStart) == 0
+                    && Double.compare(domainEnd, key.domainEnd) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(function);
+            result = 31 * result + Double.hashCode(domainStart);
+            result = 31 * result + Double.hashCode(domainEnd);
+            result = 31 * result + intervalCount;
+            return result;
+        }
+    }
+
+    /* Access ordered, eldest first */
+    private static final LinkedHashMap<Key, FunctionSamples> sCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /* Keys being sampled, so that concurrent requests of the same samples wait instead of sampling again */
+    private static final Map<Key, Object> sLoadLocks = new HashMap<>();
+
+    private static long sMaxBytes = DEFAULT_MAX_BYTES;
+    private static long sBytes;
+
+    /* Incremented on every invalidation, so that samples taken before it are not cached */
+    private static int sGeneration;
+
+    private FunctionSampleCache() {
+    }
+
+
+    /**
+     * @return the function whose samples are equal to that of the given function, i.e. the innermost base function
+     * reachable through wrappers that only delegate {@link ComplexDomainFunctionI#compute(double) compute}
+     *
+     * @see ComplexUtil#getBaseFunction(ComplexDomainFunctionI)
+     * */
+    @NotNull
+    public static ComplexDomainFunctionI getSampleSource(@NotNull ComplexDomainFunctionI function) {
+        while (function instanceof ComplexDomainFunctionWrapper wrapper && wrapper.isComputeDelegated()) {
+            function = wrapper.getBaseFunction();
+        }
+
+        return function;
+    }
+
+    /**
+     * Returns cached samples of the function over its domain, sampling it if required
+     *
+     * @param function the function
+     * @param n number of intervals, must be positive
+     * @param c cancellation provider
+     *
+     * @return samples, or {@code null} if cancelled while sampling
+     * */
+    public static @Nullable FunctionSamples get(@NotNull ComplexDomainFunctionI function, int n, @Nullable CancellationProvider c) {
+        if (!ENABLED)
+            return FunctionSamples.sample(function, n, c);
+
+        final ComplexDomainFunctionI source = getSampleSource(function);
+        final Key key = new Key(source, source.getDomainStart(), source.getDomainEnd(), n);
+
+        FunctionSamples samples;
+        final Object loadLock;
+        synchronized (sCache) {
+            samples = sCache.get(key);
+            if (samples != null)
+                return samples;
+
+            loadLock = sLoadLocks.computeIfAbsent(key, k -> new Object());
+        }
+
+        synchronized (loadLock) {
+            final int generation;
+            synchronized (sCache) {
+                samples = sCache.get(key);
+                generation = sGeneration;
+            }
+
+            if (samples == null) {
+                samples = FunctionSamples.sample(source, n, c);
+                if (samples != null) {
+                    put(key, samples, generation);
+                }
+            }
+        }
+
+        synchronized (sCache) {
+            sLoadLocks.remove(key, loadLock);
+        }
+
+        return samples;
+    }
+
+    private static void put(@NotNull Key key, @NotNull FunctionSamples samples, int generation) {
+        synchronized (sCache) {
+            if (generation != sGeneration)
+                return;         // invalidated while sampling
+
+            final FunctionSamples prev = sCache.put(key, samples);
+            if (prev != null) {
+                sBytes -= prev.getByteSize();
+            }
+
+            sBytes += samples.getByteSize();
+            trimToSize();
+        }
+    }
+
+    /* Must be called with lock on sCache */
+    private static void trimToSize() {
+        final Iterator<FunctionSamples> itr = sCache.values().iterator();
+
+        // Always keep the most recent entry, even if it is larger than max size
+        while (sBytes > sMaxBytes && sCache.size() > 1 && itr.hasNext()) {
+            sBytes -= itr.next().getByteSize();
+            itr.remove();
+        }
+    }
+
+    /**
+     * Removes all cached samples of the given function, to be called when its output changes
+     * */
+    public static void invalidate(@NotNull ComplexDomainFunctionI function) {
+        final ComplexDomainFunctionI source = getSampleSource(function);
+
+        synchronized (sCache) {
+            sGeneration++;
+            final Iterator<Map.Entry<Key, FunctionSamples>> itr = sCache.entrySet().iterator();
+            while (itr.hasNext()) {
+                final Map.Entry<Key, FunctionSamples> e = itr.next();
+                if (e.getKey().function == source) {
+                    sBytes -= e.getValue().getByteSize();
+                    itr.remove();
+                }
+            }
+        }
+    }
+
+    public static void clear() {
+        synchronized (sCache) {
+            sGeneration++;
+            sCache.clear();
+            sBytes = 0;
+        }
+
+        Log.v(TAG, "cleared");
+    }
+
+    public static long getMaxBytes() {
+        synchronized (sCache) {
+            return sMaxBytes;
+        }
+    }
+
+    public static void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Max cache size must be positive, given " + maxBytes);
+
+        synchronized (sCache) {
+            sMaxBytes = maxBytes;
+            trimToSize();
+        }
+    }
+
+    public static long getSizeBytes() {
+        synchronized (sCache) {
+            return sBytes;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package util.main;
+
+import async.CancellationProvider;
+import function.definition.ComplexDomainFunctionI;
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable uniform samples of a complex function over its domain<br>
+ * <br>
+ * Holds {@code n + 1} samples at <code>t<sub>j</sub> = start + j.(range / n)</code> (both end points included), i.e. exactly
+ * the points evaluated by Simpson 1/3 integration with {@code n} intervals, interleaved as {@code re, im} pairs.
+ * <br>
+ * Samples are read only once created, so a single instance can be shared between threads
+ *
+ * @see FunctionSampleCache
+ * @see FourierCoefficientEngine
+ * */
+public final class FunctionSamples {
+
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    /**
+     * Samples the function at {@code n + 1} uniformly spaced points over its domain
+     *
+     * @param function the function to sample
+     * @param n number of intervals, must be positive
+     * @param c cancellation provider
+     *
+     * @return samples, or {@code null} if cancelled
+     * */
+    public static @Nullable FunctionSamples sample(@NotNull ComplexDomainFunctionI function, int n, @Nullable CancellationProvider c) {
+        if (n <= 0)
+            throw new IllegalArgumentException("Sample interval count must be positive, given " + n);
+
+        final double a = function.getDomainStart();
+        final double b = function.getDomainEnd();
+        final double h = (b - a) / n;
+
+        final double[] data = new double[(n + 1) * 2];
+        for (int j = 0; j < n; j++) {
+            if (c != null && (j % CANCELLATION_CHECK_INTERVAL) == 0 && c.isCancelled())
+                return null;
+
+            final Complex v = function.compute(a + (j * h));
+            data[j << 1] = v.getReal();
+            data[(j << 1) + 1] = v.getImaginary();
+        }
+
+        final Complex v = function.compute(b);
+        data[n << 1] = v.getReal();
+        data[(n << 1) + 1] = v.getImaginary();
+        return new FunctionSamples(a, b, n, data);
+    }
+
+
+    private final double domainStart;
+    private final double domainEnd;
+    private final int intervalCount;
+    private final double @NotNull[] data;
+
+    private FunctionSamples(double domainStart, double domainEnd, int intervalCount, double @NotNull[] data) {
+        this.domainStart = domainStart;
+        this.domainEnd = domainEnd;
+        this.intervalCount = intervalCount;
+        this.data = data;
+    }
+
+    public double getDomainStart() {
+        return domainStart;
+    }
+
+    public double getDomainEnd() {
+        return domainEnd;
+    }
+
+    public double getDomainRange() {
+        return domainEnd - domainStart;
+    }
+
+    /**
+     * @return number of intervals {@code n}, sample count is {@code n + 1}
+     * */
+    public int getIntervalCount() {
+        return intervalCount;
+    }
+
+    public int getSampleCount() {
+        return intervalCount + 1;
+    }
+
+    public double getReal(int index) {
+        return data[index << 1];
+    }
+
+    public double getImaginary(int index) {
+        return data[(index << 1) + 1];
+    }
+
+    /**
+     * @return approximate memory held by the samples, in bytes
+     * */
+    public long getByteSize() {
+        return (long) data.length * Double.BYTES;
+    }
+
+    /**
+     * @return all {@code n + 1} samples as {@link Complex} values
+     * */
+    @NotNull
+    public Complex @NotNull[] toComplex() {
+        final Complex[] range = new Complex[intervalCount + 1];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = new Complex(data[i << 1], data[(i << 1) + 1]);
+        }
+
+        return range;
+    }
+
+    /**
+     * Copies first {@code n} samples (excluding the domain end) into a new interleaved {@code re, im} buffer,
+     * suitable for in-place {@link FFT}
+     * */
+    public double @NotNull[] copyInterleaved() {
+        final double[] buf = new double[intervalCount * 2];
+        System.arraycopy(data, 0, buf, 0, buf.length);
+        return buf;
+    }
+
+    /**
+     * @return backing interleaved {@code re, im} buffer of all {@code n + 1} samples. Must not be modified
+     * */
+    double @NotNull[] data() {
+        return data;
+    }
+}
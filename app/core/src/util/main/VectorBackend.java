@@ -0,0 +1,138 @@
+package util.main;
+
+import misc.Log;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Provides the {@link VectorBackendI} used by hot loops<br>
+ * <br>
+ * SIMD backend ({@link #SIMD_BACKEND_CLASS}, built on the incubating {@code jdk.incubator.vector} API) lives in a separate module
+ * and is loaded reflectively, only if the vector module is resolved at runtime, i.e. the app is launched with
+ * <pre>
+ *     --add-modules jdk.incubator.vector
+ * </pre>
+ * (or with {@code JDK_JAVA_OPTIONS} set to it). Otherwise, or if the SIMD backend fails to load, {@link #SCALAR} is used
+ * */
+public final class VectorBackend {
+
+    public static final String TAG = "VectorBackend";
+
+    /**
+     * Whether SIMD backend should be used when available
+     * */
+    public static final boolean SIMD_ENABLED = true;
+
+    public static final String VECTOR_MODULE_NAME = "jdk.incubator.vector";
+    public static final String SIMD_BACKEND_CLASS = "simd.SimdVectorBackend";
+
+    /**
+     * Plain scalar loops, always available
+     * */
+    public static final VectorBackendI SCALAR = new Scalar();
+
+    private static final class Holder {
+        private static final VectorBackendI INSTANCE = load();
+    }
+
+    /**
+     * @return the SIMD backend if available and enabled, {@link #SCALAR} otherwise
+     * */
+    @NotNull
+    public static VectorBackendI get() {
+        return Holder.INSTANCE;
+    }
+
+    public static boolean isVectorModulePresent() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE_NAME).isPresent();
+    }
+
+    @NotNull
+    private static VectorBackendI load() {
+        if (!SIMD_ENABLED)
+            return SCALAR;
+
+        if (!isVectorModulePresent()) {
+            Log.v(TAG, String.format("module %s not present, using scalar backend", VECTOR_MODULE_NAME));
+            return SCALAR;
+        }
+
+        try {
+            final VectorBackendI backend = (VectorBackendI) Class.forName(SIMD_BACKEND_CLASS).getConstructor().newInstance();
+            Log.v(TAG, "using " + backend.getName());
+            return backend;
+        } catch (Throwable t) {
+            Log.w(TAG, "failed to load SIMD backend, using scalar backend", t);
+            return SCALAR;
+        }
+    }
+
+    private VectorBackend() {
+    }
+
+
+    private static final class Scalar implements VectorBackendI {
+
+        @Override
+        public @NotNull String getName() {
+            return "Scalar";
+        }
+
+        @Override
+        public boolean isVectorized() {
+            return false;
+        }
+
+        @Override
+        public void multiply(double @NotNull [] aRe, double @NotNull [] aIm,
+                             double @NotNull [] bRe, double @NotNull [] bIm,
+                             double @NotNull [] outRe, double @NotNull [] outIm, int n) {
+            for (int i = 0; i < n; i++) {
+                final double ar = aRe[i], ai = aIm[i];
+                final double br = bRe[i], bi = bIm[i];
+                outRe[i] = (ar * br) - (ai * bi);
+                outIm[i] = (ar * bi) + (ai * br);
+            }
+        }
+
+        @Override
+        public void multiplySum(double @NotNull [] aRe, double @NotNull [] aIm,
+                                double @NotNull [] bRe, double @NotNull [] bIm, int n, double @NotNull [] out) {
+            double sumRe = 0, sumIm = 0;
+            for (int i = 0; i < n; i++) {
+                final double ar = aRe[i], ai = aIm[i];
+                final double br = bRe[i], bi = bIm[i];
+                sumRe += (ar * br) - (ai * bi);
+                sumIm += (ar * bi) + (ai * br);
+            }
+
+            out[0] = sumRe;
+            out[1] = sumIm;
+        }
+
+        @Override
+        public void expMultiplySum(double @NotNull [] re, double @NotNull [] im, double @NotNull [] w, double t, int n, double @NotNull [] out) {
+            double sumRe = 0, sumIm = 0;
+            for (int i = 0; i < n; i++) {
+                final double p = w[i] * t;
+                final double cos = Math.cos(p), sin = Math.sin(p);
+                sumRe += (re[i] * cos) - (im[i] * sin);
+                sumIm += (re[i] * sin) + (im[i] * cos);
+            }
+
+            out[0] = sumRe;
+            out[1] = sumIm;
+        }
+
+        @Override
+        public void sum(double @NotNull [] re, double @NotNull [] im, int n, double @NotNull [] out) {
+            double sumRe = 0, sumIm = 0;
+            for (int i = 0; i < n; i++) {
+                sumRe += re[i];
+                sumIm += im[i];
+            }
+
+            out[0] = sumRe;
+            out[1] = sumIm;
+        }
+    }
+}
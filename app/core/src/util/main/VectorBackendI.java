@@ -0,0 +1,52 @@
+package util.main;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bulk arithmetic over primitive arrays, for hot loops that are data parallel (rotor evaluation, quadrature weighting)<br>
+ * <br>
+ * Complex values are given as separate real and imaginary arrays (structure of arrays), so that implementations can map
+ * them directly onto SIMD lanes. All methods operate on the first {@code n} elements only
+ *
+ * @see VectorBackend#get()
+ * */
+public interface VectorBackendI {
+
+    @NotNull
+    String getName();
+
+    /**
+     * @return whether this backend uses SIMD instructions
+     * */
+    boolean isVectorized();
+
+    /**
+     * Element wise complex multiplication {@code out = a * b}. Output arrays may be the same as input arrays
+     * */
+    void multiply(double @NotNull[] aRe, double @NotNull[] aIm,
+                  double @NotNull[] bRe, double @NotNull[] bIm,
+                  double @NotNull[] outRe, double @NotNull[] outIm, int n);
+
+    /**
+     * Sum of element wise complex products <code>&Sigma; a<sub>i</sub> * b<sub>i</sub></code>
+     *
+     * @param out buffer of at least 2 doubles, receiving {@code re, im} of the sum
+     * */
+    void multiplySum(double @NotNull[] aRe, double @NotNull[] aIm,
+                     double @NotNull[] bRe, double @NotNull[] bIm, int n, double @NotNull[] out);
+
+    /**
+     * Sum of complex values rotated by their own angular coefficient <code>&Sigma; c<sub>i</sub> * e<sup>i.w<sub>i</sub>.t</sup></code>,
+     * i.e. sum of rotor tips at input {@code t}
+     *
+     * @param out buffer of at least 2 doubles, receiving {@code re, im} of the sum
+     * */
+    void expMultiplySum(double @NotNull[] re, double @NotNull[] im, double @NotNull[] w, double t, int n, double @NotNull[] out);
+
+    /**
+     * Sum of complex values
+     *
+     * @param out buffer of at least 2 doubles, receiving {@code re, im} of the sum
+     * */
+    void sum(double @NotNull[] re, double @NotNull[] im, int n, double @NotNull[] out);
+}
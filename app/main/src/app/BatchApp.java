@@ -0,0 +1,431 @@
+package app;
+
+import async.Async;
+import function.definition.ComplexDomainFunctionI;
+import function.definition.DiscreteFunction;
+import function.definition.DiscreteFunctionI;
+import misc.FileUtil;
+import misc.Log;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import provider.FunctionMeta;
+import provider.FunctionProviderI;
+import provider.FunctionType;
+import provider.PathFunctionProvider;
+import provider.SimpleFunctionProvider;
+import rotor.FunctionState;
+import rotor.StandardRotorStateManager;
+import util.SvgPathParser;
+import util.main.ComplexUtil;
+
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point, computing rotor states of files in batch without any UI<br>
+ * <br>
+ * Supported inputs
+ * <pre>
+ *     .svg   SVG paths
+ *     .pd    path data file (paths delimited by {@link util.PathFunctionManager#PATH_DATA_SHAPES_DELIMITER})
+ *     .json  function state, as saved in FUNCTION STATES
+ *     .csv   signal samples, one per line as {@code real} or {@code real, imaginary}
+ * </pre>
+ * Rotor states are computed through {@link StandardRotorStateManager} and written with {@link FunctionState#writeRotorStatesASCSV(Path, Charset)}
+ * (and optionally as function state json). Files are processed in parallel, one per core by default.
+ * <br>
+ * {@link R} and {@link Settings} are never touched, since their initialization installs look and feels and loads fonts.
+ * AWT runs headless
+ *
+ * @see #printUsage()
+ * */
+public class BatchApp {
+
+    public static final String TAG = "BatchApp";
+
+    public static final Charset ENCODING = StandardCharsets.UTF_8;          // same as R.ENCODING
+
+    public static final String ROTOR_STATES_FILE_SUFFIX = "_rotor_states" + R.EXT_ROTOR_STATES_CSV_FILE_EXTENSION;
+    public static final String FUNCTION_STATE_FILE_SUFFIX = "_function_state" + R.FUNCTION_STATE_SAVE_FILE_EXTENSION;
+    public static final String CSV_SIGNAL_FILE_EXTENSION = ".csv";
+
+    private static final CSVFormat CSV_SIGNAL_FORMAT = CSVFormat.DEFAULT.builder()
+            .setCommentMarker('#')
+            .setIgnoreEmptyLines(true)
+            .setIgnoreSurroundingSpaces(true)
+            .build();
+
+    public enum OutputFormat {
+        CSV(true, false),
+        JSON(false, true),
+        BOTH(true, true);
+
+        public final boolean csv;
+        public final boolean json;
+
+        OutputFormat(boolean csv, boolean json) {
+            this.csv = csv;
+            this.json = json;
+        }
+    }
+
+    public record Options(int rotorCount,
+                          int intervalCount,
+                          int threads,
+                          double sampleRate,
+                          @NotNull OutputFormat format,
+                          @Nullable Path outDir,
+                          @NotNull List<Path> inputs) {
+    }
+
+    public record FileResult(@NotNull Path input,
+                             @Nullable List<Path> outputs,
+                             int rotorStatesCount,
+                             double simpsonError,
+                             long parseNanos,
+                             long loadNanos,
+                             long writeNanos,
+                             @Nullable Throwable error) {
+
+        public boolean failed() {
+            return error != null;
+        }
+
+        public long totalNanos() {
+            return parseNanos + loadNanos + writeNanos;
+        }
+    }
+
+
+    /* ............................. Args ............................. */
+
+    private static void printUsage() {
+        System.out.println("""
+                Usage: BatchApp [options] <file | dir>...
+                Computes rotor states of .svg, .pd, .json (function state), .rsb (binary rotor states) and .csv (signal) files, without UI
+
+                Options:
+                  -n, --rotors <count>        rotors to compute per file (default %d)
+                  -i, --intervals <count>     numerical integration interval count (default %d)
+                  -j, --threads <count>       files processed in parallel (default: available processors)
+                  -o, --out <dir>             output directory (default: next to each input)
+                  -f, --format <csv|json|both> output format (default csv)
+                      --sample-rate <hz>      sample rate of csv signals (default: sample count, i.e. unit domain)
+                  -h, --help                  show this help
+                """.formatted(StandardRotorStateManager.DEFAULT_INITIAL_ROTOR_COUNT, ComplexUtil.FOURIER_TRANSFORM_SIMPSON_13_N_DEFAULT));
+    }
+
+    @NotNull
+    private static String requireValue(String @NotNull[] args, int index, @NotNull String option) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Missing value for option " + option);
+
+        return args[index];
+    }
+
+    private static int parsePositiveInt(@NotNull String value, @NotNull String option) {
+        final int i;
+        try {
+            i = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for option " + option + ": " + value);
+        }
+
+        if (i <= 0)
+            throw new IllegalArgumentException("Value of option " + option + " must be positive, given " + i);
+        return i;
+    }
+
+    @Nullable
+    public static Options parseArgs(String @NotNull[] args) throws IllegalArgumentException {
+        int rotorCount = StandardRotorStateManager.DEFAULT_INITIAL_ROTOR_COUNT;
+        int intervalCount = ComplexUtil.FOURIER_TRANSFORM_SIMPSON_13_N_DEFAULT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double sampleRate = -1;
+        OutputFormat format = OutputFormat.CSV;
+        Path outDir = null;
+        final List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+
+            switch (arg) {
+                case "-h", "--help" -> {
+                    return null;
+                }
+                case "-n", "--rotors" -> rotorCount = parsePositiveInt(requireValue(args, ++i, arg), arg);
+                case "-i", "--intervals" -> intervalCount = parsePositiveInt(requireValue(args, ++i, arg), arg);
+                case "-j", "--threads" -> threads = parsePositiveInt(requireValue(args, ++i, arg), arg);
+                case "-o", "--out" -> outDir = Path.of(requireValue(args, ++i, arg));
+                case "-f", "--format" -> {
+                    final String value = requireValue(args, ++i, arg);
+                    try {
+                        format = OutputFormat.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid output format: " + value + ", expected csv, json or both");
+                    }
+                }
+                case "--sample-rate" -> {
+                    final String value = requireValue(args, ++i, arg);
+                    try {
+                        sampleRate = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid sample rate: " + value);
+                    }
+
+                    if (!(sampleRate > 0))
+                        throw new IllegalArgumentException("Sample rate must be positive, given " + value);
+                }
+                default -> {
+                    if (arg.startsWith("-"))
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+
+                    collectInputs(Path.of(arg), inputs);
+                }
+            }
+        }
+
+        if (inputs.isEmpty())
+            throw new IllegalArgumentException("No supported input files given");
+
+        return new Options(rotorCount, intervalCount, threads, sampleRate, format, outDir, inputs);
+    }
+
+    public static boolean isSupportedFile(@NotNull Path path) {
+        final String name = path.getFileName().toString();
+        return name.endsWith(R.SVG_FILE_EXTENSION)
+                || name.endsWith(R.PATH_DATA_FILE_EXTENSION)
+                || name.endsWith(R.FUNCTION_STATE_SAVE_FILE_EXTENSION)
+                || name.endsWith(R.EXT_ROTOR_STATES_BINARY_FILE_EXTENSION)
+                || name.endsWith(CSV_SIGNAL_FILE_EXTENSION);
+    }
+
+    private static void collectInputs(@NotNull Path path, @NotNull List<Path> dest) {
+        if (Files.isDirectory(path)) {
+            FileUtil.listDir(path, p -> Files.isRegularFile(p) && isSupportedFile(p))
+                    .stream()
+                    .sorted()
+                    .forEach(dest::add);
+        } else if (Files.isRegularFile(path)) {
+            dest.add(path);
+        } else {
+            throw new IllegalArgumentException("Input file does not exist: " + path);
+        }
+    }
+
+
+    /* ............................. Loading ............................. */
+
+    @NotNull
+    private static FunctionProviderI loadCsvSignal(@NotNull Path file, @NotNull String name, double sampleRate) throws Exception {
+        final List<Complex> samples = new ArrayList<>();
+
+        try (final Reader reader = Files.newBufferedReader(file, ENCODING);
+             final CSVParser parser = CSVParser.parse(reader, CSV_SIGNAL_FORMAT)) {
+
+            for (CSVRecord record: parser) {
+                try {
+                    final double re = Double.parseDouble(record.get(0));
+                    final double im = record.size() > 1? Double.parseDouble(record.get(1)): 0;
+                    samples.add(new Complex(re, im));
+                } catch (NumberFormatException e) {
+                    if (!samples.isEmpty())
+                        throw new IllegalArgumentException(String.format("Invalid sample at line %d of %s", parser.getCurrentLineNumber(), file), e);
+                    // header
+                }
+            }
+        }
+
+        if (samples.size() < 2)
+            throw new IllegalArgumentException("Signal must have at least 2 samples, file: " + file);
+
+        final double step = 1 / (sampleRate > 0? sampleRate: samples.size());
+        final DiscreteFunction function = new DiscreteFunction(0, step, samples.toArray(new Complex[0]));
+        function.setStickMode(DiscreteFunctionI.StickMode.INTERPOLATE);
+
+        return new SimpleFunctionProvider(new FunctionMeta(FunctionType.EXTERNAL_SIGNAL, name), function);
+    }
+
+    @NotNull
+    private static FunctionProviderI loadFunctionState(@NotNull Path file, @NotNull String name) throws Exception {
+        FunctionState state;
+        try {
+            state = FunctionState.loadFromJson(file, ENCODING, true).loadDeferred();
+        } catch (Throwable t) {
+            Log.w(TAG, "failed to load function definition of " + file + ", loading rotor states only", t);
+            state = FunctionState.loadFromJson(file, ENCODING, false).loadDeferred();
+        }
+
+        return state.toProvider(name, false);
+    }
+
+    @NotNull
+    public static FunctionProviderI loadProvider(@NotNull Path file, @NotNull SvgPathParser parser, double sampleRate) throws Exception {
+        final String fileName = file.getFileName().toString();
+        final String name = FileUtil.getName(fileName);
+
+        if (fileName.endsWith(R.SVG_FILE_EXTENSION))
+            return new PathFunctionProvider(new FunctionMeta(FunctionType.EXTERNAL_PATH, name), parser.extractPathsFromSvg(file).toArray(new String[0]));
+
+        if (fileName.endsWith(R.PATH_DATA_FILE_EXTENSION))
+            return new PathFunctionProvider(new FunctionMeta(FunctionType.EXTERNAL_PATH, name), parser.extractPathsFromPathDataFile(file).toArray(new String[0]));
+
+        if (fileName.endsWith(R.FUNCTION_STATE_SAVE_FILE_EXTENSION))
+            return loadFunctionState(file, name);
+
+        if (fileName.endsWith(R.EXT_ROTOR_STATES_BINARY_FILE_EXTENSION))
+            return FunctionState.loadFromBinary(file).toProvider(name, false);
+
+        if (fileName.endsWith(CSV_SIGNAL_FILE_EXTENSION))
+            return loadCsvSignal(file, name, sampleRate);
+
+        throw new IllegalArgumentException("Unsupported file type: " + file);
+    }
+
+
+    /* ............................. Processing ............................. */
+
+    @NotNull
+    public static FileResult process(@NotNull Path file, @NotNull Options options, @NotNull SvgPathParser parser) {
+        long parseNanos = 0, loadNanos = 0, writeNanos = 0;
+        long start = System.nanoTime();
+
+        try {
+            final FunctionProviderI provider = loadProvider(file, parser, options.sampleRate);
+            final ComplexDomainFunctionI function = provider.requireFunction();
+            final FunctionMeta meta = provider.getFunctionMeta();
+            parseNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final StandardRotorStateManager manager = new StandardRotorStateManager(function, meta, options.rotorCount, false);
+            manager.setRotorCountSync(options.rotorCount, null, null);
+            final FunctionState state = manager.createFunctionState(meta.displayName());
+            loadNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final Path dir = options.outDir != null? options.outDir: file.toAbsolutePath().getParent();
+            FileUtil.ensureDir(dir);
+
+            final String name = FileUtil.getName(file.getFileName().toString());
+            final List<Path> outputs = new ArrayList<>(2);
+            if (options.format.csv) {
+                final Path out = dir.resolve(name + ROTOR_STATES_FILE_SUFFIX);
+                state.writeRotorStatesASCSV(out, ENCODING);
+                outputs.add(out);
+            }
+
+            if (options.format.json) {
+                final Path out = dir.resolve(name + FUNCTION_STATE_FILE_SUFFIX);
+                state.writeJson(out, ENCODING);
+                outputs.add(out);
+            }
+
+            writeNanos = System.nanoTime() - start;
+            return new FileResult(file, outputs, manager.getAllLoadedRotorStatesCount(), manager.getLastBatchLoadSimpsonError(), parseNanos, loadNanos, writeNanos, null);
+        } catch (Throwable t) {
+            Log.e(TAG, "failed to process " + file, t);
+            return new FileResult(file, null, 0, Double.NaN, parseNanos, loadNanos, writeNanos, t);
+        }
+    }
+
+    private static void printResult(@NotNull FileResult result) {
+        if (result.failed()) {
+            final Throwable e = result.error;
+            System.out.printf("FAILED %s (%s: %s)%n", result.input, e.getClass().getSimpleName(), e.getMessage());
+            return;
+        }
+
+        System.out.printf("OK     %s -> %d rotor states | parse %.1f ms | rotors %.1f ms | write %.1f ms | total %.1f ms%s%n",
+                result.input,
+                result.rotorStatesCount,
+                result.parseNanos / 1E6,
+                result.loadNanos / 1E6,
+                result.writeNanos / 1E6,
+                result.totalNanos() / 1E6,
+                Double.isNaN(result.simpsonError)? "": String.format(" | simpson error %.2e", result.simpsonError));
+    }
+
+    /**
+     * Processes all inputs in parallel, printing result of each file as it completes in input order
+     *
+     * @return number of failed files
+     * */
+    public static int run(@NotNull Options options) throws InterruptedException {
+        ComplexUtil.setFourierTransformSimpson13NCurrentDefault(options.intervalCount);
+
+        final SvgPathParser parser = new SvgPathParser(
+                R.LINE_COMMENT_TOKEN,
+                util.PathFunctionManager.PATH_DATA_SHAPES_DELIMITER,
+                util.PathFunctionManager.PATH_DATA_SHAPES_DELIMITER_REGEX,
+                ENCODING
+        );
+
+        final int threads = Math.min(options.threads, options.inputs.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final long start = System.nanoTime();
+        int failed = 0;
+
+        try {
+            final List<Future<FileResult>> futures = new ArrayList<>(options.inputs.size());
+            for (Path file: options.inputs) {
+                futures.add(executor.submit(() -> process(file, options, parser)));
+            }
+
+            for (Future<FileResult> future: futures) {
+                final FileResult result;
+                try {
+                    result = future.get();
+                } catch (java.util.concurrent.ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());        // process never throws
+                }
+
+                printResult(result);
+                if (result.failed()) {
+                    failed++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.printf("%nProcessed %d files (%d failed) on %d threads in %.1f ms%n", options.inputs.size(), failed, threads, (System.nanoTime() - start) / 1E6);
+        return failed;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int exitCode;
+        try {
+            final Options options = parseArgs(args);
+            if (options == null) {
+                printUsage();
+                exitCode = 0;
+            } else {
+                exitCode = run(options) == 0? 0: 1;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            exitCode = 2;
+        } catch (Throwable t) {
+            Log.e(TAG, "batch run failed", t);
+            exitCode = 1;
+        }
+
+        Async.shutDown();
+        System.exit(exitCode);
+    }
+}
@@ -105,6 +105,10 @@ public class R {
     public static final String EXT_ROTOR_STATES_CSV_FILE_DESCRIPTION = "Rotor States";
     public static final FileFilter EXT_ROTOR_STATES_CSV_FILE_FILTER = new OpenFileFilter(EXT_ROTOR_STATES_CSV_FILE_EXTENSION, EXT_ROTOR_STATES_CSV_FILE_DESCRIPTION);
 
+    public static final String EXT_ROTOR_STATES_BINARY_FILE_EXTENSION = ".rsb";
+    public static final String EXT_ROTOR_STATES_BINARY_FILE_DESCRIPTION = "Rotor States Binary";
+    public static final FileFilter EXT_ROTOR_STATES_BINARY_FILE_FILTER = new OpenFileFilter(EXT_ROTOR_STATES_BINARY_FILE_EXTENSION, EXT_ROTOR_STATES_BINARY_FILE_DESCRIPTION);
+
     public static final String SVG_FILE_EXTENSION = ".svg";
     public static final String SVG_FILE_DESCRIPTION = "Scalable Vector Graphics";
     public static final FileFilter SVG_FILE_FILTER = new OpenFileFilter(SVG_FILE_EXTENSION, SVG_FILE_DESCRIPTION);
@@ -123,6 +127,18 @@ public class R {
     public static final Path DIR_FUNCTION_STATE_SAVES = DIR_MAIN.resolve("FUNCTION STATES");
     public static final Path DIR_EXPORTS = DIR_MAIN.resolve("EXPORTS");
     public static final Path DIR_LOGS = DIR_MAIN.resolve("logs");
+    public static final Path DIR_CACHE = DIR_MAIN.resolve("cache");         // created on first write, safe to delete
+
+    /**
+     * Parsed geometry of imported path function files, see {@link util.PathFunctionCache}
+     * */
+    public static final Path PATH_FUNCTIONS_CACHE_FILE = DIR_CACHE.resolve("path_functions.bin");
+
+    /**
+     * Computed rotor coefficients by function fingerprint, see {@link rotor.RotorCoefficientCache}
+     * */
+    public static final Path DIR_ROTOR_COEFFICIENTS_CACHE = DIR_CACHE.resolve("rotors");
+    public static final long ROTOR_COEFFICIENTS_CACHE_MAX_BYTES = 256L << 20;          // 256 MB, least recently used functions evicted beyond
 
 
     /* .................... Resources ....................... */
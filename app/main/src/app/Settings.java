@@ -1,6 +1,7 @@
 package app;
 
 import action.BaseAction;
+import function.path.PathFunctionMerger;
 import com.formdev.flatlaf.FlatDarculaLaf;
 import com.google.gson.*;
 import com.google.gson.annotations.Expose;
@@ -59,7 +60,9 @@ public class Settings {
     // Config
     private static final String PREFS_CONFIG = "config";
     private static final String KEY_FAST_MATH_ENABLED = "fast_math_enabled";
+    private static final String KEY_FAST_MATH_INTERPOLATION = "fast_math_interpolation";
     private static final String KEY_FT_INTEGRATION_INTERVALS = "numerical_integration_interval_count";
+    private static final String KEY_PATH_ARC_LENGTH_PARAMETERIZED = "path_arc_length_parameterized";
 
     // Logs
     private static final String PREFS_LOGS = "logs";
@@ -83,7 +86,9 @@ public class Settings {
 
     // Default Config
     public static final boolean DEFAULT_FAST_MATH_ENABLED = MathUtil.DEFAULT_FAST_ENABLED;
+    public static final MathUtil.FastSinLookup.Interpolation DEFAULT_FAST_MATH_INTERPOLATION = MathUtil.FastSinLookup.DEFAULT_INTERPOLATION;
     public static final int DEFAULT_FT_INTEGRATION_INTERVAL_COUNT = ComplexUtil.FOURIER_TRANSFORM_SIMPSON_13_N_DEFAULT;
+    public static final boolean DEFAULT_PATH_ARC_LENGTH_PARAMETERIZED = PathFunctionMerger.ARC_LENGTH_PARAMETERIZED_DEFAULT;
 
     // Default sound
     public static final boolean DEFAULT_AUX_SOUNDS_ENABLED = AuxSoundsPlayer.DEFAULT_ENABLED;
@@ -106,6 +111,15 @@ public class Settings {
         return MathUtil.isFastEnabled();
     }
 
+    @NotNull
+    public static MathUtil.FastSinLookup.Interpolation getCurrentFastMathInterpolation() {
+        return MathUtil.FastSinLookup.getInterpolation();
+    }
+
+    public static boolean isCurrentlyPathArcLengthParameterized() {
+        return PathFunctionMerger.isArcLengthParameterizedCurrentDefault();
+    }
+
 
     public static boolean isCurrentlyAuxSoundsEnabled() {
         return AuxSoundsPlayer.getSingleton().isEnabled();
@@ -245,9 +259,17 @@ public class Settings {
     @Nullable
     private volatile Boolean mFastMathEnabled;
 
+    @SerializedName(KEY_FAST_MATH_INTERPOLATION)
+    @Nullable
+    private volatile MathUtil.FastSinLookup.Interpolation mFastMathInterpolation;
+
     @SerializedName(KEY_FT_INTEGRATION_INTERVALS)
     private volatile int mFtIntegrationIntervalCount = -1;
 
+    @SerializedName(KEY_PATH_ARC_LENGTH_PARAMETERIZED)
+    @Nullable
+    private volatile Boolean mPathArcLengthParameterized;
+
     /* Logs */
     @SerializedName(KEY_LOG_DEBUG)
     @Nullable
@@ -281,6 +303,8 @@ public class Settings {
     private volatile BaseAction mDynamicColorsAction;
     @Nullable
     private volatile BaseAction mFastMathAction;
+    @Nullable
+    private volatile BaseAction mPathArcLengthAction;
 
     @Nullable
     private BaseAction mResetAppearanceAction;
@@ -333,7 +357,9 @@ public class Settings {
 
         // Config
         setFastMathEnabled(getFastMathEnabledOrDefault());
+        setFastMathInterpolation(getFastMathInterpolationOrDefault());
         setFTIntegrationIntervalCount(getFTIntegrationIntervalCountOrDefault());
+        setPathArcLengthParameterized(getPathArcLengthParameterizedOrDefault());
 
         // sounds
         setAuxSoundsEnabled(getAuxSoundsEnabledOrDefault());
@@ -355,7 +381,9 @@ public class Settings {
 
     public void resetConfig() {
         setFastMathEnabled(DEFAULT_FAST_MATH_ENABLED);
+        setFastMathInterpolation(DEFAULT_FAST_MATH_INTERPOLATION);
         setFTIntegrationIntervalCount(DEFAULT_FT_INTEGRATION_INTERVAL_COUNT);
+        setPathArcLengthParameterized(DEFAULT_PATH_ARC_LENGTH_PARAMETERIZED);
     }
 
     public void resetSound() {
@@ -526,6 +554,30 @@ public class Settings {
     }
 
 
+    @Nullable
+    public MathUtil.FastSinLookup.Interpolation getFastMathInterpolation() {
+        return mFastMathInterpolation;
+    }
+
+    @NotNull
+    public MathUtil.FastSinLookup.Interpolation getFastMathInterpolationOrDefault() {
+        final MathUtil.FastSinLookup.Interpolation val = mFastMathInterpolation;
+        return val != null? val: DEFAULT_FAST_MATH_INTERPOLATION;
+    }
+
+    /**
+     * Sets interpolation of the fast sin/cos lookup table, rebuilding it if required
+     * */
+    public void setFastMathInterpolation(@NotNull MathUtil.FastSinLookup.Interpolation interpolation) {
+        final boolean changed = MathUtil.FastSinLookup.setInterpolation(interpolation);
+        mFastMathInterpolation = MathUtil.FastSinLookup.getInterpolation();
+
+        if (changed) {
+            onConfigChanged();
+        }
+    }
+
+
 
     protected void onFTIntegrationIntervalCountChanged(int intervalCount) {
         mFtIntegrationIntervalCount = intervalCount;
@@ -570,6 +622,43 @@ public class Settings {
     }
 
 
+    @Nullable
+    public Boolean getPathArcLengthParameterized() {
+        return mPathArcLengthParameterized;
+    }
+
+    public boolean getPathArcLengthParameterized(boolean defaultValue) {
+        final Boolean val = mPathArcLengthParameterized;
+        if (val != null)
+            return val;
+        return defaultValue;
+    }
+
+    public boolean getPathArcLengthParameterizedOrDefault() {
+        return getPathArcLengthParameterized(DEFAULT_PATH_ARC_LENGTH_PARAMETERIZED);
+    }
+
+    /**
+     * Sets whether path functions map their domain by arc length. Path functions are loaded again with the new
+     * parameterization when next required
+     *
+     * @see PathFunctionMerger#isArcLengthParameterized()
+     * */
+    public void setPathArcLengthParameterized(boolean arcLengthParameterized) {
+        final boolean changed = isCurrentlyPathArcLengthParameterized() != arcLengthParameterized;
+        PathFunctionMerger.setArcLengthParameterizedCurrentDefault(arcLengthParameterized);
+        mPathArcLengthParameterized = arcLengthParameterized;
+
+        if (changed) {
+            onConfigChanged();
+        }
+    }
+
+    public void togglePathArcLengthParameterized() {
+        setPathArcLengthParameterized(!getPathArcLengthParameterizedOrDefault());
+    }
+
+
 
     /* ........................ LOGS ........................... */
 
@@ -783,6 +872,22 @@ public class Settings {
         return action;
     }
 
+    @NotNull
+    public Action getTogglePathArcLengthAction() {
+        BaseAction action = mPathArcLengthAction;
+        if (action == null) {
+            synchronized (this) {
+                action = mPathArcLengthAction;
+                if (action == null) {
+                    action = new PathArcLengthToggleAction();
+                    mPathArcLengthAction = action;
+                }
+            }
+        }
+
+        return action;
+    }
+
     @NotNull
     public Action getToggleDynamicColorsAction() {
         BaseAction action = mDynamicColorsAction;
@@ -878,6 +983,11 @@ public class Settings {
         if (dca != null) {
             dca.setSelected(getDynamicColorsEnabledOrDefault());
         }
+
+        final BaseAction ala = mPathArcLengthAction;
+        if (ala != null) {
+            ala.setSelected(getPathArcLengthParameterizedOrDefault());
+        }
     }
 
 
@@ -964,7 +1074,9 @@ public class Settings {
             // Config
             final JsonObject config = new JsonObject();
             config.addProperty(KEY_FAST_MATH_ENABLED, isCurrentlyFastMathEnabled());
+            config.addProperty(KEY_FAST_MATH_INTERPOLATION, getCurrentFastMathInterpolation().name());
             config.addProperty(KEY_FT_INTEGRATION_INTERVALS, getCurrentFTIntegrationIntervalCount());
+            config.addProperty(KEY_PATH_ARC_LENGTH_PARAMETERIZED, isCurrentlyPathArcLengthParameterized());
 
             // Sound
             final JsonObject sound = new JsonObject();
@@ -1019,10 +1131,24 @@ public class Settings {
                     settings.mFastMathEnabled = fastMath.getAsBoolean();
                 }
 
+                final JsonPrimitive fastMathInterpolation = config.getAsJsonPrimitive(KEY_FAST_MATH_INTERPOLATION);
+                if (fastMathInterpolation != null) {
+                    try {
+                        settings.mFastMathInterpolation = MathUtil.FastSinLookup.Interpolation.valueOf(fastMathInterpolation.getAsString());
+                    } catch (IllegalArgumentException ignored) {
+                        // unknown interpolation, fallback to default
+                    }
+                }
+
                 final JsonPrimitive ftIntegrationIntervals = config.getAsJsonPrimitive(KEY_FT_INTEGRATION_INTERVALS);
                 if (ftIntegrationIntervals != null) {
                     settings.mFtIntegrationIntervalCount = ftIntegrationIntervals.getAsInt();
                 }
+
+                final JsonPrimitive pathArcLength = config.getAsJsonPrimitive(KEY_PATH_ARC_LENGTH_PARAMETERIZED);
+                if (pathArcLength != null) {
+                    settings.mPathArcLengthParameterized = pathArcLength.getAsBoolean();
+                }
             }
 
             // Sound
@@ -1105,6 +1231,21 @@ public class Settings {
     }
 
 
+    private class PathArcLengthToggleAction extends BaseAction {
+
+        private PathArcLengthToggleAction() {
+            setName("Arc Length Paths");
+            setShortDescription("Maps domain of path functions by arc length, so that the tip moves along the path at constant speed. Applies when a path function is next loaded");
+            setSelected(getPathArcLengthParameterizedOrDefault());
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            togglePathArcLengthParameterized();
+        }
+    }
+
+
     private class ResetAppearanceAction extends BaseAction {
 
         public ResetAppearanceAction() {
@@ -11,6 +11,7 @@ import misc.ExternalJava;
 import org.jetbrains.annotations.NotNull;
 
 import org.jetbrains.annotations.Nullable;
+import rotor.FunctionState;
 import rotor.frequency.RotorFrequencyProviderI;
 import util.ExternalJavaLocationGsonAdapter;
 import util.ExternalProgramFunction;
@@ -91,6 +92,7 @@ public class Json implements JsonSerializationContext, JsonDeserializationContex
                 .registerTypeAdapter(Color.class, new ColorGsonAdapter())
                 .registerTypeAdapter(ExternalJava.Location.class, new ExternalJavaLocationGsonAdapter())
                 .registerTypeAdapter(ExternalProgramFunction.class, new ExternalProgramFunction.GsonAdapter())
+                .registerTypeAdapter(FunctionState.class, new FunctionState.GsonAdapter())
                 .registerTypeAdapter(Settings.class, new Settings.GsonAdapter());
 
         gson = gsonBuilder.create();
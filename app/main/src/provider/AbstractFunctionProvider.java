@@ -40,14 +40,21 @@ public abstract class AbstractFunctionProvider implements FunctionProviderI {
     @NotNull
     protected abstract ComplexDomainFunctionI loadFunction() throws ParseException;
 
+    /**
+     * @return whether the loaded function no longer matches current preferences, so that it is loaded again by {@link #requireFunction()}
+     * */
+    protected boolean isFunctionStale(@NotNull ComplexDomainFunctionI function) {
+        return false;
+    }
+
     @Override
     @NotNull
     public final ComplexDomainFunctionI requireFunction() throws ParseException {
         ComplexDomainFunctionI f = mFunction;
-        if (f == null) {
+        if (f == null || isFunctionStale(f)) {
             synchronized (this) {
                 f = mFunction;
-                if (f == null) {
+                if (f == null || isFunctionStale(f)) {
                     f = loadFunction();
                     mFunction = f;
                 }
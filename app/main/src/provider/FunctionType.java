@@ -14,7 +14,9 @@ public enum FunctionType {
 
     EXTERNAL_PATH("External Path", true),
 
-    EXTERNAL_ROTOR_STATE("External Rotor State", false);
+    EXTERNAL_ROTOR_STATE("External Rotor State", false),
+
+    EXTERNAL_SIGNAL("External Signal", false);
 
     @NotNull
     public final String displayName;
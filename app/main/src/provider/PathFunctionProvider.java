@@ -2,26 +2,60 @@ package provider;
 
 import function.definition.ComplexDomainFunctionI;
 import function.path.PathFunctionMerger;
+import function.path.PathSegments;
 import org.apache.batik.parser.ParseException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import util.main.PathUtil;
 
 import java.awt.*;
 
 public class PathFunctionProvider extends AbstractFunctionProvider {
 
-    @NotNull
+    @Nullable
     private final String[] mPaths;
 
+    /**
+     * Already parsed geometry, e.g. from the path functions cache. {@code null} if loaded from {@link #mPaths}
+     * */
+    @Nullable
+    private final PathSegments mSegments;
+
+    /**
+     * Parameterization of the loaded function, see {@link PathFunctionMerger#isArcLengthParameterizedCurrentDefault()}
+     * */
+    private volatile boolean mArcLengthParameterized;
+
     public PathFunctionProvider(@NotNull FunctionMeta meta, @NotNull String... pathData) {
         super(meta);
         mPaths = pathData;
+        mSegments = null;
+    }
+
+    public PathFunctionProvider(@NotNull FunctionMeta meta, @NotNull PathSegments segments) {
+        super(meta);
+        mPaths = null;
+        mSegments = segments;
     }
 
     @Override
     @NotNull
     protected ComplexDomainFunctionI loadFunction() throws ParseException {
+        final boolean arcLength = PathFunctionMerger.isArcLengthParameterizedCurrentDefault();
+        mArcLengthParameterized = arcLength;
+
+        if (mSegments != null)
+            return mSegments.createMerger(1, true, arcLength);
+
         final Shape shape = PathUtil.parsePathDataStrings(mPaths);
-        return PathFunctionMerger.create(shape);
+        return PathFunctionMerger.create(shape, 1, true, arcLength);
+    }
+
+    /**
+     * Reloads the path when the {@link PathFunctionMerger#isArcLengthParameterizedCurrentDefault() parameterization preference} changes
+     * */
+    @Override
+    protected boolean isFunctionStale(@NotNull ComplexDomainFunctionI function) {
+        return mArcLengthParameterized != PathFunctionMerger.isArcLengthParameterizedCurrentDefault();
     }
 }
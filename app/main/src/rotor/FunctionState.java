@@ -1,12 +1,15 @@
 package rotor;
 
 import app.R;
-import com.google.gson.JsonObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
-import com.google.gson.annotations.Expose;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import function.RotorStatesFunction;
 import function.definition.ComplexDomainFunctionI;
 import function.definition.DomainProviderI;
@@ -26,16 +29,26 @@ import provider.*;
 import rotor.frequency.RotorFrequencyProviderI;
 import async.Async;
 import async.Canceller;
+import async.IOTask;
 import async.TaskConsumer;
 import util.main.ComplexUtil;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
 
 public class FunctionState {
@@ -106,20 +119,23 @@ public class FunctionState {
 
     private static final Type TYPE_ROTOR_STATES_MAP = new TypeToken<Map<Double, RotorCoefficient>>(){ }.getType();
 
+    /* Json keys, same as the field names of the former reflective serialization, so that older saves still load */
+    private static final String KEY_SAVE_TIMESTAMP = "saveTimestamp";
+    private static final String KEY_FUNCTION_NAME = "functionName";
+    private static final String KEY_FUNCTION_TYPE = "functionType";
     private static final String KEY_SERIALIZED_FUNCTION = "_function";
-    private static final String KEY_SERIALIZED_ROTOR_STATES = "rotor_states";
-
-//    public static final String KEY_SAVE_TIMESTAMP = "save_timestamp";
-//    public static final String KEY_FUNCTION_NAME = "function_name";
-//    public static final String KEY_DOMAIN_START = "domain_start";
-//    public static final String KEY_DOMAIN_END = "domain_end";
-//    public static final String KEY_NUMERICAL_INTEGRATION_INTERVAL_COUNT = "numerical_integration_interval_count";
-//    public static final String KEY_ROTOR_FREQUENCY_PROVIDER = "rotor_frequency_provider";
-//    public static final String KEY_DOMAIN_ANIMATION_MILLS_MIN = "domain_animation_mills_min";
-//    public static final String KEY_DOMAIN_ANIMATION_MILLS_MAX = "domain_animation_mills_max";
-//    public static final String KEY_DOMAIN_ANIMATION_MILLS_DEFAULT = "domain_animation_mills_default";
-//    public static final String KEY_ROTOrS_COUNT = "rotors_count";
-//    public static final String KEY_ROTOR_STATES= "rotors";
+    private static final String KEY_DOMAIN_START = "domainStart";
+    private static final String KEY_DOMAIN_END = "domainEnd";
+    private static final String KEY_NUMERICAL_INTEGRATION_INTERVAL_COUNT = "numericalIntegrationIntervalCount";
+    private static final String KEY_DEFAULT_FREQUENCY_PROVIDER = "defaultFrequencyProvider";
+    private static final String KEY_FREQUENCY_PROVIDER = "frequencyProvider";
+    private static final String KEY_DOMAIN_ANIMATION_MILLS_MIN = "domainAnimationMillsMin";
+    private static final String KEY_DOMAIN_ANIMATION_MILLS_MAX = "domainAnimationMillsMax";
+    private static final String KEY_DOMAIN_ANIMATION_MILLS_DEFAULT = "domainAnimationMillsDefault";
+    private static final String KEY_ROTOR_COUNT = "rotorCount";
+    private static final String KEY_SERIALIZED_ROTOR_STATES = "rotor_states";          // always written last
+    private static final String KEY_ROTOR_MAGNITUDE = "magnitude";
+    private static final String KEY_ROTOR_PHASE = "phase";
 
 
     public final long saveTimestamp;
@@ -127,13 +143,13 @@ public class FunctionState {
     @Nullable
     public final FunctionType functionType;
 
-    @Expose(serialize = false, deserialize = false)
     @Nullable
-    private transient final ComplexDomainFunctionI function;
+    private final ComplexDomainFunctionI function;
 
-    @SerializedName(KEY_SERIALIZED_FUNCTION)
     @Nullable
     private ComplexDomainFunctionI serializedFunction;
+    @Nullable
+    private JsonElement pendingSerializedFunction;            // loaded but not deserialized yet, see #getSerializedFunction()
 
     public final double domainStart;
     public final double domainEnd;
@@ -150,13 +166,11 @@ public class FunctionState {
 
     public final int rotorCount;            // current rotor count, may be less than size of all loaded rotor states
 
-    @Expose(serialize = false, deserialize = false)
     @Nullable
-    private transient Map<Double, RotorCoefficient> allRotorStates;       // can be null if not serialized
-
-    @SerializedName(KEY_SERIALIZED_ROTOR_STATES)
+    private SortedRotorCoefficients allRotorStates;                     // null until loaded, if deferred
     @Nullable
-    private Map<Double, RotorCoefficient> allSerializedRotorStates;
+    private IOTask<SortedRotorCoefficients> rotorStatesLoader;          // loads rotor states on first use, see #rotorStates()
+    private boolean serializeRotorStates;
 
     public FunctionState(long saveTimestamp,
                          String functionName,
@@ -186,7 +200,7 @@ public class FunctionState {
         this.domainAnimationMillsMax = domainAnimationMillsMax;
         this.domainAnimationMillsDefault = domainAnimationMillsDefault;
         this.rotorCount = rotorCount;
-        this.allRotorStates = createOrAddSorted(allRotorStates, null);
+        this.allRotorStates = SortedRotorCoefficients.of(allRotorStates);
 
         // defaults
         setSerializeFunction(DEFAULT_SERIALIZE_FUNCTION);
@@ -219,16 +233,29 @@ public class FunctionState {
                 allRotorStates);
     }
 
+    /**
+     * A loaded function definition is deserialized on first call
+     *
+     * @throws JsonParseException if the loaded function definition could not be deserialized
+     * */
     @Nullable
-    public ComplexDomainFunctionI getSerializedFunction() {
+    public synchronized ComplexDomainFunctionI getSerializedFunction() throws JsonParseException {
+        final JsonElement pending = pendingSerializedFunction;
+        if (pending != null) {
+            serializedFunction = Json.get().gson.fromJson(pending, ComplexDomainFunctionI.class);
+            pendingSerializedFunction = null;
+        }
+
         return serializedFunction;
     }
 
-    public boolean hasSerialisedFunction() {
-        return serializedFunction != null;
+    public synchronized boolean hasSerialisedFunction() {
+        return pendingSerializedFunction != null || serializedFunction != null;
     }
 
-    public void setSerializeFunction(boolean serializeFunction) {
+    public synchronized void setSerializeFunction(boolean serializeFunction) {
+        pendingSerializedFunction = null;
+
         if (FUNCTION_SERIALIZATION_ENABLED && serializeFunction && functionType != null && functionType.serializable) {
             this.serializedFunction = function;
         } else {
@@ -236,43 +263,83 @@ public class FunctionState {
         }
     }
 
+    /**
+     * @throws JsonParseException if the loaded function definition could not be deserialized
+     * @see #getSerializedFunction()
+     * */
     @Nullable
-    public ComplexDomainFunctionI getFunction() {
+    public ComplexDomainFunctionI getFunction() throws JsonParseException {
         if (function == null) {
-            return serializedFunction;
+            return getSerializedFunction();
         }
 
         return function;
     }
 
 
+    /**
+     * Rotor states, loaded on first call if {@link #loadFromJson(Path, Charset, boolean) deferred}
+     *
+     * @throws JsonParseException if deferred rotor states could not be loaded
+     * */
+    @NotNull
+    private synchronized SortedRotorCoefficients rotorStates() throws JsonParseException {
+        SortedRotorCoefficients states = allRotorStates;
+        if (states == null) {
+            final IOTask<SortedRotorCoefficients> loader = rotorStatesLoader;
+            try {
+                states = loader != null? loader.begin(): SortedRotorCoefficients.EMPTY;
+            } catch (IOException e) {
+                throw new JsonParseException("Failed to load Rotor States", e);
+            }
+
+            allRotorStates = states;
+            rotorStatesLoader = null;
+        }
+
+        return states;
+    }
+
     public boolean hasSerializedRotorStates() {
-        return CollectionUtil.notEmpty(allSerializedRotorStates);
+        return serializeRotorStates && !rotorStates().isEmpty();
     }
 
     public void setSerializeRotorStates(boolean serializeRotorStates) {
-        if (ROTOR_STATES_SERIALIZATION_ENABLED && serializeRotorStates) {
-            this.allSerializedRotorStates = allRotorStates;
-        } else {
-            this.allSerializedRotorStates = null;              // do not serialize
-        }
+        this.serializeRotorStates = ROTOR_STATES_SERIALIZATION_ENABLED && serializeRotorStates;
     }
 
+    public int getRotorStatesCount() {
+        return rotorStates().size();
+    }
+
+    /**
+     * @return a copy of all rotor states, sorted by frequency, or {@code null} if there are none
+     * */
     @Nullable
     public Map<Double, RotorCoefficient> getAllRotorStates() {
-        if (CollectionUtil.isEmpty(allRotorStates)) {
-            return allSerializedRotorStates;
-        }
-
-        return allRotorStates;
+        final SortedRotorCoefficients states = rotorStates();
+        return states.isEmpty()? null: states.toMap();
     }
 
 
-    public void addRotorStates(Collection<RotorState> rotorStates) {
+    /**
+     * Loads whatever was deferred while loading: the function definition and rotor states
+     *
+     * @return this
+     * @throws JsonParseException if the function definition could not be deserialized, or rotor states loaded
+     * */
+    @NotNull
+    public FunctionState loadDeferred() throws JsonParseException {
+        getSerializedFunction();
+        rotorStates();
+        return this;
+    }
+
+    public synchronized void addRotorStates(Collection<RotorState> rotorStates) {
         if (CollectionUtil.isEmpty(rotorStates))
             return;
 
-        allRotorStates = createOrAddSorted(rotorStates, allRotorStates);
+        allRotorStates = rotorStates().merge(SortedRotorCoefficients.of(rotorStates));
     }
 
 
@@ -294,8 +361,7 @@ public class FunctionState {
         }
 
         final ComplexDomainFunctionI func = getFunction();
-        final Map<Double, RotorCoefficient> allStates = getAllRotorStates();
-        final List<RotorState> _states = toList(allStates);
+        final List<RotorState> _states = rotorStates().toList();
         final int _rotorCount = func != null? rotorCount: Math.min(rotorCount, CollectionUtil.size(_states));
 
         if (functionType != null && func != null) {
@@ -424,15 +490,19 @@ public class FunctionState {
                 "domain_start: " + domainStart,
                 "domain_end: " + domainEnd,
                 "numerical_integration_intervals: " + numericalIntegrationIntervalCount,
-                "rotor_states_count: " + CollectionUtil.size(allRotorStates),
+                "rotor_states_count: " + getRotorStatesCount(),
                 "",
                 "%%_______Rotor States_______%%"
         };
     }
 
     public void writeRotorStatesASCSV(@NotNull Path file, @NotNull Charset encoding) throws JsonParseException, IOException {
-        try (final Writer writer = Files.newBufferedWriter(file, encoding)) {
-            writeRotorStatesASCSV(writer, allRotorStates, getRotorStatesCSVHeaderComment());
+        final SortedRotorCoefficients states = rotorStates();
+        try (final Writer writer = Files.newBufferedWriter(file, encoding);
+             final CSVPrinter printer = new CSVPrinter(writer, createCSVFormat(false, getRotorStatesCSVHeaderComment()))) {
+            for (int i=0; i < states.size(); i++) {
+                printer.printRecord(states.getFrequency(i), states.getMagnitude(i), states.getPhase(i));
+            }
         }
     }
 
@@ -502,8 +572,596 @@ public class FunctionState {
     }
 
 
+    /*...................................  Binary  ...........................................*/
+
+    /*
+     * Binary rotor states format, all values little-endian
+     *
+     * offset   size    field
+     * 0        4       magic "RSTB"
+     * 4        4       int     format version
+     * 8        4       int     header size in bytes, a multiple of 8. Arrays start at this offset
+     * 12       4       int     rotor states count (n)
+     * 16       8       long    save timestamp
+     * 24       8       double  domain start
+     * 32       8       double  domain end
+     * 40       4       int     numerical integration interval count
+     * 44       4       int     rotor count
+     * 48       8       long    domain animation mills min
+     * 56       8       long    domain animation mills max
+     * 64       8       long    domain animation mills default
+     * 72       2 + x   function type name (UTF-8), prefixed with its length as unsigned short. 0xFFFF if null
+     * ..       2 + y   function name (UTF-8), same encoding
+     * ..               zero padding up to header size
+     *
+     * header   8n      double[n] frequencies, ascending
+     * ..       8n      double[n] magnitudes
+     * ..       8n      double[n] phases (rad)
+     * */
+
+    public static final int ROTOR_STATES_BINARY_MAGIC = 0x42545352;         // "RSTB" in little-endian
+    public static final int ROTOR_STATES_BINARY_VERSION = 1;
+
+    private static final int ROTOR_STATES_BINARY_FIXED_HEADER_BYTES = 72;
+    private static final int ROTOR_STATES_BINARY_NULL_STRING = 0xFFFF;
+
+    /**
+     * Bytes written per chunk of arrays, so that writing does not need a buffer as large as the file
+     * */
+    private static final int ROTOR_STATES_BINARY_WRITE_CHUNK_BYTES = 1 << 16;
+
+    public static boolean isRotorStatesBinaryFile(@NotNull Path file) {
+        return FileUtil.hasExtension(file.toString().toLowerCase(), R.EXT_ROTOR_STATES_BINARY_FILE_EXTENSION);
+    }
+
+    private static void putBinaryString(@NotNull ByteBuffer buf, @Nullable byte[] bytes) {
+        if (bytes == null) {
+            buf.putShort((short) ROTOR_STATES_BINARY_NULL_STRING);
+        } else {
+            buf.putShort((short) bytes.length);
+            buf.put(bytes);
+        }
+    }
+
+    @Nullable
+    private static String getBinaryString(@NotNull ByteBuffer buf) {
+        final int len = Short.toUnsignedInt(buf.getShort());
+        if (len == ROTOR_STATES_BINARY_NULL_STRING)
+            return null;
+
+        final byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private static byte[] toBinaryString(@Nullable String str) {
+        if (str == null)
+            return null;
+
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= ROTOR_STATES_BINARY_NULL_STRING) {
+            bytes = Arrays.copyOf(bytes, ROTOR_STATES_BINARY_NULL_STRING - 1);          // may cut a trailing code point, decoded as replacement
+        }
+
+        return bytes;
+    }
+
+    private static void writeBinaryArray(@NotNull FileChannel channel, @NotNull ByteBuffer chunk, double @NotNull[] data) throws IOException {
+        int i = 0;
+        while (i < data.length) {
+            chunk.clear();
+            final int n = Math.min(data.length - i, chunk.capacity() / Double.BYTES);
+            chunk.asDoubleBuffer().put(data, i, n);
+            chunk.limit(n * Double.BYTES);
+
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+
+            i += n;
+        }
+    }
+
+    /* write */
+
+    /**
+     * Writes metadata and all rotor states of this function state in the binary format. Function definition and frequency providers are not written
+     * */
+    public void writeRotorStatesAsBinary(@NotNull Path file) throws IOException {
+        final SortedRotorCoefficients states = rotorStates();
+        final int count = states.size();
+
+        final byte[] type = toBinaryString(functionType != null? functionType.name(): null);
+        final byte[] name = toBinaryString(functionName);
+        final int stringBytes = 4 + (type != null? type.length: 0) + (name != null? name.length: 0);
+        final int headerSize = (ROTOR_STATES_BINARY_FIXED_HEADER_BYTES + stringBytes + Double.BYTES - 1) & -Double.BYTES;
+
+        final ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(ROTOR_STATES_BINARY_MAGIC)
+                .putInt(ROTOR_STATES_BINARY_VERSION)
+                .putInt(headerSize)
+                .putInt(count)
+                .putLong(saveTimestamp)
+                .putDouble(domainStart)
+                .putDouble(domainEnd)
+                .putInt(numericalIntegrationIntervalCount)
+                .putInt(rotorCount)
+                .putLong(domainAnimationMillsMin)
+                .putLong(domainAnimationMillsMax)
+                .putLong(domainAnimationMillsDefault);
+        putBinaryString(header, type);
+        putBinaryString(header, name);
+        header.clear();         // padding is already zero
+
+        FileUtil.ensureFileParentDir(file);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            final ByteBuffer chunk = ByteBuffer.allocateDirect(ROTOR_STATES_BINARY_WRITE_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            writeBinaryArray(channel, chunk, states.frequencies());
+            writeBinaryArray(channel, chunk, states.magnitudes());
+            writeBinaryArray(channel, chunk, states.phases());
+        }
+    }
+
+    @NotNull
+    public Canceller writeRotorStatesAsBinaryAsync(@NotNull Path file, @Nullable TaskConsumer<Void> consumer) {
+        return Async.execute(() -> {
+            writeRotorStatesAsBinary(file);
+            return null;
+        }, consumer);
+    }
+
+
+    /* Read */
+
+    /**
+     * Maps a binary rotor states file, and validates its header
+     *
+     * @return little-endian buffer over the whole file, positioned after the fixed header
+     * */
+    @NotNull
+    private static ByteBuffer mapRotorStatesBinary(@NotNull Path file) throws IOException {
+        final ByteBuffer buf;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());        // mapping stays valid after the channel is closed
+        }
+
+        checkRotorStatesBinaryPreamble(buf.order(ByteOrder.LITTLE_ENDIAN), buf.capacity(), file);
+        return buf;
+    }
+
+    /**
+     * Reads just the header of a binary rotor states file into memory, with a plain read so that the file is not left mapped
+     *
+     * @return buffer positioned like {@link #mapRotorStatesBinary(Path)}, holding no rotor states
+     * */
+    @NotNull
+    private static ByteBuffer readRotorStatesBinaryHeader(@NotNull Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final ByteBuffer preamble = ByteBuffer.allocate((int) Math.min(fileSize, ROTOR_STATES_BINARY_FIXED_HEADER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, preamble, 0);
+            final int headerSize = checkRotorStatesBinaryPreamble(preamble.flip(), fileSize, file);
+
+            final ByteBuffer buf = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, buf, 0);
+            return buf.flip().position(preamble.position());
+        }
+    }
+
+    private static void readFully(@NotNull FileChannel channel, @NotNull ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            final int read = channel.read(dst, position);
+            if (read < 0)
+                throw new EOFException();
+            position += read;
+        }
+    }
+
+    /**
+     * Validates and consumes the magic, version, header size and rotor states count of a binary rotor states file
+     *
+     * @return header size, in bytes
+     * */
+    private static int checkRotorStatesBinaryPreamble(@NotNull ByteBuffer buf, long fileSize, @NotNull Path file) throws IOException {
+        if (buf.remaining() < ROTOR_STATES_BINARY_FIXED_HEADER_BYTES || buf.getInt() != ROTOR_STATES_BINARY_MAGIC)
+            throw new IOException("Not a binary Rotor States file: " + file);
+
+        final int version = buf.getInt();
+        if (version != ROTOR_STATES_BINARY_VERSION)
+            throw new IOException("Unsupported binary Rotor States version " + version + " (supported: " + ROTOR_STATES_BINARY_VERSION + "), file: " + file);
+
+        final int headerSize = buf.getInt();
+        final int count = buf.getInt();
+        if (headerSize < ROTOR_STATES_BINARY_FIXED_HEADER_BYTES || headerSize % Double.BYTES != 0 || count < 0 || headerSize + 3L * Double.BYTES * count > fileSize)
+            throw new IOException(String.format("Corrupt binary Rotor States file (header size: %d, count: %d, file size: %d): %s", headerSize, count, fileSize, file));
+
+        return headerSize;
+    }
+
+    /**
+     * Bulk copies the rotor state arrays of a {@link #mapRotorStatesBinary(Path) mapped} file, without any parsing
+     *
+     * @return frequencies, magnitudes and phases
+     * */
+    private static double @NotNull[] @NotNull[] readRotorStatesBinaryArrays(@NotNull ByteBuffer buf) {
+        final int headerSize = buf.getInt(8);
+        final int count = buf.getInt(12);
+        final DoubleBuffer doubles = buf.slice(headerSize, 3 * Double.BYTES * count).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+        final double[][] arrays = new double[3][count];
+        for (double[] array: arrays) {
+            doubles.get(array);
+        }
+
+        return arrays;
+    }
+
+    @NotNull
+    public static List<RotorState> readRotorStatesFromBinary(@NotNull Path file) throws IOException {
+        final double[][] arrays = readRotorStatesBinaryArrays(mapRotorStatesBinary(file));
+        final double[] frequencies = arrays[0], magnitudes = arrays[1], phases = arrays[2];
+
+        final RotorState[] states = new RotorState[frequencies.length];
+        for (int i=0; i < states.length; i++) {
+            states[i] = new RotorState(frequencies[i], ComplexUtil.polarExact(magnitudes[i], phases[i]));
+        }
+
+        return Arrays.asList(states);
+    }
+
+    @NotNull
+    public static Canceller readRotorStatesFromBinaryAsync(@NotNull Path file, @NotNull TaskConsumer<List<RotorState>> consumer) {
+        return Async.execute(() -> readRotorStatesFromBinary(file), consumer);
+    }
+
+    /**
+     * Loads metadata and rotor states of a binary rotor states file. Function definition and frequency providers are not part of the format
+     * */
+    @NotNull
+    public static FunctionState loadFromBinary(@NotNull Path file) throws IOException {
+        return loadFromBinary(file, false);
+    }
+
+    /**
+     * @param deferRotorStates whether to read only the header, leaving rotor states to be read from the file on first use
+     * */
+    @NotNull
+    private static FunctionState loadFromBinary(@NotNull Path file, boolean deferRotorStates) throws IOException {
+        final ByteBuffer buf = deferRotorStates? readRotorStatesBinaryHeader(file): mapRotorStatesBinary(file);
+
+        final long saveTimestamp = buf.getLong();
+        final double domainStart = buf.getDouble();
+        final double domainEnd = buf.getDouble();
+        final int intervals = buf.getInt();
+        final int rotorCount = buf.getInt();
+        final long animMin = buf.getLong();
+        final long animMax = buf.getLong();
+        final long animDefault = buf.getLong();
+
+        final String typeName;
+        final String name;
+        try {
+            typeName = getBinaryString(buf);
+            name = getBinaryString(buf);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt binary Rotor States header: " + file, e);
+        }
+
+        FunctionType type = null;
+        if (typeName != null) {
+            try {
+                type = FunctionType.valueOf(typeName);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Unknown function type in binary Rotor States: " + typeName + ", file: " + file);
+            }
+        }
+
+        final FunctionState state = new FunctionState(saveTimestamp, name, type, null, domainStart, domainEnd, intervals, null, null, animMin, animMax, animDefault, rotorCount, null);
+
+        if (deferRotorStates) {
+            final IOTask<SortedRotorCoefficients> loader = createDeferredLoader(file, () -> readRotorStatesBinaryCoefficients(mapRotorStatesBinary(file)));
+            state.allRotorStates = null;
+            state.rotorStatesLoader = loader;
+        } else {
+            state.allRotorStates = readRotorStatesBinaryCoefficients(buf);
+        }
+
+        return state;
+    }
+
+    @NotNull
+    private static SortedRotorCoefficients readRotorStatesBinaryCoefficients(@NotNull ByteBuffer buf) {
+        final double[][] arrays = readRotorStatesBinaryArrays(buf);
+        return SortedRotorCoefficients.sorted(arrays[0], arrays[1], arrays[2], arrays[0].length);
+    }
+
+    @NotNull
+    public static Canceller loadFromBinaryAsync(@NotNull Path file, @NotNull TaskConsumer<FunctionState> consumer) {
+        return Async.execute(() -> loadFromBinary(file), consumer);
+    }
+
+
+    /* Any format */
+
+    /**
+     * Writes rotor states as {@link #writeRotorStatesAsBinary(Path) binary} or {@link #writeRotorStatesASCSV(Path) CSV}, depending on the file extension
+     * */
+    @NotNull
+    public Canceller writeRotorStatesAsync(@NotNull Path file, @Nullable TaskConsumer<Void> consumer) {
+        return isRotorStatesBinaryFile(file)? writeRotorStatesAsBinaryAsync(file, consumer): writeRotorStatesASCSVAsync(file, consumer);
+    }
+
+    /**
+     * Reads rotor states from a {@link #readRotorStatesFromBinary(Path) binary} or {@link #readRotorStatesFromCSV(Path) CSV} file, depending on its extension
+     * */
+    @NotNull
+    public static Canceller readRotorStatesAsync(@NotNull Path file, @NotNull TaskConsumer<List<RotorState>> consumer) {
+        return isRotorStatesBinaryFile(file)? readRotorStatesFromBinaryAsync(file, consumer): readRotorStatesFromCSVAsync(file, consumer);
+    }
+
+
     /*...................................  JSON  ...........................................*/
 
+    /* Streaming */
+
+    private static void writeJsonValue(@NotNull Gson gson, @NotNull JsonWriter out, @Nullable Object value, @NotNull Type type) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            gson.toJson(value, type, out);
+        }
+    }
+
+    private static void writeRotorStatesJson(@NotNull JsonWriter out, @NotNull SortedRotorCoefficients states) throws IOException {
+        out.beginObject();
+        for (int i=0; i < states.size(); i++) {
+            out.name(Double.toString(states.getFrequency(i)));
+            out.beginObject();
+            out.name(KEY_ROTOR_MAGNITUDE).value(states.getMagnitude(i));
+            out.name(KEY_ROTOR_PHASE).value(states.getPhase(i));
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    /**
+     * Streams this function state. Rotor states are written straight from their primitive arrays, without an intermediate map
+     * */
+    public void writeJson(@NotNull JsonWriter out) throws IOException, JsonParseException {
+        final Gson gson = Json.get().gson;
+        final JsonElement pendingFunction;
+        final ComplexDomainFunctionI serialized;
+        synchronized (this) {
+            pendingFunction = pendingSerializedFunction;
+            serialized = serializedFunction;
+        }
+
+        out.beginObject();
+        out.name(KEY_SAVE_TIMESTAMP).value(saveTimestamp);
+        out.name(KEY_FUNCTION_NAME).value(functionName);
+        out.name(KEY_FUNCTION_TYPE).value(functionType != null? functionType.name(): null);
+
+        out.name(KEY_SERIALIZED_FUNCTION);
+        if (pendingFunction != null) {
+            gson.toJson(pendingFunction, out);          // as loaded
+        } else {
+            writeJsonValue(gson, out, serialized, ComplexDomainFunctionI.class);
+        }
+
+        out.name(KEY_DOMAIN_START).value(domainStart);
+        out.name(KEY_DOMAIN_END).value(domainEnd);
+        out.name(KEY_NUMERICAL_INTEGRATION_INTERVAL_COUNT).value(numericalIntegrationIntervalCount);
+        out.name(KEY_DEFAULT_FREQUENCY_PROVIDER);
+        writeJsonValue(gson, out, defaultFrequencyProvider, RotorFrequencyProviderI.class);
+        out.name(KEY_FREQUENCY_PROVIDER);
+        writeJsonValue(gson, out, frequencyProvider, RotorFrequencyProviderI.class);
+        out.name(KEY_DOMAIN_ANIMATION_MILLS_MIN).value(domainAnimationMillsMin);
+        out.name(KEY_DOMAIN_ANIMATION_MILLS_MAX).value(domainAnimationMillsMax);
+        out.name(KEY_DOMAIN_ANIMATION_MILLS_DEFAULT).value(domainAnimationMillsDefault);
+        out.name(KEY_ROTOR_COUNT).value(rotorCount);
+
+        out.name(KEY_SERIALIZED_ROTOR_STATES);
+        if (serializeRotorStates) {
+            writeRotorStatesJson(out, rotorStates());
+        } else {
+            out.nullValue();
+        }
+
+        out.endObject();
+    }
+
+    @NotNull
+    private static SortedRotorCoefficients readRotorStatesJson(@NotNull JsonReader in) throws IOException {
+        final SortedRotorCoefficients.Builder builder = new SortedRotorCoefficients.Builder();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final double frequency;
+            try {
+                frequency = Double.parseDouble(in.nextName());
+            } catch (NumberFormatException e) {
+                throw new JsonParseException("Invalid rotor frequency at " + in.getPath(), e);
+            }
+
+            double magnitude = 0, phase = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case KEY_ROTOR_MAGNITUDE -> magnitude = in.nextDouble();
+                    case KEY_ROTOR_PHASE -> phase = in.nextDouble();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            builder.add(frequency, magnitude, phase);
+        }
+        in.endObject();
+
+        return builder.build();
+    }
+
+    @Nullable
+    private static FunctionType parseFunctionType(@NotNull String name) {
+        try {
+            return FunctionType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Unknown function type in Function State: " + name);
+            return null;
+        }
+    }
+
+    /**
+     * Reads a function state written by {@link #writeJson(JsonWriter)}, streaming. Header fields are read right away
+     *
+     * @param withFunctionDefinition whether to keep the function definition, deserialized on first use. Skipped otherwise
+     * @param rotorStatesLoader if not null, reading stops at the rotor states (written last), which are left to this loader
+     *                          until first use. Read right away otherwise
+     * */
+    @NotNull
+    private static FunctionState readJson(@NotNull JsonReader in, boolean withFunctionDefinition, @Nullable IOTask<SortedRotorCoefficients> rotorStatesLoader) throws IOException, JsonParseException {
+        final Gson gson = Json.get().gson;
+
+        long saveTimestamp = 0;
+        String functionName = null;
+        FunctionType functionType = null;
+        JsonElement function = null;
+        double domainStart = 0, domainEnd = 0;
+        int intervalCount = 0, rotorCount = 0;
+        RotorFrequencyProviderI defaultFrequencyProvider = null, frequencyProvider = null;
+        long animationMillsMin = 0, animationMillsMax = 0, animationMillsDefault = 0;
+        SortedRotorCoefficients rotorStates = null;
+        boolean hasRotorStates = false, deferRotorStates = false;
+
+        in.beginObject();
+        while (!deferRotorStates && in.hasNext()) {
+            final String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case KEY_SAVE_TIMESTAMP -> saveTimestamp = in.nextLong();
+                case KEY_FUNCTION_NAME -> functionName = in.nextString();
+                case KEY_FUNCTION_TYPE -> functionType = parseFunctionType(in.nextString());
+                case KEY_SERIALIZED_FUNCTION -> {
+                    if (withFunctionDefinition) {
+                        function = JsonParser.parseReader(in);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                case KEY_DOMAIN_START -> domainStart = in.nextDouble();
+                case KEY_DOMAIN_END -> domainEnd = in.nextDouble();
+                case KEY_NUMERICAL_INTEGRATION_INTERVAL_COUNT -> intervalCount = in.nextInt();
+                case KEY_DEFAULT_FREQUENCY_PROVIDER -> defaultFrequencyProvider = gson.fromJson(in, RotorFrequencyProviderI.class);
+                case KEY_FREQUENCY_PROVIDER -> frequencyProvider = gson.fromJson(in, RotorFrequencyProviderI.class);
+                case KEY_DOMAIN_ANIMATION_MILLS_MIN -> animationMillsMin = in.nextLong();
+                case KEY_DOMAIN_ANIMATION_MILLS_MAX -> animationMillsMax = in.nextLong();
+                case KEY_DOMAIN_ANIMATION_MILLS_DEFAULT -> animationMillsDefault = in.nextLong();
+                case KEY_ROTOR_COUNT -> rotorCount = in.nextInt();
+                case KEY_SERIALIZED_ROTOR_STATES -> {
+                    hasRotorStates = true;
+                    if (rotorStatesLoader != null) {
+                        deferRotorStates = true;
+                    } else {
+                        rotorStates = readRotorStatesJson(in);
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+
+        if (!deferRotorStates) {
+            in.endObject();
+        }
+
+        final FunctionState state = new FunctionState(saveTimestamp, functionName, functionType, null,
+                domainStart, domainEnd, intervalCount, defaultFrequencyProvider, frequencyProvider,
+                animationMillsMin, animationMillsMax, animationMillsDefault, rotorCount, null);
+
+        state.pendingSerializedFunction = function;
+        state.serializeRotorStates = hasRotorStates;
+        if (deferRotorStates) {
+            state.allRotorStates = null;
+            state.rotorStatesLoader = rotorStatesLoader;
+        } else if (rotorStates != null) {
+            state.allRotorStates = rotorStates;
+        }
+
+        return state;
+    }
+
+    /**
+     * @return {@code loader} of given file, failing if the file changed since this call
+     * */
+    @NotNull
+    private static <T> IOTask<T> createDeferredLoader(@NotNull Path file, @NotNull IOTask<T> loader) throws IOException {
+        final FileTime modified = Files.getLastModifiedTime(file);
+        final long size = Files.size(file);
+
+        return () -> {
+            if (Files.size(file) != size || !Files.getLastModifiedTime(file).equals(modified))
+                throw new IOException("Function State file changed since it was loaded: " + file);
+
+            return loader.begin();
+        };
+    }
+
+    /**
+     * @return loader of the rotor states of given function state file, failing if the file changed since this call
+     * */
+    @NotNull
+    private static IOTask<SortedRotorCoefficients> createDeferredRotorStatesLoader(@NotNull Path file, @NotNull Charset encoding) throws IOException {
+        return createDeferredLoader(file, () -> {
+            try (final Reader reader = Files.newBufferedReader(file, encoding)) {
+                final JsonReader in = Json.get().gson.newJsonReader(reader);
+                in.beginObject();
+                while (in.hasNext()) {
+                    if (KEY_SERIALIZED_ROTOR_STATES.equals(in.nextName()) && in.peek() != JsonToken.NULL)
+                        return readRotorStatesJson(in);
+
+                    in.skipValue();
+                }
+            }
+
+            return SortedRotorCoefficients.EMPTY;
+        });
+    }
+
+    /**
+     * Streams function states, registered in {@link Json}. Rotor states are read right away, and the function definition
+     * on first use
+     * */
+    public static class GsonAdapter extends TypeAdapter<FunctionState> {
+
+        @Override
+        public void write(JsonWriter out, FunctionState value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                value.writeJson(out);
+            }
+        }
+
+        @Override
+        public FunctionState read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            return readJson(in, true, null);
+        }
+    }
+
+
     /* Save */
 
     @NotNull
@@ -542,21 +1200,26 @@ public class FunctionState {
 
     /* Load */
 
+    /**
+     * Loads a function state, streaming. Rotor states are read right away, and the function definition (if requested) is
+     * deserialized on first use
+     * */
     @NotNull
-    public static FunctionState loadFromJson(@NotNull Reader json, boolean withFunctionDefinition) throws JsonParseException {
-        if (!withFunctionDefinition) {
-            final JsonObject o = JsonParser.parseReader(json).getAsJsonObject();
-            o.remove(KEY_SERIALIZED_FUNCTION);
-            return Json.get().gson.fromJson(o, FunctionState.class);
-        }
-
-        return Json.get().gson.fromJson(json, FunctionState.class);
+    public static FunctionState loadFromJson(@NotNull Reader json, boolean withFunctionDefinition) throws IOException, JsonParseException {
+        return readJson(Json.get().gson.newJsonReader(json), withFunctionDefinition, null);
     }
 
+    /**
+     * Loads only the header of a function state file (name, domain, counts, frequency providers), which is cheap even for
+     * huge saves, e.g. to list them. Rotor states are read from the file on first use, and the function definition
+     * (if requested) is deserialized on first use
+     * */
     @NotNull
     public static FunctionState loadFromJson(@NotNull Path file, @NotNull Charset encoding, boolean withFunctionDefinition) throws IOException, JsonParseException {
+        final IOTask<SortedRotorCoefficients> rotorStatesLoader = createDeferredRotorStatesLoader(file, encoding);
+
         try (final Reader reader = Files.newBufferedReader(file, encoding)) {
-            return loadFromJson(reader, withFunctionDefinition);
+            return readJson(Json.get().gson.newJsonReader(reader), withFunctionDefinition, rotorStatesLoader);
         }
     }
 
@@ -565,9 +1228,12 @@ public class FunctionState {
         return loadFromJson(file, R.ENCODING, withFunctionDefinition);
     }
 
+    /**
+     * Loads a function state to be used right away, so also {@link #loadDeferred() loads deferred} parts in background
+     * */
     @NotNull
     public static Canceller loadFromJsonAsync(@NotNull Path file, @NotNull Charset encoding, boolean withFunctionDefinition, @NotNull TaskConsumer<FunctionState> consumer) {
-        return Async.execute(() -> loadFromJson(file, encoding, withFunctionDefinition), consumer);
+        return Async.execute(() -> loadFromJson(file, encoding, withFunctionDefinition).loadDeferred(), consumer);
     }
 
     @NotNull
@@ -576,6 +1242,24 @@ public class FunctionState {
     }
 
 
+    /* Header */
+
+    /**
+     * Loads only the header of a {@link #loadFromJson(Path, boolean) JSON function state} or {@link #loadFromBinary(Path) binary rotor states}
+     * file, without its function definition. Rotor states are read from the file on first use, so this is cheap even for huge saves,
+     * e.g. to list or preview them
+     * */
+    @NotNull
+    public static FunctionState loadHeader(@NotNull Path file) throws IOException, JsonParseException {
+        return isRotorStatesBinaryFile(file)? loadFromBinary(file, true): loadFromJson(file, R.ENCODING, false);
+    }
+
+    @NotNull
+    public static Canceller loadHeaderAsync(@NotNull Path file, @NotNull TaskConsumer<FunctionState> consumer) {
+        return Async.execute(() -> loadHeader(file), consumer);
+    }
+
+
 
 
 //    @NotNull
@@ -0,0 +1,163 @@
+package rotor;
+
+import async.Async;
+import async.CancellationProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Work-stealing parallel loader of rotor index ranges, running on {@link Async#COMPUTE_POOL} (bounded to available cores)<br>
+ * <br>
+ * Ranges are split recursively (into at least {@link #MIN_LEAVES_PER_WORKER} leaves per worker) until a leaf is expected to take about {@link #TARGET_LEAF_NANOS}, estimated from the measured
+ * per-rotor cost of completed leaves. Cheap rotors (cached, batch loaded) thus run in a few large tasks, while expensive
+ * integrations are split finely enough for idle workers to steal.
+ * <br>
+ * Each index is loaded by exactly one leaf, so loaders can write results to disjoint slots without locking
+ * */
+final class ParallelRotorLoader {
+
+    /**
+     * Target duration of a leaf task. Large enough to amortize fork overhead, small enough to keep all workers busy
+     * */
+    static final long TARGET_LEAF_NANOS = 2_000_000;
+
+    /**
+     * Rotors loaded on the calling thread to measure initial per-rotor cost
+     * */
+    static final int PROBE_SIZE = 2;
+
+    /**
+     * Minimum leaves per worker regardless of measured cost, since cost of cached rotors says nothing of the rest
+     * */
+    static final int MIN_LEAVES_PER_WORKER = 2;
+
+    interface RangeLoader {
+
+        /**
+         * Loads rotors of index range [from, to). Should check {@code c} between rotors
+         * */
+        void load(int from, int to, @Nullable CancellationProvider c);
+    }
+
+    interface ProgressListener {
+
+        /**
+         * Called after each leaf completes, on the worker thread
+         * */
+        void onProgress(int loaded, int total);
+    }
+
+
+    @NotNull
+    private final RangeLoader loader;
+    @Nullable
+    private final CancellationProvider cancellation;
+    @Nullable
+    private final ProgressListener progressListener;
+
+    private final int total;
+    private final int maxLeafSize;
+    private final LongAdder loadedNanos = new LongAdder();
+    private final LongAdder measuredCount = new LongAdder();
+    private final AtomicInteger loadedCount = new AtomicInteger();
+
+    private ParallelRotorLoader(@NotNull RangeLoader loader, int total, @Nullable CancellationProvider c, @Nullable ProgressListener progressListener) {
+        this.loader = loader;
+        this.total = total;
+        this.maxLeafSize = Math.max(1, total / (Async.COMPUTE_POOL.getParallelism() * MIN_LEAVES_PER_WORKER));
+        this.cancellation = c;
+        this.progressListener = progressListener;
+    }
+
+    private boolean isCancelled() {
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    private double costEstimateNanos() {
+        final long count = measuredCount.sum();
+        return count > 0? (double) loadedNanos.sum() / count: 0;
+    }
+
+    private boolean shouldSplit(int size) {
+        return size > 1 && (size > maxLeafSize || size * costEstimateNanos() > TARGET_LEAF_NANOS);
+    }
+
+    private void runLeaf(int from, int to) {
+        final long start = System.nanoTime();
+        loader.load(from, to, cancellation);
+
+        if (isCancelled())
+            return;
+
+        loadedNanos.add(System.nanoTime() - start);
+        measuredCount.add(to - from);
+
+        final int loaded = loadedCount.addAndGet(to - from);
+        if (progressListener != null) {
+            progressListener.onProgress(loaded, total);
+        }
+    }
+
+    private final class RangeTask extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private RangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (ParallelRotorLoader.this.isCancelled())
+                return;
+
+            final int size = to - from;
+            if (shouldSplit(size)) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, mid), new RangeTask(mid, to));
+            } else {
+                runLeaf(from, to);
+            }
+        }
+    }
+
+    private void run(int from, int to) {
+        // Probe on the calling thread, to estimate per-rotor cost before splitting
+        final int probeEnd = Math.min(to, from + PROBE_SIZE);
+        runLeaf(from, probeEnd);
+
+        if (probeEnd < to && !isCancelled()) {
+            final RangeTask task = new RangeTask(probeEnd, to);
+            if (ForkJoinTask.getPool() == Async.COMPUTE_POOL) {
+                task.invoke();          // already on a worker, join the current computation
+            } else {
+                Async.COMPUTE_POOL.invoke(task);
+            }
+        }
+    }
+
+    /**
+     * Loads index range [from, to) in parallel, blocking until all rotors are loaded or load is cancelled
+     *
+     * @param loader loads sub ranges, possibly from multiple threads concurrently
+     * @param c cancellation signal, checked before each leaf
+     * @param progressListener notified of loaded rotors count
+     * */
+    static void load(int from, int to, @NotNull RangeLoader loader, @Nullable CancellationProvider c, @Nullable ProgressListener progressListener) {
+        if (to <= from)
+            return;
+
+        new ParallelRotorLoader(loader, to - from, c, progressListener).run(from, to);
+    }
+}
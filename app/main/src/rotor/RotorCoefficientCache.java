@@ -0,0 +1,492 @@
+package rotor;
+
+import app.R;
+import function.definition.AnalyticFourierTransformProviderI;
+import function.definition.ComplexDomainFunctionI;
+import function.definition.DefinitionDigestProviderI;
+import misc.FileUtil;
+import misc.Log;
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.main.AdaptiveQuadrature;
+import util.main.ComplexUtil;
+import util.main.FourierCoefficientEngine;
+import util.main.FunctionSampleCache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of computed rotor coefficients, shared across runs<br>
+ * <br>
+ * Coefficients are keyed by a {@link #fingerprint(ComplexDomainFunctionI) fingerprint} of the function: its class, domain,
+ * integration settings, {@link DefinitionDigestProviderI definition} (path geometry, program source and bytecode) and values
+ * at fixed sample points, so any change of definition or settings misses the cache instead of returning stale coefficients.<br>
+ * Each fingerprint has a file of coefficients sorted by frequency, which is {@link Table read into memory} with a plain read
+ * and binary searched. Files are never kept open or mapped, so they can be replaced or deleted at any time, on every platform.
+ * Files are evicted least recently used first once the cache grows over its size bound. Thread safe
+ * */
+public final class RotorCoefficientCache {
+
+    public static final String TAG = "RotorCoefficientCache";
+
+    /*
+     * Coefficients file format, all values little-endian
+     *
+     * offset   size    field
+     * 0        4       magic "RCCB"
+     * 4        4       int     format version
+     * 8        4       int     coefficient count (n)
+     * 12       4       reserved, zero
+     * 16       32      function fingerprint
+     * 48       8n      double[n] frequencies, ascending and unique
+     * ..       8n      double[n] coefficient real parts
+     * ..       8n      double[n] coefficient imaginary parts
+     * */
+
+    public static final int MAGIC = 0x42434352;         // "RCCB" in little-endian
+    public static final int VERSION = 1;
+    public static final String FILE_EXTENSION = ".rcc";
+
+    private static final int HEADER_BYTES = 48;
+    public static final int FINGERPRINT_BYTES = 32;
+    public static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
+    /**
+     * Number of function values hashed into a fingerprint
+     * */
+    public static final int FINGERPRINT_SAMPLE_COUNT = 256;
+
+    /**
+     * Fractional part of golden ratio, spreads fingerprint sample points over the domain without aligning with any period
+     * */
+    private static final double FINGERPRINT_SAMPLE_STEP = 0.6180339887498949;
+
+    private static final class Holder {
+        private static final RotorCoefficientCache INSTANCE = new RotorCoefficientCache(R.DIR_ROTOR_COEFFICIENTS_CACHE, R.ROTOR_COEFFICIENTS_CACHE_MAX_BYTES);
+    }
+
+    /**
+     * @return cache at {@link R#DIR_ROTOR_COEFFICIENTS_CACHE}
+     * */
+    @NotNull
+    public static RotorCoefficientCache getDefault() {
+        return Holder.INSTANCE;
+    }
+
+
+    /* Fingerprint */
+
+    private static void update(@NotNull MessageDigest digest, @NotNull ByteBuffer buf, long value) {
+        if (buf.remaining() < Long.BYTES) {
+            digest.update(buf.flip());
+            buf.clear();
+        }
+
+        buf.putLong(value);
+    }
+
+    private static void update(@NotNull MessageDigest digest, @NotNull ByteBuffer buf, double value) {
+        update(digest, buf, Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Writes the definition of a function: its own {@link DefinitionDigestProviderI digest} if it provides one, otherwise
+     * the bytecode of its class (e.g. internal programs)
+     *
+     * @throws IOException if the definition is not available
+     * */
+    private static void digestDefinition(@NotNull ComplexDomainFunctionI function, @NotNull DataOutputStream out) throws IOException {
+        if (function instanceof DefinitionDigestProviderI provider) {
+            provider.digestDefinition(out);
+            return;
+        }
+
+        final Class<?> clazz = function.getClass();
+        try (final InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            if (in == null)
+                throw new IOException("Bytecode of " + clazz.getName() + " is not available");
+
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Fingerprint of everything rotor coefficients of a function depend on: its class, domain, integration settings,
+     * {@link #digestDefinition(ComplexDomainFunctionI, DataOutputStream) definition}, and values at {@link #FINGERPRINT_SAMPLE_COUNT}
+     * fixed points of the domain as an extra check. Costs as many function evaluations
+     *
+     * @return fingerprint of {@link #FINGERPRINT_BYTES} bytes, or {@code null} if the definition is not available or
+     * the function could not be evaluated
+     * */
+    public static byte @Nullable[] fingerprint(@NotNull ComplexDomainFunctionI function) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(FINGERPRINT_ALGORITHM + " is required on every java platform", e);
+        }
+
+        final AdaptiveQuadrature.Tolerance tolerance = ComplexUtil.ADAPTIVE_FOURIER_TRANSFORM_ENABLED? function.getAdaptiveIntegrationTolerance(): null;
+        final String settings = String.format(Locale.ROOT, "v%d|%s|analytic=%b|adaptive=%s|samples=%b|fft=%b|goertzel=%b|explicit=%b",
+                VERSION,
+                function.getClass().getName(),
+                ComplexUtil.ANALYTIC_FOURIER_TRANSFORM_ENABLED && function instanceof AnalyticFourierTransformProviderI,
+                tolerance,
+                FunctionSampleCache.ENABLED,
+                StandardRotorStateManager.FFT_BATCH_LOAD_ENABLED,
+                StandardRotorStateManager.GOERTZEL_BATCH_LOAD_ENABLED,
+                function.frequenciesExceptExplicitSupported());
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+
+        try {
+            final DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            digestDefinition(function, out);
+            out.flush();
+        } catch (Throwable t) {
+            Log.w(TAG, "definition not available for fingerprint: " + function.getClass().getName(), t);
+            return null;
+        }
+
+        final double start = function.getDomainStart();
+        final double range = function.getDomainRange();
+        final ByteBuffer buf = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        update(digest, buf, start);
+        update(digest, buf, function.getDomainEnd());
+        update(digest, buf, FourierCoefficientEngine.resolveIntervalCount(function.getNumericalIntegrationIntervalCount()));
+
+        try {
+            for (int i=0; i < FINGERPRINT_SAMPLE_COUNT; i++) {
+                final double t = (i * FINGERPRINT_SAMPLE_STEP) % 1;
+                final Complex value = function.compute(start + range * t);
+                update(digest, buf, value.getReal());
+                update(digest, buf, value.getImaginary());
+            }
+        } catch (Throwable t) {
+            Log.w(TAG, "failed to evaluate function for fingerprint: " + function.getClass().getName(), t);
+            return null;
+        }
+
+        digest.update(buf.flip());
+        return digest.digest();
+    }
+
+    @NotNull
+    private static String toHex(byte @NotNull[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+
+    /**
+     * Read only, in memory copy of the cached coefficients of a function
+     * */
+    public static final class Table {
+
+        private final byte @NotNull[] fingerprint;
+        private final double @NotNull[] frequencies, reals, imaginaries;
+        private final int count;
+
+        private Table(byte @NotNull[] fingerprint, @NotNull ByteBuffer buf, int count) {
+            this.fingerprint = fingerprint;
+            this.count = count;
+            frequencies = new double[count];
+            reals = new double[count];
+            imaginaries = new double[count];
+            buf.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer()
+                    .get(frequencies)
+                    .get(reals)
+                    .get(imaginaries);
+        }
+
+        public byte @NotNull[] getFingerprint() {
+            return fingerprint.clone();
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @return index of the frequency, or a negative value if absent
+         * */
+        public int indexOf(double frequency) {
+            int lo = 0, hi = count - 1;
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                final int cmp = Double.compare(frequencies[mid], frequency);
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+
+            return -(lo + 1);
+        }
+
+        public boolean contains(double frequency) {
+            return indexOf(frequency) >= 0;
+        }
+
+        @Nullable
+        public RotorState get(double frequency) {
+            final int index = indexOf(frequency);
+            return index >= 0? new RotorState(frequencies[index], new Complex(reals[index], imaginaries[index])): null;
+        }
+    }
+
+
+    @NotNull
+    private final Path mDir;
+    private final long mMaxBytes;
+    private final Object mWriteLock = new Object();
+
+    /**
+     * @param maxBytes size bound of all coefficient files, least recently used ones are deleted beyond it
+     * */
+    public RotorCoefficientCache(@NotNull Path dir, long maxBytes) {
+        mDir = dir;
+        mMaxBytes = maxBytes;
+    }
+
+    @NotNull
+    public Path getDir() {
+        return mDir;
+    }
+
+    @NotNull
+    private Path file(byte @NotNull[] fingerprint) {
+        return mDir.resolve(toHex(fingerprint) + FILE_EXTENSION);
+    }
+
+    /**
+     * Reads the coefficients file of a fingerprint, and marks it as recently used
+     *
+     * @return cached coefficients, or {@code null} if none are cached or the file is unreadable
+     * */
+    @Nullable
+    public Table open(byte @NotNull[] fingerprint) {
+        final Path file = file(fingerprint);
+        if (!Files.isRegularFile(file))
+            return null;
+
+        try {
+            final ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION)
+                throw new IOException("Not a rotor coefficients cache file of version " + VERSION);
+
+            final int count = buf.getInt(8);
+            final byte[] stored = new byte[FINGERPRINT_BYTES];
+            buf.get(16, stored);
+            if (count < 0 || HEADER_BYTES + 3L * Double.BYTES * count != buf.capacity() || !Arrays.equals(stored, fingerprint))
+                throw new IOException(String.format("Corrupt rotor coefficients cache file (count: %d, file size: %d)", count, buf.capacity()));
+
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));        // LRU
+            } catch (IOException ignored) {
+            }
+
+            return new Table(fingerprint.clone(), buf, count);
+        } catch (Throwable t) {
+            Log.w(TAG, "discarding unreadable rotor coefficients cache file " + file, t);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds coefficients to the file of a fingerprint, merged with those already cached (given ones win on duplicate frequencies).
+     * Then evicts least recently used files if the cache is over its size bound
+     *
+     * @return cached coefficients after the write
+     * */
+    @Nullable
+    public Table store(byte @NotNull[] fingerprint, @NotNull Collection<RotorState> states) throws IOException {
+        if (states.isEmpty())
+            return open(fingerprint);
+
+        final Path file = file(fingerprint);
+        synchronized (mWriteLock) {
+            final Table existing = open(fingerprint);
+
+            final RotorState[] added = states.toArray(new RotorState[0]);
+            Arrays.sort(added, RotorState.COMPARATOR_FREQ_ASC);
+
+            final int max = added.length + (existing != null? existing.count: 0);
+            final double[] f = new double[max], re = new double[max], im = new double[max];
+            int n = 0, i = 0, j = 0;
+            final int m = existing != null? existing.count: 0;
+
+            while (i < added.length || j < m) {
+                final int cmp;
+                if (i == added.length) {
+                    cmp = 1;
+                } else if (j == m) {
+                    cmp = -1;
+                } else {
+                    cmp = Double.compare(added[i].getFrequency(), existing.frequencies[j]);
+                }
+
+                if (cmp <= 0) {
+                    final RotorState s = added[i++];
+                    if (n > 0 && Double.compare(f[n - 1], s.getFrequency()) == 0) {
+                        n--;        // later duplicate wins
+                    }
+
+                    f[n] = s.getFrequency();
+                    re[n] = s.getCoefficient().getReal();
+                    im[n] = s.getCoefficient().getImaginary();
+                    n++;
+                    if (cmp == 0) {
+                        j++;        // replaced
+                    }
+                } else {
+                    f[n] = existing.frequencies[j];
+                    re[n] = existing.reals[j];
+                    im[n] = existing.imaginaries[j];
+                    n++;
+                    j++;
+                }
+            }
+
+            write(file, fingerprint, f, re, im, n);
+        }
+
+        evict(file);
+        return open(fingerprint);
+    }
+
+    private static void write(@NotNull Path file, byte @NotNull[] fingerprint, double @NotNull[] f, double @NotNull[] re, double @NotNull[] im, int count) throws IOException {
+        FileUtil.ensureFileParentDir(file);
+        final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+        try {
+            final ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 3 * Double.BYTES * count).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(count)
+                    .putInt(0)
+                    .put(fingerprint);
+
+            final DoubleBuffer doubles = buf.asDoubleBuffer();
+            doubles.put(f, 0, count).put(re, 0, count).put(im, 0, count);
+            buf.clear();
+
+            try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private record CacheFile(@NotNull Path path, long size, long lastUsed) {
+    }
+
+    /**
+     * Deletes least recently used coefficient files until the cache fits its size bound
+     *
+     * @param keep file never evicted, e.g. the one just written
+     * */
+    private void evict(@Nullable Path keep) {
+        final List<CacheFile> files = new ArrayList<>();
+        long total = 0;
+
+        try (final Stream<Path> stream = Files.list(mDir)) {
+            for (Path p: (Iterable<Path>) stream::iterator) {
+                if (!p.getFileName().toString().endsWith(FILE_EXTENSION))
+                    continue;
+
+                final BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                files.add(new CacheFile(p, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                total += attrs.size();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "failed to list rotor coefficients cache " + mDir, e);
+            return;
+        }
+
+        if (total <= mMaxBytes)
+            return;
+
+        files.sort(Comparator.comparingLong(CacheFile::lastUsed));
+        for (CacheFile cf: files) {
+            if (total <= mMaxBytes)
+                break;
+            if (cf.path.equals(keep))
+                continue;
+
+            try {
+                Files.deleteIfExists(cf.path);
+                total -= cf.size;
+                Log.v(TAG, "evicted " + cf.path.getFileName() + " (" + cf.size + " bytes)");
+            } catch (IOException e) {
+                Log.w(TAG, "failed to evict " + cf.path, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes cached coefficients of a fingerprint, so that they are computed again
+     *
+     * @return whether any were cached
+     * */
+    public boolean remove(byte @NotNull[] fingerprint) throws IOException {
+        synchronized (mWriteLock) {
+            return Files.deleteIfExists(file(fingerprint));
+        }
+    }
+
+    /**
+     * Deletes all cached coefficients
+     *
+     * @return number of coefficient files deleted
+     * */
+    public int clear() throws IOException {
+        if (!Files.isDirectory(mDir))
+            return 0;
+
+        int count = 0;
+        synchronized (mWriteLock) {
+            try (final Stream<Path> stream = Files.list(mDir)) {
+                for (Path p: (Iterable<Path>) stream::iterator) {
+                    if (p.getFileName().toString().endsWith(FILE_EXTENSION) && Files.deleteIfExists(p)) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+}
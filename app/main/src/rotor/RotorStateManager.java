@@ -58,6 +58,15 @@ public interface RotorStateManager extends RotorFrequencyProviderI, RotorStatePr
 
         void onRotorsLoadFinished(@NotNull RotorStateManager manager, int count, boolean cancelled);
 
+        /**
+         * Called periodically while rotor states are being loaded, on main thread
+         *
+         * @param loaded rotor states loaded so far
+         * @param total rotor states to load
+         * */
+        default void onRotorsLoadProgress(@NotNull RotorStateManager manager, int loaded, int total) {
+        }
+
         void onRotorsCountChanged(@NotNull RotorStateManager manager, int prevCount, int newCount);
 
 
@@ -156,6 +165,13 @@ public interface RotorStateManager extends RotorFrequencyProviderI, RotorStatePr
 
     void forEachRotorState(@NotNull Consumer<RotorState> consumer);
 
+    /**
+     * @return immutable snapshot of current rotors in index order (as given by {@link #getRotorState(int)}),
+     * or {@code null} if not all current rotors are loaded yet
+     * */
+    @Nullable
+    RotorTable getRotorTable();
+
     default void copyAllRotorStates(@NotNull Collection<RotorState> dest) {
         forEachRotorState(dest::add);
     }
@@ -229,6 +245,14 @@ public interface RotorStateManager extends RotorFrequencyProviderI, RotorStatePr
         setRotorCountAsync(rotorCount);
     }
 
+    /**
+     * Same as {@link #clearAndReloadAsync()}, but also drops any persistently cached coefficients of the function,
+     * so that all rotor states are computed again
+     * */
+    default void clearAndRecomputeAsync() {
+        clearAndReloadAsync();
+    }
+
 
     /**
      * @return modCount
@@ -547,6 +571,11 @@ public interface RotorStateManager extends RotorFrequencyProviderI, RotorStatePr
             /* no-op */
         }
 
+        @Override
+        public @NotNull RotorTable getRotorTable() {
+            return RotorTable.EMPTY;
+        }
+
         @Override
         public int getDefaultInitialRotorCount() {
             return 0;
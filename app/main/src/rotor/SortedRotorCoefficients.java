@@ -0,0 +1,217 @@
+package rotor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import util.main.ComplexUtil;
+
+import java.util.*;
+
+/**
+ * Immutable rotor coefficients in polar form, sorted by ascending frequency with unique frequencies, laid out as parallel
+ * primitive arrays<br>
+ * <br>
+ * Backs {@link FunctionState}: a few bytes per rotor instead of a map entry, a boxed key and a {@link FunctionState.RotorCoefficient}
+ * record, and streamed as is while saving. Frequencies are ordered and compared as by {@link FunctionState#FREQUENCY_COMPARATOR}
+ * */
+final class SortedRotorCoefficients {
+
+    public static final SortedRotorCoefficients EMPTY = new SortedRotorCoefficients(new double[0], new double[0], new double[0]);
+
+    /**
+     * Accumulates coefficients in any order. On duplicate frequencies, the last one added wins
+     * */
+    static final class Builder {
+
+        private double @NotNull[] frequencies;
+        private double @NotNull[] magnitudes;
+        private double @NotNull[] phases;
+        private int count;
+
+        Builder(int initialCapacity) {
+            initialCapacity = Math.max(initialCapacity, 16);
+            frequencies = new double[initialCapacity];
+            magnitudes = new double[initialCapacity];
+            phases = new double[initialCapacity];
+        }
+
+        Builder() {
+            this(16);
+        }
+
+        @NotNull
+        Builder add(double frequency, double magnitude, double phase) {
+            if (count == frequencies.length) {
+                final int capacity = count << 1;
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                magnitudes = Arrays.copyOf(magnitudes, capacity);
+                phases = Arrays.copyOf(phases, capacity);
+            }
+
+            frequencies[count] = frequency;
+            magnitudes[count] = magnitude;
+            phases[count] = phase;
+            count++;
+            return this;
+        }
+
+        @NotNull
+        SortedRotorCoefficients build() {
+            return sorted(frequencies, magnitudes, phases, count);
+        }
+    }
+
+
+    @NotNull
+    static SortedRotorCoefficients of(@Nullable Collection<RotorState> states) {
+        if (states == null || states.isEmpty())
+            return EMPTY;
+
+        final Builder builder = new Builder(states.size());
+        for (RotorState s: states) {
+            if (s != null) {
+                builder.add(s.getFrequency(), s.getMagnitudeScale(), s.getCoefficientArgument());
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Sorts and dedupes given arrays. Arrays already sorted are taken over rather than copied, and must not be modified afterwards
+     *
+     * @param count number of entries to consider, arrays may be longer
+     * */
+    @NotNull
+    static SortedRotorCoefficients sorted(double @NotNull[] frequencies, double @NotNull[] magnitudes, double @NotNull[] phases, int count) {
+        if (count == 0)
+            return EMPTY;
+
+        boolean strictlyAscending = true;
+        for (int i=1; i < count; i++) {
+            if (Double.compare(frequencies[i - 1], frequencies[i]) >= 0) {
+                strictlyAscending = false;
+                break;
+            }
+        }
+
+        if (strictlyAscending) {
+            return new SortedRotorCoefficients(trim(frequencies, count), trim(magnitudes, count), trim(phases, count));
+        }
+
+        // Stable sort of indices, so that the last of duplicates stays last
+        final Integer[] order = new Integer[count];
+        for (int i=0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(frequencies[a], frequencies[b]));
+
+        final double[] f = new double[count], m = new double[count], p = new double[count];
+        int n = 0;
+        for (int i=0; i < count; i++) {
+            final int index = order[i];
+            if (n > 0 && Double.compare(f[n - 1], frequencies[index]) == 0) {
+                n--;        // replaced by the later one
+            }
+
+            f[n] = frequencies[index];
+            m[n] = magnitudes[index];
+            p[n] = phases[index];
+            n++;
+        }
+
+        return new SortedRotorCoefficients(trim(f, n), trim(m, n), trim(p, n));
+    }
+
+    private static double @NotNull[] trim(double @NotNull[] array, int count) {
+        return array.length == count? array: Arrays.copyOf(array, count);
+    }
+
+
+    private final double @NotNull[] frequencies;
+    private final double @NotNull[] magnitudes;
+    private final double @NotNull[] phases;
+
+    private SortedRotorCoefficients(double @NotNull[] frequencies, double @NotNull[] magnitudes, double @NotNull[] phases) {
+        this.frequencies = frequencies;
+        this.magnitudes = magnitudes;
+        this.phases = phases;
+    }
+
+    int size() {
+        return frequencies.length;
+    }
+
+    boolean isEmpty() {
+        return frequencies.length == 0;
+    }
+
+    double getFrequency(int index) {
+        return frequencies[index];
+    }
+
+    double getMagnitude(int index) {
+        return magnitudes[index];
+    }
+
+    double getPhase(int index) {
+        return phases[index];
+    }
+
+    /* Raw arrays, must not be modified */
+
+    double @NotNull[] frequencies() {
+        return frequencies;
+    }
+
+    double @NotNull[] magnitudes() {
+        return magnitudes;
+    }
+
+    double @NotNull[] phases() {
+        return phases;
+    }
+
+    /**
+     * @return coefficients of both, {@code newer} winning on duplicate frequencies
+     * */
+    @NotNull
+    SortedRotorCoefficients merge(@NotNull SortedRotorCoefficients newer) {
+        if (newer.isEmpty())
+            return this;
+        if (isEmpty())
+            return newer;
+
+        final int count = size() + newer.size();
+        final double[] f = new double[count], m = new double[count], p = new double[count];
+        System.arraycopy(frequencies, 0, f, 0, size());
+        System.arraycopy(magnitudes, 0, m, 0, size());
+        System.arraycopy(phases, 0, p, 0, size());
+        System.arraycopy(newer.frequencies, 0, f, size(), newer.size());
+        System.arraycopy(newer.magnitudes, 0, m, size(), newer.size());
+        System.arraycopy(newer.phases, 0, p, size(), newer.size());
+        return sorted(f, m, p, count);
+    }
+
+    @NotNull
+    List<RotorState> toList() {
+        if (isEmpty())
+            return Collections.emptyList();
+
+        final RotorState[] states = new RotorState[size()];
+        for (int i=0; i < states.length; i++) {
+            states[i] = new RotorState(frequencies[i], ComplexUtil.polarExact(magnitudes[i], phases[i]));
+        }
+
+        return Arrays.asList(states);
+    }
+
+    @NotNull
+    Map<Double, FunctionState.RotorCoefficient> toMap() {
+        final Map<Double, FunctionState.RotorCoefficient> map = new TreeMap<>(FunctionState.FREQUENCY_COMPARATOR);
+        for (int i=0; i < frequencies.length; i++) {
+            map.put(frequencies[i], new FunctionState.RotorCoefficient(magnitudes[i], phases[i]));
+        }
+
+        return map;
+    }
+}
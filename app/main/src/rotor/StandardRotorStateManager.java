@@ -2,11 +2,13 @@ package rotor;
 
 import app.Settings;
 import function.ComplexDomainFunctionWrapper;
+import function.definition.AnalyticFourierTransformProviderI;
 import function.definition.CacheRotorStateProvider;
 import function.definition.ComplexDomainFunctionI;
 
 import misc.CollectionUtil;
 import misc.Log;
+import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import provider.FunctionMeta;
@@ -15,11 +17,13 @@ import ui.AuxSoundsPlayer;
 import live.Listeners;
 import async.*;
 import util.main.ComplexUtil;
+import util.main.FourierCoefficientEngine;
+import util.main.FunctionSampleCache;
+import util.main.FunctionSamples;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class StandardRotorStateManager extends ComplexDomainFunctionWrapper implements RotorStateManager, CacheRotorStateProvider, Settings.Listener {
 
@@ -33,8 +37,36 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
 
     public static final int DEFAULT_INITIAL_ROTOR_COUNT = 200;
 
-    public static final int MAX_ROTORS_LOAD_PER_THREAD = 80;
-    public static final boolean SYNCHRONISE_ROTORS_BATCH_LOAD = false;          // synchronised load takes a lot of time
+    /**
+     * Minimum interval between {@link Listener#onRotorsLoadProgress(RotorStateManager, int, int) load progress} dispatches
+     * */
+    public static final long LOAD_PROGRESS_DISPATCH_INTERVAL_MS = 100;
+
+    /**
+     * Whether to compute integer-harmonic rotor states with a single sampling and FFT pass
+     *
+     * @see FourierCoefficientEngine
+     * */
+    public static final boolean FFT_BATCH_LOAD_ENABLED = true;
+
+    /**
+     * Whether to compute off-grid (non-integer harmonic) rotor states with Goertzel recurrence over a single sampling pass,
+     * instead of a full Simpson 1/3 integration per frequency
+     *
+     * @see FourierCoefficientEngine#goertzelCoefficients(FunctionSamples, function.definition.FrequencySupportProviderI, double[], int, int, Complex[], CancellationProvider)
+     * */
+    public static final boolean GOERTZEL_BATCH_LOAD_ENABLED = true;
+
+    /**
+     * Whether to check batch loaded rotor states against Simpson 1/3 integration at one frequency (costs one extra integration per load).
+     * The error is logged, and available from {@link #getLastBatchLoadSimpsonError()}
+     * */
+    public static final boolean CHECK_BATCH_LOAD_SIMPSON_ERROR = true;
+
+    /**
+     * Whether to look up rotor states in the persistent {@link RotorCoefficientCache} before computing them, and to add computed ones to it
+     * */
+    public static final boolean COEFFICIENT_CACHE_ENABLED = true;
 
 
     private final int id;
@@ -47,8 +79,17 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
     private final RotorFrequencyProviderI mDefaultRotorFrequencyProvider;
     @Nullable
     private volatile RotorFrequencyProviderI mRotorFrequencyProvider;
+    /**
+     * All loaded rotor states, with frequency lookups only for {@link CacheRotorStateProvider}
+     * */
     @NotNull
-    private final Map<Double, RotorState> mStore;
+    private final RotorStore mStore;
+
+    /**
+     * Copy-on-write snapshot of current rotors in index order, {@code null} if not built for current rotors
+     * */
+    @Nullable
+    private volatile RotorTable mRotorTable;
     private final int mInitialRotorCount;
 
     private volatile int mRotorCount;
@@ -60,6 +101,15 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
     @NotNull
     private final Listeners<Listener> mListeners = new Listeners<>();
     private boolean mInitPending = true;
+    private final AtomicLong mLastLoadProgressDispatchMs = new AtomicLong();
+    private volatile double mLastBatchLoadSimpsonError = Double.NaN;
+
+    /* Persistent coefficient cache, resolved for an integration interval count */
+    private final Object coefficientCacheLock = new Object();
+    private volatile int mFingerprintIntervalCount = -1;
+    private volatile byte @Nullable[] mFingerprint;
+    @Nullable
+    private volatile RotorCoefficientCache.Table mCoefficientTable;
 
     private static void checkRotorCount(int rotorCount) {
         if (rotorCount < 0)
@@ -83,13 +133,17 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
         return rotorCount;
     }
 
-    public StandardRotorStateManager(@NotNull ComplexDomainFunctionI f, @NotNull FunctionMeta functionMeta, int defaultInitialRotorCount) {
+    /**
+     * @param observeSettings whether to follow app {@link Settings} (e.g. integration interval count). Headless managers
+     *                        should not, since loading settings initializes UI resources
+     * */
+    public StandardRotorStateManager(@NotNull ComplexDomainFunctionI f, @NotNull FunctionMeta functionMeta, int defaultInitialRotorCount, boolean observeSettings) {
         super(f);
         this.id = nextId();
         this.functionMeta = functionMeta;
 
         mInitialRotorCount = getInitialRotorCount(f, functionMeta, defaultInitialRotorCount);
-        mStore = new ConcurrentHashMap<>(Math.max((int) (mInitialRotorCount * 1.4), 20));       // concurrency
+        mStore = new RotorStore(Math.max((int) (mInitialRotorCount * 1.4), 20));
 
         // Meta
         RotorFrequencyProviderI defaultFreqProvider = getFunctionDefaultFrequencyProvider();
@@ -108,7 +162,13 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
         addRotorStates(functionMeta.preloadedRotorStates());
 
 //        setRotorCountAsync(mInitialRotorCount);
-        Settings.getSingleton().addListener(this);
+        if (observeSettings) {
+            Settings.getSingleton().addListener(this);
+        }
+    }
+
+    public StandardRotorStateManager(@NotNull ComplexDomainFunctionI f, @NotNull FunctionMeta functionMeta, int defaultInitialRotorCount) {
+        this(f, functionMeta, defaultInitialRotorCount, true);
     }
 
     public StandardRotorStateManager(@NotNull ComplexDomainFunctionI f, @NotNull FunctionMeta functionMeta) {
@@ -204,15 +264,108 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
             return;
         }
 
-        mRotorFrequencyProvider = rotorFrequencyProvider;
+        synchronized (storeLock) {
+            mRotorFrequencyProvider = rotorFrequencyProvider;
+            mRotorTable = null;         // invalidate
+        }
         onRotorFrequencyProviderChanged(old, rotorFrequencyProvider);
     }
 
 
 
+    /**
+     * @return whether coefficients of this function can be cached persistently. Functions defined by loaded data (rotor
+     * states, signals) are excluded, as are no-op functions
+     * */
+    protected boolean isCoefficientCacheSupported() {
+        if (!COEFFICIENT_CACHE_ENABLED)
+            return false;
+
+        return switch (functionMeta.functionType()) {
+            case INTERNAL_PROGRAM, INTERNAL_PATH, EXTERNAL_PROGRAM, EXTERNAL_PATH -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Fingerprints the function (once per integration interval count), and reads its persistently cached coefficients
+     *
+     * @return cached coefficients of the function, or {@code null} if none or not supported
+     * */
+    @Nullable
+    private RotorCoefficientCache.Table getCoefficientTable() {
+        if (!isCoefficientCacheSupported())
+            return null;
+
+        final int n = FourierCoefficientEngine.resolveIntervalCount(getBaseFunction().getNumericalIntegrationIntervalCount());
+        if (mFingerprintIntervalCount != n) {
+            synchronized (coefficientCacheLock) {
+                if (mFingerprintIntervalCount != n) {
+                    final byte[] fingerprint = RotorCoefficientCache.fingerprint(getBaseFunction());
+                    mFingerprint = fingerprint;
+                    mCoefficientTable = fingerprint != null? RotorCoefficientCache.getDefault().open(fingerprint): null;
+                    mFingerprintIntervalCount = n;
+                }
+            }
+        }
+
+        return mCoefficientTable;
+    }
+
+    /**
+     * Drops the persistently cached coefficients of the function, in memory and on disk, so that they are computed again
+     * */
+    private void dropCoefficientTable() {
+        if (!isCoefficientCacheSupported())
+            return;
+
+        getCoefficientTable();          // resolves the fingerprint
+
+        final byte[] fingerprint;
+        synchronized (coefficientCacheLock) {
+            fingerprint = mFingerprint;
+            mCoefficientTable = null;
+        }
+
+        if (fingerprint != null) {
+            try {
+                RotorCoefficientCache.getDefault().remove(fingerprint);
+            } catch (IOException e) {
+                Log.w(TAG, "failed to drop cached rotor states of function " + functionMeta.getTypedFunctionDisplayName(), e);
+            }
+        }
+    }
+
+    /**
+     * Adds rotor states computed for given fingerprint to the persistent cache, unless the function changed meanwhile
+     * */
+    private void persistRotorStates(byte @Nullable[] fingerprint, @NotNull List<RotorState> states) {
+        if (fingerprint == null || states.isEmpty())
+            return;
+
+        try {
+            final long start = System.nanoTime();
+            final RotorCoefficientCache.Table table = RotorCoefficientCache.getDefault().store(fingerprint, states);
+            synchronized (coefficientCacheLock) {
+                if (Arrays.equals(fingerprint, mFingerprint)) {
+                    mCoefficientTable = table;
+                }
+            }
+
+            Log.v(TAG, String.format("cached %d rotor states of function %s (total %d) in %.2f ms", states.size(), functionMeta.getTypedFunctionDisplayName(),
+                    table != null? table.size(): 0, (System.nanoTime() - start) / 1E6));
+        } catch (Throwable t) {
+            Log.e(TAG, "failed to cache rotor states of function " + functionMeta.getTypedFunctionDisplayName(), t);
+        }
+    }
+
     @Override
     public final boolean containsCachedRotorState(double frequency) {
-        return mStore.containsKey(frequency) || getBaseFunction().containsCachedRotorState(frequency);
+        if (mStore.contains(frequency) || getBaseFunction().containsCachedRotorState(frequency))
+            return true;
+
+        final RotorCoefficientCache.Table table = getCoefficientTable();
+        return table != null && table.contains(frequency);
     }
 
     @Nullable
@@ -224,8 +377,15 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
                 state = mStore.get(frequency);
                 if (state == null) {
                     state = getBaseFunction().getCachedRotorState(frequency);
+                    if (state == null) {
+                        final RotorCoefficientCache.Table table = getCoefficientTable();
+                        if (table != null) {
+                            state = table.get(frequency);
+                        }
+                    }
+
                     if (state != null) {
-                        mStore.put(frequency, state);
+                        mStore.put(state);
                     }
                 }
             }
@@ -247,23 +407,7 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
 
     @Override
     public void forEachRotorState(@NotNull Consumer<RotorState> consumer) {
-        synchronized (storeLock) {
-            mStore.forEach((k, v) -> consumer.consume(v));
-        }
-    }
-
-    @Override
-    public void copyAllRotorStates(@NotNull Collection<RotorState> dest) {
-        synchronized (storeLock) {
-            dest.addAll(mStore.values());
-        }
-    }
-
-    @Override
-    public void copyAllRotorStates(@NotNull Map<? super Double, ? super RotorState> dest) {
-        synchronized (storeLock) {
-            dest.putAll(mStore);
-        }
+        mStore.forEach(consumer);
     }
 
     @NotNull
@@ -280,13 +424,17 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
     @NotNull
     private RotorState getRotorState(int index, int count) {
         checkIndex(index, count);
+        final RotorTable table = mRotorTable;
+        if (table != null && table.getCount() == count)
+            return table.getRotorState(index);
+
         final double frequency = getRotorFrequency(index, count);
         RotorState state = getCachedRotorState(frequency);
 
         if (state == null) {
             synchronized (storeLock) {
                 state = createRotorState(frequency);            // heavy operation
-                mStore.put(frequency, state);
+                mStore.put(state);
             }
         }
 
@@ -299,6 +447,38 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
         return getRotorState(index, mRotorCount);
     }
 
+    @Override
+    @Nullable
+    public RotorTable getRotorTable() {
+        final RotorTable table = mRotorTable;
+        return table != null && table.getCount() == mRotorCount? table: null;
+    }
+
+    /**
+     * Builds and publishes the rotor table of current rotors, if all of them are loaded
+     * */
+    private void updateRotorTable() {
+        final int count = mRotorCount;
+        final RotorFrequencyProviderI frequencyProvider = getManagerRotorFrequencyProviderOrDefault();
+        final RotorState[] states = new RotorState[count];
+
+        for (int i=0; i < count; i++) {
+            final RotorState state = getCachedRotorState(frequencyProvider.getRotorFrequency(i, count));
+            if (state == null) {
+                mRotorTable = null;
+                return;
+            }
+
+            states[i] = state;
+        }
+
+        final RotorTable table = RotorTable.of(states);
+        synchronized (storeLock) {
+            // Publish only if rotors did not change meanwhile
+            mRotorTable = count == mRotorCount && frequencyProvider == getManagerRotorFrequencyProviderOrDefault()? table: null;
+        }
+    }
+
     @Override
     public void addListener(@NotNull RotorStateManager.Listener l) {
         mListeners.addListener(l);
@@ -333,6 +513,11 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
     private volatile double mAllRotorsMagnitudeSum;
 
     private double computeRotorsMagnitudeSum(int count, int firstMultiplier) {
+        final RotorTable table = mRotorTable;
+        if (table != null && table.getCount() == count) {
+            return count > 0? table.getMagnitudeScaleSum() + (table.getMagnitudeScale(0) * (firstMultiplier - 1)): 0;
+        }
+
         double r = 0;
 
         if (count > 0) {
@@ -358,6 +543,7 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
     }
 
     protected void onRotorCountUpdated(int prevCount, int newCount, boolean notify) {
+        updateRotorTable();
         mAllRotorsMagnitudeSum = -1;        // invalidate
         getAllRotorsMagnitudeScaleSum();
 
@@ -392,6 +578,10 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
                 }
             }
 
+            if (!cancelled && mRotorTable == null) {
+                updateRotorTable();         // reload of the same count, e.g. after frequency provider change
+            }
+
             mListeners.dispatchOnMainThread(l -> {
                 l.onRotorsLoadFinished(StandardRotorStateManager.this, totalLoadCount, cancelled);
                 if (notifyLoadEnded) {
@@ -403,36 +593,116 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
 
 
 
-
-    private void doLoadRotorStateInternal(double frequency) {
-        if (containsCachedRotorState(frequency))
+    private void dispatchLoadProgress(int loaded, int total) {
+        final long now = System.currentTimeMillis();
+        final long last = mLastLoadProgressDispatchMs.get();
+        if (loaded < total && (now - last < LOAD_PROGRESS_DISPATCH_INTERVAL_MS || !mLastLoadProgressDispatchMs.compareAndSet(last, now)))
             return;
 
-        mStore.put(frequency, createRotorState(frequency));
+        mListeners.dispatchOnMainThread(l -> l.onRotorsLoadProgress(StandardRotorStateManager.this, loaded, total));
     }
 
+    /**
+     * Computes rotor states of index range [from, to) that are not cached yet into {@code dest} (offset by {@code destOffset}).
+     * Slots are disjoint across concurrent calls, so no lock is held while computing
+     * */
+    private void doLoadRotorStates(int from, int to, int totalLoadCount, @NotNull RotorState[] dest, int destOffset, @Nullable CancellationProvider c) {
+        for (int i = from; i < to && (c == null || !c.isCancelled()); i++) {
+            final double frequency = getRotorFrequency(i, totalLoadCount);
+            if (!containsCachedRotorState(frequency)) {
+                dest[i - destOffset] = createRotorState(frequency);
+            }
+        }
+    }
 
-    private void doLoadRotorState(double frequency, boolean _synchronized) {
-        if (_synchronized) {
-            synchronized (storeLock) {
-                doLoadRotorStateInternal(frequency);
+
+
+
+    /**
+     * Loads rotor states with a single sampling pass of the function, unless it has a {@link AnalyticFourierTransformProviderI closed form}<br>
+     * Integer-harmonic frequencies are computed with a single FFT, and others (if {@link #GOERTZEL_BATCH_LOAD_ENABLED}) with
+     * Goertzel recurrence over the same samples, split across threads
+     *
+     * @param computed receives computed rotor states
+     * @return whether the load was handled (or cancelled) here, {@code false} if per-frequency integration is required
+     * */
+    private boolean doLoadRotorStatesBatch(int startIndex, int endIndex, int totalLoadCount, @NotNull List<RotorState> computed, @Nullable CancellationProvider c) {
+        if (!FFT_BATCH_LOAD_ENABLED && !GOERTZEL_BATCH_LOAD_ENABLED)
+            return false;
+
+        // Closed form per rotor is exact, and cheaper than sampling (e.g. paths)
+        if (ComplexUtil.ANALYTIC_FOURIER_TRANSFORM_ENABLED && getBaseFunction() instanceof AnalyticFourierTransformProviderI)
+            return false;
+
+        // Function selected adaptive integration per frequency, instead of fixed interval sampling
+        if (ComplexUtil.ADAPTIVE_FOURIER_TRANSFORM_ENABLED && getBaseFunction().getAdaptiveIntegrationTolerance() != null)
+            return false;
+
+        final double[] pending = new double[Math.max(0, endIndex - startIndex)];
+        int count = 0;
+
+        for (int i = startIndex; i < endIndex; i++) {
+            final double frequency = getRotorFrequency(i, totalLoadCount);
+            if (!containsCachedRotorState(frequency)) {
+                pending[count++] = frequency;
             }
+        }
+
+        if (count == 0)
+            return true;
+
+        if (count < FourierCoefficientEngine.MIN_BATCH_FREQUENCY_COUNT)
+            return false;
+
+        final double[] frequencies = count == pending.length? pending: Arrays.copyOf(pending, count);
+        final ComplexDomainFunctionI function = getBaseFunction();
+
+        final boolean fft = FFT_BATCH_LOAD_ENABLED && FourierCoefficientEngine.isBatchSupported(function, frequencies);
+        if (!(fft || GOERTZEL_BATCH_LOAD_ENABLED))
+            return false;
+
+        final int n = FourierCoefficientEngine.resolveIntervalCount(function.getNumericalIntegrationIntervalCount());
+        final FunctionSamples samples = FunctionSampleCache.get(function, n, c);
+        if (samples == null)
+            return true;            // cancelled
+
+        final Complex[] coefficients;
+        if (fft) {
+            coefficients = FourierCoefficientEngine.fourierSeriesCoefficients(samples, function, frequencies, c);
         } else {
-            doLoadRotorStateInternal(frequency);
+            coefficients = new Complex[frequencies.length];
+
+            try {
+                ParallelRotorLoader.load(0, frequencies.length,
+                        (from, to, cc) -> FourierCoefficientEngine.goertzelCoefficients(samples, function, frequencies, from, to, coefficients, cc),
+                        c, this::dispatchLoadProgress);
+            } catch (Throwable t) {
+                Log.e(TAG, "Goertzel batch load failed", t);
+            }
         }
-    }
 
-    private void doLoadRotorStates(int startIndex, int endIndex, int totalLoadCount, @Nullable CancellationProvider c) {
-        double frequency;
-        for (int i = startIndex; i < endIndex && (c == null || !c.isCancelled()); i++) {
-            frequency = getRotorFrequency(i, totalLoadCount);
+        if (coefficients == null || (c != null && c.isCancelled()))
+            return true;            // cancelled
 
-            doLoadRotorState(frequency, SYNCHRONISE_ROTORS_BATCH_LOAD);
+        if (CHECK_BATCH_LOAD_SIMPSON_ERROR && coefficients[0] != null) {
+            final double error = FourierCoefficientEngine.estimateSimpsonError(function, samples, frequencies[0], coefficients[0]);
+            mLastBatchLoadSimpsonError = error;
+            Log.d(TAG, String.format("%s batch load of %d rotor states for function %s, error against Simpson 1/3 at frequency %f: %e", fft? "FFT": "Goertzel",
+                    frequencies.length, functionMeta.getTypedFunctionDisplayName(), frequencies[0], error));
         }
-    }
 
+        final List<RotorState> states = new ArrayList<>(frequencies.length);
+        for (int i = 0; i < frequencies.length; i++) {
+            if (coefficients[i] != null) {
+                states.add(new RotorState(frequencies[i], coefficients[i]));
+            }
+        }
 
+        mStore.putAllIfAbsent(states);
+        computed.addAll(states);
 
+        return true;
+    }
 
     private void loadSyncInternal(int startIndex, int totalLoadCount, @Nullable CancellationProvider c, boolean setAfterLoad) {
 //        if (cancelPrevLoad) {
@@ -443,36 +713,46 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
         Log.v(TAG, String.format("Loading %d Rotor States for function %s", totalLoadCount, functionMeta.getTypedFunctionDisplayName()));
         mListeners.dispatchOnMainThread(l -> l.onRotorsLoadingChanged(StandardRotorStateManager.this, true));
 
-        final int chunkSize = MAX_ROTORS_LOAD_PER_THREAD;
-        final LinkedList<Callable<Object>> tasks = new LinkedList<>();
+        final long startMs = System.currentTimeMillis();
+        getCoefficientTable();          // warm starts skip computing rotors in the persistent cache
+        final byte[] fingerprint = mFingerprint;
+        final List<RotorState> computed = new ArrayList<>();
 
-        for (int i=0; i < totalLoadCount / chunkSize; i++) {
-            final int loadStart = startIndex + (i * chunkSize);
-            tasks.add(Executors.callable(() -> doLoadRotorStates(loadStart, loadStart + chunkSize, totalLoadCount, c)));
+        if (doLoadRotorStatesBatch(startIndex, totalLoadCount, totalLoadCount, computed, c)) {
+            onLoadSyncInternalFinished(startIndex, totalLoadCount, c, setAfterLoad, startMs, fingerprint, computed);
+            return;
         }
 
-        // last
-        final int left = totalLoadCount % chunkSize;
-        if (left > 0) {
-            tasks.add(Executors.callable(() -> doLoadRotorStates(totalLoadCount - left, totalLoadCount, totalLoadCount, c)));
+        // Work-stealing load, results are collected lock-free and published to the store at once (also partial, if cancelled)
+        final RotorState[] loaded = new RotorState[Math.max(0, totalLoadCount - startIndex)];
+        try {
+            ParallelRotorLoader.load(startIndex, totalLoadCount,
+                    (from, to, cc) -> doLoadRotorStates(from, to, totalLoadCount, loaded, startIndex, cc),
+                    c, this::dispatchLoadProgress);
+        } catch (Throwable t) {
+            Log.e(TAG, "Rotor States load failed for function " + functionMeta.getTypedFunctionDisplayName(), t);
         }
 
-        final long startMs = System.currentTimeMillis();
-        if (!tasks.isEmpty()) {
-            try {
-                Async.THREAD_POOL_EXECUTOR.invokeAll(tasks);
-//            for (Future<Object> f: fts) {
-//                if (!f.isDone())
-//                    f.get();
-//            }
-//            for (Callable<Object> task: tasks) {
-//                task.call();
-//            }
-            } catch (Throwable ignored) {
+        final List<RotorState> states = new ArrayList<>(loaded.length);
+        for (RotorState state: loaded) {
+            if (state != null) {
+                states.add(state);
             }
         }
 
+        if (!states.isEmpty()) {
+            mStore.putAllIfAbsent(states);
+        }
+
+        onLoadSyncInternalFinished(startIndex, totalLoadCount, c, setAfterLoad, startMs, fingerprint, states);
+    }
 
+    /**
+     * @param fingerprint fingerprint of the function when the load started
+     * @param computed rotor states computed by the load, persisted if not cancelled
+     * */
+    private void onLoadSyncInternalFinished(int startIndex, int totalLoadCount, @Nullable CancellationProvider c, boolean setAfterLoad, long startMs,
+                                            byte @Nullable[] fingerprint, @NotNull List<RotorState> computed) {
 //        mIsLoading = false;
 //        notifyListeners(l -> l.onRotorsLoadingChanged(false));
         final boolean cancelled = c != null && c.isCancelled();
@@ -484,6 +764,10 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
 
         mIsLoading = false;
         onLoaded(startIndex, totalLoadCount, cancelled, setAfterLoad, true);
+
+        if (!cancelled) {
+            persistRotorStates(fingerprint, computed);          // after listeners are notified, so that it never delays them
+        }
     }
 
 
@@ -621,6 +905,16 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
         return mStore.size();
     }
 
+    /**
+     * @return absolute error of the last FFT or Goertzel batch load against Simpson 1/3 integration at its first frequency,
+     * or {@link Double#NaN} if no batch load has been checked yet
+     *
+     * @see #CHECK_BATCH_LOAD_SIMPSON_ERROR
+     * */
+    public double getLastBatchLoadSimpsonError() {
+        return mLastBatchLoadSimpsonError;
+    }
+
     @Override
     public void clearAndResetSync() {
         cancelLoad(true);
@@ -629,16 +923,26 @@ public class StandardRotorStateManager extends ComplexDomainFunctionWrapper impl
         updateRotorsCount(0, true);
         synchronized (storeLock) {
             mStore.clear();
+            mRotorTable = null;
         }
     }
 
+    @Override
+    public void clearAndRecomputeAsync() {
+        final int rotorCount = getRotorCount();
+        clearAndResetSync();
+        dropCoefficientTable();
+        setRotorCountAsync(rotorCount);
+    }
+
     @Override
     public int addRotorStates(Collection<RotorState> states) {
         if (CollectionUtil.isEmpty(states))
             return 0;
 
         synchronized (storeLock) {
-            states.forEach(s -> mStore.put(s.getFrequency(), s));
+            mStore.putAll(states);
+            mRotorTable = null;         // states of current rotors may be replaced
             return states.size();
         }
     }
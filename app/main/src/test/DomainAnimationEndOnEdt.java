@@ -0,0 +1,133 @@
+package test;
+
+import animation.animator.AbstractAnimator;
+import function.ComplexDomainFunctionWrapper;
+import function.internal.basic.CircleFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import provider.FunctionMeta;
+import provider.FunctionType;
+import rotor.RotorStateManager;
+import rotor.StandardRotorStateManager;
+import ui.panels.FourierSeriesPanel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Plays a path function domain animation in {@link AbstractAnimator.RepeatMode#END END} mode to completion, and checks that
+ * the end is reported to panel listeners on the EDT, although the animator is stepped on the simulation clock thread.<br>
+ * Then replays it while the end is still pending on the EDT, and checks that the late end does not stop the replay<br>
+ * <br>
+ * Exits with status 1 on failure
+ * */
+public class DomainAnimationEndOnEdt {
+
+    private static final long ANIMATION_DURATION_MS = 300;
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static void fail(@NotNull String msg) {
+        System.err.println("FAILED: " + msg);
+        System.exit(1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Short animation, so that the test ends quickly
+        final ComplexDomainFunctionWrapper function = new ComplexDomainFunctionWrapper(new CircleFunction()) {
+            @Override
+            public long getDomainAnimationDurationMsDefault() {
+                return ANIMATION_DURATION_MS;
+            }
+        };
+
+        final StandardRotorStateManager manager = new StandardRotorStateManager(function, new FunctionMeta(FunctionType.INTERNAL_PATH, "Circle"), 10, false);
+        manager.setRotorCountSync(10, null, null);
+        if (manager.getDefaultRepeatMode() != AbstractAnimator.RepeatMode.END)
+            fail("path functions are expected to default to END repeat mode");
+
+        final CountDownLatch ended = new CountDownLatch(1);
+        final AtomicBoolean startedOnEdt = new AtomicBoolean(), endedOnEdt = new AtomicBoolean(), lastPlaying = new AtomicBoolean();
+
+        final FourierSeriesPanel.PanelListener listener = new FourierSeriesPanel.PanelListener() {
+            @Override
+            public void onIsPlayingChanged(boolean playing) {
+                lastPlaying.set(playing);
+                if (playing) {
+                    startedOnEdt.set(EventQueue.isDispatchThread());
+                } else {
+                    endedOnEdt.set(EventQueue.isDispatchThread());
+                    ended.countDown();
+                }
+            }
+
+            @Override
+            public void onDrawingAsWaveChanged(boolean drawingAsWave) { }
+
+            @Override
+            public void onYInvertedChanged(boolean yInverted) { }
+
+            @Override
+            public void onXInvertedChanged(boolean xInverted) { }
+
+            @Override
+            public void onGraphInCenterChanged(boolean graphInCenter) { }
+
+            @Override
+            public void onDomainAnimationSpeedChanged(int percent) { }
+
+            @Override
+            public void onRotorStateManagerChanged(@Nullable RotorStateManager old, @NotNull RotorStateManager _new) { }
+        };
+
+        final FourierSeriesPanel[] panel = new FourierSeriesPanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0] = new FourierSeriesPanel(manager);
+            panel[0].addPanelListener(listener);
+            panel[0].getSimulationClock().start();          // not displayable, so not started by addNotify
+            panel[0].setPlay(true);
+        });
+
+        if (!panel[0].isPlaying())
+            fail("animation did not start");
+
+        if (!ended.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+            fail("animation did not end within " + TIMEOUT_MS + " ms");
+
+        if (!startedOnEdt.get())
+            fail("start reported off the EDT");
+        if (!endedOnEdt.get())
+            fail("end reported off the EDT, on " + Thread.currentThread().getName());
+
+        System.out.println("OK  END mode animation ended, listeners notified on the EDT");
+
+        // Replay right after the end, before the end posted by the clock thread is handled
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0].setPlay(true);
+            if (!panel[0].isPlaying())
+                fail("animation did not restart");
+
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (panel[0].isPlaying()) {          // holds the EDT, so the end stays pending
+                if (System.currentTimeMillis() > deadline)
+                    fail("replayed animation did not end within " + TIMEOUT_MS + " ms");
+                Thread.onSpinWait();
+            }
+
+            panel[0].setPlay(true);
+        });
+
+        Thread.sleep(ANIMATION_DURATION_MS / 3);
+        SwingUtilities.invokeAndWait(() -> {
+            if (!panel[0].isPlaying() || !panel[0].getSimulationClock().isRunning() || !lastPlaying.get())
+                fail("late end stopped the replay (playing: " + panel[0].isPlaying() + ", clock running: " + panel[0].getSimulationClock().isRunning() + ", reported playing: " + lastPlaying.get() + ")");
+
+            panel[0].getSimulationClock().stop();
+        });
+
+        System.out.println("OK  replay right after the end keeps playing");
+        System.exit(0);
+    }
+}
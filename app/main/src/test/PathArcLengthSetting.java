@@ -0,0 +1,90 @@
+package test;
+
+import app.Settings;
+import function.definition.ComplexDomainFunctionI;
+import function.path.PathFunctionMerger;
+import function.path.PathSegments;
+import org.jetbrains.annotations.NotNull;
+import provider.FunctionMeta;
+import provider.FunctionType;
+import provider.PathFunctionProvider;
+
+import java.awt.geom.Path2D;
+import java.io.StringReader;
+
+/**
+ * Toggles the arc length parameterization {@link Settings#setPathArcLengthParameterized(boolean) setting}, and checks that
+ * a {@link PathFunctionProvider path function provider} loads its path again with the new parameterization, and that the
+ * setting survives a json round trip<br>
+ * <br>
+ * Settings are not saved. Exits with status 1 on failure
+ * */
+public class PathArcLengthSetting {
+
+    /* Segments of lengths 100, 1 and sqrt(10001) */
+    private static final double ARC_LENGTH = 101 + Math.sqrt(10001);
+
+    @NotNull
+    private static PathSegments createTriangle() {
+        final Path2D path = new Path2D.Double();
+        path.moveTo(0, 0);
+        path.lineTo(100, 0);
+        path.lineTo(100, 1);
+        path.closePath();
+        return PathSegments.of(path);
+    }
+
+    private static void fail(@NotNull String msg) {
+        System.err.println("FAILED: " + msg);
+        System.exit(1);
+    }
+
+    @NotNull
+    private static PathFunctionMerger requireMerger(@NotNull PathFunctionProvider provider) throws Exception {
+        final ComplexDomainFunctionI f = provider.requireFunction();
+        if (!(f instanceof PathFunctionMerger merger)) {
+            fail("path provider loaded " + f.getClass().getName());
+            throw new AssertionError();
+        }
+
+        return merger;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Settings settings = Settings.getSingleton();
+        final PathFunctionProvider provider = new PathFunctionProvider(new FunctionMeta(FunctionType.EXTERNAL_PATH, "Triangle"), createTriangle());
+
+        settings.setPathArcLengthParameterized(false);
+        final PathFunctionMerger uniform = requireMerger(provider);
+        if (uniform.isArcLengthParameterized())
+            fail("arc length parameterized while the setting is off");
+        if (requireMerger(provider) != uniform)
+            fail("path loaded again although the setting did not change");
+
+        settings.setPathArcLengthParameterized(true);
+        if (!PathFunctionMerger.isArcLengthParameterizedCurrentDefault())
+            fail("setting not applied to path functions");
+
+        final PathFunctionMerger arcLength = requireMerger(provider);
+        if (arcLength == uniform || !arcLength.isArcLengthParameterized())
+            fail("path not loaded again with arc length parameterization");
+        if (Math.abs(arcLength.getArcLength() - ARC_LENGTH) > 1e-9 * ARC_LENGTH)
+            fail("arc length " + arcLength.getArcLength() + ", expected " + ARC_LENGTH);
+
+        // Halfway through the domain: end of first segment when uniform, halfway along the path when arc length parameterized
+        final double mid = (uniform.getDomainStart() + uniform.getDomainEnd()) / 2;
+        if (uniform.compute(mid).subtract(arcLength.compute(mid)).abs() < 1e-6)
+            fail("parameterization does not change the function");
+
+        final Settings loaded = Settings.loadFromJson(new StringReader(settings.toJsonString()));
+        if (!Boolean.TRUE.equals(loaded.getPathArcLengthParameterized()))
+            fail("setting lost in json round trip: " + settings.toJsonString());
+
+        settings.setPathArcLengthParameterized(false);
+        if (requireMerger(provider).isArcLengthParameterized())
+            fail("path not loaded again when the setting is turned off");
+
+        System.out.println("OK  arc length setting reloads path functions and survives json round trip");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,157 @@
+package test;
+
+import org.apache.commons.math3.complex.Complex;
+import org.jetbrains.annotations.NotNull;
+import provider.FunctionType;
+import rotor.FunctionState;
+import rotor.RotorState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Round trip of rotor states through the binary (.rsb), JSON and CSV formats<br>
+ * <br>
+ * Writes the same {@link FunctionState} in all three formats, reads each back and checks that frequencies, magnitudes
+ * and phases are identical (bit for bit):
+ * <pre>
+ *     binary, JSON         stored polar coefficients and metadata, against the original state
+ *     binary, CSV          rotor states read back, against each other
+ *     header               header only loads of binary and JSON, against the original state
+ * </pre>
+ * Exits with status 1 on the first mismatch
+ * */
+public class RotorStatesFormatRoundTrip {
+
+    private static final int[] ROTOR_STATES_COUNTS = { 0, 1, 1000, 100000 };
+
+    @NotNull
+    private static FunctionState createState(int count, @NotNull Random random) {
+        final List<RotorState> states = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int k = ((i & 1) == 0? 1: -1) * ((i + 1) >> 1);
+            final double frequency = (i % 3 == 0)? k: k + random.nextDouble() - 0.5;      // harmonic and off-grid
+            states.add(new RotorState(frequency, new Complex(random.nextGaussian() / (i + 1), random.nextGaussian() / (i + 1))));
+        }
+
+        final FunctionState state = new FunctionState(System.currentTimeMillis(), "Round Trip " + count, FunctionType.EXTERNAL_ROTOR_STATE, null,
+                -Math.PI, Math.E, 12000, null, null, 1000, 60000, 8000, Math.min(count, 500), states);
+        state.setSerializeRotorStates(true);
+        return state;
+    }
+
+    private static void check(boolean ok, @NotNull String what) {
+        if (!ok) {
+            System.err.println("MISMATCH: " + what);
+            System.exit(1);
+        }
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    private static void checkMeta(@NotNull FunctionState expected, @NotNull FunctionState actual, @NotNull String format) {
+        check(expected.saveTimestamp == actual.saveTimestamp, format + " save timestamp");
+        check(Objects.equals(expected.functionName, actual.functionName), format + " function name");
+        check(expected.functionType == actual.functionType, format + " function type");
+        check(same(expected.domainStart, actual.domainStart) && same(expected.domainEnd, actual.domainEnd), format + " domain");
+        check(expected.numericalIntegrationIntervalCount == actual.numericalIntegrationIntervalCount, format + " integration interval count");
+        check(expected.domainAnimationMillsMin == actual.domainAnimationMillsMin
+                && expected.domainAnimationMillsMax == actual.domainAnimationMillsMax
+                && expected.domainAnimationMillsDefault == actual.domainAnimationMillsDefault, format + " domain animation durations");
+        check(expected.rotorCount == actual.rotorCount, format + " rotor count");
+    }
+
+    private static void checkCoefficients(@NotNull FunctionState expected, @NotNull FunctionState actual, @NotNull String format) {
+        final Map<Double, FunctionState.RotorCoefficient> e = expected.getAllRotorStates();
+        final Map<Double, FunctionState.RotorCoefficient> a = actual.getAllRotorStates();
+        if (e == null || a == null) {
+            check(e == a, format + " rotor states presence");
+            return;
+        }
+
+        check(e.size() == a.size(), format + " rotor states count " + a.size() + ", expected " + e.size());
+
+        final Iterator<Map.Entry<Double, FunctionState.RotorCoefficient>> ei = e.entrySet().iterator();
+        final Iterator<Map.Entry<Double, FunctionState.RotorCoefficient>> ai = a.entrySet().iterator();
+        while (ei.hasNext()) {
+            final Map.Entry<Double, FunctionState.RotorCoefficient> x = ei.next(), y = ai.next();
+            check(same(x.getKey(), y.getKey()), format + " frequency " + y.getKey() + ", expected " + x.getKey());
+            check(same(x.getValue().magnitude(), y.getValue().magnitude()), format + " magnitude at frequency " + x.getKey());
+            check(same(x.getValue().phase(), y.getValue().phase()), format + " phase at frequency " + x.getKey());
+        }
+    }
+
+    private static void checkRotorStates(@NotNull List<RotorState> expected, @NotNull List<RotorState> actual, @NotNull String format) {
+        check(expected.size() == actual.size(), format + " rotor states count " + actual.size() + ", expected " + expected.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            final RotorState x = expected.get(i), y = actual.get(i);
+            check(same(x.getFrequency(), y.getFrequency()), format + " frequency at index " + i);
+            check(same(x.getMagnitudeScale(), y.getMagnitudeScale()), format + " magnitude at index " + i);
+            check(same(x.getCoefficientArgument(), y.getCoefficientArgument()), format + " phase at index " + i);
+        }
+    }
+
+    private static void roundTrip(@NotNull Path dir, int count, @NotNull Random random) throws IOException {
+        final FunctionState state = createState(count, random);
+
+        final Path binary = dir.resolve("states_" + count + ".rsb");
+        final Path json = dir.resolve("states_" + count + ".json");
+        final Path csv = dir.resolve("states_" + count + ".csv");
+        state.writeRotorStatesAsBinary(binary);
+        state.writeJson(json);
+        state.writeRotorStatesASCSV(csv);
+
+        // Stored coefficients and metadata
+        final FunctionState fromBinary = FunctionState.loadFromBinary(binary);
+        checkMeta(state, fromBinary, "binary");
+        checkCoefficients(state, fromBinary, "binary");
+
+        final FunctionState fromJson = FunctionState.loadFromJson(json, false).loadDeferred();
+        checkMeta(state, fromJson, "json");
+        checkCoefficients(state, fromJson, "json");
+
+        // Header only, rotor states read on first use
+        for (Path file: new Path[] { binary, json }) {
+            final String format = "header " + file.getFileName();
+            final FunctionState header = FunctionState.loadHeader(file);
+            checkMeta(state, header, format);
+            checkCoefficients(state, header, format);
+        }
+
+        // Rotor states, as loaded into a rotor state manager
+        final List<RotorState> binaryStates = FunctionState.readRotorStatesFromBinary(binary);
+        checkRotorStates(binaryStates, FunctionState.readRotorStatesFromCSV(csv), "csv");
+
+        System.out.printf("OK  %6d rotor states | binary %,10d B | json %,10d B | csv %,10d B%n",
+                count, Files.size(binary), Files.size(json), Files.size(csv));
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Path dir = Files.createTempDirectory("rotor_states_round_trip");
+        final Random random = new Random(42);
+
+        try {
+            for (int count: ROTOR_STATES_COUNTS) {
+                roundTrip(dir, count, random);
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file: (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+
+            Files.deleteIfExists(dir);
+        }
+    }
+}
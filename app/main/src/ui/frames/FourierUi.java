@@ -22,7 +22,6 @@ import async.Canceller;
 import util.PathFunctionManager;
 
 import javax.swing.*;
-import javax.swing.Timer;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import java.awt.*;
@@ -66,7 +65,6 @@ public class FourierUi extends BaseFrame implements RotorStateManager.Listener,
 
 
     @NotNull
-    private final Timer looper;
     final FourierSeriesPanel fsPanel;
 
     final JPanel controlPanel;
@@ -130,10 +128,7 @@ public class FourierUi extends BaseFrame implements RotorStateManager.Listener,
         super();
         setTitle(title == null || title.isEmpty()? R.TITLE_MAIN : title);
 
-        looper = Ui.createLooper(null);
-
         fsPanel = new FourierSeriesPanel(new RotorStateManager.NoOp());
-        looper.addActionListener(Ui.actionListener(fsPanel));
 
         // Function
         functionProviders = new FunctionProviderList(Providers.ALL_INTERNAL_FUNCTIONS, -1);
@@ -425,8 +420,6 @@ public class FourierUi extends BaseFrame implements RotorStateManager.Listener,
         setFocusable(true);
         setResizable(true);
 
-        // Start Looper
-        looper.start();
         setVisible(true);
 
         EventQueue.invokeLater(() -> {
@@ -1035,9 +1028,14 @@ public class FourierUi extends BaseFrame implements RotorStateManager.Listener,
             return;
 
         // todo show message loading with cancel option
-        final Canceller c = PathFunctionManager.loadExternalPathFunctionsAsync(R.DIR_EXTERNAL_PATH_FUNCTIONS, res -> {
+        // functions are listed in directory walk order while loading, rather than all at the end
+        final Canceller c = PathFunctionManager.loadExternalPathFunctionsAsync(R.DIR_EXTERNAL_PATH_FUNCTIONS, (file, provider, completed, total) -> {
+            if (provider != null) {
+                functionProviders.add(provider, true);
+            }
+        }, res -> {
             if (res != null) {
-                functionProviders.addAll(res.getFunctionProviders());
+                Log.v(TAG, "loaded " + res.successFiles() + " default path functions, failed " + res.failedFiles());
             }
         });
     }
@@ -1092,6 +1090,13 @@ public class FourierUi extends BaseFrame implements RotorStateManager.Listener,
     public void onRotorsLoadFinished(@NotNull RotorStateManager manager, int count, boolean cancelled) {
     }
 
+    @Override
+    public void onRotorsLoadProgress(@NotNull RotorStateManager manager, int loaded, int total) {
+        if (manager.isLoading() && total > 0) {
+            setTitle(Ui.getWindowTitle(R.TITLE_MAIN, manager, (int) (loaded * 100L / total)));
+        }
+    }
+
     @Override
     public void onRotorsCountChanged(@NotNull RotorStateManager manager, int prevCount, int newCount) {
         updateRotorCountUi(fsPanel.getConstrainedRotorCount());
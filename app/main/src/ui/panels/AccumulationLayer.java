@@ -0,0 +1,142 @@
+package ui.panels;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * Offscreen image accumulating already rasterized content of a component, e.g. a trail that only grows<br>
+ * <br>
+ * Content stays valid as long as the layer key (transform, size, colors, strokes...) is unchanged, so each frame only
+ * rasterizes what is new since the {@link #getProgress() progress} marker, then {@link #drawTo(Graphics2D) blits} the layer.
+ * Any key change clears the layer, and the caller redraws everything.
+ * <br>
+ * The image has the device resolution of the component (including HiDPI scale), and is blitted pixel to pixel.
+ * A {@link BufferedImage} is used rather than a {@link java.awt.image.VolatileImage}: antialiased shapes are rasterized in
+ * software anyway, and volatile contents can be lost at any time, which would force full redraws.
+ * <br>
+ * Confined to the paint thread
+ * */
+final class AccumulationLayer {
+
+    @Nullable
+    private BufferedImage mImage;
+    @Nullable
+    private Object mKey;
+    private long mProgress;
+    private double mOriginX, mOriginY;
+
+    /**
+     * @param base transform of the component graphics, before any transform by the component
+     * @param transform transform content is drawn with, in the component graphics
+     * @return transform to draw the same content into this layer. Independent of the component location
+     * */
+    @NotNull
+    static AffineTransform layerTransform(@NotNull AffineTransform base, @NotNull AffineTransform transform) {
+        final AffineTransform t = AffineTransform.getTranslateInstance(-base.getTranslateX(), -base.getTranslateY());
+        t.concatenate(transform);
+        return t;
+    }
+
+    /**
+     * Prepares the layer for a frame, clearing it if the key or size changed
+     *
+     * @param base transform of the component graphics, before any transform by the component
+     * @param width component width
+     * @param height component height
+     * @param key everything the content depends on, compared by {@link Object#equals(Object)}. Should include the
+     *            {@link #layerTransform(AffineTransform, AffineTransform) layer transform}
+     * @return whether current content (up to {@link #getProgress() progress}) is still valid
+     * */
+    boolean validate(@NotNull AffineTransform base, int width, int height, @NotNull Object key) {
+        final int w = Math.max(1, (int) Math.ceil(width * Math.abs(base.getScaleX())));
+        final int h = Math.max(1, (int) Math.ceil(height * Math.abs(base.getScaleY())));
+        mOriginX = base.getTranslateX();
+        mOriginY = base.getTranslateY();
+
+        BufferedImage image = mImage;
+        if (image == null || image.getWidth() != w || image.getHeight() != h) {
+            final GraphicsConfiguration gc = GraphicsEnvironment.isHeadless()? null: GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            image = gc != null? gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT): new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+            mImage = image;
+            mKey = key;
+            mProgress = Long.MIN_VALUE;
+            return false;
+        }
+
+        if (Objects.equals(mKey, key))
+            return true;
+
+        clear(image);
+        mKey = key;
+        mProgress = Long.MIN_VALUE;
+        return false;
+    }
+
+    private static void clear(@NotNull BufferedImage image) {
+        final Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.dispose();
+    }
+
+    /**
+     * @return how far content has been drawn, as set by the caller. {@link Long#MIN_VALUE} once invalidated
+     * */
+    long getProgress() {
+        return mProgress;
+    }
+
+    void setProgress(long progress) {
+        mProgress = progress;
+    }
+
+    /**
+     * Graphics to draw into the layer, as if drawing into the component with given transform. Must be {@link #validate validated} first
+     *
+     * @param source component graphics, to copy rendering hints from
+     * @param transform transform the content would be drawn with in the component graphics
+     * */
+    @NotNull
+    Graphics2D createGraphics(@NotNull Graphics2D source, @NotNull AffineTransform transform) {
+        final BufferedImage image = Objects.requireNonNull(mImage, "Accumulation layer not validated");
+        final Graphics2D g = image.createGraphics();
+        g.setRenderingHints(source.getRenderingHints());
+
+        final AffineTransform t = AffineTransform.getTranslateInstance(-mOriginX, -mOriginY);
+        t.concatenate(transform);
+        g.setTransform(t);
+        return g;
+    }
+
+    /**
+     * Draws the layer into the component graphics, pixel to pixel. Restores the transform of {@code g}
+     * */
+    void drawTo(@NotNull Graphics2D g) {
+        final BufferedImage image = mImage;
+        if (image == null)
+            return;
+
+        final AffineTransform prev = g.getTransform();
+        g.setTransform(AffineTransform.getTranslateInstance(mOriginX, mOriginY));
+        g.drawImage(image, 0, 0, null);
+        g.setTransform(prev);
+    }
+
+    /**
+     * Drops content and memory, e.g. when the layer is not used anymore
+     * */
+    void release() {
+        final BufferedImage image = mImage;
+        mImage = null;
+        mKey = null;
+        mProgress = Long.MIN_VALUE;
+        if (image != null) {
+            image.flush();
+        }
+    }
+}
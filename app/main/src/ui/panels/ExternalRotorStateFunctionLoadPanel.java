@@ -24,7 +24,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 /**
- * Loads a new {@link function.RotorStatesFunction} from CSV file
+ * Loads a new {@link function.RotorStatesFunction} from CSV or binary file
  *
  * @see ExternalRotorStatesLoadPanel
  * */
@@ -157,9 +157,9 @@ public class ExternalRotorStateFunctionLoadPanel extends JPanel {
                 .setStartDir(R.DIR_FUNCTION_STATE_SAVES)
                 .setUseAcceptAllFIleFilter(false)
                 .setFileHidingEnabled(false)
-                .setChoosableFileFilters(R.EXT_ROTOR_STATES_CSV_FILE_FILTER)
+                .setChoosableFileFilters(R.EXT_ROTOR_STATES_CSV_FILE_FILTER, R.EXT_ROTOR_STATES_BINARY_FILE_FILTER)
                 .setApproveButtonText("Load")
-                .setApproveButtonTooltipText("Load Rotor State Function from CSV file")
+                .setApproveButtonTooltipText("Load Rotor State Function from CSV or binary file")
                 .build();
 
         final File[] files = config.showFIleChooser(parent.getFrame());
@@ -190,7 +190,7 @@ public class ExternalRotorStateFunctionLoadPanel extends JPanel {
         }
 
         // todo: show snackbar loading
-        final Canceller c = FunctionState.readRotorStatesFromCSVAsync(file, new TaskConsumer<>() {
+        final Canceller c = FunctionState.readRotorStatesAsync(file, new TaskConsumer<>() {
             @Override
             public void onFailed(@Nullable Throwable t) {
                 Log.e(TAG, "failed to load rotor states from file: " + file, t);
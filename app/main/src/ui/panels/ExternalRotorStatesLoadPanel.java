@@ -22,7 +22,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 /**
- * Loads Rotor States from a CSV file for an existing function
+ * Loads Rotor States from a CSV or binary file for an existing function
  *
  * @see ExternalRotorStateFunctionLoadPanel
  * */
@@ -81,7 +81,7 @@ public class ExternalRotorStatesLoadPanel extends JPanel {
                 .setStartDir(R.DIR_FUNCTION_STATE_SAVES)
                 .setUseAcceptAllFIleFilter(false)
                 .setFileHidingEnabled(false)
-                .setChoosableFileFilters(R.EXT_ROTOR_STATES_CSV_FILE_FILTER)
+                .setChoosableFileFilters(R.EXT_ROTOR_STATES_CSV_FILE_FILTER, R.EXT_ROTOR_STATES_BINARY_FILE_FILTER)
                 .setApproveButtonText("Load")
                 .setApproveButtonTooltipText("Load Rotor States from file")
                 .build();
@@ -119,7 +119,7 @@ public class ExternalRotorStatesLoadPanel extends JPanel {
         }
 
         // todo: show snackbar loading
-        final Canceller c = FunctionState.readRotorStatesFromCSVAsync(file, new TaskConsumer<>() {
+        final Canceller c = FunctionState.readRotorStatesAsync(file, new TaskConsumer<>() {
             @Override
             public void onFailed(@Nullable Throwable t) {
                 Log.e(TAG, "failed to load rotor states from file: " + file, t);
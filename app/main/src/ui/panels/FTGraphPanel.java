@@ -68,7 +68,8 @@ public class FTGraphPanel extends XChartPanel<XYChart> {
                 new None(),
                 null,
                 null,
-                null
+                null,
+                XYSeries.Decimation.MIN_MAX
         ),
 
         CURRENT(name -> "Current " + name,
@@ -76,7 +77,8 @@ public class FTGraphPanel extends XChartPanel<XYChart> {
                 new Circle(),
                 null,
                 null,
-                null
+                null,
+                XYSeries.Decimation.NONE
         );
 
         @NotNull
@@ -91,14 +93,17 @@ public class FTGraphPanel extends XChartPanel<XYChart> {
         public final Color lineColor;
         @Nullable
         public final Color markerColor;
+        @NotNull
+        public final XYSeries.Decimation decimation;
 
-        SeriesType(@NotNull Function<String, String> mapperNameToSeriesName, boolean showInLegend, @Nullable Marker marker, XYSeries.XYSeriesRenderStyle renderStyle, @Nullable Color lineColor, @Nullable Color markerColor) {
+        SeriesType(@NotNull Function<String, String> mapperNameToSeriesName, boolean showInLegend, @Nullable Marker marker, XYSeries.XYSeriesRenderStyle renderStyle, @Nullable Color lineColor, @Nullable Color markerColor, @NotNull XYSeries.Decimation decimation) {
             this.mapperNameToSeriesName = mapperNameToSeriesName;
             this.showInLegend = showInLegend;
             this.marker = marker;
             this.renderStyle = renderStyle;
             this.lineColor = lineColor;
             this.markerColor = markerColor;
+            this.decimation = decimation;
         }
 
         @NotNull
@@ -768,6 +773,8 @@ public class FTGraphPanel extends XChartPanel<XYChart> {
                     xySeries.setXYSeriesRenderStyle(type.renderStyle);
                 }
 
+                xySeries.setDecimation(type.decimation);
+
                 if (type == SeriesType.MAIN) {
                     xySeries.setColorFilter(mainColorFilter);
                 } else {
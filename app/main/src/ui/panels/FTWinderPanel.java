@@ -14,6 +14,7 @@ import misc.MathUtil;
 import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import rotor.EpicycleKernel;
 import rotor.RotorState;
 import rotor.RotorStateManager;
 import rotor.frequency.RotorFrequencyProviderI;
@@ -21,6 +22,8 @@ import ui.action.ActionInfo;
 import live.Listeners;
 import ui.util.Ui;
 import util.main.ComplexUtil;
+import util.main.FunctionSampleCache;
+import util.main.FunctionSamples;
 import xchart.XChartPanel;
 
 import javax.swing.*;
@@ -28,11 +31,11 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.function.Consumer;
 
 public class FTWinderPanel extends JPanel implements Runnable, Flaggable {
@@ -247,6 +250,22 @@ public class FTWinderPanel extends JPanel implements Runnable, Flaggable {
 //    private final Set<RotorState> rotorStates = new TreeSet<>(RotorState.COMPARATOR_FREQ_ASC);
 
     private volatile int mFlags = DEFAULT_FLAGS;
+
+    /* Wound samples buffer, confined to the paint thread */
+    private double @NotNull[] mWoundSamples = new double[0];
+
+    /**
+     * Everything the wound curve depends on. The curve is wound and drawn into {@link #mWindingLayer} only when this changes,
+     * i.e. on rotor, sample, resize or style change
+     * */
+    private record WindingLayerKey(@Nullable FunctionSamples samples, double frequency, @NotNull AffineTransform transform,
+                                   int width, int height, boolean joinPoints, @NotNull Color color, @Nullable Object antialiasing) {
+    }
+
+    /* Curve of the current rotor, and its scale. Confined to the paint thread */
+    @NotNull
+    private final AccumulationLayer mWindingLayer = new AccumulationLayer();
+    private double mWindingBaseScale;
 //    private double mPrevBaseScale = -1;
 
     private final Listeners<Listener> listeners = new Listeners<>();
@@ -577,47 +596,16 @@ public class FTWinderPanel extends JPanel implements Runnable, Flaggable {
             g.drawString(String.format("Frequency: %.2f", freq), 20, 26);
 
             final ComplexDomainFunctionI baseFunction = manager.getFunction();
-            final ComplexDomainFunctionI ftFunction = ComplexUtil.fourierTransformIntegrand(baseFunction, freq);
 
-            // Creating Samples
-            int intervals = ftFunction.getNumericalIntegrationIntervalCount();
+            // Samples (shared), wound around the origin at rotor frequency
+            int intervals = baseFunction.getNumericalIntegrationIntervalCount();
             if (intervals < 1) {
                 intervals = DEFAULT_INTERVAL_COUNT;
             }
 
-            final double dStart = ftFunction.getDomainStart();
-            final double dStep = ftFunction.getDomainRange() / intervals;
-
-            double input = dStart;
-            double minReal = Double.MAX_VALUE;
-            double maxReal = Double.MIN_VALUE;
-            double minImg = Double.MAX_VALUE;
-            double maxImg = Double.MIN_VALUE;
-
-            final LinkedList<Complex> samples = new LinkedList<>();
-
-            for (int i=0; i <= intervals; i++) {
-                final Complex value = ftFunction.compute(input);
-                samples.add(value);
-
-                double real = value.getReal();
-                double img = value.getImaginary();
-
-                if (real > maxReal) {
-                    maxReal = real;
-                } else if (real < minReal) {
-                    minReal = real;
-                }
-
-                if (img > maxImg) {
-                    maxImg = img;
-                } else if (img < minImg) {
-                    minImg = img;
-                }
-                input += dStep;
-            }
-
+            final FunctionSamples functionSamples = FunctionSampleCache.get(baseFunction, intervals, null);
 
+            final AffineTransform base = g.getTransform();
             g.translate(width / 2, height / 2);
             g.scale(1, -1);
 
@@ -629,34 +617,23 @@ public class FTWinderPanel extends JPanel implements Runnable, Flaggable {
                 g.draw(new Line2D.Double(new Point2D.Float(0, -height / 2f), new Point2D.Float(0, height / 2f)));      // Y-axis
             }
 
-            // Draw wave
-            g.setColor(Colors.getDynamicWaveColor(manager.getId()));
-            g.setStroke(STROKE_WAVE);
-
-            double baseScale = Math.abs(Math.min(width, height) / Math.max(maxReal - minReal, maxImg - minImg)) * 0.45;
-//            final double prevBaseScale = mPrevBaseScale;
-//            if (prevBaseScale == -1) {
-//                mPrevBaseScale = baseScale;
-//            } else {
-//                double del = (baseScale / prevBaseScale) - 1;
-//                if (del < 0.2 && del > -0.1) {
-//                    baseScale = prevBaseScale;      // ignore
-//                }
-//            }
-
-            final ListIterator<Complex> itr = samples.listIterator();
-            Point2D prev = null;
+            // Draw wave, wound and rasterized again only if something changed
+            final Color waveColor = Colors.getDynamicWaveColor(manager.getId());
             final boolean joinPoints = hasAnyFlag(FLAG_JOIN_POINTS);
-
-            while (itr.hasNext()) {
-//                final int index = itr.nextIndex();
-                final Complex val = itr.next();
-
-                final Point2D point = parseWavePoint(val, baseScale);
-                g.draw(new Line2D.Double(joinPoints && prev != null? prev: point, point));
-                prev = point;
+            final WindingLayerKey key = new WindingLayerKey(functionSamples, freq, AccumulationLayer.layerTransform(base, g.getTransform()),
+                    width, height, joinPoints, waveColor, g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+
+            if (!mWindingLayer.validate(base, width, height, key)) {
+                final Graphics2D lg = mWindingLayer.createGraphics(g, g.getTransform());
+                lg.setColor(waveColor);
+                lg.setStroke(STROKE_WAVE);
+                mWindingBaseScale = drawWound(lg, functionSamples, freq, width, height, joinPoints);
+                lg.dispose();
             }
 
+            mWindingLayer.drawTo(g);
+            final double baseScale = mWindingBaseScale;
+
             if (hasAnyFlag(FLAG_DRAW_COM)) {
                 g.setColor(Colors.COLOR_CENTER_OF_MASS);
                 g.setStroke(STROKE_CENTER_OF_MASS);
@@ -692,6 +669,59 @@ public class FTWinderPanel extends JPanel implements Runnable, Flaggable {
 //        }
 //    }
 
+    /**
+     * Winds the samples around the origin at given frequency, and draws them scaled to fit
+     *
+     * @return scale of the drawn curve
+     * */
+    private double drawWound(@NotNull Graphics2D g, @Nullable FunctionSamples functionSamples, double freq, int width, int height, boolean joinPoints) {
+        final int sampleCount = functionSamples != null? functionSamples.getSampleCount(): 0;
+
+        double[] samples = mWoundSamples;
+        if (samples.length < (sampleCount << 1)) {
+            samples = new double[sampleCount << 1];
+            mWoundSamples = samples;
+        }
+
+        if (functionSamples != null) {
+            EpicycleKernel.wind(functionSamples, ComplexUtil.getFourierExpTermPowerCoefficient(ComplexUtil.DIRECTION_FOURIER_TRANSFORM, freq), samples);
+        }
+
+        double minReal = Double.MAX_VALUE;
+        double maxReal = -Double.MAX_VALUE;
+        double minImg = Double.MAX_VALUE;
+        double maxImg = -Double.MAX_VALUE;
+
+        for (int i=0; i < sampleCount; i++) {
+            final double real = samples[i << 1];
+            final double img = samples[(i << 1) + 1];
+
+            minReal = Math.min(minReal, real);
+            maxReal = Math.max(maxReal, real);
+            minImg = Math.min(minImg, img);
+            maxImg = Math.max(maxImg, img);
+        }
+
+        final double baseScale = Math.abs(Math.min(width, height) / Math.max(maxReal - minReal, maxImg - minImg)) * 0.45;
+
+        final Line2D.Double line = new Line2D.Double();
+        double prevX = 0, prevY = 0;
+        for (int i=0; i < sampleCount; i++) {
+            final double x = samples[i << 1] * baseScale, y = samples[(i << 1) + 1] * baseScale;
+            if (joinPoints && i > 0) {
+                line.setLine(prevX, prevY, x, y);
+            } else {
+                line.setLine(x, y, x, y);
+            }
+
+            g.draw(line);
+            prevX = x;
+            prevY = y;
+        }
+
+        return baseScale;
+    }
+
     @NotNull
     private Point2D parseWavePoint(@NotNull Complex complex, double scale) {
         return new Point2D.Double(complex.getReal() * scale, complex.getImaginary() * scale);
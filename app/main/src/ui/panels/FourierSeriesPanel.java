@@ -3,21 +3,25 @@ package ui.panels;
 import animation.animator.AbstractAnimator;
 import animation.animator.Animator;
 import animation.animator.DoubleAnimator;
+import animation.clock.FixedStepClock;
+import animation.clock.FrameStats;
 import app.Colors;
 import app.R;
 import function.definition.DomainProviderI;
 import misc.Format;
 import misc.MathUtil;
-import models.ComplexBuilder;
 import models.Size;
 import models.Triangle;
 import org.apache.commons.math3.complex.Complex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import rotor.EpicycleKernel;
 import rotor.RotorState;
 import rotor.RotorStateManager;
+import rotor.RotorTable;
 import rotor.frequency.RotorFrequencyProviderI;
 import live.Listeners;
+import async.Async;
 import async.Consumer;
 import ui.util.Ui;
 
@@ -28,14 +32,17 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * {@link #setPlay(boolean)} to start
+ * <br>
+ * The domain is advanced on a dedicated simulation thread at a {@link #SIMULATION_STEP_NANOS fixed step}, which samples the
+ * final rotor tip into a lock-free {@link TipSampleBuffer buffer} at every step, and publishes the rotor state of its last
+ * step as a {@link SimulationFrame}. The EDT only renders the latest published frame, with the wave samples up to it
  * */
-public class FourierSeriesPanel extends JPanel implements Runnable {
+public class FourierSeriesPanel extends JPanel {
 
     public static final String TAG = "FourierPanel";
 
@@ -69,6 +76,29 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
 
     public static final boolean DRAW_CIRCULAR_TIP_JOINTS = true;
 
+    /**
+     * Level of detail: circles and tips of rotors smaller than these (in device pixels) are not drawn, and the radii of
+     * consecutive such rotors are merged into a single segment. The trailing run of such rotors is not even iterated
+     * (see {@link RotorTable#getTailStart(double)}), so draw cost scales with visible rotors
+     * */
+    public static final boolean LOD_ENABLED = true;
+    public static final double LOD_MIN_ROTOR_RADIUS_PIX = 1;
+    public static final double LOD_MIN_TIP_SIZE_PIX = 0.5;
+
+    /**
+     * Accumulate the trail in an offscreen {@link AccumulationLayer layer} when graphing in output space (not as wave, and not
+     * auto tracking), so that each frame only draws new points. The layer is redrawn on scale, drag, resize or color changes,
+     * and once {@link #WAVE_LAYER_PURGE_BATCH} points have been purged from the trail
+     * */
+    public static final boolean WAVE_LAYER_ENABLED = true;
+    public static final int WAVE_LAYER_PURGE_BATCH = Math.max(1, MAX_WAVE_POINTS / 100);
+
+    /**
+     * Simulation step, i.e. the rate at which the domain advances and wave points are sampled, regardless of frame rate
+     * */
+    public static final long SIMULATION_STEP_NANOS = FixedStepClock.DEFAULT_STEP_NANOS;
+    public static final boolean DRAW_FRAME_STATS = false;
+
     private static final double DEFAULT_TIP_SIZE_TO_RADIUS_RATIO = 0.1;
     private static final double DEFAULT_TIP_SIZE_TO_RADIUS_RATIO_CENTER = 0.11;
 
@@ -192,40 +222,6 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
 
 
 
-    private static class WavePoint {
-
-        public final double input;
-        @NotNull
-        public final Complex value;
-
-        @Nullable
-        private Color color;
-
-        private WavePoint(double input, @NotNull Complex value, @Nullable Color color) {
-            this.input = input;
-            this.value = value;
-            this.color = color;
-        }
-
-        private WavePoint(double input, @NotNull Complex value) {
-            this(input, value, null);
-        }
-
-        @Nullable
-        public Color getColor() {
-            return color;
-        }
-
-        public Color getColorOrDefault(Color defValue) {
-            return color != null? color : defValue;
-        }
-
-        public void setColor(@Nullable Color color) {
-            this.color = color;
-        }
-    }
-
-
     @NotNull
     private static DoubleAnimator createDomainAnimator(@NotNull DomainProviderI domainProvider) {
         final DoubleAnimator anim = new DoubleAnimator(domainProvider.getDomainStart(), domainProvider.getDomainEnd());
@@ -288,10 +284,15 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
     };
 
 
+    /**
+     * Domain animator callbacks. The animator is stepped on the simulation clock thread, where e.g. it ends, so its
+     * callbacks arrive posted to the EDT, after the play state may have changed again (e.g. replayed right after the end).
+     * Side effects touch Swing and panel listeners, so they never run off the EDT, and re-check the play state
+     * */
     private final Animator.AnimationListenerAdapter<Double> mDomainAnimListener = new Animator.AnimationListenerAdapter<>() {
         @Override
         public void onStarted(@NotNull Animator<Double> animator, boolean resumed) {
-            onIsPlayingChanged(true);
+            Async.postIfNotOnMainThread(() -> onIsPlayingChanged(true));
         }
 
         @Override
@@ -301,23 +302,36 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
 
         @Override
         public void onPaused(@NotNull Animator<Double> animator) {
-            onIsPlayingChanged(false);
+            Async.postIfNotOnMainThread(() -> {
+                if (!isPlaying()) {
+                    onIsPlayingChanged(false);
+                }
+            });
         }
 
         @Override
         public void onEnd(@NotNull Animator<Double> animator, AbstractAnimator.@NotNull EndMode endMode) {
-            if (AUTO_DISABLE_AUTO_TRACK_ON_END && isAutoTrackingInCenter()) {
-                setAutoTrackInCenter(false);
-            }
+            Async.postIfNotOnMainThread(() -> {
+                if (isPlaying())
+                    return;         // restarted meanwhile
+
+                if (AUTO_DISABLE_AUTO_TRACK_ON_END && isAutoTrackingInCenter()) {
+                    setAutoTrackInCenter(false);
+                }
 
-            onIsPlayingChanged(false);
+                onIsPlayingChanged(false);
+            });
         }
 
         @Override
         public void onReset(@NotNull Animator<Double> animator, boolean wasRunning) {
             Animator.AnimationListenerAdapter.super.onReset(animator, wasRunning);
             if (wasRunning) {
-                onIsPlayingChanged(false);
+                Async.postIfNotOnMainThread(() -> {
+                    if (!isPlaying()) {
+                        onIsPlayingChanged(false);
+                    }
+                });
             }
         }
 
@@ -327,12 +341,14 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
 
         @Override
         public void onDurationChanged(@NotNull Animator<Double> animator) {
-            FourierSeriesPanel.this.onDomainAnimationDurationChanged(animator.getDurationMs());
+            final long durationMs = animator.getDurationMs();
+            Async.postIfNotOnMainThread(() -> FourierSeriesPanel.this.onDomainAnimationDurationChanged(durationMs));
         }
 
         @Override
         public void onRepeatModeChanged(@NotNull Animator<Double> animator) {
-            FourierSeriesPanel.this.onRepeatModeChanged(animator.getRepeatMode());
+            final AbstractAnimator.RepeatMode repeatMode = animator.getRepeatMode();
+            Async.postIfNotOnMainThread(() -> FourierSeriesPanel.this.onRepeatModeChanged(repeatMode));
         }
     };
 
@@ -340,10 +356,50 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
 //    @NotNull
 //    private final Timer mLooper;
 
+    /* Set on the EDT, read once per step by the simulation thread */
+    @NotNull
+    private volatile RotorStateManager mRotorStateManager;
+    @NotNull
+    private final WaveTrail wave = new WaveTrail(MAX_WAVE_POINTS);
+
+    /* Epicycle evaluation, one per thread */
     @NotNull
-    private RotorStateManager mRotorStateManager;
+    private final PartialSumsEvaluator mPaintSums = new PartialSumsEvaluator();
+    @NotNull
+    private final PartialSumsEvaluator mSimulationSums = new PartialSumsEvaluator();
+
+    /**
+     * Everything the content of the wave layer depends on, besides the points
+     *
+     * @param purgeBatch oldest point sequence / {@link #WAVE_LAYER_PURGE_BATCH}, so purged points are erased in batches
+     * */
+    private record WaveLayerKey(@NotNull AffineTransform transform, double scaleX, double scaleY, boolean joinPoints,
+                                @NotNull Color color, @NotNull Stroke stroke, @Nullable Object antialiasing,
+                                long epoch, long purgeBatch) {
+    }
+
     @NotNull
-    private final LinkedList<WavePoint> wave = new LinkedList<>();
+    private final AccumulationLayer mWaveLayer = new AccumulationLayer();
+
+    /* Reused rotor shapes, confined to the paint thread */
+    @NotNull
+    private final Ellipse2D.Double mRotorEllipse = new Ellipse2D.Double();
+    @NotNull
+    private final Line2D.Double mRotorLine = new Line2D.Double();
+
+    /* Simulation */
+    @NotNull
+    private final FixedStepClock mSimulationClock = new FixedStepClock("FourierSimulation", SIMULATION_STEP_NANOS, FixedStepClock.DEFAULT_MAX_CATCH_UP_STEPS, new SimulationCallback());
+    @NotNull
+    private final TipSampleBuffer mTipSamples = new TipSampleBuffer();
+    @Nullable
+    private volatile SimulationFrame mSimulationFrame;
+    private volatile int mSimulationGeneration;
+    @NotNull
+    private final FrameStats mFrameStats = new FrameStats();
+    @NotNull
+    private final TipSampleBuffer.Sink mWaveSink = (input, x, y) -> addWavePoint(x, y, input);
+
     private boolean mDrawAsWave = DEFAULT_DRAW_AS_WAVE;
     private boolean mInvertX = DEFAULT_INVERT_X;
     private boolean mInvertY = DEFAULT_INVERT_Y;
@@ -589,11 +645,6 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
         return mInvertX? -x: x;
     }
 
-    @NotNull
-    private Complex transform(@NotNull Complex in) {
-        return new Complex(transformX(in.getReal()), transformY(in.getImaginary()));
-    }
-
 
 
     /* Scale */
@@ -783,13 +834,126 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
         return retrieveRotorStateImpl(index);
     }
 
+    /**
+     * Computes partial sums of rotor tips at the given input, i.e. tip position of each rotor when chained (unscaled),
+     * as interleaved {@code x, y} pairs.<br>
+     * Evaluated by the allocation free {@link EpicycleKernel} once current rotors are loaded. Confined to a single thread
+     * */
+    private final class PartialSumsEvaluator {
+
+        @Nullable
+        private EpicycleKernel mEpicycleKernel;
+        private double @NotNull[] mRotorPartialSums = new double[0];
+
+        /**
+         * @param manager rotor state manager to evaluate, read once by the caller so that all rotors come from the same manager
+         * @return reused buffer of at least {@code 2 * count} doubles, valid until next call
+         * */
+        private double @NotNull[] compute(@NotNull RotorStateManager manager, int count, double input) {
+            double[] sums = mRotorPartialSums;
+            if (sums.length < (count << 1)) {
+                sums = new double[count << 1];
+                mRotorPartialSums = sums;
+            }
+
+            final RotorTable table = manager.getRotorTable();
+            if (table != null && table.getCount() == count) {
+                EpicycleKernel kernel = mEpicycleKernel;
+                if (kernel == null || kernel.getTable() != table) {
+                    kernel = EpicycleKernel.of(table);
+                    mEpicycleKernel = kernel;
+                }
+
+                kernel.partialSums(input, sums);
+            } else {
+                // Rotors still loading
+                double x = 0, y = 0;
+                for (int i=0; i < count; i++) {
+                    final Complex tip = manager.getRotorState(i).getTip(input);
+                    x += tip.getReal();
+                    y += tip.getImaginary();
+                    sums[i << 1] = x;
+                    sums[(i << 1) + 1] = y;
+                }
+            }
+
+            return sums;
+        }
+    }
+
+    /**
+     * Rotor state at the last step of a simulation tick, immutable once published
+     *
+     * @param seq sequence of the frame, to detect frames never rendered
+     * @param manager rotor state manager the frame is computed from. Frames of another manager are stale
+     * @param generation {@link #mSimulationGeneration} when computed. Frames of older generations are stale
+     * @param tipSampleCount {@link TipSampleBuffer#getWrittenCount() tip samples written} up to this frame
+     * @param sums rotor partial sums, see {@link PartialSumsEvaluator}
+     * */
+    private record SimulationFrame(long seq, long simTimeNanos, @NotNull RotorStateManager manager, int generation, long tipSampleCount,
+                                   double input, int count, double @NotNull[] sums) {
+    }
+
+    private final class SimulationCallback implements FixedStepClock.Callback {
+
+        private long mSeq;
+        private int mCount;
+        private double mInput;
+        private double @Nullable[] mSums;
+        @Nullable
+        private RotorStateManager mManager;
+        private int mGeneration;
+
+        @Override
+        public void onStep(long simTimeNanos) {
+            // Generation first: the EDT swaps the manager before bumping the generation, so a step that sees a new
+            // generation also sees the new manager, and a step computed from a new manager under an old generation is dropped
+            final int generation = mSimulationGeneration;
+            final RotorStateManager manager = mRotorStateManager;
+            if (!mDomainAnimator.update(simTimeNanos))
+                return;
+
+            final int count = manager.getRotorCount();
+            if (count <= 0 || manager.isNoOp())
+                return;
+
+            final double input = mDomainAnimator.getCurrentValue();
+            final double[] sums = mSimulationSums.compute(manager, count, input);
+            final int last = (count - 1) << 1;
+            mTipSamples.offer(generation, input, sums[last], sums[last + 1]);
+
+            mManager = manager;
+            mCount = count;
+            mInput = input;
+            mSums = sums;
+            mGeneration = generation;
+        }
+
+        @Override
+        public void onStepsCompleted(long simTimeNanos, int steps) {
+            final double[] sums = mSums;
+            final RotorStateManager manager = mManager;
+            if (sums == null || manager == null)
+                return;         // nothing new
+
+            mSums = null;
+            mManager = null;
+            mSimulationFrame = new SimulationFrame(mSeq++, simTimeNanos, manager, mGeneration, mTipSamples.getWrittenCount(),
+                    mInput, mCount, Arrays.copyOf(sums, mCount << 1));
+            repaint();
+        }
+    }
+
     protected final void invalidateWave() {
+        mSimulationGeneration++;
+        mTipSamples.clear();
         wave.clear();
     }
 
 
     public void resetInput(boolean update) {
         mDomainAnimator.backToStart();
+        mSimulationGeneration++;
 
         if (update) {
             update();
@@ -837,18 +1001,20 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
     }
 
 
-    @NotNull
-    protected WavePoint createWavePoint(@NotNull Complex sum, double input, double baseRadius) {
-        return new WavePoint(input, sum.divide(baseRadius), mRotorStateManager.getFunction().getColor(input));
+    /**
+     * Appends the final tip (unscaled) as the newest wave point
+     * */
+    protected void addWavePoint(double sumX, double sumY, double input) {
+        wave.add(sumX, sumY, mRotorStateManager.getFunction().getColor(input));
     }
 
     @NotNull
-    protected Point2D parseWavePoint(int index, @NotNull WavePoint wp, double baseRadius) {
+    protected Point2D parseWavePoint(int index, double x, double y, double baseRadius) {
         if (mDrawAsWave) {
-            return new Point2D.Double(index, transformY(wp.value.getReal()) * baseRadius);
+            return new Point2D.Double(index, transformY(x) * baseRadius);
         }
 
-        return new Point2D.Double(transformX(wp.value.getReal() * baseRadius), transformY(wp.value.getImaginary() * baseRadius));
+        return new Point2D.Double(transformX(x * baseRadius), transformY(y * baseRadius));
     }
 
 
@@ -898,12 +1064,20 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
             g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         }
 
+        final long frameStartNanos = AbstractAnimator.clockNanos();
+        final int count = getRotorCount();
+
+        // Latest simulation frame, and wave samples up to it
+        final SimulationFrame frame = mSimulationFrame;
+        final int generation = mSimulationGeneration;
+        final boolean frameValid = frame != null && frame.manager() == mRotorStateManager && frame.generation() == generation && frame.count() == count;
+        mTipSamples.drain(mWaveSink, frameValid? frame.tipSampleCount(): Long.MAX_VALUE, generation);
+
         final boolean shouldDrawRotors = shouldDrawRotors();
-        final double input = mDomainAnimator.getCurrentValue();
+        final double input = frameValid? frame.input(): mDomainAnimator.getCurrentValue();
         final boolean graphingInCenter = isGraphingInCenter();
         final boolean autoTrack = mAutoTrackInCenter;
 
-        final int count = getRotorCount();
         final int width = getWidth();
         final int height = getHeight();
         final double rotorsFrameW = getRotorsFrameWidth();
@@ -924,8 +1098,16 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
             g.drawString(statusText, 8, height - 18);
         }
 
+        // 2. Frame stats
+        if (DRAW_FRAME_STATS) {
+            g.setColor(Colors.FG_DARK);
+            g.setFont(g.getFont().deriveFont(12f));
+            g.drawString(mFrameStats.snapshot().toShortString() + " | sim dropped " + mSimulationClock.getDroppedSteps(), 8, 16);
+        }
+
         /* ..........................  Pre-Transforms ...........................*/
-        final AffineTransform t = g.getTransform();
+        final AffineTransform base = g.getTransform();
+        final AffineTransform t = new AffineTransform(base);
 
         // 1. Translate
         double tx = rotorsFrameW / 2f, ty = height / 2f;
@@ -934,9 +1116,8 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
             tx += drag.width; ty += drag.height;
         }
 
-        final WavePoint last;
-        if (autoTrack && graphingInCenter && (last = wave.peekFirst()) != null) {
-            final Point2D p = parseWavePoint(0, last, baseRadius);
+        if (autoTrack && graphingInCenter && !wave.isEmpty()) {
+            final Point2D p = parseWavePoint(0, wave.getNewestX(), wave.getNewestY(), baseRadius);
             tx -= p.getX(); ty -= p.getY();
         }
 
@@ -953,55 +1134,105 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
         Shape tipToWaveJoint = null;
 
         if (shouldDrawRotors) {
-            final ComplexBuilder sum = new ComplexBuilder();
+            final double[] sums = frameValid? frame.sums(): mPaintSums.compute(mRotorStateManager, count, input);
+
+            // LOD: rotors below these (in device pixels) are not drawn, consecutive ones are merged into a single radius segment
+            final double minRadius = LOD_ENABLED? LOD_MIN_ROTOR_RADIUS_PIX / scale: 0;
+            final double minTipSize = LOD_ENABLED? LOD_MIN_TIP_SIZE_PIX / scale: 0;
+
+            // Tail of sub-pixel rotors, not iterated at all
+            final RotorTable table = mRotorStateManager.getRotorTable();
+            final int visibleCount = LOD_ENABLED && table != null && table.getCount() == count && baseRadius > 0?
+                    table.getTailStart(minRadius / baseRadius): count;
+
+            final Ellipse2D.Double ellipse = mRotorEllipse;
+            final Line2D.Double line = mRotorLine;
+
             double prevX = 0, prevY = 0;
+            boolean merging = false;
+            double mergeFromX = 0, mergeFromY = 0;
 
-            for (int i=0; i < count; i++) {
+            for (int i=0; i < visibleCount; i++) {
                 final RotorState state = getRotorState(i);
 
-                // Circle
                 final double centerX = transformX(prevX);
                 final double centerY = transformY(prevY);
                 final double radius = state.getMagnitude(baseRadius);
 
+                // Tip of this circle
+                final double sumX = sums[i << 1] * baseRadius;
+                final double sumY = sums[(i << 1) + 1] * baseRadius;
+                prevX = sumX;
+                prevY = sumY;
+
+                if (radius < minRadius) {
+                    if (!merging) {
+                        merging = true;
+                        mergeFromX = centerX;
+                        mergeFromY = centerY;
+                    }
+
+                    continue;
+                }
+
+                if (merging) {
+                    merging = false;
+                    g.setStroke(strokes.rotorRadius);
+                    g.setColor(Colors.getRadiusColor(graphingInCenter));
+                    line.setLine(mergeFromX, mergeFromY, centerX, centerY);
+                    g.draw(line);
+                }
+
+                // Circle
                 g.setStroke(strokes.rotorCircle);
                 g.setColor(Colors.getCircleColor(graphingInCenter));
-                g.draw(new Ellipse2D.Double(centerX - radius, centerY - radius,radius * 2, radius * 2));
+                ellipse.setFrame(centerX - radius, centerY - radius,radius * 2, radius * 2);
+                g.draw(ellipse);
 
-                // Tip of this circle
-                final Complex tipPoint = state.getTip(input);
-                sum.add(tipPoint, baseRadius, baseRadius);
-
-                final double tipX = transformX(sum.getReal());
-                final double tipY = transformY(sum.getImaginary());
+                final double tipX = transformX(sumX);
+                final double tipY = transformY(sumY);
                 final double tipSize = state.getTipSize(baseTipSize);
 
-                g.setColor(Colors.getTipColor(graphingInCenter));
-                if (DRAW_CIRCULAR_TIP_JOINTS && i < count - 1) {
-                    g.fill(new Ellipse2D.Double(tipX - (tipSize / 2), tipY - (tipSize / 2), tipSize, tipSize));
-                } else {
-                    // Last rotor: Triangular tip
-                    final AffineTransform prev = g.getTransform();
-                    g.rotate(transform(tipPoint).getArgument() + (Math.PI / 2), tipX, tipY);
-                    g.fill(new Triangle(tipX - (tipSize / 2), tipY, tipSize, tipSize));
-                    g.setTransform(prev);       // restore
+                if (tipSize >= minTipSize) {
+                    g.setColor(Colors.getTipColor(graphingInCenter));
+                    if (DRAW_CIRCULAR_TIP_JOINTS && i < count - 1) {
+                        ellipse.setFrame(tipX - (tipSize / 2), tipY - (tipSize / 2), tipSize, tipSize);
+                        g.fill(ellipse);
+                    } else {
+                        // Last rotor: Triangular tip
+                        final AffineTransform prev = g.getTransform();
+                        g.rotate(Math.atan2(tipY - centerY, tipX - centerX) + (Math.PI / 2), tipX, tipY);
+                        g.fill(new Triangle(tipX - (tipSize / 2), tipY, tipSize, tipSize));
+                        g.setTransform(prev);       // restore
+                    }
                 }
 
                 // Radius
                 g.setStroke(strokes.rotorRadius);
                 g.setColor(Colors.getRadiusColor(graphingInCenter));
-                g.draw(new Line2D.Double(centerX, centerY, tipX, tipY));
-
-                prevX = sum.getReal();
-                prevY = sum.getImaginary();
+                line.setLine(centerX, centerY, tipX, tipY);
+                g.draw(line);
             }
 
-            // Update Wave
-            final Complex rawTip = sum.toComplex();
-            final WavePoint finalTip = createWavePoint(rawTip, input, baseRadius);
-            wave.addFirst(finalTip);
+            // Aggregated radius of trailing sub-pixel rotors, up to the final tip
+            if (visibleCount < count || merging) {
+                if (!merging) {
+                    mergeFromX = transformX(prevX);
+                    mergeFromY = transformY(prevY);
+                }
+
+                prevX = sums[(count - 1) << 1] * baseRadius;
+                prevY = sums[((count - 1) << 1) + 1] * baseRadius;
+
+                g.setStroke(strokes.rotorRadius);
+                g.setColor(Colors.getRadiusColor(graphingInCenter));
+                line.setLine(mergeFromX, mergeFromY, transformX(prevX), transformY(prevY));
+                g.draw(line);
+            }
 
-            tipToWaveJoint = new Line2D.Double(new Point2D.Double(transformX(rawTip.getReal()) - waveOffsetX, transformY(rawTip.getImaginary())), parseWavePoint(0, finalTip, baseRadius));
+            if (!wave.isEmpty()) {
+                tipToWaveJoint = new Line2D.Double(new Point2D.Double(transformX(prevX) - waveOffsetX, transformY(prevY)), parseWavePoint(0, wave.getNewestX(), wave.getNewestY(), baseRadius));
+            }
         }
 
         /* ..............................  Main Wave ............................. */
@@ -1014,30 +1245,48 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
             g.draw(tipToWaveJoint);
         }
 
-        final boolean joinPoints = mPointsJoiningEnabled;
         final Color waveColor = Colors.getDynamicWaveColor(mRotorStateManager.getId());
-        final ListIterator<WavePoint> itr = wave.listIterator();
-        int i; WavePoint wp;
-
-        Point2D prevPoint = null;
 
-        g.setStroke(strokes.wave);
-        while (itr.hasNext()) {
-            i = itr.nextIndex();
-            wp = itr.next();
-
-            final Point2D point = parseWavePoint(i, wp, baseRadius);
-            g.setColor(wp.getColorOrDefault(waveColor));
-            g.draw(new Line2D.Double(joinPoints && prevPoint != null? prevPoint: point, point));
-            prevPoint = point;
+        // In wave mode, x is the point index: skip points beyond the clip
+        int maxIndex = Integer.MAX_VALUE;
+        final Rectangle clip;
+        if (mDrawAsWave && (clip = g.getClipBounds()) != null) {
+            maxIndex = (int) Math.min(Integer.MAX_VALUE, Math.ceil(clip.getMaxX()) + 1);
         }
 
-        // purge
-        if (wave.size() > MAX_WAVE_POINTS) {
-            wave.removeLast();
+        final boolean joinPoints = mPointsJoiningEnabled;
+        final double waveScaleX = transformX(baseRadius), waveScaleY = transformY(baseRadius);
+
+        // Output-space: the trail is static once drawn, so only new points are drawn into the layer
+        if (WAVE_LAYER_ENABLED && !mDrawAsWave && !(autoTrack && graphingInCenter)) {
+            final AccumulationLayer layer = mWaveLayer;
+            final WaveLayerKey key = new WaveLayerKey(AccumulationLayer.layerTransform(base, g.getTransform()), waveScaleX, waveScaleY,
+                    joinPoints, waveColor, strokes.wave, g.getRenderingHint(RenderingHints.KEY_ANTIALIASING),
+                    wave.getEpoch(), wave.getOldestSequence() / WAVE_LAYER_PURGE_BATCH);
+
+            final long from = layer.validate(base, width, height, key)? layer.getProgress(): Long.MIN_VALUE;
+            if (from < wave.getNextSequence()) {
+                final Graphics2D lg = layer.createGraphics(g, g.getTransform());
+                lg.setStroke(strokes.wave);
+                wave.draw(lg, waveColor, joinPoints, false, waveScaleX, waveScaleY, scale, Integer.MAX_VALUE, from);
+                lg.dispose();
+                layer.setProgress(wave.getNextSequence());
+            }
+
+            layer.drawTo(g);
+        } else {
+            mWaveLayer.release();
+            g.setStroke(strokes.wave);
+            wave.draw(g, waveColor, joinPoints, mDrawAsWave, waveScaleX, waveScaleY, scale, maxIndex);
         }
 
         g.dispose();
+
+        if (isPlaying()) {
+            mFrameStats.record(frameStartNanos, AbstractAnimator.clockNanos(), frameValid? frame.seq(): -1, frameValid? frame.simTimeNanos(): frameStartNanos);
+        } else {
+            mFrameStats.markIdle();
+        }
     }
 
 
@@ -1045,22 +1294,46 @@ public class FourierSeriesPanel extends JPanel implements Runnable {
         repaint();
     }
 
-    protected void mainLoop() {
-        final boolean updated = mDomainAnimator.update();
-        if (updated) {
-            update();
-        }
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        mSimulationClock.start();
     }
 
     @Override
-    public final void run() {
-        mainLoop();
+    public void removeNotify() {
+        mSimulationClock.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * @return simulation clock, e.g. for its step count, lag and dropped steps
+     * */
+    @NotNull
+    public final FixedStepClock getSimulationClock() {
+        return mSimulationClock;
+    }
+
+    /**
+     * @return frame time percentiles, dropped frames and simulation/render skew over recent frames
+     * */
+    @NotNull
+    public final FrameStats.Summary getFrameStats() {
+        return mFrameStats.snapshot();
+    }
+
+    /**
+     * @return wave samples dropped because rendering stalled long enough for the sample buffer to fill
+     * */
+    public final long getDroppedWaveSamples() {
+        return mTipSamples.getDroppedCount();
     }
 
 
     protected void onIsPlayingChanged(boolean playing) {
+        mSimulationClock.setRunning(playing);
         update();
-        forEachPanelListener(l -> l.onIsPlayingChanged(playing));
+        mPanelListeners.dispatchOnMainThread(l -> l.onIsPlayingChanged(playing));
     }
 
     public final boolean isPlaying() {
@@ -313,7 +313,7 @@ public class FunctionGraphPanel extends XChartPanel<XYChart> {
 
         Complex[] range = cacheRange;
         if (range == null) {
-            range = function.createSamplesRange(domain);
+            range = function.createSamplesRange(sampleCount);        // same points as domain, shared through sample cache
             cacheRange = range;
         }
 
@@ -434,6 +434,7 @@ public class FunctionGraphPanel extends XChartPanel<XYChart> {
             // Style Series
             xySeries.setSmooth(smooth);
             xySeries.setMarker(new None());
+            xySeries.setDecimation(data.graphMode() == FunctionGraphMode.OUTPUT_SPACE? XYSeries.Decimation.LTTB: XYSeries.Decimation.MIN_MAX);
         }
 
         chart.getStyler().setLegendVisible(seriesArr.length > 1);
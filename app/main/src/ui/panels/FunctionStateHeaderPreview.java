@@ -0,0 +1,110 @@
+package ui.panels;
+
+import async.Canceller;
+import async.TaskConsumer;
+import misc.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rotor.FunctionState;
+
+import javax.swing.*;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * File chooser accessory previewing the selected function state save.
+ * <br>
+ * Only the {@link FunctionState#loadHeader(Path) header} is read, so browsing large saves stays cheap: rotor states and the
+ * function definition are never loaded here
+ *
+ * @see misc.ChooserConfig.Builder#setAccessory(JComponent)
+ * */
+public class FunctionStateHeaderPreview extends JPanel implements PropertyChangeListener {
+
+    public static final String TAG = "FunctionStateHeaderPreview";
+    private static final Dimension PREFERRED_SIZE = new Dimension(240, 200);
+
+    private static final SimpleDateFormat FORMATTER_SAVE_TIME = new SimpleDateFormat("MMM dd, yyyy HH:mm");
+
+    private final JLabel label;
+    @Nullable
+    private Canceller mLoadCanceller;
+
+    public FunctionStateHeaderPreview() {
+        super(new BorderLayout());
+
+        label = new JLabel();
+        label.setVerticalAlignment(SwingConstants.TOP);
+
+        setBorder(BorderFactory.createTitledBorder("Preview"));
+        setPreferredSize(PREFERRED_SIZE.getSize());
+        add(label, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (JFileChooser.SELECTED_FILE_CHANGED_PROPERTY.equals(evt.getPropertyName())) {
+            update(evt.getNewValue() instanceof File file? file.toPath(): null);
+        }
+    }
+
+    private void cancelLoad() {
+        final Canceller c = mLoadCanceller;
+        if (c != null) {
+            c.cancel(true);
+            mLoadCanceller = null;
+        }
+    }
+
+    public void update(@Nullable Path file) {
+        cancelLoad();
+        if (file == null || !Files.isRegularFile(file)) {
+            label.setText(null);
+            return;
+        }
+
+        label.setText("Loading...");
+        mLoadCanceller = FunctionState.loadHeaderAsync(file, new TaskConsumer<>() {
+            @Override
+            public void consume(FunctionState data) {
+                label.setText(toHtml(file, data));
+            }
+
+            @Override
+            public void onFailed(@Nullable Throwable t) {
+                Log.w(TAG, "failed to load function state header: " + file, t);
+                label.setText("<html>Not a valid Function State</html>");
+            }
+        });
+    }
+
+    @NotNull
+    private static String toHtml(@NotNull Path file, @NotNull FunctionState header) {
+        final StringBuilder sb = new StringBuilder("<html>");
+        sb.append("<b>").append(header.functionName != null? header.functionName: file.getFileName()).append("</b><br>");
+        if (header.functionType != null) {
+            sb.append("Type: ").append(header.functionType.displayName).append("<br>");
+        }
+
+        sb.append(String.format("Domain: [%.4g, %.4g]<br>", header.domainStart, header.domainEnd));
+        sb.append("Rotors: ").append(header.rotorCount).append("<br>");
+        if (header.saveTimestamp > 0) {
+            synchronized (FORMATTER_SAVE_TIME) {
+                sb.append("Saved: ").append(FORMATTER_SAVE_TIME.format(new Date(header.saveTimestamp))).append("<br>");
+            }
+        }
+
+        try {
+            sb.append(String.format("Size: %,d KB", Math.max(1, Files.size(file) / 1024)));
+        } catch (Exception ignored) {
+        }
+
+        return sb.append("</html>").toString();
+    }
+}
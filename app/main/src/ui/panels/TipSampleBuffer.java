@@ -0,0 +1,133 @@
+package ui.panels;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single producer, single consumer ring of rotor tip samples {@code (input, x, y)}<br>
+ * <br>
+ * The simulation thread {@link #offer(int, double, double, double) offers} a sample per step, and the render thread
+ * {@link #drain(Sink, int) drains} all pending samples before drawing. Slots are published by an ordered write of the producer
+ * index, and released by an ordered write of the consumer index, so neither side ever blocks.
+ * <br>
+ * If the consumer stalls long enough for the ring to fill, new samples are dropped (and counted) rather than overwriting unread ones.
+ * <br>
+ * Each sample is tagged with the producer's generation when computed. The consumer drains only samples of its current generation,
+ * so samples offered from a stale state (e.g. racing a {@link #clear()}) are discarded
+ * */
+final class TipSampleBuffer {
+
+    public static final int DEFAULT_CAPACITY = 1 << 13;
+
+    interface Sink {
+        void accept(double input, double x, double y);
+    }
+
+    private final int mask;
+    private final double @NotNull[] inputs;
+    private final double @NotNull[] xs;
+    private final double @NotNull[] ys;
+    private final int @NotNull[] generations;
+
+    private final AtomicLong head = new AtomicLong();        // next slot to write, owned by producer
+    private final AtomicLong tail = new AtomicLong();        // next slot to read, owned by consumer
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of 2
+     * */
+    TipSampleBuffer(int capacity) {
+        final int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = cap - 1;
+        inputs = new double[cap];
+        xs = new double[cap];
+        ys = new double[cap];
+        generations = new int[cap];
+    }
+
+    TipSampleBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return samples dropped because the buffer was full
+     * */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Producer only
+     *
+     * @param generation generation of the state the sample is computed from
+     * @return whether the sample was added, {@code false} if full
+     * */
+    public boolean offer(int generation, double input, double x, double y) {
+        final long h = head.get();
+        if (h - tail.getAcquire() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        final int i = (int) (h & mask);
+        inputs[i] = input;
+        xs[i] = x;
+        ys[i] = y;
+        generations[i] = generation;
+        head.setRelease(h + 1);
+        return true;
+    }
+
+    /**
+     * @return samples written in total, i.e. the position after the last written sample. Consistent with samples
+     * written before, when read by the producer
+     * */
+    public long getWrittenCount() {
+        return head.getAcquire();
+    }
+
+    /**
+     * Consumer only. Passes pending samples of given {@code generation} up to (excluding) position {@code upTo} to {@code sink},
+     * oldest first. Samples of other generations are discarded
+     *
+     * @param upTo {@link #getWrittenCount() written count} to drain up to, e.g. as published along a simulation state
+     * @return number of samples drained (including discarded ones)
+     * */
+    public int drain(@NotNull Sink sink, long upTo, int generation) {
+        final long t = tail.get();
+        final long h = Math.min(upTo, head.getAcquire());
+        if (h <= t)
+            return 0;
+
+        for (long s = t; s < h; s++) {
+            final int i = (int) (s & mask);
+            if (generations[i] == generation) {
+                sink.accept(inputs[i], xs[i], ys[i]);
+            }
+        }
+
+        tail.setRelease(h);
+        return (int) (h - t);
+    }
+
+    /**
+     * Consumer only. Passes all pending samples of given {@code generation} to {@code sink}, oldest first
+     *
+     * @return number of samples drained (including discarded ones)
+     * */
+    public int drain(@NotNull Sink sink, int generation) {
+        return drain(sink, Long.MAX_VALUE, generation);
+    }
+
+    /**
+     * Consumer only. Discards all pending samples
+     * */
+    public void clear() {
+        tail.setRelease(head.getAcquire());
+    }
+}
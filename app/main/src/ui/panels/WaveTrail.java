@@ -0,0 +1,305 @@
+package ui.panels;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Bounded trail of wave points, stored in primitive ring buffers, and drawn newest first<br>
+ * <br>
+ * Points are addressed by a sequence number, and live at slot {@code sequence % capacity}. Appending and purging the
+ * oldest point are thus O(1), with no per-point object. Capacity grows by doubling up to {@link #getMaxPoints()}, after
+ * which each new point overwrites the oldest one.
+ * <br>
+ * Colors are run-length encoded: consecutive points of the same color share a single run, so drawing needs one
+ * color switch per run instead of per point. Drawing allocates nothing, the path and line are reused across frames.
+ * <br>
+ * Not thread safe, meant to be confined to the paint thread
+ * */
+final class WaveTrail {
+
+    public static final int INITIAL_CAPACITY = 1024;
+    public static final int INITIAL_RUN_CAPACITY = 16;
+
+    /**
+     * Joined points closer than this (in device pixels) to the last drawn point are skipped
+     * */
+    public static final double MIN_SEGMENT_LENGTH_PIX = 0.5;
+
+    /**
+     * Segments per draw call. Rasterizing a single very long (self-overlapping) path costs more than a few shorter ones
+     * */
+    public static final int MAX_PATH_SEGMENTS = 64;
+
+    private final int maxPoints;
+
+    /* Point ring, slot of sequence s is s % capacity */
+    private double @NotNull[] xs;
+    private double @NotNull[] ys;
+    private long oldestSeq;
+    private long nextSeq;
+
+    /* Color run ring, slot of run r is r % capacity. A run spans from its start sequence to the next run's start */
+    private long @NotNull[] runStarts;
+    @Nullable
+    private Color @NotNull[] runColors;
+    private long oldestRun;
+    private long nextRun;
+
+    /* Incremented on clear, since sequences restart */
+    private long epoch;
+
+    @NotNull
+    private final Path2D.Double mPath = new Path2D.Double(Path2D.WIND_NON_ZERO, MAX_PATH_SEGMENTS + 1);
+    @NotNull
+    private final Line2D.Double mLine = new Line2D.Double();
+
+    WaveTrail(int maxPoints) {
+        if (maxPoints < 1)
+            throw new IllegalArgumentException("Max wave points must be positive, given " + maxPoints);
+
+        this.maxPoints = maxPoints;
+
+        final int capacity = Math.min(INITIAL_CAPACITY, maxPoints);
+        xs = new double[capacity];
+        ys = new double[capacity];
+        runStarts = new long[INITIAL_RUN_CAPACITY];
+        runColors = new Color[INITIAL_RUN_CAPACITY];
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    public int size() {
+        return (int) (nextSeq - oldestSeq);
+    }
+
+    public boolean isEmpty() {
+        return nextSeq == oldestSeq;
+    }
+
+    /**
+     * @return sequence of the oldest point. Grows as old points are purged
+     * */
+    public long getOldestSequence() {
+        return oldestSeq;
+    }
+
+    /**
+     * @return sequence the next point will get, i.e. points added so far (since last clear)
+     * */
+    public long getNextSequence() {
+        return nextSeq;
+    }
+
+    /**
+     * @return number of times this trail was cleared. Sequences are comparable only within the same epoch
+     * */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public double getNewestX() {
+        return xs[slot(nextSeq - 1, xs.length)];
+    }
+
+    public double getNewestY() {
+        return ys[slot(nextSeq - 1, ys.length)];
+    }
+
+    public void clear() {
+        epoch++;
+        oldestSeq = nextSeq = 0;
+        oldestRun = nextRun = 0;
+        Arrays.fill(runColors, null);
+        mPath.reset();
+    }
+
+    private static int slot(long seq, int capacity) {
+        return (int) (seq % capacity);
+    }
+
+    private void growPoints() {
+        final int capacity = xs.length;
+        final int newCapacity = (int) Math.min(maxPoints, (long) capacity << 1);
+        final double[] newXs = new double[newCapacity], newYs = new double[newCapacity];
+
+        for (long s = oldestSeq; s < nextSeq; s++) {
+            final int from = slot(s, capacity), to = slot(s, newCapacity);
+            newXs[to] = xs[from];
+            newYs[to] = ys[from];
+        }
+
+        xs = newXs;
+        ys = newYs;
+    }
+
+    private void growRuns() {
+        final int capacity = runStarts.length;
+        final int newCapacity = capacity << 1;
+        final long[] newStarts = new long[newCapacity];
+        final Color[] newColors = new Color[newCapacity];
+
+        for (long r = oldestRun; r < nextRun; r++) {
+            final int from = slot(r, capacity), to = slot(r, newCapacity);
+            newStarts[to] = runStarts[from];
+            newColors[to] = runColors[from];
+        }
+
+        runStarts = newStarts;
+        runColors = newColors;
+    }
+
+    /**
+     * Drops the oldest point, and its run if it was the last point of that run
+     * */
+    private void purgeOldest() {
+        oldestSeq++;
+
+        while (nextRun - oldestRun > 1 && runStarts[slot(oldestRun + 1, runStarts.length)] <= oldestSeq) {
+            runColors[slot(oldestRun, runColors.length)] = null;
+            oldestRun++;
+        }
+    }
+
+    /**
+     * Appends a point as the newest one, purging the oldest if the trail is full
+     *
+     * @param color color of the point, or {@code null} for the default color given while drawing
+     * */
+    public void add(double x, double y, @Nullable Color color) {
+        if (size() == xs.length) {
+            if (xs.length < maxPoints) {
+                growPoints();
+            } else {
+                purgeOldest();
+            }
+        }
+
+        final long seq = nextSeq++;
+        final int slot = slot(seq, xs.length);
+        xs[slot] = x;
+        ys[slot] = y;
+
+        if (nextRun == oldestRun || !Objects.equals(runColors[slot(nextRun - 1, runColors.length)], color)) {
+            if (nextRun - oldestRun == runStarts.length) {
+                growRuns();
+            }
+
+            final int runSlot = slot(nextRun++, runStarts.length);
+            runStarts[runSlot] = seq;
+            runColors[runSlot] = color;
+        }
+    }
+
+
+    /**
+     * Draws the trail newest first, with a single color switch per color run
+     * <br>
+     * Segments are batched into the reused {@link Path2D} (flushed every {@link #MAX_PATH_SEGMENTS}), except when antialiasing,
+     * where Java2D strokes individual {@link Line2D lines} much faster than paths. The reused line is drawn per segment then
+     *
+     * @param defaultColor color of points added without one
+     * @param joinPoints whether to join consecutive points with lines, or draw them as dots
+     * @param asWave whether to draw as a wave, with point index (0 being the newest) along x and {@code x} along y
+     * @param scaleX scale of point x (ignored when drawing as wave)
+     * @param scaleY scale of point y, or of point x when drawing as wave
+     * @param deviceScale scale from user space to device pixels, to skip sub-pixel segments
+     * @param maxIndex points with an index beyond this are not drawn, e.g. when out of bounds in wave mode
+     * @param fromSeq only points from this sequence onwards are drawn (joined to the point before), e.g. points added since
+     *                the last draw into an accumulation layer. {@link Long#MIN_VALUE} to draw all
+     * */
+    public void draw(@NotNull Graphics2D g, @NotNull Color defaultColor, boolean joinPoints, boolean asWave,
+                     double scaleX, double scaleY, double deviceScale, int maxIndex, long fromSeq) {
+        if (isEmpty() || fromSeq >= nextSeq)
+            return;
+
+        final boolean batch = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING) != RenderingHints.VALUE_ANTIALIAS_ON;
+        final Path2D.Double path = mPath;
+        final Line2D.Double line = mLine;
+        final double minStep = MIN_SEGMENT_LENGTH_PIX / Math.max(deviceScale, 1e-12);
+        final int capacity = xs.length;
+        long lastSeq = Math.max(oldestSeq, nextSeq - 1L - Math.max(maxIndex, 0));
+        if (fromSeq > lastSeq) {
+            lastSeq = Math.max(lastSeq, joinPoints? fromSeq - 1: fromSeq);
+        }
+
+        boolean started = false;                // whether a point has been drawn
+        double drawnX = 0, drawnY = 0;          // last drawn point, exact end of the previous run when starting one
+
+        for (long r = nextRun - 1; r >= oldestRun; r--) {
+            final int runSlot = slot(r, runStarts.length);
+            final long runNewest = r == nextRun - 1? nextSeq - 1: runStarts[slot(r + 1, runStarts.length)] - 1;
+            final long runOldest = Math.max(runStarts[runSlot], lastSeq);
+            if (runNewest < runOldest)
+                break;
+
+            final Color color = runColors[runSlot];
+            g.setColor(color != null? color: defaultColor);
+
+            int segments = 0;
+            path.reset();
+            if (batch && joinPoints && started) {
+                path.moveTo(drawnX, drawnY);
+            }
+
+            int slot = slot(runNewest, capacity);
+            for (long s = runNewest; s >= runOldest; s--) {
+                final double px, py;
+                if (asWave) {
+                    px = nextSeq - 1 - s;
+                    py = xs[slot] * scaleY;
+                } else {
+                    px = xs[slot] * scaleX;
+                    py = ys[slot] * scaleY;
+                }
+
+                if (--slot < 0) {
+                    slot = capacity - 1;
+                }
+
+                // Skip sub-pixel steps, except for the oldest point of a joined run
+                if (started && Math.abs(px - drawnX) < minStep && Math.abs(py - drawnY) < minStep && !(joinPoints && s == runOldest)) {
+                    continue;
+                }
+
+                final boolean segment = joinPoints && started;
+                if (batch) {
+                    if (!segment) {
+                        path.moveTo(px, py);
+                    }
+
+                    path.lineTo(px, py);
+                    if (++segments == MAX_PATH_SEGMENTS) {
+                        g.draw(path);
+                        path.reset();
+                        path.moveTo(px, py);
+                        segments = 0;
+                    }
+                } else {
+                    line.setLine(segment? drawnX: px, segment? drawnY: py, px, py);
+                    g.draw(line);
+                }
+
+                drawnX = px;
+                drawnY = py;
+                started = true;
+            }
+
+            if (batch && segments > 0) {
+                g.draw(path);
+            }
+        }
+    }
+
+    public void draw(@NotNull Graphics2D g, @NotNull Color defaultColor, boolean joinPoints, boolean asWave,
+                     double scaleX, double scaleY, double deviceScale, int maxIndex) {
+        draw(g, defaultColor, joinPoints, asWave, scaleX, scaleY, deviceScale, maxIndex, Long.MIN_VALUE);
+    }
+}
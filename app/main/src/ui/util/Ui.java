@@ -16,6 +16,7 @@ import provider.FunctionProviderI;
 import provider.FunctionType;
 import provider.SimpleFunctionProvider;
 import rotor.FunctionState;
+import rotor.RotorCoefficientCache;
 import rotor.RotorStateManager;
 import ui.action.ActionInfo;
 import ui.AuxSoundsPlayer;
@@ -29,6 +30,9 @@ import util.PathFunctionManager;
 import util.main.ComplexUtil;
 
 import javax.swing.*;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+import javax.swing.filechooser.FileFilter;
 import javax.swing.Timer;
 import java.awt.*;
 import java.awt.datatransfer.StringSelection;
@@ -50,15 +54,20 @@ public interface Ui {
 
     int DRAWING_FUNCTION_SAMPLE_COUNT = 500;            // low for best accuracy
 
-    static String getWindowTitle(@NotNull String mainTitle, @NotNull RotorStateManager sm) {
+    static String getWindowTitle(@NotNull String mainTitle, @NotNull RotorStateManager sm, int loadProgressPercent) {
         String title = mainTitle;
         if (!sm.isNoOp()) {
-            title += " (" + (sm.isLoading()? "Loading ": "") + Format.ellipse(sm.getFunctionMeta().displayName(), 40) + ")";
+            final String loading = sm.isLoading()? (loadProgressPercent >= 0? "Loading " + loadProgressPercent + "% ": "Loading "): "";
+            title += " (" + loading + Format.ellipse(sm.getFunctionMeta().displayName(), 40) + ")";
         }
 
         return title;
     }
 
+    static String getWindowTitle(@NotNull String mainTitle, @NotNull RotorStateManager sm) {
+        return getWindowTitle(mainTitle, sm, -1);
+    }
+
 
     int DEFAULT_LOOPER_DELAY_MS = 10;
 
@@ -438,12 +447,22 @@ public interface Ui {
 
         // 1. Fast Math
         menu.add(new JCheckBoxMenuItem(settings.getToggleFastMathAction()));
+        menu.add(createFastMathInterpolationMenu(settings));
 
         // 2. Numerical Integration
         final JMenuItem numericalIntegrationIntervals = new JMenuItem("Integration intervals");
         numericalIntegrationIntervals.addActionListener(e -> askConfigureNumericalIntegrationIntervalCount(ui));
         menu.add(numericalIntegrationIntervals);
 
+        // 3. Path Functions
+        menu.add(new JCheckBoxMenuItem(settings.getTogglePathArcLengthAction()));
+
+        // 4. Rotor Coefficients Cache
+        final JMenuItem clearCoefficientCache = new JMenuItem("Clear Rotor Coefficients Cache");
+        clearCoefficientCache.setToolTipText("Delete rotor states cached across runs. They are computed again when needed");
+        clearCoefficientCache.addActionListener(e -> askClearRotorCoefficientCache(ui));
+        menu.add(clearCoefficientCache);
+
         // Last - Reset
         menu.addSeparator();
         menu.add(settings.getResetConfigAction());
@@ -452,6 +471,45 @@ public interface Ui {
     }
 
 
+    @NotNull
+    static JMenu createFastMathInterpolationMenu(@NotNull Settings settings) {
+        final JMenu menu = new JMenu("Fast Math Interpolation");
+        menu.setToolTipText("Interpolation of fast sin and cos lookup. Linear is faster, Taylor is accurate to double precision");
+
+        final ButtonGroup group = new ButtonGroup();
+        final Map<MathUtil.FastSinLookup.Interpolation, ButtonModel> map = new EnumMap<>(MathUtil.FastSinLookup.Interpolation.class);
+
+        for (MathUtil.FastSinLookup.Interpolation interpolation: MathUtil.FastSinLookup.Interpolation.values()) {
+            final JRadioButtonMenuItem item = new JRadioButtonMenuItem(interpolation.displayName);
+            item.addActionListener(e -> settings.setFastMathInterpolation(interpolation));
+
+            group.add(item);
+            map.put(interpolation, item.getModel());
+            menu.add(item);
+        }
+
+        // Sync with current, since it can be changed by reset
+        menu.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                final ButtonModel cur = map.get(Settings.getCurrentFastMathInterpolation());
+                if (cur != null) {
+                    group.setSelected(cur, true);
+                }
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e) {
+            }
+
+            @Override
+            public void menuCanceled(MenuEvent e) {
+            }
+        });
+
+        return menu;
+    }
+
     @NotNull
     static JMenu createSettingsSoundsMenu(@NotNull Settings settings) {
         final JMenu menu = new JMenu("Sound");
@@ -517,6 +575,29 @@ public interface Ui {
     }
 
 
+    static void askClearRotorCoefficientCache(@NotNull Ui ui) {
+        final String title = "Clear Rotor Coefficients Cache";
+        final RotorCoefficientCache cache = RotorCoefficientCache.getDefault();
+        final String msg = "This will delete all Rotor States cached across runs. They have to be computed again, which can be EXPENSIVE\n\nCache: " + cache.getDir() + "\n\nDo you wish to continue?";
+
+        final int option = JOptionPane.showConfirmDialog(ui.getFrame(), msg, title, JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (option != JOptionPane.YES_OPTION)
+            return;
+
+        Async.execute(cache::clear, new TaskConsumer<>() {
+            @Override
+            public void consume(Integer data) {
+                ui.showMessageDialog((data > 0? String.valueOf(data): "No") + " cached Rotor Coefficients file" + (data != 1? "s": "") + " deleted", title, JOptionPane.INFORMATION_MESSAGE);
+            }
+
+            @Override
+            public void onFailed(@Nullable Throwable t) {
+                Log.e(FourierUi.TAG, "failed to clear rotor coefficients cache " + cache.getDir(), t);
+                ui.showErrorMessageDialog("Failed to clear Rotor Coefficients Cache\n\nCache: " + cache.getDir() + "\nError: " + (t != null? t.getMessage(): "Unknown"), title);
+            }
+        });
+    }
+
     static void askConfigureNumericalIntegrationIntervalCount(@NotNull Ui ui) {
         final String msg = "Set Numerical integration interval count (blank to reset)\nRotor States needs to be reloaded to take effect Go to Menu > Rotor States > Reload\n\nMinimum: " + ComplexUtil.FOURIER_TRANSFORM_SIMPSON_13_N_MIN + "\nDefault: " + ComplexUtil.FOURIER_TRANSFORM_SIMPSON_13_N_DEFAULT;
 
@@ -557,7 +638,7 @@ public interface Ui {
         final int option = JOptionPane.showConfirmDialog(ui.getFrame(), msg, title, JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (option == JOptionPane.YES_OPTION) {
             if (reload) {
-                manager.clearAndReloadAsync();
+                manager.clearAndRecomputeAsync();         // explicit reload, never from cached coefficients
             } else {
                 manager.clearAndResetSync();
             }
@@ -602,19 +683,22 @@ public interface Ui {
                 .setStartDir(R.DIR_FUNCTION_STATE_SAVES)
                 .setUseAcceptAllFIleFilter(false)
                 .setFileHidingEnabled(false)
-                .setChoosableFileFilters(R.EXT_ROTOR_STATES_CSV_FILE_FILTER)
+                .setChoosableFileFilters(R.EXT_ROTOR_STATES_CSV_FILE_FILTER, R.EXT_ROTOR_STATES_BINARY_FILE_FILTER)
                 .setApproveButtonText("Save")
                 .setApproveButtonTooltipText(dialogTitle)
                 .build();
 
-        final File[] files = config.showFIleChooser(ui.getFrame());
+        final Wrapper<FileFilter> selectedFilter = new Wrapper<>(null);
+        final File[] files = ChooserConfig.showFileChooser(ui.getFrame(), config, selectedFilter::set);
         if (files == null || files.length == 0 || files[0] == null)
             return;
 
-        final Path outPath = FileUtil.getNonExistingFile(FileUtil.ensureExtension(files[0].toPath(), R.EXT_ROTOR_STATES_CSV_FILE_EXTENSION));
+        // Format of the selected filter, CSV if none
+        final String extension = selectedFilter.get() == R.EXT_ROTOR_STATES_BINARY_FILE_FILTER? R.EXT_ROTOR_STATES_BINARY_FILE_EXTENSION: R.EXT_ROTOR_STATES_CSV_FILE_EXTENSION;
+        final Path outPath = FileUtil.getNonExistingFile(FileUtil.ensureExtension(files[0].toPath(), extension));
 
         // todo show snackbar
-        final Canceller c = functionState.writeRotorStatesASCSVAsync(outPath, new TaskConsumer<>() {
+        final Canceller c = functionState.writeRotorStatesAsync(outPath, new TaskConsumer<>() {
             @Override
             public void onFailed(@Nullable Throwable t) {
                 final String errorMsg = t == null? "Unknown": t.getClass().getSimpleName() + " -> " + t.getMessage();
@@ -732,11 +816,12 @@ public interface Ui {
         final ChooserConfig config = ChooserConfig.openFileSingle()
                 .setDialogTitle(dialogTitle)
                 .setStartDir(R.DIR_FUNCTION_STATE_SAVES)
-                .setChoosableFileFilters(R.FUNCTION_STATE_SAVE_FILE_FILTER)
+                .setChoosableFileFilters(R.FUNCTION_STATE_SAVE_FILE_FILTER, R.EXT_ROTOR_STATES_BINARY_FILE_FILTER)
                 .setUseAcceptAllFIleFilter(false)
                 .setFileHidingEnabled(false)
                 .setApproveButtonText("Load")
                 .setApproveButtonTooltipText(dialogTitle)
+                .setAccessory(new FunctionStateHeaderPreview())
                 .build();
 
         final File[] files = ui.showFileChooser(config);
@@ -746,10 +831,12 @@ public interface Ui {
 
         final Path file = files[0].toPath();
 
-        final Wrapper.Bool withFunctionDefinition = new Wrapper.Bool(true);
+        // Binary rotor states carry function state metadata, but never a function definition
+        final boolean binary = FunctionState.isRotorStatesBinaryFile(file);
+        final Wrapper.Bool withFunctionDefinition = new Wrapper.Bool(!binary);
 
         // todo: show snack-bar
-        final Canceller c = FunctionState.loadFromJsonAsync(file, true, new TaskConsumer<>() {
+        final TaskConsumer<FunctionState> consumer = new TaskConsumer<>() {
 
             @Override
             public void onFailed(@Nullable Throwable e) {
@@ -807,7 +894,9 @@ public interface Ui {
                     }
                 }
             }
-        });
+        };
+
+        final Canceller c = binary? FunctionState.loadFromBinaryAsync(file, consumer): FunctionState.loadFromJsonAsync(file, true, consumer);
 
 
 //        RotorStateManager.loadFunctionStateFileAsync(file.toPath(), fp -> {
@@ -902,7 +991,14 @@ public interface Ui {
 
         final File dir = files[0];
         // TODO: show snackbar
-        final Canceller canceller = PathFunctionManager.loadExternalPathFunctionsAsync(dir.toPath(), new Consumer<>() {
+        // functions are handed over in directory walk order while loading, and summarized at the end
+        final PathFunctionManager.LoadListener listener = (file, provider, completed, total) -> {
+            if (provider != null) {
+                successConsumer.consume(List.of(provider));
+            }
+        };
+
+        final Canceller canceller = PathFunctionManager.loadExternalPathFunctionsAsync(dir.toPath(), listener, new Consumer<>() {
             @Override
             public void consume(PathFunctionManager.LoadResult data) {
                 String msg;
@@ -911,7 +1007,6 @@ public interface Ui {
                     msg = "FAILED to scan folder for Path Functions";
                     msgType = JOptionPane.ERROR_MESSAGE;
                 } else {
-                    successConsumer.consume(data.getFunctionProviders());
                     final int loadCount = data.successFiles();
                     final int failCount = data.failedFiles();
                     msg = (loadCount > 0? String.valueOf(loadCount): "No") + " Path Function" + (loadCount > 1? "s": "") + " loaded";
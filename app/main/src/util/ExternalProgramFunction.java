@@ -3,14 +3,28 @@ package util;
 import com.google.gson.*;
 import function.ComplexDomainFunctionWrapper;
 import function.definition.ComplexDomainFunctionI;
+import function.definition.DefinitionDigestProviderI;
 import misc.ExternalJava;
+import misc.Log;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import util.json.GsonTypeAdapter;
 
 import javax.tools.JavaFileObject;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Stream;
 
-public class ExternalProgramFunction extends ComplexDomainFunctionWrapper {
+public class ExternalProgramFunction extends ComplexDomainFunctionWrapper implements DefinitionDigestProviderI {
+
+    public static final String TAG = "ExternalProgramFunction";
 
     private static final String KEY_LOCATION = "location";
     private static final String KEY_BASE_FUNCTION = "base_function";
@@ -18,9 +32,77 @@ public class ExternalProgramFunction extends ComplexDomainFunctionWrapper {
     @NotNull
     public final ExternalJava.Location location;
 
+    /**
+     * Hash of the source and compiled classes this function was loaded from, read right after loading so that later edits
+     * of the files do not affect it. {@code null} if they could not be read
+     * */
+    private final byte @Nullable[] mDefinitionHash;
+
+    /**
+     * @param base function just compiled and loaded from {@code location}
+     * */
     public ExternalProgramFunction(@NotNull ComplexDomainFunctionI base, @NotNull ExternalJava.Location location) {
         super(base);
         this.location = location;
+
+        byte[] hash = null;
+        try {
+            hash = hashDefinition(location);
+        } catch (IOException e) {
+            Log.w(TAG, "failed to read definition of external program " + location.getSourcePath(), e);
+        }
+
+        mDefinitionHash = hash;
+    }
+
+    /**
+     * @return SHA-256 of the class name, source file and all compiled class files (including nested ones) of the program
+     * */
+    private static byte @NotNull[] hashDefinition(@NotNull ExternalJava.Location location) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required on every java platform", e);
+        }
+
+        final String className = location.getClassName();
+        digest.update(className.getBytes(StandardCharsets.UTF_8));
+        digest.update(Files.readAllBytes(location.getSourcePath()));
+
+        final Path classFile = location.classpath.resolve(ExternalJava.toPath(className, JavaFileObject.Kind.CLASS));
+        final Path classDir = classFile.getParent();
+        if (classDir != null && Files.isDirectory(classDir)) {
+            final String simpleName = classFile.getFileName().toString();
+            final String nestedPrefix = simpleName.substring(0, simpleName.length() - JavaFileObject.Kind.CLASS.extension.length()) + "$";
+
+            final List<Path> classFiles;
+            try (final Stream<Path> stream = Files.list(classDir)) {
+                classFiles = stream.filter(p -> {
+                    final String name = p.getFileName().toString();
+                    return name.equals(simpleName) || (name.startsWith(nestedPrefix) && name.endsWith(JavaFileObject.Kind.CLASS.extension));
+                }).sorted().toList();
+            }
+
+            for (Path p: classFiles) {
+                digest.update(p.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(p));
+            }
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * Writes the hash of the source and compiled classes this function was loaded from
+     * */
+    @Override
+    public void digestDefinition(@NotNull DataOutput out) throws IOException {
+        final byte[] hash = mDefinitionHash;
+        if (hash == null)
+            throw new IOException("Definition of external program is not available: " + location.getSourcePath());
+
+        out.write(hash);
     }
 
     public static class GsonAdapter implements JsonSerializer<ExternalProgramFunction>, JsonDeserializer<ExternalProgramFunction> {
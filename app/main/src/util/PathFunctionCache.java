@@ -0,0 +1,317 @@
+package util;
+
+import app.R;
+import function.path.PathSegments;
+import misc.FileUtil;
+import misc.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent cache of parsed path function files, mapping a file to its {@link PathSegments parsed geometry}<br>
+ * <br>
+ * Entries are keyed by absolute file path, and validated by file size and last modified time. If only the time differs
+ * (e.g. a copied or restored file), the SHA-256 content hash decides, and the entry is refreshed on a match.<br>
+ * The whole cache is a single binary file, read once on first use and rewritten by {@link #saveIfDirty()}. Thread safe
+ * */
+public final class PathFunctionCache {
+
+    public static final String TAG = "PathFunctionCache";
+
+    /*
+     * Binary cache format, all values little-endian
+     *
+     * offset   size    field
+     * 0        4       magic "PFNC"
+     * 4        4       int     format version
+     * 8        4       int     entry count
+     *
+     * Each entry
+     *          2 + x   absolute file path (UTF-8), prefixed with its length as unsigned short
+     *          8       long    file size
+     *          8       long    file last modified mills
+     *          32      SHA-256 of file content
+     *          4       int     winding rule
+     *          16      int     bounds x, y, width, height
+     *          4       int     segment count (s)
+     *          4       int     coordinate count (k)
+     *          s       byte[s] segment types
+     *          8k      double[k] coordinates
+     * */
+
+    public static final int MAGIC = 0x434E4650;         // "PFNC" in little-endian
+    public static final int VERSION = 1;
+
+    public static final String HASH_ALGORITHM = "SHA-256";
+    public static final int HASH_BYTES = 32;
+
+    private static final int HEADER_BYTES = 12;
+    private static final int ENTRY_FIXED_BYTES = 2 + 8 + 8 + HASH_BYTES + 4 + 16 + 4 + 4;
+    private static final int MAX_PATH_BYTES = 0xFFFF;
+
+    private record Entry(long size, long lastModified, byte @NotNull[] hash, @NotNull PathSegments segments) {
+    }
+
+    private static final class Holder {
+        private static final PathFunctionCache INSTANCE = new PathFunctionCache(R.PATH_FUNCTIONS_CACHE_FILE);
+    }
+
+    /**
+     * @return cache at {@link R#PATH_FUNCTIONS_CACHE_FILE}
+     * */
+    @NotNull
+    public static PathFunctionCache getDefault() {
+        return Holder.INSTANCE;
+    }
+
+    public static byte @NotNull[] hash(byte @NotNull[] content) {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(HASH_ALGORITHM + " is required on every java platform", e);
+        }
+    }
+
+    @NotNull
+    private static String key(@NotNull Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+
+    @NotNull
+    private final Path mFile;
+    private final Map<String, Entry> mEntries = new ConcurrentHashMap<>();
+    private volatile boolean mLoaded;
+    private final AtomicBoolean mDirty = new AtomicBoolean();
+
+    public PathFunctionCache(@NotNull Path file) {
+        mFile = file;
+    }
+
+    @NotNull
+    public Path getFile() {
+        return mFile;
+    }
+
+    private void ensureLoaded() {
+        if (mLoaded)
+            return;
+
+        synchronized (this) {
+            if (mLoaded)
+                return;
+
+            if (Files.isRegularFile(mFile)) {
+                final long start = System.nanoTime();
+                try {
+                    read(mFile, mEntries);
+                    Log.v(TAG, String.format("loaded %d entries in %.2f ms from %s", mEntries.size(), (System.nanoTime() - start) / 1E6, mFile));
+                } catch (Throwable t) {
+                    mEntries.clear();
+                    mDirty.set(true);           // rewrite on next save
+                    Log.w(TAG, "discarding unreadable path functions cache " + mFile, t);
+                }
+            }
+
+            mLoaded = true;
+        }
+    }
+
+    /**
+     * Fast lookup, without reading the file
+     *
+     * @return cached geometry if the file size and last modified time are unchanged, {@code null} otherwise
+     * */
+    @Nullable
+    public PathSegments get(@NotNull Path file, long size, long lastModified) {
+        ensureLoaded();
+        final Entry e = mEntries.get(key(file));
+        return e != null && e.size == size && e.lastModified == lastModified? e.segments: null;
+    }
+
+    /**
+     * Lookup by content, for files whose last modified time changed. Refreshes the entry on a match
+     *
+     * @param contentHash {@link #hash(byte[]) hash} of the current file content
+     * @return cached geometry if the file content is unchanged, {@code null} otherwise
+     * */
+    @Nullable
+    public PathSegments get(@NotNull Path file, long size, long lastModified, byte @NotNull[] contentHash) {
+        ensureLoaded();
+        final String key = key(file);
+        final Entry e = mEntries.get(key);
+        if (e == null || e.size != size || !Arrays.equals(e.hash, contentHash))
+            return null;
+
+        if (e.lastModified != lastModified) {
+            mEntries.put(key, new Entry(size, lastModified, e.hash, e.segments));
+            mDirty.set(true);
+        }
+
+        return e.segments;
+    }
+
+    public void put(@NotNull Path file, long size, long lastModified, byte @NotNull[] contentHash, @NotNull PathSegments segments) {
+        if (contentHash.length != HASH_BYTES)
+            throw new IllegalArgumentException("Content hash must be " + HASH_BYTES + " bytes, given " + contentHash.length);
+
+        ensureLoaded();
+        mEntries.put(key(file), new Entry(size, lastModified, contentHash, segments));
+        mDirty.set(true);
+    }
+
+    public int size() {
+        ensureLoaded();
+        return mEntries.size();
+    }
+
+    public void clear() {
+        ensureLoaded();
+        if (!mEntries.isEmpty()) {
+            mEntries.clear();
+            mDirty.set(true);
+        }
+    }
+
+    /**
+     * Writes the cache if anything changed since it was read or last saved, dropping entries of files that do not exist anymore
+     *
+     * @return whether the cache was written
+     * */
+    public boolean saveIfDirty() throws IOException {
+        if (!mDirty.getAndSet(false))
+            return false;
+
+        try {
+            mEntries.keySet().removeIf(key -> !Files.isRegularFile(Path.of(key)));
+            write(mFile, mEntries);
+            return true;
+        } catch (Throwable t) {
+            mDirty.set(true);
+            throw t;
+        }
+    }
+
+    public boolean saveIfDirtyNoThrow() {
+        try {
+            return saveIfDirty();
+        } catch (Throwable t) {
+            Log.e(TAG, "failed to save path functions cache " + mFile, t);
+        }
+
+        return false;
+    }
+
+
+    /* IO */
+
+    private static void read(@NotNull Path file, @NotNull Map<String, Entry> out) throws IOException {
+        final ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC)
+            throw new IOException("Not a path functions cache file: " + file);
+
+        final int version = buf.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported path functions cache version " + version + " (supported: " + VERSION + ")");
+
+        final int count = buf.getInt();
+        for (int i=0; i < count; i++) {
+            final byte[] pathBytes = new byte[Short.toUnsignedInt(buf.getShort())];
+            buf.get(pathBytes);
+
+            final long size = buf.getLong();
+            final long lastModified = buf.getLong();
+            final byte[] hash = new byte[HASH_BYTES];
+            buf.get(hash);
+
+            final int windingRule = buf.getInt();
+            final Rectangle bounds = new Rectangle(buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt());
+            final byte[] types = new byte[buf.getInt()];
+            final double[] coords = new double[buf.getInt()];
+            buf.get(types);
+            buf.asDoubleBuffer().get(coords);
+            buf.position(buf.position() + coords.length * Double.BYTES);
+
+            out.put(new String(pathBytes, StandardCharsets.UTF_8), new Entry(size, lastModified, hash, new PathSegments(windingRule, types, coords, bounds)));
+        }
+    }
+
+    private static void write(@NotNull Path file, @NotNull Map<String, Entry> entries) throws IOException {
+        FileUtil.ensureFileParentDir(file);
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            final int countPos = 8;
+            header.putInt(MAGIC).putInt(VERSION).putInt(0).flip();
+            writeFully(channel, header);
+
+            int count = 0;
+            for (Map.Entry<String, Entry> me: entries.entrySet()) {
+                final byte[] pathBytes = me.getKey().getBytes(StandardCharsets.UTF_8);
+                if (pathBytes.length > MAX_PATH_BYTES)
+                    continue;           // not worth caching
+
+                final Entry e = me.getValue();
+                final PathSegments segments = e.segments;
+                final byte[] types = segments.types();
+                final double[] coords = segments.coords();
+                final Rectangle bounds = segments.getBounds();
+
+                final ByteBuffer buf = ByteBuffer.allocate(ENTRY_FIXED_BYTES + pathBytes.length + types.length + coords.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buf.putShort((short) pathBytes.length)
+                        .put(pathBytes)
+                        .putLong(e.size)
+                        .putLong(e.lastModified)
+                        .put(e.hash)
+                        .putInt(segments.getWindingRule())
+                        .putInt(bounds.x)
+                        .putInt(bounds.y)
+                        .putInt(bounds.width)
+                        .putInt(bounds.height)
+                        .putInt(types.length)
+                        .putInt(coords.length)
+                        .put(types);
+                buf.asDoubleBuffer().put(coords);
+                buf.clear();
+
+                writeFully(channel, buf);
+                count++;
+            }
+
+            header.clear();
+            header.putInt(countPos, count);
+            channel.write(header.position(countPos), countPos);
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeFully(@NotNull FileChannel channel, @NotNull ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+}
@@ -2,20 +2,23 @@ package util;
 
 import app.R;
 import async.*;
+import function.path.PathSegments;
 import misc.CollectionUtil;
 import misc.FileUtil;
 import misc.Log;
 import models.DirStat;
+import org.apache.batik.parser.ParseException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
-import org.xml.sax.SAXException;
 import provider.FunctionMeta;
 import provider.FunctionProviderI;
 import provider.FunctionType;
 import provider.PathFunctionProvider;
+import util.main.PathUtil;
 
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
@@ -25,6 +28,12 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class PathFunctionManager {
 
@@ -36,6 +45,11 @@ public class PathFunctionManager {
     public static final String PATH_DATA_SHAPES_DELIMITER = "|";
     public static final String PATH_DATA_SHAPES_DELIMITER_REGEX = "[|]";
 
+    /**
+     * Max threads parsing files of an import at once
+     * */
+    public static final int IMPORT_MAX_THREADS = Math.max(1, Async.NO_CPU_CORES);
+
     private static final SvgPathParser sSvgPathParser = new SvgPathParser(
             R.LINE_COMMENT_TOKEN,
             PATH_DATA_SHAPES_DELIMITER,
@@ -51,16 +65,38 @@ public class PathFunctionManager {
         return path.toString().endsWith(R.SVG_FILE_EXTENSION);
     }
 
+    /**
+     * Streams path data of the svg file to a new path data file. On failure or cancellation, the partially written file is deleted
+     * */
     @NotNull
-    public static Path convertSvgToPathDataFile(@NotNull Path svgFile, @NotNull Path outFile, boolean pretty) throws ParserConfigurationException, IOException, SAXException {
+    public static Path convertSvgToPathDataFile(@NotNull Path svgFile, @NotNull Path outFile, boolean pretty, @Nullable CancellationProvider c) throws IOException, XMLStreamException {
         outFile = FileUtil.getNonExistingFile(FileUtil.ensureExtension(outFile, R.PATH_DATA_FILE_EXTENSION));
-        sSvgPathParser.writeSvgPaths(svgFile, pretty, outFile);
+
+        try {
+            sSvgPathParser.writeSvgPaths(svgFile, pretty, outFile, c);
+        } catch (Throwable t) {
+            try {
+                Files.deleteIfExists(outFile);
+            } catch (IOException e) {
+                Log.w(TAG, "failed to delete partial path data file <" + outFile + ">", e);
+            }
+
+            throw t;
+        }
+
         return outFile;
     }
 
+    @NotNull
+    public static Path convertSvgToPathDataFile(@NotNull Path svgFile, @NotNull Path outFile, boolean pretty) throws IOException, XMLStreamException {
+        return convertSvgToPathDataFile(svgFile, outFile, pretty, null);
+    }
+
     @NotNull
     public static Canceller convertSvgToPathDataFileAsync(@NotNull Path svgFile, @NotNull Path outFile, boolean pretty, @Nullable TaskConsumer<Path> callback) {
-        return Async.execute(() -> convertSvgToPathDataFile(svgFile, outFile, pretty), callback);
+        final Async.CExecutor exe = new Async.CExecutor();
+        exe.execute((ThrowableCTask<Path>) c -> convertSvgToPathDataFile(svgFile, outFile, pretty, c), callback);
+        return exe;
     }
 
 
@@ -88,31 +124,79 @@ public class PathFunctionManager {
     }
 
     @Nullable
-    public static FunctionProviderI loadExternalPathFunctionFromSvgFile(@NotNull Path svgFile) throws ParserConfigurationException, SAXException, IOException {
-        final List<String> paths = sSvgPathParser.extractPathsFromSvg(svgFile);
+    public static FunctionProviderI loadExternalPathFunctionFromSvgFile(@NotNull Path svgFile, @Nullable CancellationProvider c) throws IOException, XMLStreamException {
+        final List<String> paths = sSvgPathParser.extractPathsFromSvg(svgFile, c);
         if (CollectionUtil.isEmpty(paths))
             return null;
 
         return createPathFunctionProvider(extPathFunctionDisplayName(svgFile), paths);
     }
 
+    @Nullable
+    public static FunctionProviderI loadExternalPathFunctionFromSvgFile(@NotNull Path svgFile) throws IOException, XMLStreamException {
+        return loadExternalPathFunctionFromSvgFile(svgFile, null);
+    }
+
     @NotNull
     private static String extPathFunctionDisplayName(@NotNull Path file) {
         return R.createExternalPathFunctionDisplayName(file.getFileName().toString());
     }
 
+    /**
+     * Loads a path function file through the {@link PathFunctionCache path functions cache}. Unlike loading from path
+     * data, geometry is parsed right away (on a cache miss), so that it can be cached
+     *
+     * @param attrs attributes of the file if already known, e.g. while walking a directory
+     * @param c cancels parsing of large svg files midway
+     * @return provider of the parsed path, or {@code null} if the file has no path data
+     * */
     @Nullable
-    public static FunctionProviderI loadExternalPathFunctionNoThrow(@NotNull Path file) {
-        try {
-            if (isPathDataFile(file)) {
-                return loadExternalPathFunctionFromPathDataFile(file);
-            }
+    public static FunctionProviderI loadExternalPathFunctionCached(@NotNull Path file, @Nullable BasicFileAttributes attrs, @Nullable CancellationProvider c) throws IOException, XMLStreamException, ParseException {
+        final boolean svg = isSvgFile(file);
+        if (!(svg || isPathDataFile(file)))
+            throw new IllegalArgumentException("Invalid Path Data File Type, supported types: " + R.SVG_FILE_EXTENSION + ", " + R.PATH_DATA_FILE_EXTENSION);
 
-            if (isSvgFile(file)) {
-                return loadExternalPathFunctionFromSvgFile(file);
+        if (attrs == null) {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        }
+
+        final PathFunctionCache cache = PathFunctionCache.getDefault();
+        final long lastModified = attrs.lastModifiedTime().toMillis();
+        PathSegments segments = cache.get(file, attrs.size(), lastModified);
+
+        if (segments == null) {
+            final byte[] content = Files.readAllBytes(file);
+            final byte[] hash = PathFunctionCache.hash(content);
+            segments = cache.get(file, content.length, lastModified, hash);
+
+            if (segments == null) {
+                final List<String> paths = svg? sSvgPathParser.extractPathsFromSvg(new ByteArrayInputStream(content), c): sSvgPathParser.extractPathsFromPathDataFile(new String(content, R.ENCODING));
+                if (CollectionUtil.isEmpty(paths))
+                    return null;
+
+                if (c != null) {
+                    c.throwIfCancelled("Path function load cancelled: " + file);
+                }
+
+                segments = PathSegments.of(PathUtil.parsePathDataStrings(paths.toArray(new String[0])));
+                if (segments.isEmpty())
+                    return null;
+
+                cache.put(file, content.length, lastModified, hash, segments);
             }
+        }
 
-            throw new IllegalArgumentException("Invalid Path Data File Type, supported types: " + R.SVG_FILE_EXTENSION + ", " + R.PATH_DATA_FILE_EXTENSION);
+        return new PathFunctionProvider(new FunctionMeta(FunctionType.EXTERNAL_PATH, extPathFunctionDisplayName(file)), segments);
+    }
+
+    /**
+     * @param c cancels parsing of large svg files midway. Cancellation is not logged as a failure
+     * */
+    @Nullable
+    public static FunctionProviderI loadExternalPathFunctionNoThrow(@NotNull Path file, @Nullable BasicFileAttributes attrs, @Nullable CancellationProvider c) {
+        try {
+            return loadExternalPathFunctionCached(file, attrs, c);
+        } catch (CancellationException ignored) {
         } catch (Throwable t) {
             Log.e(R.TAG, "Exception while loading external function from file <" + file + ">", t);
         }
@@ -120,18 +204,107 @@ public class PathFunctionManager {
         return null;
     }
 
+    @Nullable
+    public static FunctionProviderI loadExternalPathFunctionNoThrow(@NotNull Path file, @Nullable CancellationProvider c) {
+        return loadExternalPathFunctionNoThrow(file, null, c);
+    }
+
+    @Nullable
+    public static FunctionProviderI loadExternalPathFunctionNoThrow(@NotNull Path file) {
+        return loadExternalPathFunctionNoThrow(file, null);
+    }
+
+
+    /* Parallel import */
+
+    /**
+     * Receives path functions as each file of an import completes
+     * */
+    public interface LoadListener {
+
+        /**
+         * Invoked in the order of files, as soon as a file and all files before it complete, so that
+         * functions can be listed while loading, in the same order on every run
+         *
+         * @param provider loaded function, or {@code null} if the file failed to load
+         * @param completed number of files completed so far, including this one
+         * @param total number of files being loaded
+         * */
+        void onFileLoaded(@NotNull Path file, @Nullable FunctionProviderI provider, int completed, int total);
+    }
+
+    /**
+     * @return a listener forwarding to given listener on the UI thread, until cancelled
+     * */
+    @NotNull
+    private static LoadListener postToUi(@NotNull LoadListener listener, @NotNull CancellationProvider c) {
+        return (file, provider, completed, total) -> Async.uiPost(() -> {
+            if (!c.isCancelled()) {
+                listener.onFileLoaded(file, provider, completed, total);
+            }
+        });
+    }
+
+    /**
+     * Loads files on a bounded pool of {@link #IMPORT_MAX_THREADS} threads, through the path functions cache
+     *
+     * @param attrs attributes of each file, or {@code null} to read them
+     * @return providers in the order of files, {@code null} for files that failed or were not loaded due to cancellation
+     * */
+    private static FunctionProviderI @NotNull[] loadParallel(@NotNull Path[] files, @Nullable BasicFileAttributes[] attrs, @Nullable CancellationProvider c, @Nullable LoadListener listener) {
+        final int n = files.length;
+        final FunctionProviderI[] providers = new FunctionProviderI[n];
+        if (n == 0)
+            return providers;
+
+        final int threads = Math.min(IMPORT_MAX_THREADS, n);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+        final boolean[] done = new boolean[n];
+        int next = 0;           // first file not yet handed to the listener
+
+        try {
+            for (int i=0; i < n; i++) {
+                final int index = i;
+                completion.submit(() -> {
+                    if (!(c != null && c.isCancelled())) {
+                        providers[index] = loadExternalPathFunctionNoThrow(files[index], attrs != null? attrs[index]: null, c);
+                    }
+
+                    return index;
+                });
+            }
+
+            for (int i=0; i < n; i++) {
+                done[completion.take().get()] = true;          // publishes providers at the returned index
+                if (c != null && c.isCancelled())
+                    break;
+
+                // release completed files in order
+                for (; next < n && done[next]; next++) {
+                    if (listener != null) {
+                        listener.onFileLoaded(files[next], providers[next], next + 1, n);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());        // load never throws
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return providers;
+    }
+
     @Nullable
     public static FunctionProviderI[] loadExternalPathFunctions(Path[] files, @Nullable CancellationProvider c) {
         if (files == null || files.length == 0)
             return null;
 
-        final FunctionProviderI[] providers = new FunctionProviderI[files.length];
-        for (int i=0; i < files.length; i++) {
-            if (c != null && c.isCancelled())
-                break;
-            providers[i] = loadExternalPathFunctionNoThrow(files[i]);
-        }
-
+        final FunctionProviderI[] providers = loadParallel(files, null, c, null);
+        PathFunctionCache.getDefault().saveIfDirtyNoThrow();
         return providers;
     }
 
@@ -142,13 +315,23 @@ public class PathFunctionManager {
         return exe;
     }
 
+    /**
+     * Loads all path function files in a directory tree, in parallel and through the path functions cache
+     *
+     * @param listener receives each function in directory walk order, on the loading thread
+     * @return providers in directory walk order, with file and directory counts
+     * */
     @Nullable
     @Unmodifiable
-    public static LoadResult loadExternalPathFunctions(@NotNull Path dir, @Nullable CancellationProvider c) {
+    public static LoadResult loadExternalPathFunctions(@NotNull Path dir, @Nullable CancellationProvider c, @Nullable LoadListener listener) {
         if (!Files.isDirectory(dir))
             return null;
 
+        final long start = System.nanoTime();
         final LoadResult result = new LoadResult();
+        final List<Path> files = new ArrayList<>();
+        final List<BasicFileAttributes> attrs = new ArrayList<>();
+
         final FileVisitor<Path> visitor = new FileVisitor<>() {
 
             private FileVisitResult result() {
@@ -162,15 +345,9 @@ public class PathFunctionManager {
             }
 
             @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                boolean success = false;
-                final FunctionProviderI func = loadExternalPathFunctionNoThrow(file);
-                if (func != null) {
-                    result.addFunctionProvider(func);
-                    success = true;
-                }
-
-                result.addFile(success, attrs.size());
+            public FileVisitResult visitFile(Path file, BasicFileAttributes fileAttrs) throws IOException {
+                files.add(file);
+                attrs.add(fileAttrs);
                 return result();
             }
 
@@ -191,16 +368,43 @@ public class PathFunctionManager {
             Log.e(R.TAG, "Exception while loading external functions from dir <" + dir + ">", t);
         }
 
+        final FunctionProviderI[] providers = loadParallel(files.toArray(new Path[0]), attrs.toArray(new BasicFileAttributes[0]), c, listener);
+        for (int i=0; i < providers.length; i++) {
+            final FunctionProviderI func = providers[i];
+            if (func != null) {
+                result.addFunctionProvider(func);
+            }
+
+            result.addFile(func != null, attrs.get(i).size());
+        }
+
+        PathFunctionCache.getDefault().saveIfDirtyNoThrow();
+        Log.v(TAG, String.format("loaded %d/%d path functions from <%s> in %.1f ms", result.successFiles(), providers.length, dir, (System.nanoTime() - start) / 1E6));
         return result;
     }
 
+    @Nullable
+    @Unmodifiable
+    public static LoadResult loadExternalPathFunctions(@NotNull Path dir, @Nullable CancellationProvider c) {
+        return loadExternalPathFunctions(dir, c, null);
+    }
+
+    /**
+     * @param listener receives each function in directory walk order, on the UI thread
+     * @param callback receives the result once all files complete
+     * */
     @NotNull
-    public static Canceller loadExternalPathFunctionsAsync(@NotNull Path dir, @NotNull Consumer<LoadResult> callback) {
+    public static Canceller loadExternalPathFunctionsAsync(@NotNull Path dir, @Nullable LoadListener listener, @NotNull Consumer<LoadResult> callback) {
         final Async.CExecutor exe = new Async.CExecutor();
-        exe.execute((CancellationProvider c) -> loadExternalPathFunctions(dir, c), callback);
+        exe.execute((CancellationProvider c) -> loadExternalPathFunctions(dir, c, listener != null? postToUi(listener, c): null), callback);
         return exe;
     }
 
+    @NotNull
+    public static Canceller loadExternalPathFunctionsAsync(@NotNull Path dir, @NotNull Consumer<LoadResult> callback) {
+        return loadExternalPathFunctionsAsync(dir, null, callback);
+    }
+
 
 
     public static class LoadResult extends DirStat {
@@ -1,18 +1,19 @@
 package util;
 
+import async.CancellationProvider;
+import async.Consumer;
 import misc.Format;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -22,7 +23,10 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Utility that extracts all Path elements from an SVG File
+ * Utility that extracts all Path elements from an SVG File<br>
+ * <br>
+ * SVG files are streamed ({@link XMLStreamReader StAX}), and path elements handed over one by one as they are read. No
+ * document tree is ever built, so memory stays bounded by the largest path rather than the file size
  * */
 public class SvgPathParser {
 
@@ -35,6 +39,19 @@ public class SvgPathParser {
     private static final String SVG_PATH_ATTR_TITLE = "title";
     private static final String SVG_PATH_ATTR_DATA = "d";
 
+    /* Factories are not guaranteed thread safe, and parsers may run concurrently */
+    private static final ThreadLocal<XMLInputFactory> sInputFactory = ThreadLocal.withInitial(SvgPathParser::createInputFactory);
+
+    @NotNull
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);                             // internal entities, e.g. in editor exports
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> InputStream.nullInputStream());        // never fetch external DTDs
+        return factory;
+    }
+
     @NotNull
     public final String lineCommentToken;
 
@@ -60,36 +77,84 @@ public class SvgPathParser {
         return !(pathData == null || pathData.isBlank());
     }
 
+    /**
+     * @return value of the attribute with given local name, in any namespace, or an empty string if absent
+     * */
     @NotNull
-    public List<PathElement> extractSvgPathElements(@NotNull Path svgFile) throws ParserConfigurationException, IOException, SAXException {
-        final DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        final DocumentBuilder builder = docFactory.newDocumentBuilder();
+    private static String getAttribute(@NotNull XMLStreamReader reader, @NotNull String localName) {
+        final String value = reader.getAttributeValue(null, localName);
+        return value != null? value: "";
+    }
 
-        final Document doc = builder.parse(svgFile.toFile());
-        final NodeList pathElements = doc.getElementsByTagName(SVG_ELEMENT_PATH);
-        if (pathElements.getLength() == 0)
-            return Collections.emptyList();
+    /**
+     * Streams all path elements with valid path data, in document order, without building a document tree
+     *
+     * @param c cancels parsing in between elements, by throwing {@link java.util.concurrent.CancellationException}
+     * @param consumer receives path elements as they are read
+     * */
+    public void forEachSvgPathElement(@NotNull Path svgFile, @Nullable CancellationProvider c, @NotNull Consumer<? super PathElement> consumer) throws IOException, XMLStreamException {
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(svgFile))) {
+            forEachSvgPathElement(in, c, consumer);
+        }
+    }
 
-        final List<PathElement> elements = new ArrayList<>(pathElements.getLength() + 2);
-        for (int i=0; i < pathElements.getLength(); i++) {
-            final Node node = pathElements.item(i);
+    /**
+     * Same as {@link #forEachSvgPathElement(Path, CancellationProvider, Consumer)}, over an svg document stream. The stream is not closed
+     * */
+    public void forEachSvgPathElement(@NotNull InputStream in, @Nullable CancellationProvider c, @NotNull Consumer<? super PathElement> consumer) throws XMLStreamException {
+        final XMLStreamReader reader = sInputFactory.get().createXMLStreamReader(in);           // encoding from the xml declaration
 
-            if (!(node instanceof Element element))
-                continue;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT)
+                    continue;
 
-            final String data = element.getAttribute(SVG_PATH_ATTR_DATA);
-            if (isValidPathData(data)) {
-                elements.add(new PathElement(element.getAttribute(SVG_PATH_ATTR_ID), element.getAttribute(SVG_PATH_ATTR_TITLE), data));
+                if (c != null) {
+                    c.throwIfCancelled("SVG parsing cancelled");
+                }
+
+                if (!SVG_ELEMENT_PATH.equals(reader.getLocalName()))
+                    continue;
+
+                final String data = getAttribute(reader, SVG_PATH_ATTR_DATA);
+                if (isValidPathData(data)) {
+                    consumer.consume(new PathElement(getAttribute(reader, SVG_PATH_ATTR_ID), getAttribute(reader, SVG_PATH_ATTR_TITLE), data));
+                }
             }
+        } finally {
+            reader.close();
         }
+    }
 
+    @NotNull
+    public List<PathElement> extractSvgPathElements(@NotNull Path svgFile, @Nullable CancellationProvider c) throws IOException, XMLStreamException {
+        final List<PathElement> elements = new ArrayList<>();
+        forEachSvgPathElement(svgFile, c, elements::add);
         return elements;
     }
 
     @NotNull
-    public List<String> extractPathsFromSvg(@NotNull Path svgFile) throws ParserConfigurationException, IOException, SAXException {
-        final List<PathElement> pes = extractSvgPathElements(svgFile);
-        return pes.stream().map(PathElement::data).collect(Collectors.toList());
+    public List<PathElement> extractSvgPathElements(@NotNull Path svgFile) throws IOException, XMLStreamException {
+        return extractSvgPathElements(svgFile, null);
+    }
+
+    @NotNull
+    public List<String> extractPathsFromSvg(@NotNull Path svgFile, @Nullable CancellationProvider c) throws IOException, XMLStreamException {
+        final List<String> paths = new ArrayList<>();
+        forEachSvgPathElement(svgFile, c, pe -> paths.add(pe.data()));
+        return paths;
+    }
+
+    @NotNull
+    public List<String> extractPathsFromSvg(@NotNull InputStream in, @Nullable CancellationProvider c) throws XMLStreamException {
+        final List<String> paths = new ArrayList<>();
+        forEachSvgPathElement(in, c, pe -> paths.add(pe.data()));
+        return paths;
+    }
+
+    @NotNull
+    public List<String> extractPathsFromSvg(@NotNull Path svgFile) throws IOException, XMLStreamException {
+        return extractPathsFromSvg(svgFile, null);
     }
 
     @NotNull
@@ -113,55 +178,71 @@ public class SvgPathParser {
 
     /* Writing */
 
-    public void writeSvgPaths(@NotNull Path svgFile, boolean pretty, @NotNull Appendable out) throws ParserConfigurationException, IOException, SAXException {
-        final List<PathElement> paths = extractSvgPathElements(svgFile);
-        if (paths.isEmpty())
-            return;
-
-        // Header
-        if (pretty) {
-            final String titleTag = "Source <" + svgFile.getFileName() + "> Parsed by RC SVG Parser";
-            out.append(lineCommentToken)
-                    .append(' ')
-                    .append(titleTag)
-                    .append('\n');
-        }
-
-        final Iterator<PathElement> itr = paths.iterator();
-        while (itr.hasNext()) {
-            final PathElement pe = itr.next();
-
-            if (pretty) {
-                out.append('\n')
-                        .append(lineCommentToken)
-                        .append(" Path ID: ")
-                        .append(pe.id())
-                        .append(", Title: ")
-                        .append(pe.title())
-                        .append('\n');
-            }
-
-            out.append(pe.data());
-
-            // except last element
-            if (itr.hasNext()) {
-                out.append(pathDataDelimiter);
-
-                if (pretty) {
-                    out.append('\n');
+    /**
+     * Writes path data of all path elements as they are read, without holding them
+     * */
+    public void writeSvgPaths(@NotNull Path svgFile, boolean pretty, @NotNull Appendable out, @Nullable CancellationProvider c) throws IOException, XMLStreamException {
+        final boolean[] first = { true };
+
+        try {
+            forEachSvgPathElement(svgFile, c, pe -> {
+                try {
+                    if (first[0]) {
+                        first[0] = false;
+
+                        // Header
+                        if (pretty) {
+                            final String titleTag = "Source <" + svgFile.getFileName() + "> Parsed by RC SVG Parser";
+                            out.append(lineCommentToken)
+                                    .append(' ')
+                                    .append(titleTag)
+                                    .append('\n');
+                        }
+                    } else {
+                        // after each element, except last
+                        out.append(pathDataDelimiter);
+
+                        if (pretty) {
+                            out.append('\n');
+                        }
+                    }
+
+                    if (pretty) {
+                        out.append('\n')
+                                .append(lineCommentToken)
+                                .append(" Path ID: ")
+                                .append(pe.id())
+                                .append(", Title: ")
+                                .append(pe.title())
+                                .append('\n');
+                    }
+
+                    out.append(pe.data());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
-    public void writeSvgPaths(@NotNull Path svgFile, boolean pretty, @NotNull Path outFile) throws ParserConfigurationException, IOException, SAXException {
+    public void writeSvgPaths(@NotNull Path svgFile, boolean pretty, @NotNull Appendable out) throws IOException, XMLStreamException {
+        writeSvgPaths(svgFile, pretty, out, null);
+    }
+
+    public void writeSvgPaths(@NotNull Path svgFile, boolean pretty, @NotNull Path outFile, @Nullable CancellationProvider c) throws IOException, XMLStreamException {
         try (final Writer writer = Files.newBufferedWriter(outFile, encoding)) {
-            writeSvgPaths(svgFile, pretty, writer);
+            writeSvgPaths(svgFile, pretty, writer, c);
         }
     }
 
+    public void writeSvgPaths(@NotNull Path svgFile, boolean pretty, @NotNull Path outFile) throws IOException, XMLStreamException {
+        writeSvgPaths(svgFile, pretty, outFile, null);
+    }
+
     @NotNull
-    public CharSequence writeSvgPathsToString(@NotNull Path svgFile, boolean pretty) throws ParserConfigurationException, IOException, SAXException {
+    public CharSequence writeSvgPathsToString(@NotNull Path svgFile, boolean pretty) throws IOException, XMLStreamException {
         final StringBuilder sb = new StringBuilder();
         writeSvgPaths(svgFile, pretty, sb);
         return sb;
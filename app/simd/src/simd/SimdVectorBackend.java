@@ -0,0 +1,146 @@
+package simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.NotNull;
+import util.main.VectorBackend;
+import util.main.VectorBackendI;
+
+/**
+ * {@link VectorBackendI} built on the incubating {@code jdk.incubator.vector} API, using the preferred (widest) double species
+ * of the platform. Tails shorter than a vector are handled by scalar loops
+ * <br>
+ * Must only be loaded when the vector module is resolved, see {@link VectorBackend}
+ * */
+public final class SimdVectorBackend implements VectorBackendI {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    public SimdVectorBackend() {
+        if (SPECIES.length() < 2)
+            throw new UnsupportedOperationException("No SIMD lanes available for double, species: " + SPECIES);
+    }
+
+    @Override
+    public @NotNull String getName() {
+        return "SIMD (" + SPECIES.vectorBitSize() + " bit, " + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void multiply(double @NotNull [] aRe, double @NotNull [] aIm,
+                         double @NotNull [] bRe, double @NotNull [] bIm,
+                         double @NotNull [] outRe, double @NotNull [] outIm, int n) {
+        final int bound = SPECIES.loopBound(n);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            final DoubleVector ar = DoubleVector.fromArray(SPECIES, aRe, i);
+            final DoubleVector ai = DoubleVector.fromArray(SPECIES, aIm, i);
+            final DoubleVector br = DoubleVector.fromArray(SPECIES, bRe, i);
+            final DoubleVector bi = DoubleVector.fromArray(SPECIES, bIm, i);
+
+            final DoubleVector re = ar.mul(br).sub(ai.mul(bi));
+            final DoubleVector im = ar.mul(bi).add(ai.mul(br));
+            re.intoArray(outRe, i);
+            im.intoArray(outIm, i);
+        }
+
+        for (; i < n; i++) {
+            final double ar = aRe[i], ai = aIm[i];
+            final double br = bRe[i], bi = bIm[i];
+            outRe[i] = (ar * br) - (ai * bi);
+            outIm[i] = (ar * bi) + (ai * br);
+        }
+    }
+
+    @Override
+    public void multiplySum(double @NotNull [] aRe, double @NotNull [] aIm,
+                            double @NotNull [] bRe, double @NotNull [] bIm, int n, double @NotNull [] out) {
+        final int bound = SPECIES.loopBound(n);
+        DoubleVector accRe = DoubleVector.zero(SPECIES);
+        DoubleVector accIm = DoubleVector.zero(SPECIES);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            final DoubleVector ar = DoubleVector.fromArray(SPECIES, aRe, i);
+            final DoubleVector ai = DoubleVector.fromArray(SPECIES, aIm, i);
+            final DoubleVector br = DoubleVector.fromArray(SPECIES, bRe, i);
+            final DoubleVector bi = DoubleVector.fromArray(SPECIES, bIm, i);
+
+            accRe = accRe.add(ar.mul(br).sub(ai.mul(bi)));
+            accIm = accIm.add(ar.mul(bi).add(ai.mul(br)));
+        }
+
+        double sumRe = accRe.reduceLanes(VectorOperators.ADD);
+        double sumIm = accIm.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            final double ar = aRe[i], ai = aIm[i];
+            final double br = bRe[i], bi = bIm[i];
+            sumRe += (ar * br) - (ai * bi);
+            sumIm += (ar * bi) + (ai * br);
+        }
+
+        out[0] = sumRe;
+        out[1] = sumIm;
+    }
+
+    @Override
+    public void expMultiplySum(double @NotNull [] re, double @NotNull [] im, double @NotNull [] w, double t, int n, double @NotNull [] out) {
+        final int bound = SPECIES.loopBound(n);
+        DoubleVector accRe = DoubleVector.zero(SPECIES);
+        DoubleVector accIm = DoubleVector.zero(SPECIES);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            final DoubleVector p = DoubleVector.fromArray(SPECIES, w, i).mul(t);
+            final DoubleVector cos = p.lanewise(VectorOperators.COS);
+            final DoubleVector sin = p.lanewise(VectorOperators.SIN);
+            final DoubleVector cr = DoubleVector.fromArray(SPECIES, re, i);
+            final DoubleVector ci = DoubleVector.fromArray(SPECIES, im, i);
+
+            accRe = accRe.add(cr.mul(cos).sub(ci.mul(sin)));
+            accIm = accIm.add(cr.mul(sin).add(ci.mul(cos)));
+        }
+
+        double sumRe = accRe.reduceLanes(VectorOperators.ADD);
+        double sumIm = accIm.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            final double p = w[i] * t;
+            final double cos = Math.cos(p), sin = Math.sin(p);
+            sumRe += (re[i] * cos) - (im[i] * sin);
+            sumIm += (re[i] * sin) + (im[i] * cos);
+        }
+
+        out[0] = sumRe;
+        out[1] = sumIm;
+    }
+
+    @Override
+    public void sum(double @NotNull [] re, double @NotNull [] im, int n, double @NotNull [] out) {
+        final int bound = SPECIES.loopBound(n);
+        DoubleVector accRe = DoubleVector.zero(SPECIES);
+        DoubleVector accIm = DoubleVector.zero(SPECIES);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            accRe = accRe.add(DoubleVector.fromArray(SPECIES, re, i));
+            accIm = accIm.add(DoubleVector.fromArray(SPECIES, im, i));
+        }
+
+        double sumRe = accRe.reduceLanes(VectorOperators.ADD);
+        double sumIm = accIm.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            sumRe += re[i];
+            sumIm += im[i];
+        }
+
+        out[0] = sumRe;
+        out[1] = sumIm;
+    }
+}
@@ -71,6 +71,16 @@ public abstract class AbstractAnimator<T> implements Runnable {
     public static final Interpolator DEFAULT_INTERPOLATOR = Interpolator.LINEAR;
     public static final long DEFAULT_DURATION_MS = 300;
 
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    /**
+     * Clock of all animators: monotonic {@link System#nanoTime()}, unaffected by wall clock adjustments.<br>
+     * Times given to {@link #update(long)} must be on this clock
+     * */
+    public static long clockNanos() {
+        return System.nanoTime();
+    }
+
     private volatile T mStartVal, mEndValue;
     private volatile T mCurVal;
     private volatile long mDurationMs = DEFAULT_DURATION_MS;
@@ -84,10 +94,11 @@ public abstract class AbstractAnimator<T> implements Runnable {
     private volatile int mTotalRepeatCount = -1;      // < 0 for indefinite
     private volatile int mCurRepetitionCount;
 
+    /* Monotonic clock times, see #clockNanos() */
     @Nullable
-    private volatile Long mStartMs;
+    private volatile Long mStartNanos;
     @Nullable
-    private volatile Long mPausedMs;
+    private volatile Long mPausedNanos;
 
     @NotNull
     private volatile Interpolator mDefaultInterpolator = DEFAULT_INTERPOLATOR;
@@ -284,8 +295,8 @@ public abstract class AbstractAnimator<T> implements Runnable {
         mEnded = false;
         mCurRepetitionCount = 0;        // set before getting start value, to full reset to start state
         mCurVal = getStartValue();
-        mStartMs = null;
-        mPausedMs = null;
+        mStartNanos = null;
+        mPausedNanos = null;
         onReset(wasRunning);
         return wasRunning;
     }
@@ -300,8 +311,8 @@ public abstract class AbstractAnimator<T> implements Runnable {
     public final void backToStart() {
         mCurRepetitionCount = 0;        // set before getting start value, to full reset to start state
         mCurVal = getStartValue();
-        mStartMs = System.currentTimeMillis();
-        mPausedMs = null;        // do not want to add pause it
+        mStartNanos = clockNanos();
+        mPausedNanos = null;        // do not want to add pause it
     }
 
     /**
@@ -329,9 +340,9 @@ public abstract class AbstractAnimator<T> implements Runnable {
 //                return;
         }
 
-        final long newStart = System.currentTimeMillis() - ((long) (elapsedFraction * mDurationMs));
-        mStartMs = newStart;
-        mPausedMs = null;       // do not want to add pause it
+        final long newStart = clockNanos() - ((long) ((double) elapsedFraction * mDurationMs * NANOS_PER_MS));
+        mStartNanos = newStart;
+        mPausedNanos = null;       // do not want to add pause it
     }
 
 
@@ -342,19 +353,19 @@ public abstract class AbstractAnimator<T> implements Runnable {
         final boolean paused = mPaused;
         boolean resumed = false;
 
-        Long startMs = mStartMs;
-        Long pausedMs = mPausedMs;
-        if (startMs == null) {
-            startMs = System.currentTimeMillis();       // first start
-            mStartMs = startMs;
+        Long startNanos = mStartNanos;
+        Long pausedNanos = mPausedNanos;
+        if (startNanos == null) {
+            startNanos = clockNanos();       // first start
+            mStartNanos = startNanos;
             mCurVal = getStartValue();
-        } else if (paused && pausedMs != null) {
-            startMs += (System.currentTimeMillis() - pausedMs);        // add paused duration
-            mStartMs = startMs;
+        } else if (paused && pausedNanos != null) {
+            startNanos += (clockNanos() - pausedNanos);        // add paused duration
+            mStartNanos = startNanos;
             resumed = true;
         }
 
-        mPausedMs = null;
+        mPausedNanos = null;
         mAnimating = true;
         mPaused = false;
         onStarted(resumed);
@@ -364,7 +375,7 @@ public abstract class AbstractAnimator<T> implements Runnable {
         if (!mAnimating)
             return;
 
-        mPausedMs = System.currentTimeMillis();
+        mPausedNanos = clockNanos();
         mAnimating = false;
         mPaused = true;
         onPaused();
@@ -386,32 +397,44 @@ public abstract class AbstractAnimator<T> implements Runnable {
         updateCurrentValue(val);
     }
 
-    public final boolean update() {
-        final Long startMs = mStartMs;
-        if (mEnded || !mAnimating || mPaused || startMs == null)
+    /**
+     * Updates the animation to the given time, e.g. the time of a fixed simulation step
+     *
+     * @param timeNanos time on the {@link #clockNanos() animator clock}
+     * @return whether the animation was updated
+     * */
+    public final boolean update(long timeNanos) {
+        final Long startNanos = mStartNanos;
+        if (mEnded || !mAnimating || mPaused || startNanos == null)
             return false;
 
-        final long durationMs = mDurationMs;
-
-        final long now = System.currentTimeMillis();
-        float fraction = (float) (now - startMs) / durationMs;
+        final long durationNanos = mDurationMs * NANOS_PER_MS;
+        final double fraction = (double) (timeNanos - startNanos) / durationNanos;
         if (fraction < 0) {
-            // bad state
+            // bad state, or time before (re)start
             return false;
         }
 
         if (fraction <= 1) {
-            doUpdate(fraction);
+            doUpdate((float) fraction);
         }
 
         if (fraction >= 1) {
-            onLoopFinished();
+            onLoopFinished(startNanos + durationNanos, timeNanos);
         }
 
         return true;
     }
 
-    private void onLoopFinished() {
+    public final boolean update() {
+        return update(clockNanos());
+    }
+
+    /**
+     * @param loopEndNanos time at which the loop ended
+     * @param timeNanos current time
+     * */
+    private void onLoopFinished(long loopEndNanos, long timeNanos) {
         switch (mRepeatMode) {
             case END -> doEndInternal(EndMode.NORMAL);
             case REPEAT, CYCLE -> {
@@ -420,7 +443,7 @@ public abstract class AbstractAnimator<T> implements Runnable {
                 if (totalRepeatCount >= 0 && totalRepeatCount <= curRepeatCount) {
                     doEndInternal(EndMode.NORMAL);
                 } else {
-                    doRepeatInternal();
+                    doRepeatInternal(loopEndNanos, timeNanos);
                 }
             }
         }
@@ -438,12 +461,14 @@ public abstract class AbstractAnimator<T> implements Runnable {
         return mCurVal;
     }
 
-    private void doRepeatInternal() {
+    private void doRepeatInternal(long loopEndNanos, long timeNanos) {
         final int curRepCount = mCurRepetitionCount;
         mCurRepetitionCount = curRepCount + 1;
         mCurVal = getStartValue();
-        mStartMs = System.currentTimeMillis();
-        mPausedMs = null;
+
+        // Next loop starts where the previous one ended, so fixed steps keep their phase. Unless it lags more than a loop behind
+        mStartNanos = timeNanos - loopEndNanos < mDurationMs * NANOS_PER_MS? loopEndNanos: timeNanos;
+        mPausedNanos = null;
         onRepeat();
     }
 
@@ -466,7 +491,7 @@ public abstract class AbstractAnimator<T> implements Runnable {
     private void doEndInternal(@NotNull AbstractAnimator.EndMode endMode) {
         mAnimating = false;
         mPaused = false;
-        mPausedMs = null;
+        mPausedNanos = null;
 
         if (endMode != EndMode.CANCEL) {
             mCurVal = getEndValue();
@@ -481,12 +506,12 @@ public abstract class AbstractAnimator<T> implements Runnable {
     /* Callbacks */
 
     private void doDurationChangedInternal(long previousDurationMs, long newDurationMs) {
-        final Long start = mStartMs;
+        final Long start = mStartNanos;
         if (start != null) {
             // Change start time such that elapsed fraction remains same with newDuration
             final double fraction = (double) newDurationMs / previousDurationMs;
-            final long start2 = (long) ((start * fraction) + (System.currentTimeMillis() * (1 - fraction)));
-            mStartMs = start2;
+            final long now = clockNanos();
+            mStartNanos = now - (long) ((now - start) * fraction);
         }
 
         onDurationChanged(previousDurationMs, newDurationMs);
@@ -539,8 +564,8 @@ public abstract class AbstractAnimator<T> implements Runnable {
                 ", RepeatMode=" + mRepeatMode +
                 ", TotalRepeatCount=" + mTotalRepeatCount +
                 ", CurRepetitionCount=" + mCurRepetitionCount +
-                ", StartMills=" + mStartMs +
-                ", PausedMs=" + mPausedMs +
+                ", StartNanos=" + mStartNanos +
+                ", PausedNanos=" + mPausedNanos +
                 ", DefaultInterpolator=" + mDefaultInterpolator +
                 ", Interpolator=" + mInterpolator +
                 ", Tag=" + mTag +
@@ -0,0 +1,235 @@
+package animation.clock;
+
+import animation.animator.AbstractAnimator;
+import misc.Log;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed timestep simulation clock, stepping a {@link Callback} on a dedicated thread, paced by {@link System#nanoTime()}<br>
+ * <br>
+ * Simulation time advances by exactly {@link #getStepNanos() step} per {@link Callback#onStep(long) step}, independent of
+ * rendering. When the clock thread falls behind (GC pause, busy cores), it catches up with back to back steps, so no step is
+ * lost. Beyond {@link #getMaxCatchUpSteps()} steps behind, the remaining steps are dropped (counted in {@link #getDroppedSteps()})
+ * and simulation time jumps to the present.
+ * <br>
+ * Simulation time is on the {@link AbstractAnimator#clockNanos() animator clock}, so it can be given directly to
+ * {@link AbstractAnimator#update(long)}.
+ * <br>
+ * While {@link #setRunning(boolean) not running}, the thread parks without stepping
+ * */
+public final class FixedStepClock {
+
+    public static final String TAG = "FixedStepClock";
+
+    public static final long DEFAULT_STEP_NANOS = 10_000_000L;         // 100 Hz
+    public static final int DEFAULT_MAX_CATCH_UP_STEPS = 25;
+
+    public interface Callback {
+
+        /**
+         * Advances the simulation to the given time. Called on the clock thread
+         *
+         * @param simTimeNanos simulation time, on the {@link AbstractAnimator#clockNanos() animator clock}
+         * */
+        void onStep(long simTimeNanos);
+
+        /**
+         * Called on the clock thread after the steps of a tick, once simulation has caught up with the present.<br>
+         * This is where to publish the simulation state for rendering
+         *
+         * @param steps number of steps since the last call
+         * */
+        default void onStepsCompleted(long simTimeNanos, int steps) { }
+    }
+
+
+    @NotNull
+    private final String mName;
+    private final long mStepNanos;
+    private final int mMaxCatchUpSteps;
+    @NotNull
+    private final Callback mCallback;
+
+    private volatile Thread mThread;
+    private volatile boolean mRunning;
+    private volatile boolean mResync = true;
+
+    private volatile long mSimTimeNanos;
+    private volatile long mLagNanos;
+    private final AtomicLong mStepCount = new AtomicLong();
+    private final AtomicLong mDroppedSteps = new AtomicLong();
+
+    public FixedStepClock(@NotNull String name, long stepNanos, int maxCatchUpSteps, @NotNull Callback callback) {
+        if (stepNanos <= 0)
+            throw new IllegalArgumentException("Step must be positive, given " + stepNanos + " ns");
+
+        mName = name;
+        mStepNanos = stepNanos;
+        mMaxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+        mCallback = callback;
+    }
+
+    public FixedStepClock(@NotNull String name, @NotNull Callback callback) {
+        this(name, DEFAULT_STEP_NANOS, DEFAULT_MAX_CATCH_UP_STEPS, callback);
+    }
+
+    public long getStepNanos() {
+        return mStepNanos;
+    }
+
+    public int getMaxCatchUpSteps() {
+        return mMaxCatchUpSteps;
+    }
+
+    /**
+     * @return time of the last simulation step
+     * */
+    public long getSimTimeNanos() {
+        return mSimTimeNanos;
+    }
+
+    /**
+     * @return how far simulation time lagged behind the clock after the last tick. Normally less than a step
+     * */
+    public long getLagNanos() {
+        return mLagNanos;
+    }
+
+    public long getStepCount() {
+        return mStepCount.get();
+    }
+
+    /**
+     * @return steps skipped because the clock thread fell more than {@link #getMaxCatchUpSteps()} behind
+     * */
+    public long getDroppedSteps() {
+        return mDroppedSteps.get();
+    }
+
+    public boolean isStarted() {
+        return mThread != null;
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Starts or resumes stepping. On resume, simulation time restarts from the present, instead of catching up the idle time
+     * */
+    public void setRunning(boolean running) {
+        if (mRunning == running)
+            return;
+
+        if (running) {
+            mResync = true;
+        }
+
+        mRunning = running;
+
+        final Thread t = mThread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * Starts the clock thread, if not already started
+     * */
+    public synchronized void start() {
+        if (mThread != null)
+            return;
+
+        final Thread t = new Thread(this::loop, mName);
+        t.setDaemon(true);
+        t.setPriority(Math.min(Thread.MAX_PRIORITY, Thread.NORM_PRIORITY + 1));
+        mThread = t;
+        t.start();
+    }
+
+    /**
+     * Stops the clock thread. It can be {@link #start() started} again
+     * */
+    public synchronized void stop() {
+        final Thread t = mThread;
+        if (t == null)
+            return;
+
+        mThread = null;
+        t.interrupt();
+        LockSupport.unpark(t);
+    }
+
+    private void loop() {
+        final Thread self = Thread.currentThread();
+        final long step = mStepNanos;
+        long sim = AbstractAnimator.clockNanos();
+
+        while (mThread == self && !self.isInterrupted()) {
+            if (!mRunning) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            final long now = AbstractAnimator.clockNanos();
+            if (mResync) {
+                mResync = false;
+                sim = now - step;           // step right away
+            }
+
+            int steps = 0;
+            while (now - sim >= step) {
+                if (steps == mMaxCatchUpSteps) {
+                    final long behind = (now - sim) / step;
+                    mDroppedSteps.addAndGet(behind);
+                    sim += behind * step;
+                    break;
+                }
+
+                sim += step;
+                mSimTimeNanos = sim;
+
+                try {
+                    mCallback.onStep(sim);
+                } catch (Throwable t) {
+                    Log.e(TAG, mName + ": simulation step failed", t);
+                }
+
+                steps++;
+            }
+
+            if (steps > 0) {
+                mStepCount.addAndGet(steps);
+
+                try {
+                    mCallback.onStepsCompleted(sim, steps);
+                } catch (Throwable t) {
+                    Log.e(TAG, mName + ": simulation publish failed", t);
+                }
+            }
+
+            final long after = AbstractAnimator.clockNanos();
+            mLagNanos = Math.max(0, after - sim);
+
+            final long wait = (sim + step) - after;
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FixedStepClock{" +
+                "name=" + mName +
+                ", stepNanos=" + mStepNanos +
+                ", running=" + mRunning +
+                ", steps=" + getStepCount() +
+                ", droppedSteps=" + getDroppedSteps() +
+                ", lagNanos=" + mLagNanos +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+package animation.clock;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Rendering statistics over a window of recent frames: frame intervals and durations (with percentiles), frames dropped
+ * (published by the simulation but superseded before being rendered), and the skew between simulation and render time<br>
+ * <br>
+ * Recorded on the render thread, {@link #snapshot() snapshot} can be taken from any thread
+ * */
+public final class FrameStats {
+
+    public static final int DEFAULT_WINDOW = 240;
+
+    /**
+     * @param frames frames rendered in total
+     * @param droppedFrames frames published but never rendered, in total
+     * @param intervalP50Nanos median interval between consecutive frames (within window)
+     * @param intervalP95Nanos 95th percentile of frame interval
+     * @param intervalP99Nanos 99th percentile of frame interval
+     * @param renderP50Nanos median time to render a frame
+     * @param renderP99Nanos 99th percentile of render time
+     * @param skewNanos age of the simulation state when last rendered (render time - simulation time)
+     * */
+    public record Summary(long frames,
+                          long droppedFrames,
+                          long intervalP50Nanos,
+                          long intervalP95Nanos,
+                          long intervalP99Nanos,
+                          long renderP50Nanos,
+                          long renderP99Nanos,
+                          long skewNanos) {
+
+        public static final Summary EMPTY = new Summary(0, 0, 0, 0, 0, 0, 0, 0);
+
+        public double fps() {
+            return intervalP50Nanos > 0? 1e9 / intervalP50Nanos: 0;
+        }
+
+        @NotNull
+        public String toShortString() {
+            return String.format("%.0f fps | interval p50 %.1f, p95 %.1f, p99 %.1f ms | render p50 %.1f, p99 %.1f ms | dropped %d | skew %.1f ms",
+                    fps(), intervalP50Nanos / 1e6, intervalP95Nanos / 1e6, intervalP99Nanos / 1e6,
+                    renderP50Nanos / 1e6, renderP99Nanos / 1e6, droppedFrames, skewNanos / 1e6);
+        }
+    }
+
+
+    private final long[] mIntervals;
+    private final long[] mRenderTimes;
+    private int mCount;             // recorded in window
+    private int mNext;
+
+    private long mFrames;
+    private long mDroppedFrames;
+    private long mSkewNanos;
+    private long mLastFrameStartNanos = -1;
+    private long mLastFrameSeq = -1;
+
+    public FrameStats(int window) {
+        if (window < 1)
+            throw new IllegalArgumentException("Frame stats window must be positive, given " + window);
+
+        mIntervals = new long[window];
+        mRenderTimes = new long[window];
+    }
+
+    public FrameStats() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Records a rendered frame
+     *
+     * @param startNanos when rendering started
+     * @param endNanos when rendering finished
+     * @param frameSeq sequence of the published simulation frame rendered, to count dropped frames. {@code < 0} if unknown
+     * @param simTimeNanos simulation time of the rendered frame, on the same clock as start
+     * */
+    public synchronized void record(long startNanos, long endNanos, long frameSeq, long simTimeNanos) {
+        final long last = mLastFrameStartNanos;
+        mLastFrameStartNanos = startNanos;
+        mFrames++;
+
+        if (frameSeq >= 0) {
+            final long lastSeq = mLastFrameSeq;
+            if (lastSeq >= 0 && frameSeq > lastSeq + 1) {
+                mDroppedFrames += frameSeq - lastSeq - 1;
+            }
+
+            mLastFrameSeq = frameSeq;
+            mSkewNanos = startNanos - simTimeNanos;
+        }
+
+        if (last < 0)
+            return;         // no interval yet
+
+        mIntervals[mNext] = startNanos - last;
+        mRenderTimes[mNext] = endNanos - startNanos;
+        mNext = (mNext + 1) % mIntervals.length;
+        if (mCount < mIntervals.length) {
+            mCount++;
+        }
+    }
+
+    /**
+     * Forgets the last frame, so that the pause until the next one is not taken as an interval
+     * */
+    public synchronized void markIdle() {
+        mLastFrameStartNanos = -1;
+        mLastFrameSeq = -1;
+    }
+
+    public synchronized void reset() {
+        markIdle();
+        mCount = mNext = 0;
+        mFrames = mDroppedFrames = mSkewNanos = 0;
+    }
+
+    private static long percentile(long @NotNull[] sorted, int count, double p) {
+        if (count == 0)
+            return 0;
+
+        return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)];
+    }
+
+    @NotNull
+    public synchronized Summary snapshot() {
+        if (mFrames == 0)
+            return Summary.EMPTY;
+
+        final int count = mCount;
+        final long[] intervals = Arrays.copyOf(mIntervals, count);
+        final long[] renders = Arrays.copyOf(mRenderTimes, count);
+        Arrays.sort(intervals);
+        Arrays.sort(renders);
+
+        return new Summary(mFrames, mDroppedFrames,
+                percentile(intervals, count, 0.5), percentile(intervals, count, 0.95), percentile(intervals, count, 0.99),
+                percentile(renders, count, 0.5), percentile(renders, count, 0.99),
+                mSkewNanos);
+    }
+}
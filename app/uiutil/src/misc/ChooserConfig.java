@@ -7,11 +7,13 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import java.awt.*;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Configurations for {@link JFileChooser}
@@ -83,6 +85,12 @@ public class ChooserConfig {
     @Nullable
     private String approveButtonTooltipText;
 
+    /**
+     * Accessory shown beside the file list. If it is a {@link PropertyChangeListener}, it also listens to the chooser,
+     * e.g. for {@link JFileChooser#SELECTED_FILE_CHANGED_PROPERTY} to preview the selected file
+     * */
+    @Nullable
+    private JComponent accessory;
 
 
     public static class Builder {
@@ -165,6 +173,11 @@ public class ChooserConfig {
             config.approveButtonTooltipText = approveButtonTooltipText;
             return this;
         }
+
+        public Builder setAccessory(@Nullable JComponent accessory) {
+            config.accessory = accessory;
+            return this;
+        }
     }
 
 
@@ -182,6 +195,7 @@ public class ChooserConfig {
         choosableFileFilters = src.choosableFileFilters != null? new ArrayList<>(src.choosableFileFilters): null;
         approveButtonText = src.approveButtonText;
         approveButtonTooltipText = src.approveButtonTooltipText;
+        accessory = src.accessory;
     }
 
     @NotNull
@@ -246,6 +260,11 @@ public class ChooserConfig {
         return approveButtonTooltipText;
     }
 
+    @Nullable
+    public JComponent getAccessory() {
+        return accessory;
+    }
+
 
 
     /* Defaults */
@@ -333,15 +352,35 @@ public class ChooserConfig {
             chooser.setApproveButtonToolTipText(approveButtonTooltipText);
         }
 
+        final JComponent accessory = config.getAccessory();
+        if (accessory != null) {
+            chooser.setAccessory(accessory);
+            if (accessory instanceof PropertyChangeListener listener) {
+                chooser.addPropertyChangeListener(listener);
+            }
+        }
+
         return chooser;
     }
 
     @Nullable
     public static File[] showFileChooser(@Nullable Component parent, @NotNull ChooserConfig config) {
+        return showFileChooser(parent, config, null);
+    }
+
+    /**
+     * @param selectedFilterConsumer receives the file filter selected when the dialog is approved (if any), e.g. to pick a save format
+     * */
+    @Nullable
+    public static File[] showFileChooser(@Nullable Component parent, @NotNull ChooserConfig config, @Nullable Consumer<FileFilter> selectedFilterConsumer) {
         final JFileChooser chooser = createFileChooser(config);
 
         final int option = chooser.showDialog(parent, null);
         if (option == JFileChooser.APPROVE_OPTION) {
+            if (selectedFilterConsumer != null) {
+                selectedFilterConsumer.accept(chooser.getFileFilter());
+            }
+
             if (chooser.isMultiSelectionEnabled()) {
                 final File[] files =  chooser.getSelectedFiles();
                 return files == null || files.length == 0? null: files;
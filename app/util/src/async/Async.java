@@ -8,6 +8,7 @@ import java.awt.*;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 
 public class Async {
@@ -22,6 +23,12 @@ public class Async {
      * */
     public static final ExecutorService THREAD_POOL_EXECUTOR = Executors.newCachedThreadPool();
 
+    /**
+     * Work-stealing pool for cpu bound parallel computations, with parallelism bounded to {@link #NO_CPU_CORES}.<br>
+     * Unlike {@link #THREAD_POOL_EXECUTOR}, submitting many tasks never oversubscribes cores
+     * */
+    public static final ForkJoinPool COMPUTE_POOL = new ForkJoinPool(NO_CPU_CORES);
+
 //    /**
 //     *  Handler of Main(UI) thread
 //     *  */
@@ -484,5 +491,6 @@ public class Async {
 
     public static void shutDown() {
         THREAD_POOL_EXECUTOR.shutdownNow();
+        COMPUTE_POOL.shutdownNow();
     }
 }
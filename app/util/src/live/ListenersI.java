@@ -30,6 +30,9 @@ public interface ListenersI<T> {
     }
 
     default void dispatchOnMainThread(@NotNull Consumer<T> action) {
+        if (listenersCount() == 0)
+            return;         // do not touch the main (ui) thread for nothing, e.g. in headless runs
+
         Async.postIfNotOnMainThread(() -> forEachListener(action));
     }
 
@@ -166,33 +166,33 @@ public class MathUtil {
 
     /* ....................................... Trigonometry  ................................. */
 
-    public static float sinexact(double rad) {
-        return (float) Math.sin(rad);
+    public static double sinexact(double rad) {
+        return Math.sin(rad);
     }
 
-    public static float cosexact(double rad) {
-        return (float) Math.cos(rad);
+    public static double cosexact(double rad) {
+        return Math.cos(rad);
     }
 
     public static float sinfast(float rad) {
-        return sFastEnabled? FastSinLookup.sin(rad): sinexact(rad);
+        return sFastEnabled? (float) FastSinLookup.sin(rad): (float) Math.sin(rad);
     }
 
-    public static float sinfast(double rad) {
+    public static double sinfast(double rad) {
         return sFastEnabled? FastSinLookup.sin(rad): sinexact(rad);
     }
 
     public static float cosfast(float rad) {
-        return sFastEnabled? FastSinLookup.cos(rad): cosexact(rad);
+        return sFastEnabled? (float) FastSinLookup.cos(rad): (float) Math.cos(rad);
     }
 
-    public static float cosfast(double rad) {
+    public static double cosfast(double rad) {
         return sFastEnabled? FastSinLookup.cos(rad): cosexact(rad);
     }
 
     public static void sincosexact(float rad, float @NotNull[] dest) {
-        dest[0] = sinexact(rad);
-        dest[1] = cosexact(rad);
+        dest[0] = (float) Math.sin(rad);
+        dest[1] = (float) Math.cos(rad);
     }
 
     public static void sincosfast(float rad, float @NotNull[] dest) {
@@ -203,78 +203,283 @@ public class MathUtil {
         }
     }
 
+    /**
+     * Batched sine and cosine of first {@code n} inputs, by {@link FastSinLookup lookup} if {@link #isFastEnabled() fast} is enabled
+     * */
+    public static void sincos(double @NotNull[] in, double @NotNull[] sinOut, double @NotNull[] cosOut, int n) {
+        if (sFastEnabled) {
+            FastSinLookup.sincos(in, sinOut, cosOut, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                sinOut[i] = Math.sin(in[i]);
+                cosOut[i] = Math.cos(in[i]);
+            }
+        }
+    }
+
+    public static void sincos(double @NotNull[] in, double @NotNull[] sinOut, double @NotNull[] cosOut) {
+        sincos(in, sinOut, cosOut, in.length);
+    }
+
 
 
     /**
-     * A lookup table for extremely fast sin and cos
+     * A double precision lookup table for fast sin and cos, interpolated between entries<br>
+     * <br>
+     * Table size and interpolation are chosen at {@link #init(int, Interpolation) init} (interpolation follows app settings). Error bounds over a table of {@code 2^bits}
+     * entries per turn (step {@code h = 2π / 2^bits})
+     * <pre>
+     *     LINEAR   h² / 8          bits 12: 2.9e-7
+     *     TAYLOR   h⁵ / 120        bits 12: 7.1e-17
+     * </pre>
+     * TAYLOR expands {@code sin(x + d) = sin(x).cos(d) + cos(x).sin(d)} from the entry {@code x} below the input, with
+     * {@code sin(d) ≈ d - d³/6} and {@code cos(d) ≈ 1 - d²/2 + d⁴/24}. It reads a single entry and needs no division.<br>
+     * Measured errors (against {@link Math#sin(double)}) are given by {@link Table#measureMaxError(int)}, and are within
+     * these bounds plus double rounding (~1e-15) and argument rounding, which grows with input magnitude (~5e-12 at 4e4 rad)
      * */
     public static final class FastSinLookup {
 
-        private static final int SIN_BITS;
-        private static final int SIN_MASK;
-        private static final int SIN_COUNT;
-        private static final float radToIndex;
+        public enum Interpolation {
+            /** Linear interpolation between adjacent entries */
+            LINEAR("Linear"),
+
+            /** Angle addition from the entry below, with sin and cos of the remainder by Taylor polynomials (to d³ and d⁴) */
+            TAYLOR("Taylor");
+
+            @NotNull
+            public final String displayName;
+
+            Interpolation(@NotNull String displayName) {
+                this.displayName = displayName;
+            }
+        }
+
+        public static final int DEFAULT_TABLE_BITS = 12;
+        public static final int MIN_TABLE_BITS = 4;
+        public static final int MAX_TABLE_BITS = 20;
+        public static final Interpolation DEFAULT_INTERPOLATION = Interpolation.TAYLOR;
+
+        private static final double ONE_SIXTH = 1.0 / 6;
+        private static final double ONE_TWENTY_FOURTH = 1.0 / 24;
+
+        /**
+         * Immutable sin/cos table of a given size and interpolation
+         * */
+        public static final class Table {
+
+            private final int bits;
+            private final int mask;
+            private final double step;
+            private final double radToIndex;
+            @NotNull
+            private final Interpolation interpolation;
+
+            /* one extra entry at the end, so that interpolation never wraps */
+            private final double[] sin;
+            private final double[] cos;
+
+            public Table(int bits, @NotNull Interpolation interpolation) {
+                if (bits < MIN_TABLE_BITS || bits > MAX_TABLE_BITS)
+                    throw new IllegalArgumentException("Table bits must be in range [" + MIN_TABLE_BITS + ", " + MAX_TABLE_BITS + "], given " + bits);
+
+                this.bits = bits;
+                this.interpolation = interpolation;
+
+                final int count = 1 << bits;
+                mask = count - 1;
+                step = (2 * Math.PI) / count;
+                radToIndex = count / (2 * Math.PI);
+
+                sin = new double[count + 1];
+                cos = new double[count + 1];
+                for (int i = 0; i <= count; i++) {
+                    sin[i] = Math.sin(i * step);
+                    cos[i] = Math.cos(i * step);
+                }
+            }
+
+            public int getBits() {
+                return bits;
+            }
+
+            @NotNull
+            public Interpolation getInterpolation() {
+                return interpolation;
+            }
+
+            /**
+             * @return theoretical max absolute error of interpolation (excluding rounding)
+             * */
+            public double getErrorBound() {
+                return interpolation == Interpolation.TAYLOR? Math.pow(step, 5) / 120: (step * step) / 8;
+            }
 
-        private static final float[] sin;
-        private static final float[] cos;
+            /**
+             * Computes {@code sin} into {@code sinOut[sinIndex]} and {@code cos} into {@code cosOut[cosIndex]}, from a single lookup
+             * */
+            private void sincosInternal(double rad, double @NotNull[] sinOut, int sinIndex, double @NotNull[] cosOut, int cosIndex) {
+                final double t = rad * radToIndex;
+                long k = (long) t;
+                double f = t - k;
+                if (f < 0) {
+                    f += 1;
+                    k--;
+                }
+
+                final int i = (int) (k & mask);
+                final double s0 = sin[i], c0 = cos[i];
+
+                if (interpolation == Interpolation.LINEAR) {
+                    sinOut[sinIndex] = s0 + (f * (sin[i + 1] - s0));
+                    cosOut[cosIndex] = c0 + (f * (cos[i + 1] - c0));
+                    return;
+                }
+
+                final double d = f * step, d2 = d * d;
+                final double sd = d * (1 - (d2 * ONE_SIXTH));
+                final double cd = 1 - (d2 * (0.5 - (d2 * ONE_TWENTY_FOURTH)));
+
+                sinOut[sinIndex] = (s0 * cd) + (c0 * sd);
+                cosOut[cosIndex] = (c0 * cd) - (s0 * sd);
+            }
+
+            /**
+             * Computes {@code sin} into {@code dest[0]} and {@code cos} into {@code dest[1]}, from a single lookup. Allocation free
+             * */
+            public void sincos(double rad, double @NotNull[] dest) {
+                sincosInternal(rad, dest, 0, dest, 1);
+            }
+
+            public double sin(double rad) {
+                final double t = rad * radToIndex;
+                long k = (long) t;
+                double f = t - k;
+                if (f < 0) {
+                    f += 1;
+                    k--;
+                }
+
+                final int i = (int) (k & mask);
+                final double s0 = sin[i];
+                if (interpolation == Interpolation.LINEAR)
+                    return s0 + (f * (sin[i + 1] - s0));
+
+                final double d = f * step, d2 = d * d;
+                return (s0 * (1 - (d2 * (0.5 - (d2 * ONE_TWENTY_FOURTH))))) + (cos[i] * d * (1 - (d2 * ONE_SIXTH)));
+            }
 
-        static {
-            SIN_BITS = 12;
-            SIN_MASK = ~(-1 << SIN_BITS);
-            SIN_COUNT = SIN_MASK + 1;
+            public double cos(double rad) {
+                final double t = rad * radToIndex;
+                long k = (long) t;
+                double f = t - k;
+                if (f < 0) {
+                    f += 1;
+                    k--;
+                }
+
+                final int i = (int) (k & mask);
+                final double c0 = cos[i];
+                if (interpolation == Interpolation.LINEAR)
+                    return c0 + (f * (cos[i + 1] - c0));
+
+                final double d = f * step, d2 = d * d;
+                return (c0 * (1 - (d2 * (0.5 - (d2 * ONE_TWENTY_FOURTH))))) - (sin[i] * d * (1 - (d2 * ONE_SIXTH)));
+            }
 
-            radToIndex = SIN_COUNT / TWO_PI;
-            sin = new float[SIN_COUNT];
-            cos = new float[SIN_COUNT];
+            /**
+             * Batched sin and cos of first {@code n} inputs, written straight into the outputs. Allocation free
+             * */
+            public void sincos(double @NotNull[] in, double @NotNull[] sinOut, double @NotNull[] cosOut, int n) {
+                for (int j = 0; j < n; j++) {
+                    sincosInternal(in[j], sinOut, j, cosOut, j);
+                }
+            }
 
-            for (int i = 0; i < SIN_COUNT; i++) {
-                sin[i] = (float) Math.sin((i + 0.5f) / SIN_COUNT * TWO_PI);
-                cos[i] = (float) Math.cos((i + 0.5f) / SIN_COUNT * TWO_PI);
+            /**
+             * Measures max absolute error of sin and cos against {@link Math#sin(double)} and {@link Math#cos(double)},
+             * over {@code samples} inputs spread over one turn (offset from table entries)
+             * */
+            public double measureMaxError(int samples) {
+                double max = 0;
+                for (int j = 0; j < samples; j++) {
+                    final double x = ((j + 0.37) / samples) * 2 * Math.PI;
+                    max = Math.max(max, Math.abs(sin(x) - Math.sin(x)));
+                    max = Math.max(max, Math.abs(cos(x) - Math.cos(x)));
+                }
+
+                return max;
             }
 
-            // Four cardinal directions (credits: Nate)
-            sin[0] = 0;
-            sin[radIndexInternal(HALF_PI)] = 1;
-            sin[radIndexInternal(PI)] = 0;
-            sin[radIndexInternal(THREE_HALF_PI)] = -1;
-            sin[radIndexInternal(TWO_PI)] = 0;
-
-            cos[0] = 1;
-            cos[radIndexInternal(HALF_PI)] = 0;
-            cos[radIndexInternal(PI)] = -1;
-            cos[radIndexInternal(THREE_HALF_PI)] = 0;
-            cos[radIndexInternal(TWO_PI)] = 1;
+            @Override
+            public String toString() {
+                return "FastSinLookup.Table{bits=" + bits + ", interpolation=" + interpolation + ", errorBound=" + getErrorBound() + "}";
+            }
         }
 
 
+        @NotNull
+        private static volatile Table sTable = new Table(DEFAULT_TABLE_BITS, DEFAULT_INTERPOLATION);
+
         private static void init() {
             // just call to load the class
         }
 
-        private static int radIndexInternal(float rad) {
-            return (int) (rad * radToIndex) & SIN_MASK;
+        /**
+         * Rebuilds the lookup table with given size ({@code 2^bits} entries per turn) and interpolation
+         *
+         * @return whether the table is rebuilt
+         * */
+        public static synchronized boolean init(int bits, @NotNull Interpolation interpolation) {
+            final Table table = sTable;
+            if (table.bits == bits && table.interpolation == interpolation)
+                return false;
+
+            sTable = new Table(bits, interpolation);
+            return true;
+        }
+
+        /**
+         * Rebuilds the lookup table with given interpolation, keeping its size
+         *
+         * @return whether the table is rebuilt
+         * */
+        public static boolean setInterpolation(@NotNull Interpolation interpolation) {
+            return init(sTable.bits, interpolation);
         }
 
-        public static float sin(float rad) {
-            return sin[(int) (rad * radToIndex) & SIN_MASK];
+        @NotNull
+        public static Interpolation getInterpolation() {
+            return sTable.interpolation;
         }
 
-        public static float cos(float rad) {
-            return cos[(int) (rad * radToIndex) & SIN_MASK];
+        @NotNull
+        public static Table getTable() {
+            return sTable;
         }
 
-        public static float sin(double rad) {
-            return sin[(int) (rad * radToIndex) & SIN_MASK];
+        public static double sin(double rad) {
+            return sTable.sin(rad);
         }
 
-        public static float cos(double rad) {
-            return cos[(int) (rad * radToIndex) & SIN_MASK];
+        public static double cos(double rad) {
+            return sTable.cos(rad);
         }
 
         public static void sincos(float rad, float @NotNull [] dest) {
-            final int i = (int) (rad * radToIndex) & SIN_MASK;
-            dest[0] = sin[i];
-            dest[1] = cos[i];
+            final Table table = sTable;
+            dest[0] = (float) table.sin(rad);
+            dest[1] = (float) table.cos(rad);
+        }
+
+        /**
+         * @see Table#sincos(double, double[])
+         * */
+        public static void sincos(double rad, double @NotNull[] dest) {
+            sTable.sincos(rad, dest);
+        }
+
+        public static void sincos(double @NotNull[] in, double @NotNull[] sinOut, double @NotNull[] cosOut, int n) {
+            sTable.sincos(in, sinOut, cosOut, n);
         }
     }
 }